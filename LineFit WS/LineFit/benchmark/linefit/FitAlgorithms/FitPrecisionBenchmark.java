@@ -0,0 +1,257 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit.FitAlgorithms;
+
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Random;
+
+import linefit.DataDimension;
+
+
+/** A small benchmark of the high precision fit sums that compares the speed and the accuracy of summing the fit
+ * moments in double-double precision with summing them in plain doubles. The points are badly conditioned on purpose,
+ * with x values like time stamps that have a large offset and a small spread, and the accuracy is measured against
+ * sums done exactly with BigDecimal. It is kept in its own benchmark source folder outside of src so that it is not
+ * built into LineFit. It is in the same package as the fit sums so that it can use them directly, and after compiling
+ * LineFit into a classes folder it can be compiled and run against them with
+ * 
+ * javac -cp classes -d benchmarks benchmark/linefit/FitAlgorithms/FitPrecisionBenchmark.java
+ * 
+ * java -cp classes:benchmarks linefit.FitAlgorithms.FitPrecisionBenchmark [number of points] [repeats]
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public class FitPrecisionBenchmark
+{
+    /** The number of points timed if none is passed */
+    private final static int DEFAULT_NUMBER_OF_POINTS = 1000000;
+    /** The number of times each sum is timed if no number is passed */
+    private final static int DEFAULT_REPEATS = 15;
+    /** The number of points in the small fit that is checked for its Chi Squared */
+    private final static int SMALL_FIT_POINTS = 200;
+    /** The offset of the x values, which is about the number of seconds of a current time stamp */
+    private final static double X_OFFSET = 1.7e9;
+    /** The spacing between the x values */
+    private final static double X_SPACING = 1e-3;
+    /** The precision used to divide the exact BigDecimal sums */
+    private final static MathContext REFERENCE_PRECISION = new MathContext(60);
+
+    /** The benchmark only has static methods so no instances are made of it */
+    private FitPrecisionBenchmark()
+    {
+    }
+
+    /** Runs the benchmark and prints the results
+     * 
+     * @param args Optionally the number of points to time and the number of times to time each sum */
+    public static void main(String[] args)
+    {
+        int numberOfPoints = DEFAULT_NUMBER_OF_POINTS;
+        int repeats = DEFAULT_REPEATS;
+        try
+        {
+            if (args.length > 0)
+            {
+                numberOfPoints = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1)
+            {
+                repeats = Integer.parseInt(args[1]);
+            }
+        }
+        catch (NumberFormatException nfe)
+        {
+            System.err.println("The number of points and repeats must be whole numbers");
+            return;
+        }
+
+        Double[][] data = createPoints(numberOfPoints, 1);
+        double[] weights = createWeights(data);
+        System.out.println(numberOfPoints + " weighted points with x ~ " + X_OFFSET + " and spacing " + X_SPACING);
+
+        // time the two ways of summing the moments
+        long[] plainTimes = new long[repeats];
+        long[] highPrecisionTimes = new long[repeats];
+        FitMoments plain = null, highPrecision = null;
+        for (int i = 0; i < repeats; i++)
+        {
+            long start = System.nanoTime();
+            plain = FitMoments.calculate(data, weights, false);
+            plainTimes[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            highPrecision = FitMoments.calculate(data, weights, true);
+            highPrecisionTimes[i] = System.nanoTime() - start;
+        }
+        double plainMedian = median(plainTimes) / 1e6;
+        double highPrecisionMedian = median(highPrecisionTimes) / 1e6;
+        System.out.println(String.format("Moments median of %d runs: plain %.1f ms, double-double %.1f ms (%.1fx)",
+                repeats, plainMedian, highPrecisionMedian, highPrecisionMedian / plainMedian));
+
+        // compare the centered sum of the x values to the exact one
+        ExactSums exact = new ExactSums(data, weights);
+        BigDecimal exactCenteredXX = exact.xx.subtract(exact.x.multiply(exact.x).divide(exact.w,
+                REFERENCE_PRECISION));
+        System.out.println(String.format("Relative error of the centered XX sum: plain %.2e, double-double %.2e",
+                relativeError(plain.centeredXX, exactCenteredXX), relativeError(highPrecision.centeredXX,
+                        exactCenteredXX)));
+
+        // compare the determinant of the raw sums to the exact one
+        DoubleDouble w = new DoubleDouble(), x = new DoubleDouble(), xx = new DoubleDouble();
+        double plainW = 0.0, plainX = 0.0, plainXX = 0.0;
+        Double[] xData = data[DataDimension.X.getColumnIndex()];
+        for (int i = 0; i < xData.length; i++)
+        {
+            w.add(weights[i]);
+            x.addProduct(weights[i], xData[i]);
+            xx.addProduct(weights[i], xData[i], xData[i]);
+            plainW += weights[i];
+            plainX += weights[i] * xData[i];
+            plainXX += weights[i] * xData[i] * xData[i];
+        }
+        BigDecimal exactDelta = exact.w.multiply(exact.xx).subtract(exact.x.multiply(exact.x));
+        System.out.println(String.format("Relative error of the raw sum delta: plain %.2e, double-double %.2e",
+                relativeError(plainW * plainXX - plainX * plainX, exactDelta), relativeError(DoubleDouble
+                        .differenceOfProducts(w, xx, x, x), exactDelta)));
+
+        // fit a small number of points and compare the best Chi Squared to the exact one
+        Double[][] smallData = createPoints(SMALL_FIT_POINTS, 2);
+        double[] smallWeights = createWeights(smallData);
+        ExactSums smallExact = new ExactSums(smallData, smallWeights);
+        BigDecimal centeredXX = smallExact.xx.subtract(smallExact.x.multiply(smallExact.x).divide(smallExact.w,
+                REFERENCE_PRECISION));
+        BigDecimal centeredXY = smallExact.xy.subtract(smallExact.x.multiply(smallExact.y).divide(smallExact.w,
+                REFERENCE_PRECISION));
+        BigDecimal centeredYY = smallExact.yy.subtract(smallExact.y.multiply(smallExact.y).divide(smallExact.w,
+                REFERENCE_PRECISION));
+        BigDecimal exactChiSquared = centeredYY.subtract(centeredXY.multiply(centeredXY).divide(centeredXX,
+                REFERENCE_PRECISION));
+        System.out.println(String.format("Best Chi Squared of %d points: exact %.6e, plain %.6e, double-double %.6e",
+                SMALL_FIT_POINTS, exactChiSquared.doubleValue(), bestChiSquared(FitMoments.calculate(smallData,
+                        smallWeights, false)), bestChiSquared(FitMoments.calculate(smallData, smallWeights, true))));
+    }
+
+    /** Creates points along a line with a little noise whose x values are evenly spaced after a large offset
+     * 
+     * @param numberOfPoints The number of points to create
+     * @param seed The seed of the noise so that the runs can be repeated
+     * @return The points in the form returned by DataSet.getAllValidPointsData(true) */
+    private static Double[][] createPoints(int numberOfPoints, long seed)
+    {
+        Random noise = new Random(seed);
+        Double[][] data = new Double[2 * DataDimension.values().length][numberOfPoints];
+        for (int i = 0; i < numberOfPoints; i++)
+        {
+            double offsetX = i * X_SPACING;
+            data[DataDimension.X.getColumnIndex()][i] = X_OFFSET + offsetX;
+            data[DataDimension.Y.getColumnIndex()][i] = 3.0 + 2.0 * offsetX + 1e-4 * noise.nextGaussian();
+            data[DataDimension.X.getErrorColumnIndex()][i] = 0.0;
+            data[DataDimension.Y.getErrorColumnIndex()][i] = 1e-4 * (1.0 + noise.nextDouble());
+        }
+        return data;
+    }
+
+    /** Creates the y error weights of the passed points
+     * 
+     * @param data The points to weight
+     * @return The weight of each point */
+    private static double[] createWeights(Double[][] data)
+    {
+        Double[] yErrorData = data[DataDimension.Y.getErrorColumnIndex()];
+        double[] weights = new double[yErrorData.length];
+        for (int i = 0; i < weights.length; i++)
+        {
+            weights[i] = 1.0 / (yErrorData[i] * yErrorData[i]);
+        }
+        return weights;
+    }
+
+    /** Calculates the Chi Squared of the best fit line of the passed moments
+     * 
+     * @param moments The moments of the points
+     * @return The lowest Chi Squared of any line through the points */
+    private static double bestChiSquared(FitMoments moments)
+    {
+        double slope = moments.centeredXY / moments.centeredXX;
+        return moments.chiSquared(slope, moments.meanY - slope * moments.meanX);
+    }
+
+    /** Finds the median of the passed times
+     * 
+     * @param times The times to find the median of. They are sorted in place
+     * @return The median time */
+    private static double median(long[] times)
+    {
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+
+    /** Calculates the relative error of the passed value
+     * 
+     * @param value The value to check
+     * @param exact The exact value it should be
+     * @return The absolute difference from the exact value divided by the size of the exact value */
+    private static double relativeError(double value, BigDecimal exact)
+    {
+        return new BigDecimal(value).subtract(exact).abs().divide(exact.abs(), REFERENCE_PRECISION).doubleValue();
+    }
+
+    // private classes
+    /** The raw weighted sums of a set of points done exactly with BigDecimal. Every double and every product of them
+     * can be represented exactly so these sums have no rounding error at all
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private static class ExactSums
+    {
+        /** The sum of the weights */
+        private BigDecimal w = BigDecimal.ZERO;
+        /** The weighted sum of x */
+        private BigDecimal x = BigDecimal.ZERO;
+        /** The weighted sum of y */
+        private BigDecimal y = BigDecimal.ZERO;
+        /** The weighted sum of x squared */
+        private BigDecimal xx = BigDecimal.ZERO;
+        /** The weighted sum of x times y */
+        private BigDecimal xy = BigDecimal.ZERO;
+        /** The weighted sum of y squared */
+        private BigDecimal yy = BigDecimal.ZERO;
+
+        /** Sums the passed points exactly
+         * 
+         * @param data The points to sum
+         * @param weights The weight of each point */
+        private ExactSums(Double[][] data, double[] weights)
+        {
+            Double[] xData = data[DataDimension.X.getColumnIndex()];
+            Double[] yData = data[DataDimension.Y.getColumnIndex()];
+            for (int i = 0; i < xData.length; i++)
+            {
+                BigDecimal weight = new BigDecimal(weights[i]);
+                BigDecimal weightedX = weight.multiply(new BigDecimal(xData[i]));
+                BigDecimal weightedY = weight.multiply(new BigDecimal(yData[i]));
+                w = w.add(weight);
+                x = x.add(weightedX);
+                y = y.add(weightedY);
+                xx = xx.add(weightedX.multiply(new BigDecimal(xData[i])));
+                xy = xy.add(weightedX.multiply(new BigDecimal(yData[i])));
+                yy = yy.add(weightedY.multiply(new BigDecimal(yData[i])));
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+
+import javax.swing.SwingUtilities;
+
+
+/** Passes changes made to the DataSets and the options of LineFit on to everything that needs to update because of
+ * them. Changes are collected as they are published and the subscribers are run once for all of them on the next pass
+ * of the event dispatch thread, one stage at a time, so that many changes made together (such as pasting into a table
+ * or dragging in the color chooser) only refit, relayout and redraw once. Every change increases the version of the
+ * bus which is also used to keep track of if there are unsaved changes
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public class ChangeBus
+{
+    /** The subscribers for each stage in the order they were subscribed */
+    private final EnumMap<ChangeStage, ArrayList<Subscription>> subscriptions = new EnumMap<ChangeStage, ArrayList<
+            Subscription>>(ChangeStage.class);
+    /** All of the types of changes that at least one subscriber is subscribed to */
+    private final EnumSet<ChangeType> subscribedTypes = EnumSet.noneOf(ChangeType.class);
+
+    /** The changes published since the subscribers were last run */
+    private ChangeSet pendingChanges = new ChangeSet();
+    /** Whether or not the subscribers are already set to run on the event dispatch thread */
+    private boolean deliveryScheduled = false;
+
+    /** The number of changes that have been published */
+    private long version = 0;
+    /** The version of the last change that made the saved file out of date */
+    private long lastModifyingVersion = 0;
+    /** The version the file was last saved at */
+    private long savedVersion = 0;
+
+    /** Creates a ChangeBus without any subscribers */
+    public ChangeBus()
+    {
+        for (ChangeStage stage : ChangeStage.values())
+        {
+            subscriptions.put(stage, new ArrayList<Subscription>());
+        }
+    }
+
+    /** Subscribes the passed subscriber to the passed types of changes. It is run in the passed stage after changes of
+     * any of the types are published
+     * 
+     * @param stage The stage to run the subscriber in
+     * @param subscriber The subscriber to run when the changes are published
+     * @param types The types of changes to run the subscriber for */
+    public synchronized void subscribe(ChangeStage stage, ChangeSubscriber subscriber, ChangeType... types)
+    {
+        EnumSet<ChangeType> typesSet = EnumSet.noneOf(ChangeType.class);
+        for (ChangeType type : types)
+        {
+            typesSet.add(type);
+        }
+        subscriptions.get(stage).add(new Subscription(subscriber, typesSet));
+        subscribedTypes.addAll(typesSet);
+    }
+
+    /** Publishes a change which runs the subscribers of its type on the next pass of the event dispatch thread. If a
+     * change of the same type from the same object is already waiting to be delivered then it is only delivered once.
+     * This can be called from any thread
+     * 
+     * @param type The type of the change
+     * @param source The object that changed */
+    public synchronized void publish(ChangeType type, Object source)
+    {
+        version++;
+        if (type.modifiesFile())
+        {
+            lastModifyingVersion = version;
+        }
+
+        // only keep track of the change if something will do something with it
+        if (subscribedTypes.contains(type))
+        {
+            pendingChanges.add(type, source);
+            pendingChanges.setVersion(version);
+            if (!deliveryScheduled)
+            {
+                deliveryScheduled = true;
+                SwingUtilities.invokeLater(new DeliverChanges());
+            }
+        }
+    }
+
+    /** Takes the pending changes and runs each of the subscribers that are subscribed to them in the order of their
+     * stages. Changes published by the subscribers while they are being run are delivered on the next pass */
+    private void deliverPendingChanges()
+    {
+        ChangeSet changes;
+        ArrayList<Subscription> toRun = new ArrayList<Subscription>();
+        synchronized (this)
+        {
+            changes = pendingChanges;
+            pendingChanges = new ChangeSet();
+            deliveryScheduled = false;
+
+            for (ChangeStage stage : ChangeStage.values())
+            {
+                toRun.addAll(subscriptions.get(stage));
+            }
+        }
+
+        for (Subscription subscription : toRun)
+        {
+            if (changes.containsAny(subscription.types))
+            {
+                subscription.subscriber.changesPublished(changes);
+            }
+        }
+    }
+
+    /** Tells the bus to disregard any previous changes for the saved file, which is generally only done when the file
+     * is saved */
+    public synchronized void clearFileModified()
+    {
+        savedVersion = version;
+    }
+
+    // Getters
+    /** Returns whether or not any changes that modify the saved file have been published since it was last saved
+     * 
+     * @return True means that there are unsaved changes */
+    public synchronized boolean unsavedModifications()
+    {
+        return lastModifyingVersion > savedVersion;
+    }
+
+    /** Gets the number of changes that have been published to this bus. This only ever increases so a changed version
+     * means something has changed since it was last checked
+     * 
+     * @return The current version of the bus */
+    public synchronized long getVersion()
+    {
+        return version;
+    }
+
+    // private classes
+    /** A subscriber along with the types of changes it is subscribed to
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private static class Subscription
+    {
+        /** The subscriber to run */
+        final ChangeSubscriber subscriber;
+        /** The types of changes to run the subscriber for */
+        final EnumSet<ChangeType> types;
+
+        /** Creates a Subscription
+         * 
+         * @param toRun The subscriber to run
+         * @param typesToRunFor The types of changes to run the subscriber for */
+        Subscription(ChangeSubscriber toRun, EnumSet<ChangeType> typesToRunFor)
+        {
+            subscriber = toRun;
+            types = typesToRunFor;
+        }
+    }
+
+    /** A Runnable that delivers the pending changes on the event dispatch thread
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class DeliverChanges implements Runnable
+    {
+        /** Runs the subscribers of the pending changes */
+        @Override
+        public void run()
+        {
+            deliverPendingChanges();
+        }
+    }
+}
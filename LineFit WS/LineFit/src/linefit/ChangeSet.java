@@ -0,0 +1,118 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+
+/** The changes that were published to a ChangeBus between two runs of its subscribers. Each change type is only kept
+ * once along with the objects that published it so subscribers can do their work once for all of them
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public class ChangeSet
+{
+    /** The objects that published each type of change that was published */
+    private final EnumMap<ChangeType, Set<Object>> sourcesOfChanges = new EnumMap<ChangeType, Set<Object>>(
+            ChangeType.class);
+    /** The version of the ChangeBus after the last of these changes was published */
+    private long version = 0;
+
+    /** Adds the passed change to this set if it is not already in it
+     * 
+     * @param type The type of the change
+     * @param source The object that published the change */
+    void add(ChangeType type, Object source)
+    {
+        Set<Object> sources = sourcesOfChanges.get(type);
+        if (sources == null)
+        {
+            sources = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+            sourcesOfChanges.put(type, sources);
+        }
+        sources.add(source);
+    }
+
+    /** Checks if this set contains any changes of the passed types
+     * 
+     * @param types The types of changes to look for
+     * @return True if a change of at least one of the types was published */
+    public boolean containsAny(Set<ChangeType> types)
+    {
+        for (ChangeType type : types)
+        {
+            if (sourcesOfChanges.containsKey(type))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Checks if this set contains a change of the passed type
+     * 
+     * @param type The type of change to look for
+     * @return True if a change of the type was published */
+    public boolean contains(ChangeType type)
+    {
+        return sourcesOfChanges.containsKey(type);
+    }
+
+    /** Checks if the passed object published a change of the passed type
+     * 
+     * @param type The type of change to look for
+     * @param source The object to check for
+     * @return True if the object published a change of the type */
+    public boolean contains(ChangeType type, Object source)
+    {
+        Set<Object> sources = sourcesOfChanges.get(type);
+        return sources != null && sources.contains(source);
+    }
+
+    // Getters
+    /** Gets the objects that published changes of the passed type
+     * 
+     * @param type The type of change to get the sources of
+     * @return An unmodifiable set of the objects that published the change, which is empty if there were none */
+    public Set<Object> getSources(ChangeType type)
+    {
+        Set<Object> sources = sourcesOfChanges.get(type);
+        if (sources == null)
+        {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(sources);
+    }
+
+    /** Gets the version of the ChangeBus after the last of these changes was published
+     * 
+     * @return The version of the bus these changes bring it up to */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    // Setters
+    /** Sets the version of the ChangeBus after the last of these changes was published
+     * 
+     * @param newVersion The version of the bus these changes bring it up to */
+    void setVersion(long newVersion)
+    {
+        version = newVersion;
+    }
+}
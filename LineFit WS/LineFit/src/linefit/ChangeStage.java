@@ -0,0 +1,32 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+/** The stages that ChangeSubscribers are run in when the changes published to a ChangeBus are delivered. Stages run
+ * in the order they are declared so that, for example, the fits are up to date before the graph is redrawn
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public enum ChangeStage
+{
+    /** Recalculates the fits of the DataSets that changed */
+    FIT,
+    /** Updates the layout of the GUI and the graph's axes */
+    LAYOUT,
+    /** Redraws the graph */
+    RENDER,
+    /** Updates the text of the fit results */
+    RESULTS;
+}
@@ -0,0 +1,28 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+/** An interface for anything that needs to update when changes are published to a ChangeBus
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public interface ChangeSubscriber
+{
+    /** Called on the event dispatch thread with all of the changes that were published since the last time the
+     * subscribers were run, if any of them were of a type this subscriber is subscribed to
+     * 
+     * @param changes The changes that were published */
+    public void changesPublished(ChangeSet changes);
+}
@@ -0,0 +1,57 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+/** The kinds of changes that can be published to a ChangeBus. Each type knows whether or not it changes what would be
+ * saved to the LineFit file so the bus can keep track of if there are unsaved changes
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public enum ChangeType
+{
+    /** The values of a DataSet or which of its error columns are displayed changed */
+    DATA(true),
+    /** The FitType of a DataSet or the settings used when fitting it changed */
+    FIT(true),
+    /** The color, shape or visibility of a DataSet changed */
+    APPEARANCE(true),
+    /** How the data of a DataSet is stored in memory changed */
+    STORAGE(true),
+    /** A different DataSet was selected to be displayed */
+    SELECTION(false),
+    /** The options of the GraphArea such as the axes and how the results are displayed changed */
+    GRAPH_OPTIONS(true),
+    /** The options used when exporting the graph changed */
+    EXPORT_OPTIONS(true);
+
+    /** Whether or not this type of change makes the saved file out of date */
+    private final boolean modifiesFile;
+
+    /** Creates a ChangeType
+     * 
+     * @param changeModifiesFile True if this type of change makes the saved file out of date */
+    private ChangeType(boolean changeModifiesFile)
+    {
+        modifiesFile = changeModifiesFile;
+    }
+
+    /** Gets whether or not this type of change makes the saved file out of date
+     * 
+     * @return True if there are unsaved changes after a change of this type */
+    public boolean modifiesFile()
+    {
+        return modifiesFile;
+    }
+}
@@ -0,0 +1,435 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+
+import linefit.FitAlgorithms.ChiSquaredProfile;
+import linefit.FitAlgorithms.FitType;
+import linefit.FitAlgorithms.FixedVariable;
+import linefit.FitAlgorithms.LinearFitFactory;
+import linefit.FitAlgorithms.LinearFitStrategy;
+import linefit.IO.GeneralIO;
+
+
+/** A frame that sweeps the slope or the intercept of a DataSet's fit over a range of fixed values, plots the profiled
+ * Chi Squared and reports the interval where it is within one of its minimum
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class ChiSquaredProfileFrame extends JFrame
+{
+    /** The Serial Version UID so that we know what version it is when we are using it. See
+     * http://docs.oracle.com/javase/7/docs/api/java/io/Serializable.html for full discussion on its uses and purpose */
+    private final static long serialVersionUID = 42L;
+    /** The number of values the profile is calculated at */
+    private final static int NUMBER_OF_PROFILE_VALUES = 401;
+    /** The number of errors on either side of the fit value the default range covers */
+    private final static double DEFAULT_RANGE_IN_ERRORS = 3;
+
+    /** The GraphArea whose DataSets can be profiled */
+    private GraphArea graphingArea;
+    /** The drop down box that allows the user to select which DataSet to profile */
+    private JComboBox<DataSet> dataSetSelector;
+    /** The drop down box that allows the user to select whether to profile the slope or the intercept */
+    private JComboBox<FixedVariable> variableSelector;
+    /** The TextField for the first value of the sweep */
+    private JTextField fromField;
+    /** The TextField for the last value of the sweep */
+    private JTextField toField;
+    /** The panel the profile is plotted on */
+    private ProfilePlot profilePlot;
+    /** The label that reports the best value and the interval */
+    private JLabel resultsLabel;
+    /** The number of the latest sweep that was started so that the results of older sweeps that finish after it are
+     * not shown */
+    private long latestSweep = 0;
+
+    /** Creates the profile frame for the DataSets in the passed GraphArea and profiles the slope of the first DataSet
+     * with a fit
+     * 
+     * @param graphAreaToProfile The GraphArea whose DataSets can be profiled
+     * @param ioHandler The GeneralIO object used for handling IO related functionality */
+    ChiSquaredProfileFrame(GraphArea graphAreaToProfile, GeneralIO ioHandler)
+    {
+        super("Chi Squared Profile");
+        graphingArea = graphAreaToProfile;
+        this.setIconImage(ioHandler.getLineFitIcon());
+        setSize(640, 480);
+        setLayout(new BorderLayout());
+
+        JPanel optionsRow = new JPanel();
+        dataSetSelector = new JComboBox<DataSet>();
+        for (int i = 0; i < graphingArea.dataSetRegistry.getNumberOfDataSets(); i++)
+        {
+            DataSet current = graphingArea.dataSetRegistry.getDataSet(i);
+            if (current.getFitType() != FitType.NONE)
+            {
+                dataSetSelector.addItem(current);
+            }
+        }
+        dataSetSelector.addActionListener(new RangeResetListener());
+        optionsRow.add(dataSetSelector);
+        variableSelector = new JComboBox<FixedVariable>(new FixedVariable[] { FixedVariable.SLOPE,
+                FixedVariable.INTERCEPT });
+        variableSelector.addActionListener(new RangeResetListener());
+        optionsRow.add(variableSelector);
+        optionsRow.add(new JLabel("From:"));
+        fromField = new JTextField(8);
+        optionsRow.add(fromField);
+        optionsRow.add(new JLabel("To:"));
+        toField = new JTextField(8);
+        optionsRow.add(toField);
+        JButton sweepButton = new JButton("Sweep");
+        sweepButton.addActionListener(new SweepButtonListener());
+        optionsRow.add(sweepButton);
+        add(optionsRow, BorderLayout.NORTH);
+
+        profilePlot = new ProfilePlot();
+        add(profilePlot, BorderLayout.CENTER);
+
+        JPanel bottomRow = new JPanel(new BorderLayout());
+        resultsLabel = new JLabel(" ");
+        bottomRow.add(resultsLabel, BorderLayout.CENTER);
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(new CloseButtonListener());
+        bottomRow.add(closeButton, BorderLayout.EAST);
+        add(bottomRow, BorderLayout.SOUTH);
+
+        setVisible(true);
+        resetRange();
+        sweep();
+    }
+
+    /** Sets the range of the sweep to a few errors on either side of the selected DataSet's fit value of the selected
+     * variable */
+    private void resetRange()
+    {
+        DataSet selected = (DataSet) dataSetSelector.getSelectedItem();
+        if (selected == null)
+        {
+            return;
+        }
+
+        selected.refreshFitData();
+        double center, error;
+        if (variableSelector.getSelectedItem() == FixedVariable.SLOPE)
+        {
+            center = selected.linearFitStrategy.getSlope();
+            error = selected.linearFitStrategy.getSlopeError();
+        }
+        else
+        {
+            center = selected.linearFitStrategy.getIntercept();
+            error = selected.linearFitStrategy.getInterceptError();
+        }
+
+        // fixed variables and fits without errors do not always have an error to go by
+        if (!(error > 0) || Double.isInfinite(error))
+        {
+            error = Math.max(Math.abs(center) * 0.1, 1.0) / DEFAULT_RANGE_IN_ERRORS;
+        }
+        fromField.setText(Double.toString(center - DEFAULT_RANGE_IN_ERRORS * error));
+        toField.setText(Double.toString(center + DEFAULT_RANGE_IN_ERRORS * error));
+    }
+
+    /** Starts calculating the profile of the selected DataSet and variable over the range in the from and to fields in
+     * the background from a snapshot of the DataSet. The profile is plotted once it has been calculated */
+    private void sweep()
+    {
+        DataSet selected = (DataSet) dataSetSelector.getSelectedItem();
+        if (selected == null)
+        {
+            JOptionPane.showMessageDialog(this, "None of the DataSets have a fit selected to profile",
+                    "Chi Squared Profile", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        double from, to;
+        try
+        {
+            from = Double.parseDouble(fromField.getText());
+            to = Double.parseDouble(toField.getText());
+        }
+        catch (NumberFormatException nfe)
+        {
+            JOptionPane.showMessageDialog(this, "The range to sweep must be numbers", "Chi Squared Profile",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        latestSweep++;
+        resultsLabel.setText("Calculating the profile...");
+        new SweepWorker(latestSweep, selected.createSnapshot(), LineFit.currentFitAlgorithmFactory,
+                (FixedVariable) variableSelector.getSelectedItem(), from, to).execute();
+    }
+
+    /** Plots the passed profile and reports its best value and interval
+     * 
+     * @param profile The calculated profile or null if the DataSet did not have enough points to profile
+     * @param variable The variable that was profiled */
+    private void showProfile(ChiSquaredProfile profile, FixedVariable variable)
+    {
+        profilePlot.setProfile(profile);
+        if (profile == null)
+        {
+            resultsLabel.setText("The DataSet does not have enough points to profile");
+            return;
+        }
+
+        int decimalPlaces = graphingArea.resultsDecimalPlaces;
+        String results = "Best " + variable.getDisplayString().toLowerCase() + ": " + ScientificNotation.withNoError(
+                profile.getBestValue(), 0, decimalPlaces) + "   \u0394\u03c7\u00B2 = 1 interval: ";
+        double lower = profile.getIntervalLower(), upper = profile.getIntervalUpper();
+        results += (Double.isNaN(lower) ? "below range" : ScientificNotation.withNoError(lower, 0, decimalPlaces)) +
+                " to " + (Double.isNaN(upper) ? "above range" : ScientificNotation.withNoError(upper, 0,
+                        decimalPlaces));
+        resultsLabel.setText(results);
+    }
+
+    // private classes
+    /** The panel that plots the profiled Chi Squared against the value of the variable with a line one above the
+     * minimum to show the interval
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class ProfilePlot extends JPanel
+    {
+        /** The Serial Version UID so that we know what version it is when we are using it. See
+         * http://docs.oracle.com/javase/7/docs/api/java/io/Serializable.html for full discussion on its uses and
+         * purpose */
+        private final static long serialVersionUID = 42L;
+        /** The space in pixels left around the plot */
+        private final static int PLOT_PADDING = 30;
+
+        /** The profile to plot or null if there is none */
+        private ChiSquaredProfile profile;
+
+        /** Sets the profile to plot and redraws the plot
+         * 
+         * @param toPlot The profile to plot or null to clear the plot */
+        private void setProfile(ChiSquaredProfile toPlot)
+        {
+            profile = toPlot;
+            repaint();
+        }
+
+        /** Draws the profile scaled to fit the panel */
+        @Override
+        protected void paintComponent(Graphics g)
+        {
+            super.paintComponent(g);
+            Graphics2D plotGraphics = (Graphics2D) g;
+            plotGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            plotGraphics.setColor(Color.white);
+            plotGraphics.fillRect(0, 0, getWidth(), getHeight());
+            if (profile == null)
+            {
+                return;
+            }
+
+            double[] values = profile.getValues();
+            double[] chiSquared = profile.getChiSquared();
+            double minimum = profile.getMinimumChiSquared();
+
+            // show up to a few units above the minimum so the interval line is always in view
+            double maximum = minimum + 4.0;
+            for (double value : chiSquared)
+            {
+                maximum = Math.max(maximum, value);
+            }
+
+            double width = getWidth() - 2 * PLOT_PADDING;
+            double height = getHeight() - 2 * PLOT_PADDING;
+            double xScale = width / (values[values.length - 1] - values[0]);
+            double yScale = height / (maximum - minimum);
+
+            Path2D.Double curve = new Path2D.Double();
+            for (int i = 0; i < values.length; i++)
+            {
+                double pixelX = PLOT_PADDING + (values[i] - values[0]) * xScale;
+                double pixelY = PLOT_PADDING + (maximum - chiSquared[i]) * yScale;
+                if (i == 0)
+                {
+                    curve.moveTo(pixelX, pixelY);
+                }
+                else
+                {
+                    curve.lineTo(pixelX, pixelY);
+                }
+            }
+
+            double intervalY = PLOT_PADDING + (maximum - (minimum + 1.0)) * yScale;
+            plotGraphics.setColor(Color.gray);
+            plotGraphics.draw(new Line2D.Double(PLOT_PADDING, intervalY, PLOT_PADDING + width, intervalY));
+            plotGraphics.drawString("\u03c7\u00B2 min + 1", PLOT_PADDING + 2, (int) intervalY - 2);
+
+            plotGraphics.setColor(Color.black);
+            plotGraphics.draw(curve);
+            plotGraphics.drawRect(PLOT_PADDING, PLOT_PADDING, (int) width, (int) height);
+            plotGraphics.drawString(ScientificNotation.withNoError(values[0], 0, graphingArea.resultsDecimalPlaces),
+                    PLOT_PADDING, getHeight() - PLOT_PADDING / 3);
+            String last = ScientificNotation.withNoError(values[values.length - 1], 0,
+                    graphingArea.resultsDecimalPlaces);
+            plotGraphics.drawString(last, getWidth() - PLOT_PADDING - plotGraphics.getFontMetrics().stringWidth(last),
+                    getHeight() - PLOT_PADDING / 3);
+        }
+    }
+
+    /** A worker that calculates a profile from a snapshot of a DataSet off of the event thread and then plots it if no
+     * newer sweep has been started
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class SweepWorker extends SwingWorker<ChiSquaredProfile, Void>
+    {
+        /** The number of this sweep */
+        private long sweepNumber;
+        /** The snapshot of the DataSet to profile */
+        private DataSet snapshot;
+        /** The fit algorithm to fit the snapshot with */
+        private LinearFitFactory fitAlgorithm;
+        /** The variable to profile */
+        private FixedVariable variable;
+        /** The first value of the sweep */
+        private double from;
+        /** The last value of the sweep */
+        private double to;
+
+        /** Creates the worker for the passed snapshot and sweep
+         * 
+         * @param number The number of this sweep
+         * @param snapshotToProfile The snapshot of the DataSet to profile
+         * @param algorithm The fit algorithm to fit the snapshot with
+         * @param variableToProfile The variable to profile
+         * @param sweepFrom The first value of the sweep
+         * @param sweepTo The last value of the sweep */
+        private SweepWorker(long number, DataSet snapshotToProfile, LinearFitFactory algorithm,
+                FixedVariable variableToProfile, double sweepFrom, double sweepTo)
+        {
+            sweepNumber = number;
+            snapshot = snapshotToProfile;
+            fitAlgorithm = algorithm;
+            variable = variableToProfile;
+            from = sweepFrom;
+            to = sweepTo;
+        }
+
+        /** Fits the snapshot, calculates its profile and then releases the snapshot */
+        @Override
+        protected ChiSquaredProfile doInBackground()
+        {
+            try
+            {
+                LinearFitStrategy strategy = fitAlgorithm.createNewLinearFitStartegy(snapshot);
+                return ChiSquaredProfile.calculate(strategy, variable, from, to, NUMBER_OF_PROFILE_VALUES);
+            }
+            finally
+            {
+                snapshot.releaseSnapshot();
+            }
+        }
+
+        /** Plots the profile on the event thread unless a newer sweep has been started */
+        @Override
+        protected void done()
+        {
+            if (sweepNumber != latestSweep)
+            {
+                return;
+            }
+
+            try
+            {
+                showProfile(get(), variable);
+            }
+            catch (InterruptedException ie)
+            {
+                System.err.println("Interrupted while calculating the Chi Squared profile");
+                Thread.currentThread().interrupt();
+                resultsLabel.setText(" ");
+            }
+            catch (ExecutionException ee)
+            {
+                System.err.println("Failed to calculate the Chi Squared profile: " + ee.getCause());
+                resultsLabel.setText("The profile could not be calculated");
+            }
+        }
+    }
+
+    /** A Listener class that resets the range of the sweep and resweeps when a different DataSet or variable is
+     * selected
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class RangeResetListener implements ActionListener
+    {
+        /** Resets the range for the newly selected DataSet or variable and sweeps it */
+        public void actionPerformed(ActionEvent e)
+        {
+            resetRange();
+            sweep();
+        }
+    }
+
+    /** A Listener class that sweeps the profile when the sweep button is pressed
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class SweepButtonListener implements ActionListener
+    {
+        /** Sweeps the profile over the entered range */
+        public void actionPerformed(ActionEvent e)
+        {
+            sweep();
+        }
+    }
+
+    /** A Listener class that closes the profile frame when the close button is pressed
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class CloseButtonListener implements ActionListener
+    {
+        /** Closes the profile frame */
+        public void actionPerformed(ActionEvent e)
+        {
+            dispose();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+package linefit;
+
+
+/** The ways the values of a DataColumn can be encoded when they are kept on the heap. Other than NONE, the encodings
+ * trade some speed when reading and writing values for using less memory so that larger DataSets can be held
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+enum ColumnEncoding
+{
+    /** The values are kept as full doubles without any encoding */
+    NONE,
+    /** The values are rounded to floats which halves the memory used but only keeps about 7 significant digits */
+    FLOAT32,
+    /** The differences between the differences of the bits of consecutive values are stored. This is lossless and
+     * works best for evenly spaced values such as times or indexes */
+    DELTA_OF_DELTA,
+    /** The bits that changed from the previous value are stored. This is lossless and works best for slowly varying
+     * values */
+    XOR;
+
+    /** Creates a new empty ColumnStorage that stores its values using this encoding
+     * 
+     * @return A new empty ColumnStorage using this encoding */
+    ColumnStorage createStorage()
+    {
+        switch (this)
+        {
+            case FLOAT32:
+                return new FloatColumnStorage();
+            case DELTA_OF_DELTA:
+            case XOR:
+                return new EncodedColumnStorage(this);
+            default:
+                return new HeapColumnStorage();
+        }
+    }
+}
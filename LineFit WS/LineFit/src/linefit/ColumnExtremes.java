@@ -0,0 +1,107 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+/** Keeps track of the smallest and largest values in a DataDimension of a DataSet as values are written so that they
+ * do not have to be searched for each time the graph is drawn. Each value is kept as a range (such as the value plus
+ * and minus its error) and only the ends of the ranges are tracked. The extremes only need to be searched for again
+ * when a value that was at one of the extremes is removed or changed, in which case they are marked as stale
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class ColumnExtremes
+{
+    /** The smallest low end of all the ranges */
+    private double minimum = 0;
+    /** The largest high end of all the ranges */
+    private double maximum = 0;
+    /** Whether or not any ranges have been added */
+    private boolean hasValues = false;
+    /** Whether or not the extremes may be out of date and need to be searched for again */
+    private boolean stale = true;
+
+    /** Adds a range to the tracked values, extending the extremes if it is outside of them
+     * 
+     * @param low The low end of the range to add
+     * @param high The high end of the range to add */
+    void add(double low, double high)
+    {
+        if (stale)
+        {
+            return;
+        }
+
+        if (!hasValues)
+        {
+            minimum = low;
+            maximum = high;
+            hasValues = true;
+        }
+        else
+        {
+            minimum = Math.min(minimum, low);
+            maximum = Math.max(maximum, high);
+        }
+    }
+
+    /** Removes a range from the tracked values. If the range was at either of the extremes then they are marked as
+     * stale since the next extreme is not known without searching the values again
+     * 
+     * @param low The low end of the range to remove
+     * @param high The high end of the range to remove */
+    void remove(double low, double high)
+    {
+        if (!stale && hasValues && (low <= minimum || high >= maximum))
+        {
+            stale = true;
+        }
+    }
+
+    /** Marks the extremes as stale so that they will be searched for again the next time they are needed. Used when
+     * many of the values may have changed at once */
+    void markStale()
+    {
+        stale = true;
+    }
+
+    /** Clears the tracked values so that the extremes can be rebuilt by adding each of the current values */
+    void reset()
+    {
+        hasValues = false;
+        stale = false;
+    }
+
+    // Getters
+    /** Gets whether or not the extremes may be out of date and need to be rebuilt
+     * 
+     * @return True if the extremes need to be rebuilt before being used */
+    boolean isStale()
+    {
+        return stale;
+    }
+
+    /** Gets the extremes of the tracked ranges
+     * 
+     * @return An array containing the smallest low end at 0 and the largest high end at 1 or zeros if there are no
+     *         values */
+    double[] getMinMax()
+    {
+        if (!hasValues)
+        {
+            return new double[] { 0, 0 };
+        }
+        return new double[] { minimum, maximum };
+    }
+}
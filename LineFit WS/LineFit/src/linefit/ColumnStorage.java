@@ -0,0 +1,61 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+package linefit;
+
+
+/** The storage for the values of a DataColumn. This allows the values to be kept in different places, such as on the
+ * heap or in a memory mapped file, without the DataColumn or anything using it needing to know where they are. Rows
+ * without a value are stored as null
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+interface ColumnStorage
+{
+    /** The number of rows that are read at a time when going through all the values of a storage and the number of rows
+     * that storages that work in blocks put in each block */
+    final static int BLOCK_SIZE = 1024;
+
+    /** Gets the number of rows in the storage including any rows without a value
+     * 
+     * @return The number of rows in the storage */
+    int size();
+
+    /** Gets the value at the passed row
+     * 
+     * @param rowIndex The index of the row to get the value of
+     * @return The value at the passed row or null if there is no value there or the row is past the end */
+    Double get(int rowIndex);
+
+    /** Sets the value at the passed row, adding empty rows as needed if the row is past the end
+     * 
+     * @param rowIndex The index of the row to set the value of
+     * @param value The value to set or null to clear the row */
+    void set(int rowIndex, Double value);
+
+    /** Reads the values of consecutive rows into the passed buffer so that many values can be gone through without
+     * getting each one separately or copying the whole storage. Rows without a value and any places in the buffer past
+     * the end of the storage are set to NaN
+     * 
+     * @param startRow The index of the row to put at the start of the buffer
+     * @param buffer The array to read the values into
+     * @return The number of rows of the storage that were read into the buffer */
+    int readBlock(int startRow, double[] buffer);
+
+    /** Creates a copy of this storage with the same values that is stored in the same kind of place
+     * 
+     * @return A copy of this storage */
+    ColumnStorage copy();
+
+    /** Releases any resources held by this storage. The storage should not be used after this is called */
+    void release();
+}
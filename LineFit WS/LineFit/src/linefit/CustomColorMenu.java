@@ -53,16 +53,12 @@ class CustomColorMenu extends JFrame
     private DataSet goesWith;
     /** The JColorChooser that goes with this menu which is what actually allows the user to specify the color to use */
     private final JColorChooser customColorChooser;
-    /** The action that is run when the color is changed */
-    private final Runnable onColorChangeAction;
 
-    /** Creates a new Color Selector that is paired with the passed in dataset
-     * 
-     * @param inOnColorChangeAction The action to perform when the color is changed */
-    public CustomColorMenu(Runnable inOnColorChangeAction)
+    /** Creates a new Color Selector that is paired with the passed in dataset. Changes to the color are published by
+     * the DataSet so nothing else needs to be told about them */
+    public CustomColorMenu()
     {
         setSize(600, 400);
-        onColorChangeAction = inOnColorChangeAction;
 
         // make it so you cant do other things setModalityType(Dialog.DEFAULT_MODALITY_TYPE);
         setLayout(new BorderLayout());
@@ -134,7 +130,6 @@ class CustomColorMenu extends JFrame
     private void applySelectedColor()
     {
         goesWith.setColor(selectedColor);
-        onColorChangeAction.run();
     }
 
     /** Reverts the DataSet that this color selector goes with to the color it was when the selector was first opened */
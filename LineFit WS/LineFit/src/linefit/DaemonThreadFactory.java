@@ -0,0 +1,52 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.util.concurrent.ThreadFactory;
+
+
+/** Creates daemon threads for LineFit's executors so that the threads never keep LineFit running once its window is
+ * closed, even if nothing shuts their executor down. Each thread is numbered after the passed name so that they can be
+ * told apart when debugging
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class DaemonThreadFactory implements ThreadFactory
+{
+    /** The name the threads are numbered after */
+    private String threadName;
+    /** The number of threads created so far, used to name them */
+    private int threadsCreated = 0;
+
+    /** Creates the factory for threads with the passed name
+     * 
+     * @param name The name the threads are numbered after */
+    DaemonThreadFactory(String name)
+    {
+        threadName = name;
+    }
+
+    /** Creates a daemon thread to run the passed work
+     * 
+     * @param toRun The work the thread runs
+     * @return The new thread */
+    public synchronized Thread newThread(Runnable toRun)
+    {
+        threadsCreated++;
+        Thread thread = new Thread(toRun, threadName + " " + threadsCreated);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
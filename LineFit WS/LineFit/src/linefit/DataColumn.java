@@ -13,10 +13,7 @@
 package linefit;
 
 
-import java.util.ArrayList;
-import java.util.Arrays;
-
-import linefit.IO.ChangeTracker;
+import java.io.IOException;
 
 
 /** This class provides the columns for the GraphSet that are used to input and store data
@@ -26,22 +23,105 @@ import linefit.IO.ChangeTracker;
  * @since &lt;0.98.0 */
 public class DataColumn
 {
-    private ChangeTracker changeTracker;
-
     /** The name that is displayed and associated with this column */
     private String columnName;
-    /** The List of all the data stored this column */
-    private ArrayList<Double> data;
+    /** The storage holding all the data stored this column */
+    private ColumnStorage data;
+    /** The encoding used for the data when it is stored on the heap */
+    private ColumnEncoding encoding = ColumnEncoding.NONE;
+    /** The number of times the data in this column has been modified. Used by anything caching values calculated from
+     * the data to tell if they are out of date */
+    private long modificationCount = 0;
 
     /** The default constructor for this class
      * 
-     * @param name The name of the data column
-     * @param parentChangeTracker The change tracker to notify if a change in the data column occurred */
-    public DataColumn(String name, ChangeTracker parentChangeTracker)
+     * @param name The name of the data column */
+    public DataColumn(String name)
     {
         columnName = name;
-        changeTracker = parentChangeTracker;
-        data = new ArrayList<Double>();
+        data = new HeapColumnStorage();
+    }
+
+    /** Moves the data of this column into a memory mapped file off of the Java heap or back onto the heap. This allows
+     * columns with more data than will fit on the heap to be used
+     * 
+     * @param useMappedStorage True to store the data in a memory mapped file and false to store it on the heap
+     * @return Returns true if the data is now stored as requested or false if the file could not be created */
+    boolean setUseMappedStorage(boolean useMappedStorage)
+    {
+        if (useMappedStorage == isUsingMappedStorage())
+        {
+            return true;
+        }
+
+        ColumnStorage newData;
+        if (useMappedStorage)
+        {
+            try
+            {
+                newData = new MappedColumnStorage();
+            }
+            catch (IOException ioe)
+            {
+                System.err.println("Could not create the file to store the column in: " + ioe.getMessage());
+                return false;
+            }
+        }
+        else
+        {
+            newData = encoding.createStorage();
+        }
+
+        moveDataTo(newData);
+        return true;
+    }
+
+    /** Sets the encoding used for the data of this column when it is stored on the heap and re-encodes the data with
+     * it. If the data is stored in a memory mapped file then the encoding is used once it is moved back onto the heap
+     * 
+     * @param newEncoding The encoding to store the data with */
+    void setEncoding(ColumnEncoding newEncoding)
+    {
+        if (newEncoding == encoding)
+        {
+            return;
+        }
+
+        encoding = newEncoding;
+        if (!isUsingMappedStorage())
+        {
+            moveDataTo(encoding.createStorage());
+        }
+    }
+
+    /** Copies all the data of this column into the passed storage and then uses it to store the data in place of the
+     * current storage
+     * 
+     * @param newData The empty storage to move the data into */
+    private void moveDataTo(ColumnStorage newData)
+    {
+        double[] block = new double[ColumnStorage.BLOCK_SIZE];
+        for (int start = 0; start < data.size(); start += block.length)
+        {
+            int count = data.readBlock(start, block);
+            for (int i = 0; i < count; i++)
+            {
+                if (!Double.isNaN(block[i]))
+                {
+                    newData.set(start + i, block[i]);
+                }
+            }
+        }
+
+        // make sure the new storage has any empty rows at the end as well
+        if (newData.size() < data.size())
+        {
+            newData.set(data.size() - 1, null);
+        }
+        data.release();
+        data = newData;
+        // the new storage may have rounded the values
+        modificationCount++;
     }
 
     /** Returns the number of data points with any null entries. For non-null values see getNonNullDataSize()
@@ -74,22 +154,7 @@ public class DataColumn
      * @return Returns a boolean that represents whether or not the row was null, true meaning it was null */
     public boolean isNull(int rowIndex)
     {
-        try
-        {
-            Object dataValue = data.get(rowIndex);
-            if (dataValue == null)
-            {
-                return true;
-            }
-            else
-            {
-                return false;
-            }
-        }
-        catch (IndexOutOfBoundsException e)
-        {
-            return true;
-        }
+        return data.get(rowIndex) == null;
     }
 
     /** Writes the given value at the given row of our column and adds rows if it is farther then how many rows we
@@ -99,14 +164,8 @@ public class DataColumn
      * @param entry The Double to write into the row with the given index. This can be null. */
     void writeData(int rowIndex, Double entry)
     {
-        // We have to use a string so we can catch the null exception
-        while (rowIndex >= data.size())
-        {
-            data.add(null);
-        }
-
-        changeTracker.setFileModified();
         data.set(rowIndex, entry);
+        modificationCount++;
     }
 
     /** Reads the value from the row with the given index
@@ -115,22 +174,12 @@ public class DataColumn
      * @return Returns the double that was found at the given location or 0.0 if the value was null */
     public double readDouble(int rowIndex)
     {
-        try
-        {
-            Object dataValue = data.get(rowIndex);
-            if (dataValue == null)
-            {
-                return 0.0;
-            }
-            else
-            {
-                return (Double.parseDouble("" + dataValue));
-            }
-        }
-        catch (IndexOutOfBoundsException e)
+        Double dataValue = data.get(rowIndex);
+        if (dataValue == null)
         {
             return 0.0;
         }
+        return dataValue;
     }
 
     /** Return the given GrapColumn with this GraphColumn's data and description copied into it
@@ -139,10 +188,18 @@ public class DataColumn
      * @return Returns a copy of the given GraphColumn */
     public DataColumn copy(DataColumn toCopy)
     {
-        toCopy.setData(this.getData());
+        toCopy.encoding = encoding;
+        toCopy.setData(data.copy());
         return toCopy;
     }
 
+    /** Releases the storage of this column's data, such as the temporary file of mapped storage, and leaves the column
+     * empty. Used when a copy of the column is no longer needed */
+    void releaseData()
+    {
+        setData(new HeapColumnStorage());
+    }
+
     // Getters
     /** Gets the name of this GraphColumn
      * 
@@ -158,7 +215,12 @@ public class DataColumn
      * @return Returns an array with all the column's data in it */
     public Double[] getData()
     {
-        return data.toArray(new Double[data.size()]);
+        Double[] values = new Double[data.size()];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = data.get(i);
+        }
+        return values;
     }
 
     /** Gets an array list that contains the double values of all the rows in this column with any null values removed
@@ -166,7 +228,7 @@ public class DataColumn
      * @return Returns an array with all the column's non-null data in it */
     public Double[] getDataNonNull()
     {
-        return data.toArray(new Double[data.size()]);
+        return getData();
     }
 
     /** Gets the value of the column at the passed index of null if there is no data in the passed index
@@ -175,14 +237,7 @@ public class DataColumn
      * @return Returns the value at the passed index or null if there is none */
     public Double getDataAt(int index)
     {
-        try
-        {
-            return data.get(index);
-        }
-        catch (IndexOutOfBoundsException iobe)
-        {
-            return null;
-        }
+        return data.get(index);
     }
 
     /** Gets the size/length of this DataColumn
@@ -193,12 +248,51 @@ public class DataColumn
         return data.size();
     }
 
+    /** Gets whether the data of this column is stored in a memory mapped file off of the Java heap
+     * 
+     * @return Returns true if the data is in a memory mapped file and false if it is on the heap */
+    boolean isUsingMappedStorage()
+    {
+        return data instanceof MappedColumnStorage;
+    }
+
+    /** Reads the values of consecutive rows of this column into the passed buffer so that many values can be gone
+     * through at a time without copying the whole column. Rows without a value and any places in the buffer past the
+     * end of the column are set to NaN
+     * 
+     * @param startRow The index of the row to put at the start of the buffer
+     * @param buffer The array to read the values into
+     * @return The number of rows of this column that were read into the buffer */
+    int readData(int startRow, double[] buffer)
+    {
+        return data.readBlock(startRow, buffer);
+    }
+
+    /** Gets the encoding used for the data of this column when it is stored on the heap
+     * 
+     * @return The encoding of this column's data */
+    ColumnEncoding getEncoding()
+    {
+        return encoding;
+    }
+
+    /** Gets the number of times the data in this column has been modified. This only ever increases so a changed count
+     * means the data has changed since it was last checked
+     * 
+     * @return Returns the number of modifications made to this DataColumn */
+    public long getModificationCount()
+    {
+        return modificationCount;
+    }
+
     // Setters
-    /** Sets the data in the rows of this DataColumn to the values in the passed array
+    /** Sets the data in the rows of this DataColumn to the values in the passed storage
      * 
-     * @param data The array of data to be put into the DataColumn */
-    private void setData(Double[] data)
+     * @param data The storage of the data to be put into the DataColumn */
+    private void setData(ColumnStorage data)
     {
-        this.data = new ArrayList<>(Arrays.asList(data));
+        this.data.release();
+        this.data = data;
+        modificationCount++;
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+package linefit;
+
+
+/** The compression options for the data of a DataSet. Each option chooses the ColumnEncoding for each of the DataSet's
+ * columns based on what kind of values the columns usually contain
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public enum DataCompression
+{
+    NONE("None"), LOSSLESS("Lossless"), SINGLE_PRECISION("Single Precision");
+
+    /** The String that will be displayed for this DataCompression in the GUI */
+    private final String display;
+
+    /** The constructor of this enum that is used to initialize its members and assign their values
+     * 
+     * @param displayString The name of the DataCompression that will be displayed in the GUI */
+    DataCompression(String displayString)
+    {
+        display = displayString;
+    }
+
+    /** Retrieves the DataCompression from its passed string representation as returned by toString()
+     * 
+     * @param compressionString The string representation of the DataCompression
+     * @return The DataCompression that the string represents or NONE if the passed string was not a valid string
+     *         representation of a DataCompression */
+    public static DataCompression parseCompression(String compressionString)
+    {
+        for (DataCompression compression : DataCompression.values())
+        {
+            if (compressionString.equalsIgnoreCase(compression.toString()))
+            {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    /** Gets the ColumnEncoding this compression uses for the column with the passed dimension. Lossless compression
+     * uses delta of delta encoding for the x data since it is usually evenly spaced and xor encoding for everything
+     * else since it is usually slowly varying
+     * 
+     * @param dim The dimension of the column
+     * @param errorColumn True if the column is the error column of the dimension instead of the data column
+     * @return The ColumnEncoding to use for the column */
+    ColumnEncoding getEncodingFor(DataDimension dim, boolean errorColumn)
+    {
+        switch (this)
+        {
+            case LOSSLESS:
+                if (dim == DataDimension.X && !errorColumn)
+                {
+                    return ColumnEncoding.DELTA_OF_DELTA;
+                }
+                return ColumnEncoding.XOR;
+            case SINGLE_PRECISION:
+                return ColumnEncoding.FLOAT32;
+            default:
+                return ColumnEncoding.NONE;
+        }
+    }
+
+    /** Gets the String that is displayed in the GUI for this DataCompression
+     * 
+     * @return The display String of this DataCompression */
+    @Override
+    public String toString()
+    {
+        return display;
+    }
+}
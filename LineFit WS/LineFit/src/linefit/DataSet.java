@@ -16,54 +16,53 @@ package linefit;
 import java.awt.Color;
 import java.awt.Polygon;
 import java.awt.Shape;
-import java.awt.event.KeyEvent;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.BitSet;
 
 import javax.swing.JOptionPane;
-import javax.swing.JScrollPane;
 import javax.swing.JTable;
-import javax.swing.KeyStroke;
-import javax.swing.ListSelectionModel;
 import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
 
 import linefit.FitAlgorithms.FitType;
 import linefit.FitAlgorithms.FixedVariable;
 import linefit.FitAlgorithms.LinearFitStrategy;
-import linefit.IO.ChangeTracker;
 import linefit.IO.HasDataToSave;
 
 
 /** The class that keeps track of the data in each DataSet in the GraphArea. It contains the columns with the x,y, and
- * error/uncertainty value as well as the color and shape of the Set. Other names include: GraphDataSet, DataSet,
+ * error/uncertainty value as well as the color and shape of the Set. The table that displays the data is a separate
+ * DataSetView that is only created when the DataSet is first displayed. Other names include: GraphDataSet, DataSet,
  * GraphSet
  * 
  * @author Keith Rice
  * @version 2.0
  * @since &lt;0.98.0 */
-public class DataSet extends JScrollPane implements HasDataToSave
+public class DataSet implements HasDataToSave
 {
     /** The static variable that keeps track of the current number of GraphDataSets in the GraphArea. Used to determine
      * the number used for the next GraphDataSet */
     private static int numberOfGraphDataSets = 0;
 
-    /** The Serial Version UID so that we know what version it is when we are using it. See
-     * http://docs.oracle.com/javase/7/docs/api/java/io/Serializable.html for full discussion on its uses and purpose */
-    private final static long serialVersionUID = 42L;
     /** The Default number of columns in each GraphDataSet when it is created. By Default it is two: one for the x
      * values and one for the y values */
     final static int DEFAULT_NUMBER_OF_COLUMNS = 2;
     /** The Default number or rows in each column in the GraphDataSet */
     final static int DEFAULT_NUMBER_OF_ROWS = 10;
 
-    /** The object that keeps track of if any changes have been made */
-    private ChangeTracker changeTracker;
+    /** The bus that changes to this DataSet are published to. Null for placeholders and snapshots */
+    private ChangeBus changeBus;
 
-    /** The table that contains and allows us to input data */
-    private JTable tableContainingData;
+    /** The view that displays the data of this DataSet in a table. Null until this DataSet is first displayed */
+    private DataSetView dataSetView;
+    /** The registry this DataSet is registered with so it can be told when this DataSet is renamed. Null if it has not
+     * been registered */
+    private DataSetRegistry registry;
+    /** Whether or not this DataSet is only the placeholder for creating a new DataSet in the drop down menu */
+    private boolean placeholder = false;
     /** The model of the Table to use for inputting and storing data */
     DataSetTableModel dataTableModel;
     /** The model of the Table to use for inputting and storing data */
@@ -81,6 +80,25 @@ public class DataSet extends JScrollPane implements HasDataToSave
     int errorColumnsDisplayed = 0;
     /** The order of the error DataDimension/DataColumns */
     DataDimension[] errorColumnsOrder = DataDimension.values();
+    /** The number of times the displayed error columns have been changed. Combined with the DataColumns' modification
+     * counts to give the version of the data in this DataSet */
+    private long errorColumnsLayoutVersion = 0;
+    /** The lowest rows written to since versions of the data that were marked so that the graph can tell when rows were
+     * only appended */
+    private RowChangeLog rowChanges = new RowChangeLog();
+    /** The rows that are valid points (have a value in every data dimension). Kept up to date as each value is written
+     * so that the valid points do not need to be searched for each time they are used */
+    private BitSet validPointRows = new BitSet();
+    /** For each DataDimension, the valid points that also have an error value in that dimension */
+    private BitSet[] validPointRowsWithErrors = new BitSet[DataDimension.getNumberOfDimensions()];
+    /** For each DataDimension, the number of valid points that also have an error value in that dimension */
+    private int[] numberOfValidPointsWithErrors = new int[DataDimension.getNumberOfDimensions()];
+    /** The number of rows that are valid points */
+    private int numberOfValidPoints = 0;
+    /** For each DataDimension, the smallest and largest values in its DataColumn */
+    private ColumnExtremes[] dataExtremes = createColumnExtremes();
+    /** For each DataDimension, the smallest and largest values in its DataColumn including their errors */
+    private ColumnExtremes[] dataExtremesWithErrors = createColumnExtremes();
 
     /** The FitAlgrorithm we are using to fit this DataSet that also keeps track of the fit's data */
     public LinearFitStrategy linearFitStrategy; // TODO: encapsulate
@@ -88,10 +106,21 @@ public class DataSet extends JScrollPane implements HasDataToSave
     private FitType dataSetFitType;
     /** The color of this DataSet when drawn to the GraphArea */
     private Color dataSetColor;
+    /** A snapshot of this DataSet from before the current batch of edits was begun so that snapshots taken during the
+     * batch do not see half of its edits. Null when there is no batch in progress */
+    private DataSet batchStartSnapshot = null;
     /** The custom color of this DataSet */
     private Color dataSetCustomColor;
     /** The shape of this DataSet when drawn to the GraphArea */
     private Shape dataSetShape;
+    /** Whether or not the fit sums of this DataSet are kept in double-double precision for badly conditioned data */
+    private boolean highPrecisionFit = false;
+    /** Whether or not the data of this DataSet is stored in memory mapped files instead of on the Java heap */
+    private boolean mappedStorage = false;
+    /** How the data of this DataSet is compressed when it is stored on the heap */
+    private DataCompression dataCompression = DataCompression.NONE;
+    /** How the points of this DataSet are drawn on the graph */
+    private PointsDisplay pointsDisplay = PointsDisplay.AUTOMATIC;
 
     /** Boolean to keep track of if the dataset is in the process of reading in data */
     private boolean inProcessesOfReading = false;
@@ -109,11 +138,10 @@ public class DataSet extends JScrollPane implements HasDataToSave
 
     /** Creates a new empty DataSet that is linked to the GraphArea
      * 
-     * @param parentsChangeTracker The ChangeTracker that is notified when this DataSet changes
-     * @param onUpdateFitTypesAction The function to call when this DataSet is updated */
-    DataSet(ChangeTracker parentsChangeTracker, Runnable onUpdateFitTypesAction)
+     * @param parentsChangeBus The ChangeBus that changes to this DataSet are published to */
+    DataSet(ChangeBus parentsChangeBus)
     {
-        changeTracker = parentsChangeTracker;
+        changeBus = parentsChangeBus;
 
         // Set the default column order
         dataSetFitType = FitType.NONE;
@@ -124,48 +152,21 @@ public class DataSet extends JScrollPane implements HasDataToSave
         dataSetName = "DataSet " + (numberOfGraphDataSets + 1); // +1 so its 1 based instead of 0 based
         dataColumns = new DataColumn[DataDimension.getNumberOfDimensions()];
         errorColumns = new DataColumn[DataDimension.getNumberOfDimensions()];
-        dataTableModel = new DataSetTableModel();
-        dataTableListener = new DataSetTableListener(onUpdateFitTypesAction);
-        tableContainingData = new JTable(dataTableModel);
-        tableContainingData.setGridColor(Color.gray);
-
-        // Clean up JTable to make cell selection work more like excel
-        tableContainingData.setSelectionMode(ListSelectionModel.SINGLE_INTERVAL_SELECTION);
-
-        tableContainingData.setRowSelectionAllowed(true);
-        tableContainingData.setColumnSelectionAllowed(true);
-        tableContainingData.setCellSelectionEnabled(true);
-        tableContainingData.putClientProperty("terminateEditOnFocusLost", Boolean.TRUE);
-
-        setViewportView(tableContainingData);
-
-        for (int i = 0; i < DEFAULT_NUMBER_OF_ROWS; i++)
-        {
-            dataTableModel.insertRow(dataTableModel.getRowCount(), new Object[0]);
-        }
-
         for (DataDimension dim : DataDimension.values())
         {
-            dataColumns[dim.getColumnIndex()] = new DataColumn(dim.getDisplayString(), changeTracker);
-            errorColumns[dim.getColumnIndex()] = new DataColumn(dim.getErrorDisplayString(), changeTracker);
-        }
-
-        for (int i = 0; i < DataDimension.getNumberOfDimensions(); i++)
-        {
-            dataTableModel.addColumn(dataColumns[i].getName());
+            dataColumns[dim.getColumnIndex()] = new DataColumn(dim.getDisplayString());
+            errorColumns[dim.getColumnIndex()] = new DataColumn(dim.getErrorDisplayString());
         }
 
+        dataTableModel = new DataSetTableModel(this);
+        dataTableListener = new DataSetTableListener();
         dataTableModel.addTableModelListener(dataTableListener);
 
-        tableContainingData.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_R, 0, false), "MY_CUSTOM_ACTION");
         dataSetColor = Color.BLACK;
         dataSetCustomColor = dataSetColor;
         dataSetShape = new Rectangle2D.Double();
 
         numberOfGraphDataSets++;
-
-        // Add our table listener for this DataSet
-        new SpreadSheetAdapter(tableContainingData);
     }
 
     /** A private constructor for an empty DataSet that is only used to make a placeholder DataSet */
@@ -175,6 +176,75 @@ public class DataSet extends JScrollPane implements HasDataToSave
         errorColumns = new DataColumn[0];
     }
 
+    /** A private constructor that copies the data, errors and fit type of the passed DataSet without any of the table
+     * or GUI parts. Only used to make read only snapshots
+     * 
+     * @param toSnapshot The DataSet to copy the data of */
+    private DataSet(DataSet toSnapshot)
+    {
+        dataSetName = toSnapshot.dataSetName;
+        dataSetFitType = toSnapshot.dataSetFitType;
+        dataSetColor = toSnapshot.dataSetColor;
+        dataSetShape = toSnapshot.dataSetShape;
+        visibleGraph = toSnapshot.visibleGraph;
+        highPrecisionFit = toSnapshot.highPrecisionFit;
+        mappedStorage = toSnapshot.mappedStorage;
+        dataCompression = toSnapshot.dataCompression;
+        pointsDisplay = toSnapshot.pointsDisplay;
+
+        dataColumns = new DataColumn[toSnapshot.dataColumns.length];
+        errorColumns = new DataColumn[toSnapshot.errorColumns.length];
+        for (int i = 0; i < dataColumns.length; i++)
+        {
+            dataColumns[i] = toSnapshot.dataColumns[i].copy(new DataColumn(toSnapshot.dataColumns[i].getName()));
+            errorColumns[i] = toSnapshot.errorColumns[i].copy(new DataColumn(toSnapshot.errorColumns[i].getName()));
+        }
+        errorColumnsDisplayed = toSnapshot.errorColumnsDisplayed;
+        errorColumnsOrder = toSnapshot.errorColumnsOrder.clone();
+
+        // copy the index of the valid points instead of rebuilding it. The extremes are left stale and only searched
+        // for if the snapshot needs them
+        validPointRows = (BitSet) toSnapshot.validPointRows.clone();
+        numberOfValidPoints = toSnapshot.numberOfValidPoints;
+        numberOfValidPointsWithErrors = toSnapshot.numberOfValidPointsWithErrors.clone();
+        for (int i = 0; i < validPointRowsWithErrors.length; i++)
+        {
+            if (toSnapshot.validPointRowsWithErrors[i] != null)
+            {
+                validPointRowsWithErrors[i] = (BitSet) toSnapshot.validPointRowsWithErrors[i].clone();
+            }
+        }
+    }
+
+    /** Creates a copy of this DataSet's data, errors and fit type that will not change when this DataSet is edited. The
+     * snapshot has no table and no fit strategy of its own and must not be modified so that it can be safely read by
+     * multiple threads at once, for example by several fit algorithms fitting it at the same time. The DataColumns
+     * share their storage with the snapshot until one of them is written to so taking a snapshot does not copy the
+     * data. If a batch of edits is in progress then the snapshot is of the data from before the batch was begun
+     * 
+     * @return A read only copy of this DataSet's current data */
+    public DataSet createSnapshot()
+    {
+        if (batchStartSnapshot != null)
+        {
+            return new DataSet(batchStartSnapshot);
+        }
+        return new DataSet(this);
+    }
+
+    /** Releases the data of this snapshot made by createSnapshot() once it is no longer needed. The snapshot shares its
+     * storage with the DataSet it was taken of, so for mapped storage this lets the DataSet write to its segments again
+     * without copying them first and lets the temporary file be deleted once nothing else is using it. The snapshot is
+     * empty afterwards */
+    public void releaseSnapshot()
+    {
+        for (int i = 0; i < dataColumns.length; i++)
+        {
+            dataColumns[i].releaseData();
+            errorColumns[i].releaseData();
+        }
+    }
+
     /** Returns an empty DataSet with no initialization to be used for the new DataSet option in the drop down menu
      * 
      * @param displayed The String to display on the DataSet drop down placeholder object
@@ -183,6 +253,7 @@ public class DataSet extends JScrollPane implements HasDataToSave
     {
         DataSet placeHolder = new DataSet();
         placeHolder.dataSetName = displayed;
+        placeHolder.placeholder = true;
         return placeHolder;
     }
 
@@ -306,25 +377,14 @@ public class DataSet extends JScrollPane implements HasDataToSave
     {
         if (errorColumnsDisplayed < DataDimension.getNumberOfDimensions())
         {
-            int tableIndex = dataColumns.length + errorColumnsDisplayed;
-            DataDimension toAdd = errorColumnsOrder[errorColumnsDisplayed];
-            DataColumn error = errorColumns[toAdd.getColumnIndex()];
-
             // increment first so the values are the new values when the listeners are called
             errorColumnsDisplayed++;
-            dataTableModel.addColumn(error.getName());
+            errorColumnsLayoutVersion++;
+            dataTableModel.fireTableStructureChanged();
 
-            if (toAdd.getErrorColumnIndex() < tableIndex)
+            if (dataSetView != null)
             {
-                tableContainingData.moveColumn(tableIndex, toAdd.getErrorColumnIndex());
-            }
-
-            for (int i = 0; i < error.dataSize(); i++)
-            {
-                if (!error.isNull(i))
-                {
-                    dataTableModel.setValueAt(error.readDouble(i), i, tableIndex);
-                }
+                dataSetView.arrangeErrorColumns();
             }
         }
     }
@@ -336,7 +396,13 @@ public class DataSet extends JScrollPane implements HasDataToSave
         {
             // decrement first so the values are the new values when the listeners are called
             errorColumnsDisplayed--;
-            dataTableModel.removeLastColumn();
+            errorColumnsLayoutVersion++;
+            dataTableModel.fireTableStructureChanged();
+
+            if (dataSetView != null)
+            {
+                dataSetView.arrangeErrorColumns();
+            }
         }
     }
 
@@ -348,15 +414,14 @@ public class DataSet extends JScrollPane implements HasDataToSave
         ArrayList<FitType> fits = new ArrayList<FitType>();
         fits.add(FitType.NONE);
 
-        ArrayList<Integer> validPoints = getIndexesOfValidPoints();
-        if (validPoints.size() > 1)
+        if (numberOfValidPoints > 1)
         {
             fits.add(FitType.REGULAR);
 
             ArrayList<DataDimension> validDims = new ArrayList<DataDimension>();
             for (DataDimension dim : DataDimension.values())
             {
-                if (isErrorDataVisible(dim) && checkAllHaveErrors(validPoints, dim))
+                if (isErrorDataVisible(dim) && checkAllHaveErrors(dim))
                 {
                     validDims.add(dim);
                 }
@@ -368,109 +433,263 @@ public class DataSet extends JScrollPane implements HasDataToSave
         return fits;
     }
 
+    /** Gets the current version of the data in this DataSet. The version changes whenever any of the data or error
+     * values are modified or whenever error columns are shown or hidden so it can be used to tell if values calculated
+     * from the data need to be recalculated
+     * 
+     * @return The current version of the data in this DataSet */
+    public long getDataVersion()
+    {
+        long version = errorColumnsLayoutVersion;
+        for (int i = 0; i < dataColumns.length; i++)
+        {
+            version += dataColumns[i].getModificationCount() + errorColumns[i].getModificationCount();
+        }
+        return version;
+    }
+
+    /** Marks the current version of the data so that getFirstRowChangedSince can later tell which rows have changed
+     * since it. Only the few most recently marked versions are kept track of */
+    void markDataVersion()
+    {
+        rowChanges.mark(getDataVersion());
+    }
+
+    /** Gets the lowest row of this DataSet that has changed since the passed version of the data. If it is at or past
+     * the number of rows the DataSet had at that version then rows were only appended since then
+     * 
+     * @param dataVersion The version of the data to find the changes since, which needs to have been marked with
+     *            markDataVersion for the changes to be known
+     * @return The index of the lowest row that has changed, 0 if it is not known or Integer.MAX_VALUE if the data has
+     *         not changed */
+    int getFirstRowChangedSince(long dataVersion)
+    {
+        return rowChanges.getFirstRowChangedSince(dataVersion, getDataVersion());
+    }
+
     /** Recalculates the FitData with our current FitType and data */
     void refreshFitData()
     {
         linearFitStrategy.refreshFitData();
     }
 
-    /** returns how many rows have valid points, meaning that they have both x and y data for
+    /** Publishes a change to this DataSet to the ChangeBus so that everything that depends on it is updated
      * 
-     * @return The number of points containing at least an x and a y value in this DataSet */
-    private ArrayList<Integer> getIndexesOfValidPoints()
+     * @param type The type of change that was made */
+    private void publishChange(ChangeType type)
     {
-        ArrayList<Integer> validPoints = new ArrayList<Integer>();
-        boolean pointValid;
-        for (int i = 0; i < dataColumns[0].getDataSize(); i++)
+        if (changeBus != null)
         {
-            pointValid = true;
-            for (int column = 0; column < DataDimension.getNumberOfDimensions(); column++)
+            changeBus.publish(type, this);
+        }
+    }
+
+    /** Returns the indexes of the rows that have valid points, meaning that they have both x and y data
+     * 
+     * @return A copy of the set of the indexes of the rows containing at least an x and a y value in this DataSet */
+    private BitSet getIndexesOfValidPoints()
+    {
+        return (BitSet) validPointRows.clone();
+    }
+
+    /** Gets the number of rows that have valid points, meaning that they have both x and y data
+     * 
+     * @return The number of points that will be graphed and fit for this DataSet */
+    int getNumberOfValidPoints()
+    {
+        return numberOfValidPoints;
+    }
+
+    /** Updates whether or not the row with the passed index is a valid point and which of its errors are set. This
+     * must be called whenever a value is written into any of the DataColumns so that the index of the valid points
+     * stays up to date
+     * 
+     * @param row The index of the row that was written to */
+    private void updateValidPointIndex(int row)
+    {
+        boolean pointValid = true;
+        for (int column = 0; column < dataColumns.length; column++)
+        {
+            if (dataColumns[column].isNull(row))
             {
-                if (dataColumns[column].isNull(i))
-                {
-                    pointValid = false;
-                    break;
-                }
+                pointValid = false;
+                break;
             }
+        }
 
-            if (pointValid)
+        if (pointValid != validPointRows.get(row))
+        {
+            validPointRows.set(row, pointValid);
+            numberOfValidPoints += pointValid ? 1 : -1;
+        }
+
+        for (int column = 0; column < errorColumns.length; column++)
+        {
+            if (validPointRowsWithErrors[column] == null)
             {
-                validPoints.add(i);
+                validPointRowsWithErrors[column] = new BitSet();
             }
-        }
 
-        return validPoints;
+            boolean hasError = pointValid && !errorColumns[column].isNull(row);
+            if (hasError != validPointRowsWithErrors[column].get(row))
+            {
+                validPointRowsWithErrors[column].set(row, hasError);
+                numberOfValidPointsWithErrors[column] += hasError ? 1 : -1;
+            }
+        }
     }
 
-    /** Returns the min and max values of the passed data dimension taking into account errors if told to do so
+    /** Returns the min and max values of the passed data dimension taking into account errors if told to do so. The
+     * values are kept up to date as the data is written so they only need to be searched for when one of the extreme
+     * values has been changed or removed
      * 
      * @param dim The dimension to get the min and max values of
      * @param withErrors True if the min and max values should include the error values of the passed dimension
      * @return An array containing the min value at 0 and the max at 1 */
     public double[] getMinMax(DataDimension dim, boolean withErrors)
     {
-        boolean hasInit = false;
-        double dataMax = 0;
-        double dataMin = 0;
-
-        refreshFitData();
-        DataColumn data = dataColumns[dim.getColumnIndex()];
-        DataColumn error = errorColumns[dim.getColumnIndex()];
-
-        for (int i = 0; i < data.getDataSize(); i++)
+        int dimIndex = dim.getColumnIndex();
+        if (dataExtremes[dimIndex].isStale() || dataExtremesWithErrors[dimIndex].isStale())
         {
-            if (!data.isNull(i))
-            {
-                double tmp = data.readDouble(i);
-                double tmpErr = 0;
-                if (withErrors && !error.isNull(i))
-                {
-                    tmpErr = Math.abs(error.readDouble(i));
-                }
+            dataExtremes[dimIndex].reset();
+            dataExtremesWithErrors[dimIndex].reset();
 
-                if (hasInit)
+            // read the values in blocks so that the whole column is never copied
+            double[] values = new double[ColumnStorage.BLOCK_SIZE];
+            double[] errors = new double[ColumnStorage.BLOCK_SIZE];
+            for (int start = 0; start < dataColumns[dimIndex].getDataSize(); start += values.length)
+            {
+                int count = dataColumns[dimIndex].readData(start, values);
+                errorColumns[dimIndex].readData(start, errors);
+                for (int i = 0; i < count; i++)
                 {
-                    if (tmp + tmpErr > dataMax)
-                    {
-                        dataMax = tmp + tmpErr;
-                    }
-                    else if (tmp - tmpErr < dataMin)
+                    if (!Double.isNaN(values[i]))
                     {
-                        dataMin = tmp - tmpErr;
+                        double error = Double.isNaN(errors[i]) ? 0 : Math.abs(errors[i]);
+                        updateExtremes(dimIndex, values[i], error, true);
                     }
                 }
-                else
-                {
-                    dataMax = tmp + tmpErr;
-                    dataMin = tmp - tmpErr;
-                    hasInit = true;
-                }
             }
         }
 
-        return new double[] { dataMin, dataMax };
+        if (withErrors)
+        {
+            return dataExtremesWithErrors[dimIndex].getMinMax();
+        }
+        return dataExtremes[dimIndex].getMinMax();
     }
 
-    /** Checks if all the points at the specified indexes in the passed dimension has an associated error/uncertainty
-     * value
+    /** Adds or removes the value and error at the passed row of the passed dimension from the dimension's extremes
+     * 
+     * @param dimIndex The column index of the dimension to update the extremes of
+     * @param row The index of the row to add or remove
+     * @param add True to add the row's value to the extremes or false to remove it */
+    private void updateExtremesForRow(int dimIndex, int row, boolean add)
+    {
+        Double value = dataColumns[dimIndex].getDataAt(row);
+        if (value == null)
+        {
+            return;
+        }
+
+        double error = 0;
+        Double errorValue = errorColumns[dimIndex].getDataAt(row);
+        if (errorValue != null)
+        {
+            error = Math.abs(errorValue);
+        }
+        updateExtremes(dimIndex, value, error, add);
+    }
+
+    /** Adds or removes the passed value and its error from the passed dimension's extremes
+     * 
+     * @param dimIndex The column index of the dimension to update the extremes of
+     * @param value The value to add or remove
+     * @param error The absolute value of the error of the value
+     * @param add True to add the value to the extremes or false to remove it */
+    private void updateExtremes(int dimIndex, double value, double error, boolean add)
+    {
+        if (add)
+        {
+            dataExtremes[dimIndex].add(value, value);
+            dataExtremesWithErrors[dimIndex].add(value - error, value + error);
+        }
+        else
+        {
+            dataExtremes[dimIndex].remove(value, value);
+            dataExtremesWithErrors[dimIndex].remove(value - error, value + error);
+        }
+    }
+
+    /** Writes the passed value into the passed data or error DataColumn of this DataSet and updates the valid points
+     * and the extremes of the column's dimension to match
+     * 
+     * @param column The data or error DataColumn of this DataSet to write to
+     * @param row The index of the row to write the value to
+     * @param value The value to write, which can be null */
+    void writeData(DataColumn column, int row, Double value)
+    {
+        int dimIndex = 0;
+        while (dimIndex < dataColumns.length - 1 && column != dataColumns[dimIndex] && column !=
+                errorColumns[dimIndex])
+        {
+            dimIndex++;
+        }
+
+        long versionBefore = getDataVersion();
+        updateExtremesForRow(dimIndex, row, false);
+        column.writeData(row, value);
+        updateExtremesForRow(dimIndex, row, true);
+        updateValidPointIndex(row);
+        rowChanges.rowWritten(versionBefore, getDataVersion(), row);
+    }
+
+    /** Creates a ColumnExtremes for each of the DataDimensions
+     * 
+     * @return An array of new ColumnExtremes indexed by the column index of the DataDimensions */
+    private static ColumnExtremes[] createColumnExtremes()
+    {
+        ColumnExtremes[] extremes = new ColumnExtremes[DataDimension.getNumberOfDimensions()];
+        for (int i = 0; i < extremes.length; i++)
+        {
+            extremes[i] = new ColumnExtremes();
+        }
+        return extremes;
+    }
+
+    /** Checks if all the valid points have an associated error/uncertainty value in the passed dimension
      * 
-     * @param indexes The list of the indexes to check for error values at
      * @param dimension The data dimension to check the errors for
-     * @return True if all the points at the passed indexes have an error/uncertainty associated with them for the
-     *         passed dimension and false otherwise */
-    private boolean checkAllHaveErrors(ArrayList<Integer> indexes, DataDimension dimension)
+     * @return True if all the valid points have an error/uncertainty associated with them for the passed dimension and
+     *         false otherwise */
+    private boolean checkAllHaveErrors(DataDimension dimension)
     {
-        DataColumn error = errorColumns[dimension.getColumnIndex()];
+        return numberOfValidPointsWithErrors[dimension.getColumnIndex()] == numberOfValidPoints;
+    }
 
-        for (Integer index : indexes)
+    /** Starts a batch of edits to this DataSet's data. While a batch is open, changes to the data do not refit the
+     * DataSet or update the GraphArea. This is done once when the batch is committed so that large edits such as
+     * pasting many rows are not slowed down by updating after every value. Every call must be matched with a call to
+     * commitBatchEdit() */
+    public void beginBatchEdit()
+    {
+        if (batchStartSnapshot == null)
         {
-            if (error.isNull(index))
-            {
-                return false;
-            }
+            batchStartSnapshot = new DataSet(this);
         }
+        dataTableModel.beginBatchEdit();
+    }
 
-        return true;
+    /** Ends a batch of edits to this DataSet's data that was started with beginBatchEdit(). Once all the open batches
+     * are committed the DataSet is refit and the listeners are notified of all the changes at once */
+    public void commitBatchEdit()
+    {
+        dataTableModel.commitBatchEdit();
+        if (!dataTableModel.isInBatchEdit() && batchStartSnapshot != null)
+        {
+            batchStartSnapshot.releaseSnapshot();
+            batchStartSnapshot = null;
+        }
     }
 
     /** Determines whether or not their is data in this DataSet
@@ -488,8 +707,12 @@ public class DataSet extends JScrollPane implements HasDataToSave
      * @return Returns true if the data or option for the data was read in from the line */
     public boolean readInDataAndDataOptions(String line, boolean unused)
     {
-        // Enusre we know that we are reading in the data
-        inProcessesOfReading = true;
+        // Enusre we know that we are reading in the data and hold off on updating until it is all read in
+        if (!inProcessesOfReading)
+        {
+            inProcessesOfReading = true;
+            beginBatchEdit();
+        }
 
         // now split the input into the two parts
         // we can't use split because it will mess up on names as well as points since they have multiple spaces
@@ -559,6 +782,18 @@ public class DataSet extends JScrollPane implements HasDataToSave
                 case "visible":
                     visibleGraph = valueForField.toLowerCase().equals("true");
                     break;
+                case "highprecisionfit":
+                    highPrecisionFit = valueForField.toLowerCase().equals("true");
+                    break;
+                case "mappedstorage":
+                    setUseMappedStorage(valueForField.toLowerCase().equals("true"));
+                    break;
+                case "compression":
+                    setDataCompression(DataCompression.parseCompression(valueForField));
+                    break;
+                case "pointsdisplay":
+                    pointsDisplay = PointsDisplay.parseDisplay(valueForField);
+                    break;
                 case "shape":
                 {
                     if (valueForField.equals("rectangle"))
@@ -645,9 +880,6 @@ public class DataSet extends JScrollPane implements HasDataToSave
                 case "p":
                 case "datapoint":
                 {
-                    // Temporarily disable the dataset table listener to prevent it from updating prematurely
-                    dataTableListener.setListenerEnabled(false);
-
                     // split it up into the separate string parts
                     String[] splitPointValuesInput = valueForField.split(" ");
 
@@ -670,7 +902,7 @@ public class DataSet extends JScrollPane implements HasDataToSave
                         {
                             if (column < DataDimension.getNumberOfDimensions())
                             {
-                                dataColumns[column].writeData(row, value);
+                                writeData(dataColumns[column], row, value);
                             }
                             else
                             {
@@ -683,9 +915,9 @@ public class DataSet extends JScrollPane implements HasDataToSave
                                         nextErrorIdx++;
                                     }
                                 }
-                                errorColumns[nextErrorIdx++].writeData(row, value);
+                                writeData(errorColumns[nextErrorIdx++], row, value);
                             }
-                            dataTableModel.setValueAt(value, row, column);
+                            dataTableModel.rowChanged(row);
                         }
                         catch (IndexOutOfBoundsException iobe)
                         {
@@ -695,8 +927,6 @@ public class DataSet extends JScrollPane implements HasDataToSave
                             break;
                         }
                     }
-                    // Don't forget to reenable the dataset table listener
-                    dataTableListener.setListenerEnabled(true);
                     break;
                 }
                 default:
@@ -707,7 +937,7 @@ public class DataSet extends JScrollPane implements HasDataToSave
         }
         catch (NumberFormatException nfe)
         {
-            JOptionPane.showMessageDialog(this, "Error reading in number from line: " + line, "NFE Error",
+            JOptionPane.showMessageDialog(dataSetView, "Error reading in number from line: " + line, "NFE Error",
                     JOptionPane.ERROR_MESSAGE);
         }
 
@@ -722,6 +952,9 @@ public class DataSet extends JScrollPane implements HasDataToSave
             // Clean up our temporary read in data
             inProcessesOfReading = false;
             errorColumnsInFile.clear();
+
+            // now that all the points are read in let the table and the graph know about them all at once
+            commitBatchEdit();
         }
     }
 
@@ -753,6 +986,26 @@ public class DataSet extends JScrollPane implements HasDataToSave
             variableValues.add(Double.toString(linearFitStrategy.getFixedValue()));
             variableNames.add("Visible");
             variableValues.add(Boolean.toString(visibleGraph));
+            if (highPrecisionFit)
+            {
+                variableNames.add("HighPrecisionFit");
+                variableValues.add(Boolean.toString(highPrecisionFit));
+            }
+            if (mappedStorage)
+            {
+                variableNames.add("MappedStorage");
+                variableValues.add(Boolean.toString(mappedStorage));
+            }
+            if (dataCompression != DataCompression.NONE)
+            {
+                variableNames.add("Compression");
+                variableValues.add(dataCompression.toString());
+            }
+            if (pointsDisplay != PointsDisplay.AUTOMATIC)
+            {
+                variableNames.add("PointsDisplay");
+                variableValues.add(pointsDisplay.toString());
+            }
             variableNames.add("Shape");
             variableValues.add(getShapeString());
             variableNames.add("Color");
@@ -777,8 +1030,7 @@ public class DataSet extends JScrollPane implements HasDataToSave
             }
 
             String datapoint;
-            ArrayList<Integer> indexes = getIndexesOfValidPoints();
-            for (Integer index : indexes)
+            for (int index = validPointRows.nextSetBit(0); index >= 0; index = validPointRows.nextSetBit(index + 1))
             {
                 datapoint = "";
                 variableNames.add("DataPoint");
@@ -929,12 +1181,42 @@ public class DataSet extends JScrollPane implements HasDataToSave
         return dataSetShape;
     }
 
-    /** Gets the Table that contains the data for this DataSet
+    /** Returns whether or not this DataSet is only the placeholder for creating a new DataSet in the drop down menu
+     * 
+     * @return True if this is the new DataSet placeholder */
+    public boolean isPlaceholder()
+    {
+        return placeholder;
+    }
+
+    /** Gets the Table that contains the data for this DataSet, creating the view of this DataSet if it has not been
+     * displayed yet
      * 
      * @return The Table containing this DataSet's data */
     public JTable getDataTable()
     {
-        return tableContainingData;
+        return getView().getDataTable();
+    }
+
+    /** Gets the view that displays this DataSet's data in a table, creating it the first time it is needed so that
+     * DataSets that are never displayed do not create any Swing components
+     * 
+     * @return The DataSetView of this DataSet */
+    DataSetView getView()
+    {
+        if (dataSetView == null)
+        {
+            dataSetView = new DataSetView(this);
+        }
+        return dataSetView;
+    }
+
+    /** Checks if the view of this DataSet has been created yet without creating it
+     * 
+     * @return True if the DataSetView of this DataSet exists and false if it has never been needed */
+    boolean hasView()
+    {
+        return dataSetView != null;
     }
 
     /** Gets the name of this DataSet
@@ -953,6 +1235,38 @@ public class DataSet extends JScrollPane implements HasDataToSave
         return dataSetFitType;
     }
 
+    /** Returns whether or not the fit sums of this DataSet are kept in double-double precision
+     * 
+     * @return True if the fit of this DataSet uses high precision sums */
+    public boolean isHighPrecisionFit()
+    {
+        return highPrecisionFit;
+    }
+
+    /** Returns whether or not the data of this DataSet is stored in memory mapped files instead of on the Java heap
+     * 
+     * @return True if the data of this DataSet is stored off of the heap */
+    public boolean isUsingMappedStorage()
+    {
+        return mappedStorage;
+    }
+
+    /** Returns how the data of this DataSet is compressed when it is stored on the heap
+     * 
+     * @return The DataCompression used for this DataSet's data */
+    public DataCompression getDataCompression()
+    {
+        return dataCompression;
+    }
+
+    /** Gets how the points of this DataSet are drawn on the graph
+     * 
+     * @return The PointsDisplay of this DataSet */
+    public PointsDisplay getPointsDisplay()
+    {
+        return pointsDisplay;
+    }
+
     /** Checks to see if the passed index is an error column or a data column. The passed index must be the "displayed"
      * index which is the index as it appears in the GUI (i.e. includes both data columns and error columns)
      * 
@@ -968,7 +1282,7 @@ public class DataSet extends JScrollPane implements HasDataToSave
      * 
      * @param columnIndex The "displayed" index to convert into the internal index for accessing data structures
      * @return Returns the internal error index of the passed "displayed" index for accessing data structures */
-    private int convertErrorIndexDisplayedToInternal(int columnIndex)
+    int convertErrorIndexDisplayedToInternal(int columnIndex)
     {
         return errorColumnsOrder[columnIndex - DataDimension.getNumberOfDimensions()].getColumnIndex();
     }
@@ -998,7 +1312,7 @@ public class DataSet extends JScrollPane implements HasDataToSave
      * 
      * @param columnIndex The "displayed" index to get the DataColumn of
      * @return The DataColumn at the passed index */
-    private DataColumn getDisplayedColumn(int columnIndex)
+    DataColumn getDisplayedColumn(int columnIndex)
     {
         if (columnIndex < DataDimension.getNumberOfDimensions())
         {
@@ -1062,6 +1376,21 @@ public class DataSet extends JScrollPane implements HasDataToSave
         return getData(dim.getColumnIndex());
     }
 
+    /** Gets the number of rows in the longest of the data and error DataColumns including any null values in between
+     * non-null values, regardless of if the error columns are displayed
+     * 
+     * @return The number of rows of the longest DataColumn */
+    int getNumberOfRows()
+    {
+        int numberOfRows = 0;
+        for (int i = 0; i < dataColumns.length; i++)
+        {
+            numberOfRows = Math.max(numberOfRows, Math.max(dataColumns[i].getDataSize(), errorColumns[i]
+                    .getDataSize()));
+        }
+        return numberOfRows;
+    }
+
     /** Gets the length of the data at the passed dimension. This includes any null values in between non-null values.
      * Or to put another way, the 1 based row index of the last populated value for this dimension
      * 
@@ -1102,6 +1431,64 @@ public class DataSet extends JScrollPane implements HasDataToSave
         return 0;
     }
 
+    /** Reads the values of consecutive rows of the passed dimension's data into the passed buffer so that many points
+     * can be gone through without copying the whole column. Rows without a value and any places in the buffer past
+     * the end of the data are set to NaN
+     * 
+     * @param dim The dimension to read the data of
+     * @param startRow The index of the row to put at the start of the buffer
+     * @param buffer The array to read the values into
+     * @return The number of rows of the data that were read into the buffer */
+    int readData(DataDimension dim, int startRow, double[] buffer)
+    {
+        return dataColumns[dim.getColumnIndex()].readData(startRow, buffer);
+    }
+
+    /** Reads the values of consecutive rows of the passed dimension's error/uncertainty values into the passed buffer.
+     * Rows without a value and any places in the buffer past the end of the errors are set to NaN and if the errors of
+     * the dimension are not displayed then the whole buffer is set to NaN
+     * 
+     * @param dim The dimension to read the error/uncertainty values of
+     * @param startRow The index of the row to put at the start of the buffer
+     * @param buffer The array to read the values into
+     * @return The number of rows of the errors that were read into the buffer */
+    int readErrorData(DataDimension dim, int startRow, double[] buffer)
+    {
+        if (isErrorDataVisible(dim))
+        {
+            return errorColumns[dim.getColumnIndex()].readData(startRow, buffer);
+        }
+        Arrays.fill(buffer, Double.NaN);
+        return 0;
+    }
+
+    /** Reads the value of a single row of the passed dimension's data. This is used instead of reading a block of rows
+     * when the rows needed are spread out through the data
+     * 
+     * @param dim The dimension to read the data of
+     * @param row The index of the row to read
+     * @return The value of the row or NaN if it does not have one */
+    double readValue(DataDimension dim, int row)
+    {
+        Double value = dataColumns[dim.getColumnIndex()].getDataAt(row);
+        return value == null ? Double.NaN : value;
+    }
+
+    /** Reads the error/uncertainty value of a single row of the passed dimension
+     * 
+     * @param dim The dimension to read the error/uncertainty value of
+     * @param row The index of the row to read
+     * @return The error of the row or NaN if it does not have one or the errors of the dimension are not displayed */
+    double readErrorValue(DataDimension dim, int row)
+    {
+        if (!isErrorDataVisible(dim))
+        {
+            return Double.NaN;
+        }
+        Double value = errorColumns[dim.getColumnIndex()].getDataAt(row);
+        return value == null ? Double.NaN : value;
+    }
+
     /** Checks if the error/uncertainty values for the passed dimension are displayed/visible
      * 
      * @param dim The dimension to check if the error/uncertainty values are visible for
@@ -1176,7 +1563,7 @@ public class DataSet extends JScrollPane implements HasDataToSave
      *         values are set to null */
     public Double[][] getAllValidPointsData(boolean withErrors)
     {
-        ArrayList<Integer> validPoints = getIndexesOfValidPoints();
+        BitSet validPoints = getIndexesOfValidPoints();
 
         Double[][] data = getValidPoints_Data(validPoints);
 
@@ -1217,45 +1604,52 @@ public class DataSet extends JScrollPane implements HasDataToSave
      * 
      * [Dimesnion1Data, Dimension2Data]
      * 
-     * @param validPoints The list of thus far valid points to get the data for. Any point that was detected as invalid
-     *        by this function will be removed from the list
+     * @param validPoints The set of the indexes of the thus far valid points to get the data for. Any point that was
+     *        detected as invalid by this function will be removed from the set
      * 
      * @return A 2-D array containing the data for this dataset as specified in the description */
-    private Double[][] getValidPoints_Data(ArrayList<Integer> validPoints)
+    private Double[][] getValidPoints_Data(BitSet validPoints)
     {
         Double[][] data = new Double[dataColumns.length][];
         int columnIdx = 0;
 
-        int numPoints = validPoints.size();
-        Iterator<Integer> pointsIter;
-        Integer pointIdx;
+        int numPoints = validPoints.cardinality();
         boolean failedToFindPoint = false;
 
         int validIndex = 0;
         Double[] validData;
 
-        // add the data columns
-        Double[] columnData;
+        // add the data columns. The values are read in blocks instead of copying the whole column so that only the
+        // valid points are ever put on the heap
+        DataColumn column;
+        double[] block = new double[ColumnStorage.BLOCK_SIZE];
+        int blockStart;
         for (DataDimension dim : DataDimension.values())
         {
             validIndex = 0;
             validData = new Double[numPoints];
-            columnData = getData(dim);
+            column = dataColumns[dim.getColumnIndex()];
+            blockStart = -1;
 
-            pointsIter = validPoints.iterator();
-            while (pointsIter.hasNext())
+            for (int pointIdx = validPoints.nextSetBit(0); pointIdx >= 0; pointIdx = validPoints.nextSetBit(
+                    pointIdx + 1))
             {
-                pointIdx = pointsIter.next();
-                if (pointIdx >= columnData.length)
+                if (pointIdx >= column.getDataSize())
                 {
                     // This should never occur!
                     System.err.println(
                             "Failed to retreive point information for a point that was returned as valid at row " +
                                     pointIdx + ". Removing it from the returned data");
-                    pointsIter.remove();
+                    validPoints.clear(pointIdx);
                     failedToFindPoint = true;
+                    continue;
                 }
-                validData[validIndex] = columnData[pointIdx];
+                if (blockStart < 0 || pointIdx >= blockStart + block.length)
+                {
+                    blockStart = pointIdx;
+                    column.readData(blockStart, block);
+                }
+                validData[validIndex] = block[pointIdx - blockStart];
                 validIndex++;
             }
 
@@ -1290,28 +1684,27 @@ public class DataSet extends JScrollPane implements HasDataToSave
      * 
      * [Dimension1Error, Dimension2Error]
      * 
-     * @param validPoints The list of thus far valid points to get the error data for. Any point that was detected as
-     *        invalid by this function will be removed from the list
+     * @param validPoints The set of the indexes of the thus far valid points to get the error data for. Any point that
+     *        was detected as invalid by this function will be removed from the set
      * 
      * @return A 2-D array containing the erro data for this dataset as specified in the description. Any non-specified
      *         error values are set to null */
-    private Double[][] getValidPoints_Errors(ArrayList<Integer> validPoints)
+    private Double[][] getValidPoints_Errors(BitSet validPoints)
     {
         Double[][] data = new Double[dataColumns.length][];
         int columnIdx = 0;
 
-        int numPoints = validPoints.size();
-        Iterator<Integer> pointsIter;
-        Integer pointIdx;
+        int numPoints = validPoints.cardinality();
         boolean failedToFindPoint = false;
 
         int validIndex = 0;
         Double[] validData;
 
-        // add the data columns
-        Double[] columnData;
+        // add the error columns
+        DataColumn column;
+        double[] block = new double[ColumnStorage.BLOCK_SIZE];
+        int blockStart;
 
-        // and the error columns
         DataDimension[] requiredDims = FitType.getRequiredErrorDimsForFitType(dataSetFitType);
         boolean isRequired = false;
 
@@ -1343,17 +1736,23 @@ public class DataSet extends JScrollPane implements HasDataToSave
 
             validIndex = 0;
             validData = new Double[numPoints];
-            columnData = getErrorData(dim);
+            column = errorColumns[dim.getColumnIndex()];
+            blockStart = -1;
 
             // Now go through each of our valid point indexes
-            pointsIter = validPoints.iterator();
-            while (pointsIter.hasNext())
+            for (int pointIdx = validPoints.nextSetBit(0); pointIdx >= 0; pointIdx = validPoints.nextSetBit(
+                    pointIdx + 1))
             {
-                pointIdx = pointsIter.next();
                 // If its visible we attempt to add the value in the column
                 if (isErrorDataVisible(dim))
                 {
-                    if (pointIdx >= columnData.length || columnData[validIndex] == null)
+                    if (blockStart < 0 || pointIdx >= blockStart + block.length)
+                    {
+                        blockStart = pointIdx;
+                        column.readData(blockStart, block);
+                    }
+                    double errorValue = block[pointIdx - blockStart];
+                    if (Double.isNaN(errorValue))
                     {
                         // If we didn't find the value and it was required for the fit then we must remove it and
                         // start over. This should never occur!
@@ -1362,7 +1761,7 @@ public class DataSet extends JScrollPane implements HasDataToSave
                             System.err.println(
                                     "Failed to retreive point's required error information for a point that was returned as valid at row " +
                                             pointIdx + ". Removing it from the returned data");
-                            pointsIter.remove();
+                            validPoints.clear(pointIdx);
                             failedToFindPoint = true;
                         }
                         // Otherwise just set it to null
@@ -1374,7 +1773,7 @@ public class DataSet extends JScrollPane implements HasDataToSave
                     // If we successfully retrieved the value then add it to the list
                     else
                     {
-                        validData[validIndex] = columnData[pointIdx];
+                        validData[validIndex] = errorValue;
                     }
                     validIndex++;
                 }
@@ -1415,14 +1814,13 @@ public class DataSet extends JScrollPane implements HasDataToSave
      * @param color The desired Color to use when drawing this DataSet to the GraphArea */
     public void setColor(Color color)
     {
-        changeTracker.setFileModified();
-
         dataSetColor = color;
 
         if (isColorCustom())
         {
             dataSetCustomColor = color;
         }
+        publishChange(ChangeType.APPEARANCE);
     }
 
     /** Sets the shape used for the points of this DataSet when drawing it to the GraphArea to the given Shape
@@ -1430,8 +1828,8 @@ public class DataSet extends JScrollPane implements HasDataToSave
      * @param shape The desired Shape to use when drawing this DataSet's points */
     public void setShape(Shape shape)
     {
-        changeTracker.setFileModified();
         dataSetShape = shape;
+        publishChange(ChangeType.APPEARANCE);
     }
 
     /** Sets the FitType to use for this DataSet to the given FitType
@@ -1439,8 +1837,102 @@ public class DataSet extends JScrollPane implements HasDataToSave
      * @param fit The FitType to use for this DataSet's linear fit */
     public void setFitType(FitType fit)
     {
-        changeTracker.setFileModified();
         dataSetFitType = fit;
+        publishChange(ChangeType.FIT);
+    }
+
+    /** Sets whether or not the fit sums of this DataSet are kept in double-double precision. This keeps about twice the
+     * digits of plain doubles which is needed when the data is far from zero compared to its spread (such as time
+     * stamps) but makes the fit several times slower
+     * 
+     * @param highPrecision True if the fit should use high precision sums */
+    public void setHighPrecisionFit(boolean highPrecision)
+    {
+        if (highPrecisionFit != highPrecision)
+        {
+            highPrecisionFit = highPrecision;
+            publishChange(ChangeType.FIT);
+        }
+    }
+
+    /** Sets how the points of this DataSet are drawn on the graph
+     * 
+     * @param display Whether to draw the points as markers, as a density map or to choose automatically */
+    public void setPointsDisplay(PointsDisplay display)
+    {
+        if (pointsDisplay != display)
+        {
+            pointsDisplay = display;
+            publishChange(ChangeType.APPEARANCE);
+        }
+    }
+
+    /** Sets whether or not the data of this DataSet is stored in memory mapped files instead of on the Java heap. This
+     * allows DataSets that are larger than the heap to be used at the cost of slower access to the data. If the files
+     * cannot be created the data is left on the heap
+     * 
+     * @param useMappedStorage True if the data should be stored off of the heap */
+    public void setUseMappedStorage(boolean useMappedStorage)
+    {
+        if (mappedStorage == useMappedStorage)
+        {
+            return;
+        }
+
+        boolean succeeded = true;
+        for (int i = 0; i < dataColumns.length && succeeded; i++)
+        {
+            succeeded = dataColumns[i].setUseMappedStorage(useMappedStorage) && errorColumns[i].setUseMappedStorage(
+                    useMappedStorage);
+        }
+
+        // put any columns that were moved back where they were if they could not all be moved
+        if (!succeeded)
+        {
+            for (int i = 0; i < dataColumns.length; i++)
+            {
+                dataColumns[i].setUseMappedStorage(mappedStorage);
+                errorColumns[i].setUseMappedStorage(mappedStorage);
+            }
+            System.err.println("Could not create the files to store the data of " + dataSetName +
+                    " off of the heap. Leaving it on the heap");
+            return;
+        }
+
+        mappedStorage = useMappedStorage;
+        publishChange(ChangeType.STORAGE);
+    }
+
+    /** Sets how the data of this DataSet is compressed when it is stored on the heap and re-encodes the data with it.
+     * Each column is given the encoding that the compression chooses for it
+     * 
+     * @param compression The DataCompression to use for this DataSet's data */
+    public void setDataCompression(DataCompression compression)
+    {
+        if (dataCompression == compression)
+        {
+            return;
+        }
+
+        for (DataDimension dim : DataDimension.values())
+        {
+            dataColumns[dim.getColumnIndex()].setEncoding(compression.getEncodingFor(dim, false));
+            errorColumns[dim.getColumnIndex()].setEncoding(compression.getEncodingFor(dim, true));
+        }
+
+        dataCompression = compression;
+        publishChange(ChangeType.STORAGE);
+
+        // rounding the values may have changed the extremes and the fit
+        if (compression == DataCompression.SINGLE_PRECISION)
+        {
+            for (int i = 0; i < dataColumns.length; i++)
+            {
+                dataExtremes[i].markStale();
+                dataExtremesWithErrors[i].markStale();
+            }
+            publishChange(ChangeType.DATA);
+        }
     }
 
     /** Sets the name of this DataSet to the desired passed name
@@ -1448,7 +1940,20 @@ public class DataSet extends JScrollPane implements HasDataToSave
      * @param name The new Name of this DataSet */
     public void setName(String name)
     {
+        String oldName = dataSetName;
         dataSetName = name;
+        if (registry != null)
+        {
+            registry.dataSetRenamed(this, oldName);
+        }
+    }
+
+    /** Sets the registry this DataSet is registered with so it can be told when this DataSet is renamed
+     * 
+     * @param registeredWith The registry this DataSet was registered with */
+    void setRegistry(DataSetRegistry registeredWith)
+    {
+        registry = registeredWith;
     }
 
     // private classes
@@ -1460,22 +1965,9 @@ public class DataSet extends JScrollPane implements HasDataToSave
      * @since &lt;0.98.0 */
     private class DataSetTableListener implements TableModelListener
     {
-        /** True if we are in the process of updating the table so we can tell if we called ourself to prevent infinite
-         * recursion */
-        boolean alreadyUpdatingTable = false;
         /** True if the listener is enabled, false otherwise. This allows us to change data internally without calling
          * the listener */
         boolean enabled = true;
-        /** The action to run when the allowable fit types are updated */
-        Runnable onUpdateFitTypesAction;
-
-        /** Constructor for the DataSetTableListener
-         * 
-         * @param inOnUpdateFitTypesAction The action to run when the fit types for this data are updated */
-        DataSetTableListener(Runnable inOnUpdateFitTypesAction)
-        {
-            onUpdateFitTypesAction = inOnUpdateFitTypesAction;
-        }
 
         /** Enables or disables the listener to allow for data updates internally without triggering the listener
          * 
@@ -1485,75 +1977,11 @@ public class DataSet extends JScrollPane implements HasDataToSave
             enabled = enable;
         }
 
-        /** Used to signal LineFit that the data has changed or has potentially changed */
+        /** Used to signal LineFit that the data has changed or has potentially changed. The fit and everything else
+         * that depends on the data is updated once the change is delivered by the ChangeBus */
         public void signalDataChanged()
         {
-            refreshFitData();
-            onUpdateFitTypesAction.run();
-        }
-
-        /** Validates and Updates the data in the column at the passed index as appropriate
-         * 
-         * @param e The event containing information on what was changed
-         * @param columnIndex The index of the column that was changed */
-        private void updateColumn(TableModelEvent e, int columnIndex)
-        {
-            DataColumn data = getDisplayedColumn(columnIndex);
-
-            // we should never have a negative here but add the check just in case
-            if (e.getFirstRow() < 0)
-            {
-                System.err.println("Warning: detected negative row index for table update for row " + columnIndex +
-                        ". Continuing");
-                return;
-            }
-
-            for (int i = e.getFirstRow(); i <= e.getLastRow(); i++)
-            {
-                Object entryObj = dataTableModel.getValueAt(i, columnIndex);
-                Double entry = null;
-                if (entryObj != null)
-                {
-                    // Get the value entered and see if it is a valud entry
-                    boolean badEntry = false;
-                    try
-                    {
-                        entry = Double.parseDouble(entryObj.toString());
-
-                        // ensure it is not infinity or any other strange value
-                        if (!Double.isFinite(entry))
-                        {
-                            badEntry = true;
-                        }
-
-                        // Don't allow zero errors!
-                        if (isIndexDisplayedErrorColumn(columnIndex) && entry == 0)
-                        {
-                            badEntry = true;
-                        }
-                    }
-                    catch (NumberFormatException nfe)
-                    {
-                        badEntry = true;
-                    }
-
-                    // If the entry was bad, set it back to what it was
-                    if (badEntry)
-                    {
-                        entry = data.getDataAt(e.getFirstRow());
-                    }
-                }
-
-                // always set it so that it will convert to double format if it wasn't entered that way
-                dataTableModel.setValueAt(entry, i, columnIndex);
-                data.writeData(e.getFirstRow(), entry);
-            }
-
-            // if there are no more rows, then add one
-            if (e.getLastRow() + 1 == dataTableModel.getRowCount())
-            {
-                dataTableModel.addRow(new Object[dataTableModel.getColumnCount()]);
-            }
+            publishChange(ChangeType.DATA);
         }
 
         /** The event that is called whenever the values in the table have been modified
@@ -1561,31 +1989,11 @@ public class DataSet extends JScrollPane implements HasDataToSave
          * @param e The event containing information on what was changed */
         public void tableChanged(TableModelEvent e)
         {
-            // if this event was fired while we were modifying the table, then ignore it because it was due to our
-            // modifications.
-            if (enabled && !alreadyUpdatingTable)
+            // the values are already written to the DataColumns by the table model so we only need to let everything
+            // know they changed. Inserting the blank row at the end does not change any data
+            if (enabled && e.getType() != TableModelEvent.INSERT)
             {
-                alreadyUpdatingTable = true;
-
-                // If we are adding or removing a new column, its index will be -1
-                if (e.getColumn() >= 0)
-                {
-                    if (e.getColumn() == TableModelEvent.ALL_COLUMNS)
-                    {
-                        for (int i = 0; i < dataTableModel.getColumnCount(); i++)
-                        {
-                            updateColumn(e, i);
-                        }
-                    }
-                    else
-                    {
-                        updateColumn(e, e.getColumn());
-                    }
-
-                }
-
                 signalDataChanged();
-                alreadyUpdatingTable = false;
             }
         }
     }
@@ -0,0 +1,201 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+package linefit;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+
+
+/** Keeps track of all the DataSets in the GraphArea in the order they were created. This is the source of truth for
+ * which DataSets exist and is used as the model of the DataSet selector so that drawing and exporting the graph can go
+ * through the DataSets without going through the drop down box. The placeholder for creating a new DataSet is shown
+ * at the end of the drop down but is not counted as one of the DataSets. Listeners added with addListDataListener()
+ * are notified when DataSets are registered or renamed
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public class DataSetRegistry extends AbstractListModel<DataSet> implements ComboBoxModel<DataSet>
+{
+    /** The Serial Version UID so that we know what version it is when we are using it. See
+     * http://docs.oracle.com/javase/7/docs/api/java/io/Serializable.html for full discussion on its uses and purpose */
+    private final static long serialVersionUID = 42L;
+
+    /** The registered DataSets in the order they were registered */
+    private ArrayList<DataSet> dataSets;
+    /** The index of each registered DataSet */
+    private IdentityHashMap<DataSet, Integer> indexes;
+    /** The first registered DataSet with each name */
+    private HashMap<String, DataSet> dataSetsByName;
+    /** The placeholder DataSet shown at the end of the drop down for creating a new DataSet */
+    private DataSet newDataSetPlaceholder;
+    /** The DataSet or placeholder that is currently selected */
+    private DataSet selectedDataSet;
+
+    /** Creates an empty registry with the passed placeholder for creating new DataSets
+     * 
+     * @param placeholder The placeholder DataSet to show at the end of the drop down */
+    DataSetRegistry(DataSet placeholder)
+    {
+        dataSets = new ArrayList<DataSet>();
+        indexes = new IdentityHashMap<DataSet, Integer>();
+        dataSetsByName = new HashMap<String, DataSet>();
+        newDataSetPlaceholder = placeholder;
+        selectedDataSet = placeholder;
+    }
+
+    /** Registers the passed DataSet by adding it after all the other DataSets and selecting it
+     * 
+     * @param toRegister The DataSet to register */
+    void register(DataSet toRegister)
+    {
+        int index = dataSets.size();
+        dataSets.add(toRegister);
+        indexes.put(toRegister, index);
+        if (!dataSetsByName.containsKey(toRegister.getName()))
+        {
+            dataSetsByName.put(toRegister.getName(), toRegister);
+        }
+        toRegister.setRegistry(this);
+        fireIntervalAdded(this, index, index);
+        setSelectedItem(toRegister);
+    }
+
+    /** Updates the name lookup for a registered DataSet that has been renamed
+     * 
+     * @param renamed The DataSet that was renamed
+     * @param oldName The name the DataSet had before it was renamed */
+    void dataSetRenamed(DataSet renamed, String oldName)
+    {
+        if (dataSetsByName.get(oldName) == renamed)
+        {
+            dataSetsByName.remove(oldName);
+            // another DataSet may have the same name so find the next one with it
+            for (DataSet dataSet : dataSets)
+            {
+                if (dataSet.getName().equals(oldName))
+                {
+                    dataSetsByName.put(oldName, dataSet);
+                    break;
+                }
+            }
+        }
+        if (!dataSetsByName.containsKey(renamed.getName()))
+        {
+            dataSetsByName.put(renamed.getName(), renamed);
+        }
+
+        int index = indexOf(renamed);
+        fireContentsChanged(this, index, index);
+    }
+
+    // Getters
+    /** Gets the number of registered DataSets, not including the new DataSet placeholder
+     * 
+     * @return The number of registered DataSets */
+    public int getNumberOfDataSets()
+    {
+        return dataSets.size();
+    }
+
+    /** Gets the registered DataSet at the passed index
+     * 
+     * @param index The index of the DataSet to get
+     * @return The DataSet at the passed index */
+    public DataSet getDataSet(int index)
+    {
+        return dataSets.get(index);
+    }
+
+    /** Gets the first registered DataSet with the passed name
+     * 
+     * @param name The name of the DataSet to get
+     * @return The first DataSet registered with the passed name or null if there is none */
+    public DataSet getDataSet(String name)
+    {
+        return dataSetsByName.get(name);
+    }
+
+    /** Gets the index of the passed DataSet
+     * 
+     * @param dataSet The DataSet to get the index of
+     * @return The index of the passed DataSet, the number of DataSets if it is the placeholder or -1 if it is not
+     *         registered */
+    public int indexOf(DataSet dataSet)
+    {
+        if (dataSet == newDataSetPlaceholder)
+        {
+            return dataSets.size();
+        }
+        Integer index = indexes.get(dataSet);
+        if (index == null)
+        {
+            return -1;
+        }
+        return index;
+    }
+
+    /** Gets the currently selected DataSet, which may be the new DataSet placeholder
+     * 
+     * @return The currently selected DataSet */
+    public DataSet getSelectedDataSet()
+    {
+        return selectedDataSet;
+    }
+
+    /** Gets the index of the currently selected DataSet
+     * 
+     * @return The index of the selected DataSet or the number of DataSets if the placeholder is selected */
+    public int getSelectedIndex()
+    {
+        return indexOf(selectedDataSet);
+    }
+
+    /** Gets the number of items in the drop down, which is the number of DataSets plus the placeholder */
+    public int getSize()
+    {
+        return dataSets.size() + 1;
+    }
+
+    /** Gets the item in the drop down at the passed index, which is the placeholder after all the DataSets */
+    public DataSet getElementAt(int index)
+    {
+        if (index == dataSets.size())
+        {
+            return newDataSetPlaceholder;
+        }
+        return dataSets.get(index);
+    }
+
+    /** Gets the currently selected item in the drop down */
+    public Object getSelectedItem()
+    {
+        return selectedDataSet;
+    }
+
+    // Setters
+    /** Selects the passed DataSet if it is registered or is the placeholder */
+    public void setSelectedItem(Object toSelect)
+    {
+        if (toSelect != selectedDataSet && (toSelect == newDataSetPlaceholder || indexes.containsKey(toSelect)))
+        {
+            selectedDataSet = (DataSet) toSelect;
+            // the same as DefaultComboBoxModel does to notify the drop down the selection changed
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+}
@@ -13,42 +13,185 @@
 package linefit;
 
 
-import java.util.Vector;
+import javax.swing.table.AbstractTableModel;
 
-import javax.swing.table.DefaultTableModel;
 
-
-/** This class Creates the Table Model for the GraphSet's data and controls the behavior for the GraphSet data table so
- * that we can remove columns and see if it is empty
+/** This class Creates the Table Model for the GraphSet's data and controls the behavior for the GraphSet data table.
+ * The values are read from and written directly to the DataSet's DataColumns so that the data is only stored once.
+ * The table always has one blank row after the last row with data so that new points can be entered
  * 
  * @author Unknown, Keith Rice
- * @version 1.1
+ * @version 2.0
  * @since &lt;0.98.0 */
-class DataSetTableModel extends DefaultTableModel
+class DataSetTableModel extends AbstractTableModel
 {
     /** The Serial Version UID so that we know what version it is when we are using it. See
      * http://docs.oracle.com/javase/7/docs/api/java/io/Serializable.html for full discussion on its uses and purpose */
     private final static long serialVersionUID = 42L;
 
-    /** Removes the last column from the table */
-    void removeLastColumn()
+    /** The DataSet whose DataColumns this model displays */
+    private DataSet dataSet;
+    /** How many batches of edits are currently open. Change events are only sent once the outermost one is committed */
+    private int batchEditDepth = 0;
+    /** The first row changed in the current batch of edits or -1 if none have been changed */
+    private int batchFirstChangedRow = -1;
+    /** The last row changed in the current batch of edits or -1 if none have been changed */
+    private int batchLastChangedRow = -1;
+    /** The number of rows in the table when the current batch of edits began */
+    private int batchStartingRowCount;
+
+    /** Creates a table model that displays and edits the DataColumns of the passed DataSet
+     * 
+     * @param dataSetToDisplay The DataSet whose data columns are shown in the table */
+    DataSetTableModel(DataSet dataSetToDisplay)
+    {
+        dataSet = dataSetToDisplay;
+    }
+
+    /** Gets the number of rows in the table, which is one more than the number of rows with data in the DataSet but
+     * never less than the default number of rows
+     * 
+     * @return The number of rows in the table */
+    public int getRowCount()
+    {
+        return Math.max(DataSet.DEFAULT_NUMBER_OF_ROWS, dataSet.getNumberOfRows() + 1);
+    }
+
+    /** Gets the number of columns in the table, which is the number of displayed data and error columns
+     * 
+     * @return The number of columns in the table */
+    public int getColumnCount()
     {
-        removeColumn(getColumnCount() - 1);
+        return dataSet.getNumberOfDisplayedColumns();
     }
 
-    /** Removes the column with the given index from the table
+    /** Gets the name of the DataColumn at the passed "displayed" index
      * 
-     * @param columnIndex The index of the column to remove */
-    void removeColumn(int columnIndex)
+     * @param columnIndex The "displayed" index of the column
+     * @return The name of the column */
+    @Override
+    public String getColumnName(int columnIndex)
+    {
+        return dataSet.getDisplayedColumn(columnIndex).getName();
+    }
+
+    /** All of the cells can be edited */
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex)
     {
-        for (int r = 0; r < getRowCount(); r++)
+        return true;
+    }
+
+    /** Gets the value in the DataColumn at the passed "displayed" index
+     * 
+     * @param rowIndex The row of the value
+     * @param columnIndex The "displayed" index of the column of the value
+     * @return The value at the row and column or null if there is no value there */
+    public Object getValueAt(int rowIndex, int columnIndex)
+    {
+        return dataSet.getDisplayedColumn(columnIndex).getDataAt(rowIndex);
+    }
+
+    /** Validates the passed value and writes it into the DataColumn at the passed "displayed" index. Values that are
+     * not numbers, are infinite or are zero errors are ignored and the previous value is kept
+     * 
+     * @param value The value entered into the table, which can be null to clear the cell
+     * @param rowIndex The row to write the value to
+     * @param columnIndex The "displayed" index of the column to write the value to */
+    @Override
+    public void setValueAt(Object value, int rowIndex, int columnIndex)
+    {
+        Double entry = null;
+        if (value != null)
         {
-            Vector<?> row = (Vector<?>) dataVector.elementAt(r);
-            row.removeElementAt(columnIndex);
+            try
+            {
+                entry = Double.parseDouble(value.toString());
+            }
+            catch (NumberFormatException nfe)
+            {
+                return;
+            }
+
+            // ensure it is not infinity or any other strange value and don't allow zero errors!
+            if (!Double.isFinite(entry) || (dataSet.isIndexDisplayedErrorColumn(columnIndex) && entry == 0))
+            {
+                return;
+            }
         }
 
-        columnIdentifiers.removeElementAt(columnIndex);
-        fireTableStructureChanged();
+        int previousRowCount = getRowCount();
+        dataSet.writeData(dataSet.getDisplayedColumn(columnIndex), rowIndex, entry);
+
+        if (batchEditDepth > 0)
+        {
+            rowChanged(rowIndex);
+        }
+        else
+        {
+            // if there are no more blank rows then add one
+            if (getRowCount() > previousRowCount)
+            {
+                fireTableRowsInserted(previousRowCount, getRowCount() - 1);
+            }
+            fireTableCellUpdated(rowIndex, columnIndex);
+        }
+    }
+
+    /** Starts a batch of edits. Until the batch is committed no change events are sent so that the listeners only
+     * update once for all the edits instead of once for each value. Batches may be nested, in which case the events
+     * are sent when the outermost batch is committed */
+    void beginBatchEdit()
+    {
+        if (batchEditDepth == 0)
+        {
+            batchFirstChangedRow = -1;
+            batchLastChangedRow = -1;
+            batchStartingRowCount = getRowCount();
+        }
+        batchEditDepth++;
+    }
+
+    /** Records that the passed row was written to directly in the DataColumns during the current batch of edits so
+     * that it will be included in the change event when the batch is committed
+     * 
+     * @param rowIndex The index of the row that was changed */
+    void rowChanged(int rowIndex)
+    {
+        if (batchFirstChangedRow < 0 || rowIndex < batchFirstChangedRow)
+        {
+            batchFirstChangedRow = rowIndex;
+        }
+        batchLastChangedRow = Math.max(batchLastChangedRow, rowIndex);
+    }
+
+    /** Ends a batch of edits. If this is the outermost batch and any rows were changed then a single change event is
+     * sent for all of them */
+    void commitBatchEdit()
+    {
+        if (batchEditDepth == 0)
+        {
+            System.err.println("Warning: Committing a batch of edits to the data table that was never begun");
+            return;
+        }
+
+        batchEditDepth--;
+        if (batchEditDepth == 0 && batchFirstChangedRow >= 0)
+        {
+            if (getRowCount() > batchStartingRowCount)
+            {
+                fireTableRowsInserted(batchStartingRowCount, getRowCount() - 1);
+            }
+            fireTableRowsUpdated(batchFirstChangedRow, batchLastChangedRow);
+        }
+    }
+
+    /** Gets whether or not a batch of edits is currently in progress
+     * 
+     * @return True if a batch of edits has been begun and not yet committed */
+    boolean isInBatchEdit()
+    {
+        return batchEditDepth > 0;
     }
 
     /** Checks to see if we have data in our table. Returns true if there is data in the table
@@ -58,9 +201,10 @@ class DataSetTableModel extends DefaultTableModel
     {
         for (int i = 0; i < getColumnCount(); i++)
         {
-            for (int j = 0; j < getRowCount(); j++)
+            DataColumn column = dataSet.getDisplayedColumn(i);
+            for (int j = 0; j < column.getDataSize(); j++)
             {
-                if (getValueAt(j, i) != null)
+                if (!column.isNull(j))
                 {
                     return true;
                 }
@@ -69,4 +213,4 @@ class DataSetTableModel extends DefaultTableModel
 
         return false;
     }
-}
\ No newline at end of file
+}
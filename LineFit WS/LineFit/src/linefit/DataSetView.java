@@ -0,0 +1,136 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+package linefit;
+
+
+import java.awt.Color;
+import java.awt.event.KeyEvent;
+import java.util.Arrays;
+
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+
+
+/** The scrollable table that displays and allows editing of the data of a DataSet. This is kept separate from the
+ * DataSet so that DataSets that are never displayed do not create any Swing components. It is only created by the
+ * DataSet the first time it is displayed
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class DataSetView extends JScrollPane
+{
+    /** The Serial Version UID so that we know what version it is when we are using it. See
+     * http://docs.oracle.com/javase/7/docs/api/java/io/Serializable.html for full discussion on its uses and purpose */
+    private final static long serialVersionUID = 42L;
+
+    /** The DataSet whose data is displayed in this view */
+    private DataSet dataSetDisplayed;
+    /** The table that contains and allows us to input data */
+    private JTable tableContainingData;
+
+    /** Creates the view of the passed DataSet's data
+     * 
+     * @param toDisplay The DataSet to display the data of */
+    DataSetView(DataSet toDisplay)
+    {
+        dataSetDisplayed = toDisplay;
+        tableContainingData = new JTable(dataSetDisplayed.dataTableModel);
+        tableContainingData.setGridColor(Color.gray);
+
+        // Clean up JTable to make cell selection work more like excel. Multiple intervals are allowed so that the rows
+        // of the points selected on the graph can be highlighted
+        tableContainingData.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+
+        tableContainingData.setRowSelectionAllowed(true);
+        tableContainingData.setColumnSelectionAllowed(true);
+        tableContainingData.setCellSelectionEnabled(true);
+        tableContainingData.putClientProperty("terminateEditOnFocusLost", Boolean.TRUE);
+
+        setViewportView(tableContainingData);
+
+        tableContainingData.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_R, 0, false), "MY_CUSTOM_ACTION");
+
+        // Add our table listener for this DataSet
+        new SpreadSheetAdapter(tableContainingData, dataSetDisplayed);
+
+        arrangeErrorColumns();
+    }
+
+    /** Moves the displayed error columns so that they are in the same order as the data columns regardless of the order
+     * they were shown in. This needs to be called whenever the table's columns are recreated because error columns
+     * were shown or hidden */
+    void arrangeErrorColumns()
+    {
+        int firstErrorColumn = DataDimension.getNumberOfDimensions();
+        for (int target = firstErrorColumn; target < tableContainingData.getColumnCount(); target++)
+        {
+            // find the remaining error column with the lowest dimension and move it here
+            int lowestColumn = target;
+            int lowestDimension = Integer.MAX_VALUE;
+            for (int viewIndex = target; viewIndex < tableContainingData.getColumnCount(); viewIndex++)
+            {
+                int dimension = dataSetDisplayed.convertErrorIndexDisplayedToInternal(tableContainingData
+                        .convertColumnIndexToModel(viewIndex));
+                if (dimension < lowestDimension)
+                {
+                    lowestDimension = dimension;
+                    lowestColumn = viewIndex;
+                }
+            }
+
+            if (lowestColumn != target)
+            {
+                tableContainingData.moveColumn(lowestColumn, target);
+            }
+        }
+    }
+
+    /** Selects the whole of each of the passed rows in the table, replacing the current selection, and scrolls to the
+     * first of them. Consecutive rows are selected as one interval so that selecting many rows stays fast
+     * 
+     * @param rows The indexes of the rows to select in any order. This is sorted */
+    void selectRows(int[] rows)
+    {
+        Arrays.sort(rows);
+        ListSelectionModel rowSelection = tableContainingData.getSelectionModel();
+        rowSelection.setValueIsAdjusting(true);
+        rowSelection.clearSelection();
+        int intervalStart = 0;
+        for (int i = 1; i <= rows.length; i++)
+        {
+            if (i == rows.length || rows[i] > rows[i - 1] + 1)
+            {
+                rowSelection.addSelectionInterval(rows[intervalStart], rows[i - 1]);
+                intervalStart = i;
+            }
+        }
+        rowSelection.setValueIsAdjusting(false);
+
+        if (rows.length > 0 && tableContainingData.getColumnCount() > 0)
+        {
+            tableContainingData.setColumnSelectionInterval(0, tableContainingData.getColumnCount() - 1);
+            tableContainingData.scrollRectToVisible(tableContainingData.getCellRect(rows[0], 0, true));
+        }
+    }
+
+    // Getters
+    /** Gets the Table that contains the data for the DataSet
+     * 
+     * @return The Table containing the DataSet's data */
+    JTable getDataTable()
+    {
+        return tableContainingData;
+    }
+}
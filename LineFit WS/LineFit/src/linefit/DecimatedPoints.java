@@ -0,0 +1,187 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.util.Arrays;
+
+
+/** Holds the pixel positions of a DataSet's points that are inside of the graph area with only one entry for each
+ * pixel, so that drawing a DataSet never draws more markers than the graph area has pixels no matter how many points
+ * it has. Points that fall on the same pixel draw their markers in the same place so only one marker is kept for
+ * them, along with the longest of their error bars in each direction since the shorter bars of the other points are
+ * drawn over by it. The points are decimated from the DataSet's PixelGeometry and only decimated again when it is
+ * rebuilt. When points are only added to the end of the geometry just the new points are decimated, which adds any
+ * new pixels to the end so that only they need to be drawn on top of what was drawn before
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class DecimatedPoints
+{
+    /** The number of pixels with points in them */
+    private int numberOfPoints = 0;
+    /** The x pixel of each point relative to the left edge of the graph area */
+    private int[] pixelX = new int[0];
+    /** The y pixel of each point relative to the top edge of the graph area */
+    private int[] pixelY = new int[0];
+    /** The half length in pixels of the longest x error bar of the points in each pixel */
+    private int[] errorBarX = new int[0];
+    /** The half length in pixels of the longest y error bar of the points in each pixel */
+    private int[] errorBarY = new int[0];
+
+    /** The version of the PixelGeometry the points were last decimated from */
+    private long builtGeometryVersion = -1;
+    /** The number of the PixelGeometry's points that have been decimated */
+    private int decimatedGeometryPoints = 0;
+    /** The index of the first point that needs to be drawn to bring a drawing of the points from before the last
+     * update up to date */
+    private int firstChangedPoint = 0;
+
+    /** Makes sure the points match the passed geometry of a DataSet, decimating them again if the geometry has been
+     * rebuilt since they were last decimated
+     * 
+     * @param geometry The pixel geometry of the DataSet whose points to decimate */
+    void update(PixelGeometry geometry)
+    {
+        if (geometry.getVersion() == builtGeometryVersion)
+        {
+            firstChangedPoint = numberOfPoints;
+            return;
+        }
+
+        // the index plus one of the point kept for each pixel of the graph area or zero if there is none. This is only
+        // kept while decimating so that a whole graph area sized array is not held for every DataSet
+        int areaWidth = geometry.getWidth() + 1;
+        int[] pointInPixel = new int[areaWidth * (geometry.getHeight() + 1)];
+        if (builtGeometryVersion < geometry.getLastRebuildVersion())
+        {
+            numberOfPoints = 0;
+            decimatedGeometryPoints = 0;
+        }
+        else
+        {
+            // the geometry has only had points added since it was decimated so only the new points are decimated
+            // after filling in the pixels of the points that were already kept
+            for (int index = 0; index < numberOfPoints; index++)
+            {
+                pointInPixel[pixelY[index] * areaWidth + pixelX[index]] = index + 1;
+            }
+        }
+        firstChangedPoint = numberOfPoints;
+
+        for (int point = decimatedGeometryPoints; point < geometry.getNumberOfPoints(); point++)
+        {
+            int x = geometry.getPixelX(point);
+            int y = geometry.getPixelY(point);
+            int pixel = y * areaWidth + x;
+            int index = pointInPixel[pixel] - 1;
+            if (index < 0)
+            {
+                index = addPoint(x, y);
+                pointInPixel[pixel] = index + 1;
+            }
+            else if (index < firstChangedPoint && (geometry.getErrorBarX(point) > errorBarX[index] || geometry
+                    .getErrorBarY(point) > errorBarY[index]))
+            {
+                // a point that was already drawn has a longer error bar now so all the points need to be drawn again
+                firstChangedPoint = 0;
+            }
+            errorBarX[index] = Math.max(errorBarX[index], geometry.getErrorBarX(point));
+            errorBarY[index] = Math.max(errorBarY[index], geometry.getErrorBarY(point));
+        }
+
+        decimatedGeometryPoints = geometry.getNumberOfPoints();
+        builtGeometryVersion = geometry.getVersion();
+    }
+
+    /** Adds a point at the passed pixel without any error bars, growing the arrays if they are full
+     * 
+     * @param x The x pixel of the point relative to the left edge of the graph area
+     * @param y The y pixel of the point relative to the top edge of the graph area
+     * @return The index of the added point */
+    private int addPoint(int x, int y)
+    {
+        if (numberOfPoints == pixelX.length)
+        {
+            int newLength = Math.max(ColumnStorage.BLOCK_SIZE, pixelX.length * 2);
+            pixelX = Arrays.copyOf(pixelX, newLength);
+            pixelY = Arrays.copyOf(pixelY, newLength);
+            errorBarX = Arrays.copyOf(errorBarX, newLength);
+            errorBarY = Arrays.copyOf(errorBarY, newLength);
+        }
+
+        pixelX[numberOfPoints] = x;
+        pixelY[numberOfPoints] = y;
+        errorBarX[numberOfPoints] = PixelGeometry.NO_ERROR_BAR;
+        errorBarY[numberOfPoints] = PixelGeometry.NO_ERROR_BAR;
+        return numberOfPoints++;
+    }
+
+    // Getters
+    /** Gets the number of points that need to be drawn, which is at most one for each pixel of the graph area
+     * 
+     * @return The number of decimated points */
+    int getNumberOfPoints()
+    {
+        return numberOfPoints;
+    }
+
+    /** Gets the index of the first point that needs to be drawn on top of a drawing of the points from before the last
+     * update to bring it up to date. This is zero if the points were all decimated again or any of the points that were
+     * already drawn changed
+     * 
+     * @return The index of the first point that is new or changed since the update before the last one */
+    int getFirstChangedPoint()
+    {
+        return firstChangedPoint;
+    }
+
+    /** Gets the x pixel of the point at the passed index
+     * 
+     * @param index The index of the point to get the pixel of
+     * @return The x pixel of the point relative to the left edge of the graph area */
+    int getPixelX(int index)
+    {
+        return pixelX[index];
+    }
+
+    /** Gets the y pixel of the point at the passed index
+     * 
+     * @param index The index of the point to get the pixel of
+     * @return The y pixel of the point relative to the top edge of the graph area */
+    int getPixelY(int index)
+    {
+        return pixelY[index];
+    }
+
+    /** Gets the half length of the longest x error bar of the points in the pixel of the point at the passed index
+     * 
+     * @param index The index of the point to get the error bar of
+     * @return The half length of the error bar in pixels or PixelGeometry.NO_ERROR_BAR if none of the points have
+     *         one */
+    int getErrorBarX(int index)
+    {
+        return errorBarX[index];
+    }
+
+    /** Gets the half length of the longest y error bar of the points in the pixel of the point at the passed index
+     * 
+     * @param index The index of the point to get the error bar of
+     * @return The half length of the error bar in pixels or PixelGeometry.NO_ERROR_BAR if none of the points have
+     *         one */
+    int getErrorBarY(int index)
+    {
+        return errorBarY[index];
+    }
+}
@@ -0,0 +1,230 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+
+/** A two dimensional histogram of how many of a DataSet's points fall in each pixel of the graph area. It is drawn as a
+ * single image in place of the DataSet's markers when the DataSet has so many points that they overlap into a blob,
+ * with the opacity of each pixel showing how many points are in it. The rows are binned a block at a time straight
+ * from the DataColumns and large DataSets are split between several threads that each bin their own rows
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class DensityMap
+{
+    /** The fewest rows each thread bins so that small DataSets are not split up more than is worth it */
+    private final static int MINIMUM_ROWS_PER_THREAD = 65536;
+    /** The opacity of a pixel with only one point in it so that single points are still visible */
+    private final static int MINIMUM_ALPHA = 48;
+
+    /** The DataSet whose points are binned. This is only read */
+    private DataSet dataSet;
+    /** The value of x at the left edge of the graph area */
+    private double xMin;
+    /** The value of y at the top edge of the graph area */
+    private double yMax;
+    /** The number of pixels per unit of x */
+    private double pixelsPerX;
+    /** The number of pixels per unit of y */
+    private double pixelsPerY;
+    /** The number of columns of bins, which is one more than the width of the graph area so points on its right edge
+     * have a bin */
+    private int binColumns;
+    /** The number of rows of bins, which is one more than the height of the graph area so points on its bottom edge
+     * have a bin */
+    private int binRows;
+    /** The number of points in each pixel stored a row of pixels at a time */
+    private int[] counts;
+    /** The largest number of points in any one pixel */
+    private int maximumCount = 0;
+
+    /** Creates the density map by binning the passed DataSet's points into the pixels of the passed area of the graph
+     * 
+     * @param dataSetToBin The DataSet whose points to bin
+     * @param xAtLeft The value of x at the left edge of the graph area
+     * @param yAtTop The value of y at the top edge of the graph area
+     * @param pixelsPerUnitX The number of pixels per unit of x
+     * @param pixelsPerUnitY The number of pixels per unit of y
+     * @param areaWidth The width in pixels of the graph area
+     * @param areaHeight The height in pixels of the graph area */
+    DensityMap(DataSet dataSetToBin, double xAtLeft, double yAtTop, double pixelsPerUnitX, double pixelsPerUnitY,
+            int areaWidth, int areaHeight)
+    {
+        dataSet = dataSetToBin;
+        xMin = xAtLeft;
+        yMax = yAtTop;
+        pixelsPerX = pixelsPerUnitX;
+        pixelsPerY = pixelsPerUnitY;
+        binColumns = areaWidth + 1;
+        binRows = areaHeight + 1;
+
+        int numberOfRows = dataSet.getNumberOfRows();
+        int numberOfThreads = Math.max(1, Math.min(SharedThreadPool.getNumberOfThreads(), numberOfRows /
+                MINIMUM_ROWS_PER_THREAD));
+        if (numberOfThreads > 1)
+        {
+            counts = binInParallel(numberOfRows, numberOfThreads);
+        }
+        if (counts == null)
+        {
+            counts = new BinningTask(0, numberOfRows).call();
+        }
+
+        for (int count : counts)
+        {
+            maximumCount = Math.max(maximumCount, count);
+        }
+    }
+
+    /** Bins the rows of the DataSet by splitting them up between several threads that each count their rows in their
+     * own bins on the shared pool, which are then added together
+     * 
+     * @param numberOfRows The number of rows of the DataSet
+     * @param numberOfThreads The number of threads to split the rows between
+     * @return The number of points in each pixel or null if the binning failed */
+    private int[] binInParallel(int numberOfRows, int numberOfThreads)
+    {
+        // split the rows on block boundaries so each thread reads whole blocks
+        int blocksPerThread = ((numberOfRows + ColumnStorage.BLOCK_SIZE - 1) / ColumnStorage.BLOCK_SIZE +
+                numberOfThreads - 1) / numberOfThreads;
+        int rowsPerThread = blocksPerThread * ColumnStorage.BLOCK_SIZE;
+
+        ArrayList<BinningTask> tasks = new ArrayList<BinningTask>();
+        for (int start = 0; start < numberOfRows; start += rowsPerThread)
+        {
+            tasks.add(new BinningTask(start, Math.min(numberOfRows, start + rowsPerThread)));
+        }
+
+        int[] totalCounts = null;
+        try
+        {
+            for (Future<int[]> result : SharedThreadPool.getExecutor().invokeAll(tasks))
+            {
+                int[] taskCounts = result.get();
+                if (totalCounts == null)
+                {
+                    totalCounts = taskCounts;
+                }
+                else
+                {
+                    for (int i = 0; i < totalCounts.length; i++)
+                    {
+                        totalCounts[i] += taskCounts[i];
+                    }
+                }
+            }
+        }
+        catch (InterruptedException ie)
+        {
+            System.err.println("Interrupted while binning the points of the graph");
+            Thread.currentThread().interrupt();
+            totalCounts = null;
+        }
+        catch (ExecutionException ee)
+        {
+            System.err.println("Failed to bin the points of the graph in parallel: " + ee.getCause());
+            totalCounts = null;
+        }
+        return totalCounts;
+    }
+
+    /** Creates the image of the density map in the passed color. Each pixel with points in it is drawn with an opacity
+     * that grows with the logarithm of how many points are in it so that both sparse and dense areas can be seen
+     * 
+     * @param color The color to draw the pixels with points in them
+     * @return The image of the density map with its top left corner at the top left of the graph area */
+    BufferedImage createImage(Color color)
+    {
+        int rgb = color.getRGB() & 0xFFFFFF;
+        double alphaPerLogCount = (255 - MINIMUM_ALPHA) / Math.max(Math.log(maximumCount), 1);
+        int[] pixels = new int[counts.length];
+        for (int i = 0; i < counts.length; i++)
+        {
+            if (counts[i] > 0)
+            {
+                int alpha = MINIMUM_ALPHA + (int) (Math.log(counts[i]) * alphaPerLogCount);
+                pixels[i] = (alpha << 24) | rgb;
+            }
+        }
+
+        BufferedImage image = new BufferedImage(binColumns, binRows, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, binColumns, binRows, pixels, 0, binColumns);
+        return image;
+    }
+
+    // Private Classes
+    /** A task that counts how many of the points of a range of rows fall in each pixel
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class BinningTask implements Callable<int[]>
+    {
+        /** The index of the first row to bin */
+        private int firstRow;
+        /** The index after the last row to bin */
+        private int endRow;
+
+        /** Creates the task for the passed range of rows
+         * 
+         * @param startRow The index of the first row to bin
+         * @param stopRow The index after the last row to bin */
+        private BinningTask(int startRow, int stopRow)
+        {
+            firstRow = startRow;
+            endRow = stopRow;
+        }
+
+        /** Bins the task's rows a block at a time into its own bins
+         * 
+         * @return The number of the task's points in each pixel */
+        public int[] call()
+        {
+            int[] taskCounts = new int[binColumns * binRows];
+            double[] dataX = new double[ColumnStorage.BLOCK_SIZE];
+            double[] dataY = new double[ColumnStorage.BLOCK_SIZE];
+            for (int start = firstRow; start < endRow; start += ColumnStorage.BLOCK_SIZE)
+            {
+                dataSet.readData(DataDimension.X, start, dataX);
+                dataSet.readData(DataDimension.Y, start, dataY);
+
+                int blockLength = Math.min(ColumnStorage.BLOCK_SIZE, endRow - start);
+                for (int i = 0; i < blockLength; i++)
+                {
+                    if (Double.isNaN(dataX[i]) || Double.isNaN(dataY[i]))
+                    {
+                        continue;
+                    }
+
+                    // only the points that are in the graph area are binned
+                    int x = (int) ((dataX[i] - xMin) * pixelsPerX);
+                    int y = (int) ((yMax - dataY[i]) * pixelsPerY);
+                    if (x >= 0 && x < binColumns && y >= 0 && y < binRows)
+                    {
+                        taskCounts[y * binColumns + x]++;
+                    }
+                }
+            }
+            return taskCounts;
+        }
+    }
+}
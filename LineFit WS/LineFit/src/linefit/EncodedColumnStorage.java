@@ -0,0 +1,478 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+package linefit;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+/** ColumnStorage that losslessly compresses the values in blocks of BLOCK_SIZE rows using either delta of delta or xor
+ * encoding of the bits of the values, similar to the encodings used by time series databases. One block is kept decoded
+ * at a time so that reading or writing rows in order only decodes and encodes each block once. Since reading changes
+ * which block is decoded, the methods are synchronized so that snapshots can be read by several threads at once. The
+ * encoded blocks are never changed once encoded, only replaced, so copies share them. NaN is used to mark rows without
+ * a value
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class EncodedColumnStorage implements ColumnStorage
+{
+    /** The encoding used for the blocks. Either DELTA_OF_DELTA or XOR */
+    private final ColumnEncoding encoding;
+    /** The encoded bits of each of the blocks in order. A null block has not been encoded yet */
+    private ArrayList<long[]> encodedBlocks;
+    /** Whether or not this storage is the only one using the list of encoded blocks and so can change it directly */
+    private boolean ownsBlockList = true;
+    /** The number of rows in the storage including any rows without a value */
+    private int size = 0;
+
+    /** The index of the block that is currently decoded or -1 if none are */
+    private int decodedBlockIndex = -1;
+    /** The decoded values of the currently decoded block */
+    private double[] decodedBlock;
+    /** Whether or not the decoded block has been changed since it was decoded and needs to be encoded again */
+    private boolean decodedBlockChanged = false;
+
+    /** Creates an empty storage that uses the passed encoding
+     * 
+     * @param blockEncoding The encoding to use for the blocks. Either DELTA_OF_DELTA or XOR */
+    EncodedColumnStorage(ColumnEncoding blockEncoding)
+    {
+        encoding = blockEncoding;
+        encodedBlocks = new ArrayList<long[]>();
+        decodedBlock = new double[BLOCK_SIZE];
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    public synchronized Double get(int rowIndex)
+    {
+        if (rowIndex < 0 || rowIndex >= size)
+        {
+            return null;
+        }
+
+        loadBlock(rowIndex / BLOCK_SIZE);
+        double value = decodedBlock[rowIndex % BLOCK_SIZE];
+        if (Double.isNaN(value))
+        {
+            return null;
+        }
+        return value;
+    }
+
+    public synchronized void set(int rowIndex, Double value)
+    {
+        if (rowIndex < 0)
+        {
+            return;
+        }
+
+        // add empty blocks until there is one for the row
+        if (encodedBlocks.size() <= rowIndex / BLOCK_SIZE)
+        {
+            ensureOwnsBlockList();
+        }
+        while (encodedBlocks.size() <= rowIndex / BLOCK_SIZE)
+        {
+            encodedBlocks.add(null);
+        }
+        size = Math.max(size, rowIndex + 1);
+
+        loadBlock(rowIndex / BLOCK_SIZE);
+        if (value == null)
+        {
+            decodedBlock[rowIndex % BLOCK_SIZE] = Double.NaN;
+        }
+        else
+        {
+            decodedBlock[rowIndex % BLOCK_SIZE] = value;
+        }
+        decodedBlockChanged = true;
+    }
+
+    public synchronized int readBlock(int startRow, double[] buffer)
+    {
+        int count = Math.max(0, Math.min(buffer.length, size - startRow));
+        int read = 0;
+        while (read < count)
+        {
+            int row = startRow + read;
+            loadBlock(row / BLOCK_SIZE);
+            int toCopy = Math.min(count - read, BLOCK_SIZE - row % BLOCK_SIZE);
+            System.arraycopy(decodedBlock, row % BLOCK_SIZE, buffer, read, toCopy);
+            read += toCopy;
+        }
+        Arrays.fill(buffer, count, buffer.length, Double.NaN);
+        return count;
+    }
+
+    public synchronized ColumnStorage copy()
+    {
+        storeDecodedBlock();
+        EncodedColumnStorage copy = new EncodedColumnStorage(encoding);
+        // share the list of blocks and have whichever changes it first make its own copy
+        copy.encodedBlocks = encodedBlocks;
+        copy.ownsBlockList = false;
+        copy.size = size;
+        ownsBlockList = false;
+        return copy;
+    }
+
+    public synchronized void release()
+    {
+        encodedBlocks = new ArrayList<long[]>();
+        ownsBlockList = true;
+        size = 0;
+        decodedBlockIndex = -1;
+        decodedBlockChanged = false;
+    }
+
+    /** Gets the number of bytes used by the encoded blocks. Used to see how well the values are being compressed
+     * 
+     * @return The number of bytes used by the encoded blocks not including the decoded block */
+    synchronized long getEncodedSizeInBytes()
+    {
+        storeDecodedBlock();
+        long bytes = 0;
+        for (long[] block : encodedBlocks)
+        {
+            if (block != null)
+            {
+                bytes += block.length * 8L;
+            }
+        }
+        return bytes;
+    }
+
+    /** Decodes the block with the passed index into the decoded block, encoding the previously decoded one first if it
+     * was changed
+     * 
+     * @param blockIndex The index of the block to decode */
+    private void loadBlock(int blockIndex)
+    {
+        if (blockIndex == decodedBlockIndex)
+        {
+            return;
+        }
+
+        storeDecodedBlock();
+        long[] encoded = encodedBlocks.get(blockIndex);
+        if (encoded == null)
+        {
+            Arrays.fill(decodedBlock, Double.NaN);
+        }
+        else if (encoding == ColumnEncoding.DELTA_OF_DELTA)
+        {
+            decodeDeltaOfDelta(new BitReader(encoded), decodedBlock);
+        }
+        else
+        {
+            decodeXor(new BitReader(encoded), decodedBlock);
+        }
+        decodedBlockIndex = blockIndex;
+    }
+
+    /** Encodes the decoded block back into its place in the encoded blocks if it was changed */
+    private void storeDecodedBlock()
+    {
+        if (decodedBlockIndex < 0 || !decodedBlockChanged)
+        {
+            return;
+        }
+
+        BitWriter writer = new BitWriter();
+        if (encoding == ColumnEncoding.DELTA_OF_DELTA)
+        {
+            encodeDeltaOfDelta(decodedBlock, writer);
+        }
+        else
+        {
+            encodeXor(decodedBlock, writer);
+        }
+        ensureOwnsBlockList();
+        encodedBlocks.set(decodedBlockIndex, writer.toArray());
+        decodedBlockChanged = false;
+    }
+
+    /** Makes a copy of the list of encoded blocks to change if it is shared with another storage */
+    private void ensureOwnsBlockList()
+    {
+        if (!ownsBlockList)
+        {
+            encodedBlocks = new ArrayList<long[]>(encodedBlocks);
+            ownsBlockList = true;
+        }
+    }
+
+    /** Encodes the passed values by storing the first value and the first difference in full and then storing how much
+     * each difference changed from the previous difference in as few bits as possible. The differences are of the bits
+     * of the values so that it is lossless
+     * 
+     * @param values The values to encode
+     * @param writer The BitWriter to write the encoded values to */
+    private static void encodeDeltaOfDelta(double[] values, BitWriter writer)
+    {
+        long previous = Double.doubleToRawLongBits(values[0]);
+        writer.write(previous, 64);
+        long previousDelta = 0;
+        for (int i = 1; i < values.length; i++)
+        {
+            long current = Double.doubleToRawLongBits(values[i]);
+            long delta = current - previous;
+            long deltaOfDelta = delta - previousDelta;
+            // zig zag encode it so that small negative values are small too. The result is unsigned so it is compared
+            // by shifting instead of with less than
+            long zigZag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+            if (zigZag == 0)
+            {
+                writer.write(0, 1);
+            }
+            else if (zigZag >>> 7 == 0)
+            {
+                writer.write(0b10, 2);
+                writer.write(zigZag, 7);
+            }
+            else if (zigZag >>> 9 == 0)
+            {
+                writer.write(0b110, 3);
+                writer.write(zigZag, 9);
+            }
+            else if (zigZag >>> 12 == 0)
+            {
+                writer.write(0b1110, 4);
+                writer.write(zigZag, 12);
+            }
+            else
+            {
+                writer.write(0b1111, 4);
+                writer.write(zigZag, 64);
+            }
+            previous = current;
+            previousDelta = delta;
+        }
+    }
+
+    /** Decodes values that were encoded with encodeDeltaOfDelta
+     * 
+     * @param reader The BitReader to read the encoded values from
+     * @param values The array to put the decoded values in */
+    private static void decodeDeltaOfDelta(BitReader reader, double[] values)
+    {
+        long previous = reader.read(64);
+        values[0] = Double.longBitsToDouble(previous);
+        long previousDelta = 0;
+        for (int i = 1; i < values.length; i++)
+        {
+            long zigZag;
+            if (reader.read(1) == 0)
+            {
+                zigZag = 0;
+            }
+            else if (reader.read(1) == 0)
+            {
+                zigZag = reader.read(7);
+            }
+            else if (reader.read(1) == 0)
+            {
+                zigZag = reader.read(9);
+            }
+            else if (reader.read(1) == 0)
+            {
+                zigZag = reader.read(12);
+            }
+            else
+            {
+                zigZag = reader.read(64);
+            }
+            long deltaOfDelta = (zigZag >>> 1) ^ -(zigZag & 1);
+            previousDelta += deltaOfDelta;
+            previous += previousDelta;
+            values[i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    /** Encodes the passed values by storing the first value in full and then only the bits that changed from the
+     * previous value. If the changed bits fit within the same leading and trailing zeros as the last changed bits then
+     * only the bits between them are stored
+     * 
+     * @param values The values to encode
+     * @param writer The BitWriter to write the encoded values to */
+    private static void encodeXor(double[] values, BitWriter writer)
+    {
+        long previous = Double.doubleToRawLongBits(values[0]);
+        writer.write(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < values.length; i++)
+        {
+            long current = Double.doubleToRawLongBits(values[i]);
+            long changed = current ^ previous;
+            if (changed == 0)
+            {
+                writer.write(0, 1);
+            }
+            else
+            {
+                writer.write(1, 1);
+                int leading = Math.min(Long.numberOfLeadingZeros(changed), 31);
+                int trailing = Long.numberOfTrailingZeros(changed);
+                if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing)
+                {
+                    writer.write(0, 1);
+                    writer.write(changed >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                }
+                else
+                {
+                    int significant = 64 - leading - trailing;
+                    writer.write(1, 1);
+                    writer.write(leading, 5);
+                    // significant is between 1 and 64 so store one less to fit it in 6 bits
+                    writer.write(significant - 1, 6);
+                    writer.write(changed >>> trailing, significant);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            previous = current;
+        }
+    }
+
+    /** Decodes values that were encoded with encodeXor
+     * 
+     * @param reader The BitReader to read the encoded values from
+     * @param values The array to put the decoded values in */
+    private static void decodeXor(BitReader reader, double[] values)
+    {
+        long previous = reader.read(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int previousLeading = 0;
+        int previousTrailing = 0;
+        for (int i = 1; i < values.length; i++)
+        {
+            if (reader.read(1) != 0)
+            {
+                if (reader.read(1) != 0)
+                {
+                    previousLeading = (int) reader.read(5);
+                    int significant = (int) reader.read(6) + 1;
+                    previousTrailing = 64 - previousLeading - significant;
+                }
+                previous ^= reader.read(64 - previousLeading - previousTrailing) << previousTrailing;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    // private classes
+    /** Writes values into a growing array of bits
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private static class BitWriter
+    {
+        /** The bits written so far, filled from the most significant bit of each long */
+        private long[] bits = new long[16];
+        /** The number of bits written so far */
+        private int bitCount = 0;
+
+        /** Writes the lowest passed number of bits of the passed value
+         * 
+         * @param value The value to write the bits of
+         * @param numberOfBits The number of bits to write, between 1 and 64 */
+        private void write(long value, int numberOfBits)
+        {
+            if (numberOfBits < 64)
+            {
+                value &= (1L << numberOfBits) - 1;
+            }
+            if ((bitCount + numberOfBits + 63) / 64 > bits.length)
+            {
+                bits = Arrays.copyOf(bits, bits.length * 2);
+            }
+
+            int offset = bitCount % 64;
+            int free = 64 - offset;
+            if (numberOfBits <= free)
+            {
+                bits[bitCount / 64] |= value << (free - numberOfBits);
+            }
+            else
+            {
+                bits[bitCount / 64] |= value >>> (numberOfBits - free);
+                bits[bitCount / 64 + 1] |= value << (64 - (numberOfBits - free));
+            }
+            bitCount += numberOfBits;
+        }
+
+        /** Gets the bits written trimmed to the number of longs needed to hold them
+         * 
+         * @return The bits written */
+        private long[] toArray()
+        {
+            return Arrays.copyOf(bits, (bitCount + 63) / 64);
+        }
+    }
+
+    /** Reads values from an array of bits written by a BitWriter
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private static class BitReader
+    {
+        /** The bits being read */
+        private final long[] bits;
+        /** The number of bits read so far */
+        private int bitPosition = 0;
+
+        /** Creates a reader for the passed bits starting at the first bit
+         * 
+         * @param bitsToRead The bits to read */
+        private BitReader(long[] bitsToRead)
+        {
+            bits = bitsToRead;
+        }
+
+        /** Reads the passed number of bits as the lowest bits of a long
+         * 
+         * @param numberOfBits The number of bits to read, between 1 and 64
+         * @return The bits read */
+        private long read(int numberOfBits)
+        {
+            int offset = bitPosition % 64;
+            int available = 64 - offset;
+            long value;
+            if (numberOfBits <= available)
+            {
+                value = bits[bitPosition / 64] >>> (available - numberOfBits);
+            }
+            else
+            {
+                value = (bits[bitPosition / 64] << (numberOfBits - available)) | (bits[bitPosition / 64 + 1] >>>
+                        (64 - (numberOfBits - available)));
+            }
+            bitPosition += numberOfBits;
+            if (numberOfBits < 64)
+            {
+                value &= (1L << numberOfBits) - 1;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,468 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit.FitAlgorithms;
+
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import linefit.DataDimension;
+import linefit.SharedThreadPool;
+
+
+/** The profiled Chi Squared of a DataSet's fit over a range of values of either the slope or the intercept. At each
+ * value the variable is held fixed and the other one is fit, which is the same as fixing it in the fit options, so the
+ * profile shows how much worse the fit gets as the variable is moved away from its best value. Where the profile is one
+ * above its minimum gives the usual one standard deviation interval of the variable.
+ * 
+ * Fits with only one or no errors have fixed weights so each value of the profile is calculated directly from the
+ * fit's cached FitMoments without going through the points again. Fits with both errors have weights that depend on
+ * the slope so each value needs a pass over the points and these are split up and calculated in parallel. Fits without
+ * errors have their profile divided by the variance of the points about the best fit so the interval matches the
+ * errors estimated from the scatter and fits with x errors have theirs divided by the best slope squared to match how
+ * their errors carry the x errors into y.
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public class ChiSquaredProfile
+{
+    /** The number of golden section steps used to fit the slope of a both errors fit for a fixed intercept */
+    private final static int GOLDEN_SECTION_ITERATIONS = 100;
+    /** How many slope errors on either side of the estimated slope to search when fitting the slope of a both errors
+     * fit for a fixed intercept */
+    private final static double SLOPE_SEARCH_WIDTH_IN_ERRORS = 10;
+    /** The ratio of the golden section */
+    private final static double GOLDEN_RATIO = (Math.sqrt(5.0) - 1.0) / 2.0;
+
+    /** The variable that was held fixed for each value of the profile */
+    private final FixedVariable profiledVariable;
+    /** The values of the profiled variable the Chi Squared was calculated at */
+    private final double[] values;
+    /** The profiled Chi Squared at each of the values */
+    private final double[] chiSquared;
+    /** The lowest Chi Squared of the profile which the interval is measured from */
+    private double minimumChiSquared;
+    /** The value of the profiled variable at the lowest Chi Squared */
+    private double bestValue;
+
+    /** Creates an empty profile for the passed values
+     * 
+     * @param variable The variable that is held fixed for each value of the profile
+     * @param profileValues The values to calculate the profile at */
+    private ChiSquaredProfile(FixedVariable variable, double[] profileValues)
+    {
+        profiledVariable = variable;
+        values = profileValues;
+        chiSquared = new double[values.length];
+    }
+
+    /** Calculates the profiled Chi Squared of the passed fit's DataSet for evenly spaced values of the passed variable.
+     * The fit and its DataSet must not be changed while this is running, so it should be the fit of a snapshot when
+     * this is called off of the event thread
+     * 
+     * @param strategy The fit whose DataSet and fit type to calculate the profile for
+     * @param variable The variable to profile. Must be either the slope or the intercept
+     * @param from The first value of the variable to calculate the profile at
+     * @param to The last value of the variable to calculate the profile at
+     * @param numberOfValues The number of values to calculate the profile at
+     * @return The profile or null if the DataSet does not have enough points to profile */
+    public static ChiSquaredProfile calculate(LinearFitStrategy strategy, FixedVariable variable, double from,
+            double to, int numberOfValues)
+    {
+        if (variable == FixedVariable.NONE || numberOfValues < 2)
+        {
+            System.err.println("A Chi Squared profile needs a slope or intercept and at least two values");
+            return null;
+        }
+
+        double[] profileValues = new double[numberOfValues];
+        for (int i = 0; i < numberOfValues; i++)
+        {
+            profileValues[i] = from + (to - from) * i / (numberOfValues - 1);
+        }
+        ChiSquaredProfile profile = new ChiSquaredProfile(variable, profileValues);
+
+        FitType fitType = strategy.dataForFit.getFitType();
+        double scale = 1;
+        if (fitType == FitType.BOTH_ERRORS)
+        {
+            Double[][] data = strategy.dataForFit.getAllValidPointsData(true);
+            if (data[DataDimension.X.getColumnIndex()].length < 2)
+            {
+                return null;
+            }
+            profile.calculateBothErrorsInParallel(data);
+        }
+        else
+        {
+            FitMoments moments = strategy.getFitMoments(fitType);
+            if (moments.numberOfPoints < 2 || moments.centeredXX <= 0)
+            {
+                return null;
+            }
+
+            // without errors the weights are all one so the Chi Squared needs to be put in terms of the scatter
+            if (fitType == FitType.REGULAR && moments.numberOfPoints > 2)
+            {
+                double bestChiSquared = moments.centeredYY - moments.centeredXY * moments.centeredXY /
+                        moments.centeredXX;
+                if (bestChiSquared > 0)
+                {
+                    scale = (moments.numberOfPoints - 2) / bestChiSquared;
+                }
+            }
+            // x errors are carried into y by the slope so the Chi Squared is put in terms of the y residuals the same
+            // way the fit's errors are
+            else if (fitType == FitType.X_ERROR && moments.centeredXY != 0)
+            {
+                double bestSlope = moments.centeredXY / moments.centeredXX;
+                scale = 1.0 / (bestSlope * bestSlope);
+            }
+
+            for (int i = 0; i < numberOfValues; i++)
+            {
+                profile.chiSquared[i] = scale * profileFromMoments(moments, variable, profileValues[i]);
+            }
+        }
+
+        profile.findMinimum();
+        return profile;
+    }
+
+    /** Calculates the profiled Chi Squared at a single value using the moments of a fit with fixed weights
+     * 
+     * @param moments The moments of the DataSet's points
+     * @param variable The variable held fixed
+     * @param value The value the variable is held fixed at
+     * @return The Chi Squared with the variable fixed at the passed value and the other variable fit */
+    private static double profileFromMoments(FitMoments moments, FixedVariable variable, double value)
+    {
+        if (variable == FixedVariable.SLOPE)
+        {
+            // the best intercept always goes through the weighted means so the mean residual term drops out
+            return Math.max(moments.centeredYY - 2.0 * value * moments.centeredXY + value * value *
+                    moments.centeredXX, 0.0);
+        }
+        else
+        {
+            double bestSlope = (moments.getSumXY() - value * moments.getSumX()) / moments.getSumXX();
+            return moments.chiSquared(bestSlope, value);
+        }
+    }
+
+    /** Calculates the whole profile of a fit with both errors by splitting the values up between the threads of the
+     * shared background pool so that the short jobs the event thread waits on do not have to wait behind it
+     * 
+     * @param data The valid points of the DataSet in the form returned by DataSet.getAllValidPointsData(true) */
+    private void calculateBothErrorsInParallel(Double[][] data)
+    {
+        int numberOfThreads = Math.max(1, Math.min(values.length, SharedThreadPool.getNumberOfThreads()));
+        int valuesPerThread = (values.length + numberOfThreads - 1) / numberOfThreads;
+
+        ArrayList<ProfileRangeTask> tasks = new ArrayList<ProfileRangeTask>();
+        for (int start = 0; start < values.length; start += valuesPerThread)
+        {
+            tasks.add(new ProfileRangeTask(data, start, Math.min(values.length, start + valuesPerThread)));
+        }
+
+        try
+        {
+            for (Future<Void> result : SharedThreadPool.getBackgroundExecutor().invokeAll(tasks))
+            {
+                result.get();
+            }
+        }
+        catch (InterruptedException ie)
+        {
+            System.err.println("Interrupted while calculating the Chi Squared profile");
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException ee)
+        {
+            System.err.println("Failed to calculate the Chi Squared profile: " + ee.getCause());
+        }
+    }
+
+    /** Calculates the profiled Chi Squared of a fit with both errors at a single value
+     * 
+     * @param data The valid points of the DataSet
+     * @param variable The variable held fixed
+     * @param value The value the variable is held fixed at
+     * @return The Chi Squared with the variable fixed at the passed value and the other variable fit */
+    private static double profileBothErrors(Double[][] data, FixedVariable variable, double value)
+    {
+        if (variable == FixedVariable.SLOPE)
+        {
+            return bothErrorsChiSquared(data, value, bothErrorsIntercept(data, value));
+        }
+
+        // for a fixed intercept the weights still depend on the slope so search for it around the slope the fixed
+        // y error weights would give
+        Double[] xData = data[DataDimension.X.getColumnIndex()];
+        Double[] yData = data[DataDimension.Y.getColumnIndex()];
+        Double[] yErrorData = data[DataDimension.Y.getErrorColumnIndex()];
+        double sumXX = 0.0, sumXY = 0.0;
+        for (int i = 0; i < xData.length; i++)
+        {
+            double weight = 1.0 / (yErrorData[i] * yErrorData[i]);
+            sumXX += weight * xData[i] * xData[i];
+            sumXY += weight * xData[i] * (yData[i] - value);
+        }
+        double estimate = sumXY / sumXX;
+        double searchWidth = SLOPE_SEARCH_WIDTH_IN_ERRORS * Math.max(Math.sqrt(1.0 / sumXX), Math.abs(estimate) *
+                1e-6);
+
+        double low = estimate - searchWidth, high = estimate + searchWidth;
+        double lowerProbe = high - GOLDEN_RATIO * (high - low);
+        double upperProbe = low + GOLDEN_RATIO * (high - low);
+        double lowerChiSquared = bothErrorsChiSquared(data, lowerProbe, value);
+        double upperChiSquared = bothErrorsChiSquared(data, upperProbe, value);
+        for (int i = 0; i < GOLDEN_SECTION_ITERATIONS; i++)
+        {
+            if (lowerChiSquared < upperChiSquared)
+            {
+                high = upperProbe;
+                upperProbe = lowerProbe;
+                upperChiSquared = lowerChiSquared;
+                lowerProbe = high - GOLDEN_RATIO * (high - low);
+                lowerChiSquared = bothErrorsChiSquared(data, lowerProbe, value);
+            }
+            else
+            {
+                low = lowerProbe;
+                lowerProbe = upperProbe;
+                lowerChiSquared = upperChiSquared;
+                upperProbe = low + GOLDEN_RATIO * (high - low);
+                upperChiSquared = bothErrorsChiSquared(data, upperProbe, value);
+            }
+        }
+        return Math.min(lowerChiSquared, upperChiSquared);
+    }
+
+    /** Calculates the intercept that minimizes the Chi Squared of a fit with both errors for the passed slope
+     * 
+     * @param data The valid points of the DataSet
+     * @param slope The slope of the line
+     * @return The best intercept for the passed slope */
+    private static double bothErrorsIntercept(Double[][] data, double slope)
+    {
+        Double[] xData = data[DataDimension.X.getColumnIndex()];
+        Double[] yData = data[DataDimension.Y.getColumnIndex()];
+        Double[] xErrorData = data[DataDimension.X.getErrorColumnIndex()];
+        Double[] yErrorData = data[DataDimension.Y.getErrorColumnIndex()];
+
+        double sumW = 0.0, sumResidual = 0.0;
+        for (int i = 0; i < xData.length; i++)
+        {
+            double weight = 1.0 / (yErrorData[i] * yErrorData[i] + slope * slope * xErrorData[i] * xErrorData[i]);
+            sumW += weight;
+            sumResidual += weight * (yData[i] - slope * xData[i]);
+        }
+        return sumResidual / sumW;
+    }
+
+    /** Calculates the Chi Squared of a fit with both errors using the effective variance of each point
+     * 
+     * @param data The valid points of the DataSet
+     * @param slope The slope of the line
+     * @param intercept The intercept of the line
+     * @return The Chi Squared of the line */
+    private static double bothErrorsChiSquared(Double[][] data, double slope, double intercept)
+    {
+        Double[] xData = data[DataDimension.X.getColumnIndex()];
+        Double[] yData = data[DataDimension.Y.getColumnIndex()];
+        Double[] xErrorData = data[DataDimension.X.getErrorColumnIndex()];
+        Double[] yErrorData = data[DataDimension.Y.getErrorColumnIndex()];
+
+        double chiSquaredSum = 0.0;
+        for (int i = 0; i < xData.length; i++)
+        {
+            double residual = yData[i] - slope * xData[i] - intercept;
+            chiSquaredSum += residual * residual / (yErrorData[i] * yErrorData[i] + slope * slope * xErrorData[i] *
+                    xErrorData[i]);
+        }
+        return chiSquaredSum;
+    }
+
+    /** Finds the lowest value of the profile and where it is. If the lowest value is inside the range then it is
+     * refined with a parabola through it and its neighbours since the profile is close to a parabola near its
+     * minimum */
+    private void findMinimum()
+    {
+        int lowest = 0;
+        for (int i = 1; i < values.length; i++)
+        {
+            if (chiSquared[i] < chiSquared[lowest])
+            {
+                lowest = i;
+            }
+        }
+        minimumChiSquared = chiSquared[lowest];
+        bestValue = values[lowest];
+
+        if (lowest > 0 && lowest < values.length - 1)
+        {
+            double left = chiSquared[lowest - 1], right = chiSquared[lowest + 1];
+            double curvature = left - 2.0 * minimumChiSquared + right;
+            if (curvature > 0)
+            {
+                double step = values[lowest + 1] - values[lowest];
+                double offset = 0.5 * (left - right) / curvature;
+                bestValue = values[lowest] + offset * step;
+                minimumChiSquared = minimumChiSquared - 0.25 * (left - right) * offset;
+            }
+        }
+    }
+
+    /** Finds where the profile crosses one above its minimum on the passed side of the minimum by interpolating
+     * between the calculated values
+     * 
+     * @param upper True to find the crossing above the best value and false to find the one below it
+     * @return The value of the variable where the profile is one above its minimum or NaN if it does not get that high
+     *         within the range of the profile */
+    private double findIntervalEdge(boolean upper)
+    {
+        double target = minimumChiSquared + 1.0;
+        if (upper)
+        {
+            for (int i = 1; i < values.length; i++)
+            {
+                if (values[i] > bestValue && chiSquared[i - 1] < target && chiSquared[i] >= target)
+                {
+                    return interpolate(i - 1, i, target);
+                }
+            }
+        }
+        else
+        {
+            for (int i = values.length - 1; i > 0; i--)
+            {
+                if (values[i - 1] < bestValue && chiSquared[i] < target && chiSquared[i - 1] >= target)
+                {
+                    return interpolate(i, i - 1, target);
+                }
+            }
+        }
+        return Double.NaN;
+    }
+
+    /** Linearly interpolates the value of the variable where the profile reaches the target between two indexes
+     * 
+     * @param below The index whose Chi Squared is below the target
+     * @param above The index whose Chi Squared is at or above the target
+     * @param target The Chi Squared to find the value of the variable at
+     * @return The interpolated value of the variable */
+    private double interpolate(int below, int above, double target)
+    {
+        double fraction = (target - chiSquared[below]) / (chiSquared[above] - chiSquared[below]);
+        return values[below] + fraction * (values[above] - values[below]);
+    }
+
+    // Getters
+    /** Gets the variable that was held fixed for each value of the profile
+     * 
+     * @return The profiled variable */
+    public FixedVariable getProfiledVariable()
+    {
+        return profiledVariable;
+    }
+
+    /** Gets the values of the profiled variable the profile was calculated at
+     * 
+     * @return A copy of the values of the variable */
+    public double[] getValues()
+    {
+        return values.clone();
+    }
+
+    /** Gets the profiled Chi Squared at each of the values
+     * 
+     * @return A copy of the Chi Squared values in the same order as the values of the variable */
+    public double[] getChiSquared()
+    {
+        return chiSquared.clone();
+    }
+
+    /** Gets the lowest Chi Squared of the profile
+     * 
+     * @return The minimum of the profile */
+    public double getMinimumChiSquared()
+    {
+        return minimumChiSquared;
+    }
+
+    /** Gets the value of the profiled variable where the profile is lowest
+     * 
+     * @return The best value of the profiled variable */
+    public double getBestValue()
+    {
+        return bestValue;
+    }
+
+    /** Gets the lower edge of the interval where the profile is within one of its minimum
+     * 
+     * @return The lower edge of the interval or NaN if the profile does not rise by one below the best value */
+    public double getIntervalLower()
+    {
+        return findIntervalEdge(false);
+    }
+
+    /** Gets the upper edge of the interval where the profile is within one of its minimum
+     * 
+     * @return The upper edge of the interval or NaN if the profile does not rise by one above the best value */
+    public double getIntervalUpper()
+    {
+        return findIntervalEdge(true);
+    }
+
+    // private classes
+    /** A task that calculates a range of the values of a both errors profile
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class ProfileRangeTask implements Callable<Void>
+    {
+        /** The valid points of the DataSet. These are only read */
+        private Double[][] data;
+        /** The index of the first value to calculate */
+        private int start;
+        /** The index after the last value to calculate */
+        private int end;
+
+        /** Creates the task for the passed range of values
+         * 
+         * @param pointsData The valid points of the DataSet
+         * @param startIndex The index of the first value to calculate
+         * @param endIndex The index after the last value to calculate */
+        private ProfileRangeTask(Double[][] pointsData, int startIndex, int endIndex)
+        {
+            data = pointsData;
+            start = startIndex;
+            end = endIndex;
+        }
+
+        /** Calculates the profile for the task's range of values */
+        public Void call()
+        {
+            for (int i = start; i < end; i++)
+            {
+                chiSquared[i] = profileBothErrors(data, profiledVariable, values[i]);
+            }
+            return null;
+        }
+    }
+}
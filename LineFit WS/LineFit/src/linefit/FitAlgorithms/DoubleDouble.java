@@ -0,0 +1,132 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit.FitAlgorithms;
+
+
+/** A running sum kept as an unevaluated sum of two doubles (double-double) which gives about twice the precision of a
+ * double. Sums and products are done with the error free transformations (two sum and Dekker's two product) so the
+ * rounding error of each operation is kept in the low part instead of being lost. This is used for the fit sums of
+ * DataSets that have selected high precision fitting, which is much faster than using BigDecimal
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+final class DoubleDouble
+{
+    /** The factor used to split a double into two halves that can be multiplied without rounding (2^27 + 1) */
+    private final static double SPLITTER = 134217729.0;
+
+    /** The high, most significant part of the value */
+    private double high = 0.0;
+    /** The low part of the value that holds the rounding error of the high part */
+    private double low = 0.0;
+
+    /** Adds the passed value to this sum
+     * 
+     * @param value The value to add */
+    void add(double value)
+    {
+        double sum = high + value;
+        double virtual = sum - high;
+        double error = (high - (sum - virtual)) + (value - virtual);
+        renormalize(sum, error + low);
+    }
+
+    /** Adds the exact product of the two passed values to this sum
+     * 
+     * @param a The first value to multiply
+     * @param b The second value to multiply */
+    void addProduct(double a, double b)
+    {
+        double product = a * b;
+        add(product);
+        low += productError(a, b, product);
+    }
+
+    /** Adds the product of the three passed values to this sum. The product of the first two is exact and the third
+     * multiplies both of its parts so only a rounding of the low part is lost
+     * 
+     * @param a The first value to multiply
+     * @param b The second value to multiply
+     * @param c The third value to multiply */
+    void addProduct(double a, double b, double c)
+    {
+        double ab = a * b;
+        double abError = productError(a, b, ab);
+        double abc = ab * c;
+        add(abc);
+        low += productError(ab, c, abc) + abError * c;
+    }
+
+    /** Adds the passed double-double to this sum
+     * 
+     * @param other The double-double to add */
+    void add(DoubleDouble other)
+    {
+        add(other.high);
+        low += other.low;
+    }
+
+    /** Gets the value of this sum rounded to a double
+     * 
+     * @return The nearest double to this sum */
+    double doubleValue()
+    {
+        return high + low;
+    }
+
+    /** Calculates a * b - c * d keeping the precision of the double-doubles until the final subtraction is done. This is
+     * the form of the determinant of the fit sums which loses most of its digits when done with plain doubles
+     * 
+     * @param a The first value of the first product
+     * @param b The second value of the first product
+     * @param c The first value of the second product
+     * @param d The second value of the second product
+     * @return The value of a * b - c * d rounded to a double */
+    static double differenceOfProducts(DoubleDouble a, DoubleDouble b, DoubleDouble c, DoubleDouble d)
+    {
+        DoubleDouble result = new DoubleDouble();
+        result.addProduct(a.high, b.high);
+        result.add(a.high * b.low + a.low * b.high);
+        result.addProduct(-c.high, d.high);
+        result.add(-(c.high * d.low + c.low * d.high));
+        return result.doubleValue();
+    }
+
+    /** Renormalizes the passed high part and low correction so that the low part is as small as possible
+     * 
+     * @param newHigh The new high part
+     * @param newLow The new low correction to the high part */
+    private void renormalize(double newHigh, double newLow)
+    {
+        high = newHigh + newLow;
+        low = newLow - (high - newHigh);
+    }
+
+    /** Gets the exact rounding error of the product of the passed values using Dekker's algorithm
+     * 
+     * @param a The first value that was multiplied
+     * @param b The second value that was multiplied
+     * @param product The rounded product of the two values
+     * @return The amount the rounded product differs from the exact product */
+    private static double productError(double a, double b, double product)
+    {
+        double aSplit = SPLITTER * a;
+        double aHigh = aSplit - (aSplit - a);
+        double aLow = a - aHigh;
+        double bSplit = SPLITTER * b;
+        double bHigh = bSplit - (bSplit - b);
+        double bLow = b - bHigh;
+        return ((aHigh * bHigh - product) + aHigh * bLow + aLow * bHigh) + aLow * bLow;
+    }
+}
@@ -0,0 +1,317 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit.FitAlgorithms;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import linefit.DataSet;
+import linefit.SharedThreadPool;
+
+
+/** Fits the same DataSet with every registered fit algorithm at the same time so that their results can be compared.
+ * Each algorithm gets its own fit strategy and its own copy of the snapshot of the DataSet. The copies share the same
+ * data, which is never modified while they are running. The first algorithm in the list of registered algorithms is
+ * used as the reference the others are checked for disagreements against
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public class FitAlgorithmComparison
+{
+    /** The index of the slope in the arrays of the results */
+    private final static int SLOPE = 0;
+    /** The index of the slope error in the arrays of the results */
+    private final static int SLOPE_ERROR = 1;
+    /** The index of the intercept in the arrays of the results */
+    private final static int INTERCEPT = 2;
+    /** The index of the intercept error in the arrays of the results */
+    private final static int INTERCEPT_ERROR = 3;
+    /** The index of the Chi Squared value in the arrays of the results */
+    private final static int CHI_SQUARED = 4;
+    /** The number of values in the arrays of the results */
+    private final static int NUMBER_OF_RESULTS = 5;
+
+    /** The fit algorithms that were compared */
+    private LinearFitFactory[] algorithms;
+    /** The results of each algorithm indexed by algorithm and then by result (SLOPE, INTERCEPT, etc.). Values are NaN
+     * if the algorithm failed */
+    private double[][] results;
+    /** The time in nanoseconds each algorithm took to fit the DataSet */
+    private long[] runtimes;
+    /** The relative tolerance two values must be within to be considered in agreement */
+    private double relativeTolerance;
+
+    /** Creates a comparison with room for the results of the passed algorithms
+     * 
+     * @param algorithmsToCompare The fit algorithms being compared
+     * @param tolerance The relative tolerance two values must be within to be considered in agreement */
+    private FitAlgorithmComparison(LinearFitFactory[] algorithmsToCompare, double tolerance)
+    {
+        algorithms = algorithmsToCompare;
+        results = new double[algorithms.length][NUMBER_OF_RESULTS];
+        runtimes = new long[algorithms.length];
+        relativeTolerance = tolerance;
+    }
+
+    /** Fits the passed snapshot with every registered fit algorithm at once on the shared background pool and collects
+     * their results. The snapshot must not be modified or used for anything else while this is running since all the
+     * algorithms read from it. This waits for all the fits to finish so it should not be called from the event thread
+     * 
+     * @param snapshot A read only snapshot of the DataSet to fit that does not have a fit strategy of its own
+     * @param whatIsFixed The variable to fix for the algorithms that support fixing it
+     * @param fixedValue The value of the fixed variable
+     * @param relativeTolerance The relative tolerance two algorithms' values must be within to be considered in
+     *        agreement
+     * @return The results of all the algorithms */
+    public static FitAlgorithmComparison compare(DataSet snapshot, FixedVariable whatIsFixed, double fixedValue,
+            double relativeTolerance)
+    {
+        LinearFitFactory[] algorithms = LinearFitFactory.fitAlgorithmFactories;
+        FitAlgorithmComparison comparison = new FitAlgorithmComparison(algorithms, relativeTolerance);
+
+        // creating a strategy fits the data and sets the strategy as the DataSet's fit so each algorithm gets its own
+        // copy of the snapshot to create its strategy for in its task. The copies share the snapshot's data but are
+        // made here since copying the same snapshot from several threads at once is not safe
+        ArrayList<FitAlgorithmTask> tasks = new ArrayList<FitAlgorithmTask>();
+        for (int i = 0; i < algorithms.length; i++)
+        {
+            tasks.add(new FitAlgorithmTask(algorithms[i], snapshot.createSnapshot(), whatIsFixed, fixedValue));
+        }
+
+        try
+        {
+            List<Future<double[]>> futures = SharedThreadPool.getBackgroundExecutor().invokeAll(tasks);
+            for (int i = 0; i < futures.size(); i++)
+            {
+                try
+                {
+                    comparison.results[i] = futures.get(i).get();
+                }
+                catch (ExecutionException ee)
+                {
+                    System.err.println("The " + algorithms[i] + " fit failed: " + ee.getCause());
+                    Arrays.fill(comparison.results[i], Double.NaN);
+                }
+                comparison.runtimes[i] = tasks.get(i).runtime;
+            }
+        }
+        catch (InterruptedException ie)
+        {
+            System.err.println("Interrupted while comparing the fit algorithms");
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            for (FitAlgorithmTask task : tasks)
+            {
+                task.snapshot.releaseSnapshot();
+            }
+        }
+
+        return comparison;
+    }
+
+    /** Checks if the two passed values differ by more than the relative tolerance
+     * 
+     * @param value The value to check
+     * @param reference The value to check it against
+     * @return True if the values differ by more than the tolerance or if only one of them is not a number */
+    private boolean differ(double value, double reference)
+    {
+        if (Double.isNaN(value) || Double.isNaN(reference))
+        {
+            return Double.isNaN(value) != Double.isNaN(reference);
+        }
+        return Math.abs(value - reference) > relativeTolerance * Math.max(Math.abs(value), Math.abs(reference));
+    }
+
+    /** Gets the names of the values of the passed algorithm that disagree with the reference (first) algorithm
+     * 
+     * @param algorithmIndex The index of the algorithm to check
+     * @return The names of the disagreeing values separated by commas or an empty String if they all agree */
+    public String getDisagreements(int algorithmIndex)
+    {
+        String[] names = new String[] { "slope", "slope error", "intercept", "intercept error", "chi squared" };
+        StringBuilder disagreements = new StringBuilder();
+        for (int i = 0; i < NUMBER_OF_RESULTS; i++)
+        {
+            if (differ(results[algorithmIndex][i], results[0][i]))
+            {
+                if (disagreements.length() > 0)
+                {
+                    disagreements.append(", ");
+                }
+                disagreements.append(names[i]);
+            }
+        }
+        return disagreements.toString();
+    }
+
+    /** Checks if any of the algorithms disagree with the reference (first) algorithm
+     * 
+     * @return True if any value of any algorithm is outside of the tolerance of the reference algorithm's value */
+    public boolean hasDisagreements()
+    {
+        for (int i = 1; i < algorithms.length; i++)
+        {
+            if (!getDisagreements(i).isEmpty())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Getters
+    /** Gets the number of algorithms that were compared
+     * 
+     * @return The number of algorithms that were compared */
+    public int getNumberOfAlgorithms()
+    {
+        return algorithms.length;
+    }
+
+    /** Gets the algorithm with the passed index
+     * 
+     * @param algorithmIndex The index of the algorithm
+     * @return The factory of the fit algorithm at the passed index */
+    public LinearFitFactory getAlgorithm(int algorithmIndex)
+    {
+        return algorithms[algorithmIndex];
+    }
+
+    /** Gets the slope found by the algorithm with the passed index
+     * 
+     * @param algorithmIndex The index of the algorithm
+     * @return The slope the algorithm found or NaN if it failed */
+    public double getSlope(int algorithmIndex)
+    {
+        return results[algorithmIndex][SLOPE];
+    }
+
+    /** Gets the slope error found by the algorithm with the passed index
+     * 
+     * @param algorithmIndex The index of the algorithm
+     * @return The slope error the algorithm found or NaN if it failed */
+    public double getSlopeError(int algorithmIndex)
+    {
+        return results[algorithmIndex][SLOPE_ERROR];
+    }
+
+    /** Gets the intercept found by the algorithm with the passed index
+     * 
+     * @param algorithmIndex The index of the algorithm
+     * @return The intercept the algorithm found or NaN if it failed */
+    public double getIntercept(int algorithmIndex)
+    {
+        return results[algorithmIndex][INTERCEPT];
+    }
+
+    /** Gets the intercept error found by the algorithm with the passed index
+     * 
+     * @param algorithmIndex The index of the algorithm
+     * @return The intercept error the algorithm found or NaN if it failed */
+    public double getInterceptError(int algorithmIndex)
+    {
+        return results[algorithmIndex][INTERCEPT_ERROR];
+    }
+
+    /** Gets the Chi Squared value of the fit found by the algorithm with the passed index
+     * 
+     * @param algorithmIndex The index of the algorithm
+     * @return The Chi Squared value of the algorithm's fit or NaN if it failed */
+    public double getChiSquared(int algorithmIndex)
+    {
+        return results[algorithmIndex][CHI_SQUARED];
+    }
+
+    /** Gets how long the algorithm with the passed index took to fit the DataSet
+     * 
+     * @param algorithmIndex The index of the algorithm
+     * @return The time the algorithm took in nanoseconds */
+    public long getRuntimeNanoseconds(int algorithmIndex)
+    {
+        return runtimes[algorithmIndex];
+    }
+
+    // private classes
+    /** A task that creates the fit strategy of one algorithm for its copy of the snapshot, fits it and times how long
+     * both take
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private static class FitAlgorithmTask implements Callable<double[]>
+    {
+        /** The fit algorithm to fit the snapshot with */
+        private LinearFitFactory algorithm;
+        /** The copy of the snapshot only this task fits */
+        private DataSet snapshot;
+        /** The variable to fix if the strategy supports it */
+        private FixedVariable whatIsFixed;
+        /** The value of the fixed variable */
+        private double fixedValue;
+        /** The time in nanoseconds the fit took */
+        private volatile long runtime;
+
+        /** Creates the task for the passed algorithm
+         * 
+         * @param algorithmToRun The fit algorithm to fit the snapshot with
+         * @param snapshotToFit The copy of the snapshot only this task fits
+         * @param whatToFix The variable to fix if the strategy supports it
+         * @param valueOfFixed The value of the fixed variable */
+        private FitAlgorithmTask(LinearFitFactory algorithmToRun, DataSet snapshotToFit, FixedVariable whatToFix,
+                double valueOfFixed)
+        {
+            algorithm = algorithmToRun;
+            snapshot = snapshotToFit;
+            whatIsFixed = whatToFix;
+            fixedValue = valueOfFixed;
+        }
+
+        /** Creates the strategy, fits the snapshot and returns the results in the order of the result indexes */
+        public double[] call()
+        {
+            long start = System.nanoTime();
+
+            // creating the strategy already fits the snapshot once so it is timed as part of the fit
+            LinearFitStrategy strategy = algorithm.createNewLinearFitStartegy(snapshot);
+
+            // setting what is fixed refits the data so only refit ourselves if it cannot be set
+            if (strategy.canFixSlope() || strategy.canFixIntercept())
+            {
+                strategy.setWhatIsFixed(whatIsFixed, fixedValue);
+            }
+            else
+            {
+                strategy.refreshFitData();
+            }
+
+            double[] fitResults = new double[NUMBER_OF_RESULTS];
+            fitResults[SLOPE] = strategy.getSlope();
+            fitResults[SLOPE_ERROR] = strategy.getSlopeError();
+            fitResults[INTERCEPT] = strategy.getIntercept();
+            fitResults[INTERCEPT_ERROR] = strategy.getInterceptError();
+            fitResults[CHI_SQUARED] = strategy.calculateChiSquared(strategy.getSlope(), strategy.getIntercept());
+
+            runtime = System.nanoTime() - start;
+            return fitResults;
+        }
+    }
+}
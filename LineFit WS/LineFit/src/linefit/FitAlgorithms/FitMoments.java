@@ -0,0 +1,221 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit.FitAlgorithms;
+
+
+import linefit.DataDimension;
+
+
+/** The weighted sums (moments) of a DataSet's valid points that a weighted linear fit is calculated from. Once these
+ * are known the fit, its errors and the Chi Squared value for any slope and intercept can be found without going back
+ * through the points.
+ * 
+ * The second order moments are kept about the weighted means of the data rather than about zero so that they do not
+ * lose precision when the data is far from the origin compared to its spread
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+final class FitMoments
+{
+    /** The number of points that were summed */
+    final int numberOfPoints;
+    /** The sum of the weights of the points */
+    final double sumW;
+    /** The weighted mean of the x values */
+    final double meanX;
+    /** The weighted mean of the y values */
+    final double meanY;
+    /** The weighted sum of (x - meanX)^2 */
+    final double centeredXX;
+    /** The weighted sum of (x - meanX) * (y - meanY) */
+    final double centeredXY;
+    /** The weighted sum of (y - meanY)^2 */
+    final double centeredYY;
+
+    /** Creates a FitMoments with the passed sums
+     * 
+     * @param points The number of points that were summed
+     * @param weightSum The sum of the weights
+     * @param xMean The weighted mean of the x values
+     * @param yMean The weighted mean of the y values
+     * @param xx The weighted sum of (x - xMean)^2
+     * @param xy The weighted sum of (x - xMean) * (y - yMean)
+     * @param yy The weighted sum of (y - yMean)^2 */
+    private FitMoments(int points, double weightSum, double xMean, double yMean, double xx, double xy, double yy)
+    {
+        numberOfPoints = points;
+        sumW = weightSum;
+        meanX = xMean;
+        meanY = yMean;
+        centeredXX = xx;
+        centeredXY = xy;
+        centeredYY = yy;
+    }
+
+    /** Calculates the moments of the passed points using the passed weight for each point. This takes two passes over
+     * the data: one to find the weighted means and one to sum about them
+     * 
+     * @param data The valid points data in the form returned by DataSet.getAllValidPointsData()
+     * @param weights The weight to use for each of the points
+     * @return The moments of the passed points */
+    static FitMoments calculate(Double[][] data, double[] weights)
+    {
+        Double[] xData = data[DataDimension.X.getColumnIndex()];
+        Double[] yData = data[DataDimension.Y.getColumnIndex()];
+
+        double weightSum = 0.0, xSum = 0.0, ySum = 0.0;
+        for (int i = 0; i < xData.length; i++)
+        {
+            weightSum += weights[i];
+            xSum += weights[i] * xData[i];
+            ySum += weights[i] * yData[i];
+        }
+
+        double xMean = 0.0, yMean = 0.0;
+        if (weightSum > 0.0)
+        {
+            xMean = xSum / weightSum;
+            yMean = ySum / weightSum;
+        }
+
+        double xx = 0.0, xy = 0.0, yy = 0.0;
+        for (int i = 0; i < xData.length; i++)
+        {
+            double dx = xData[i] - xMean;
+            double dy = yData[i] - yMean;
+            xx += weights[i] * dx * dx;
+            xy += weights[i] * dx * dy;
+            yy += weights[i] * dy * dy;
+        }
+
+        return new FitMoments(xData.length, weightSum, xMean, yMean, xx, xy, yy);
+    }
+
+    /** Calculates the moments of the passed points using the passed weight for each point, optionally keeping the sums
+     * in double-double precision. The high precision sums use the corrected two pass algorithm so that the rounding
+     * error of the means is also removed from the centered sums. This is only needed for badly conditioned data (such
+     * as time stamps with a small spread) since it is several times slower than summing with doubles
+     * 
+     * @param data The valid points data in the form returned by DataSet.getAllValidPointsData()
+     * @param weights The weight to use for each of the points
+     * @param highPrecision Whether or not to keep the sums in double-double precision
+     * @return The moments of the passed points */
+    static FitMoments calculate(Double[][] data, double[] weights, boolean highPrecision)
+    {
+        if (!highPrecision)
+        {
+            return calculate(data, weights);
+        }
+
+        Double[] xData = data[DataDimension.X.getColumnIndex()];
+        Double[] yData = data[DataDimension.Y.getColumnIndex()];
+
+        DoubleDouble weightSum = new DoubleDouble(), xSum = new DoubleDouble(), ySum = new DoubleDouble();
+        for (int i = 0; i < xData.length; i++)
+        {
+            weightSum.add(weights[i]);
+            xSum.addProduct(weights[i], xData[i]);
+            ySum.addProduct(weights[i], yData[i]);
+        }
+
+        double w = weightSum.doubleValue();
+        if (w <= 0.0)
+        {
+            return new FitMoments(xData.length, w, 0.0, 0.0, 0.0, 0.0, 0.0);
+        }
+        double xMean = xSum.doubleValue() / w;
+        double yMean = ySum.doubleValue() / w;
+
+        DoubleDouble dxSum = new DoubleDouble(), dySum = new DoubleDouble();
+        DoubleDouble xx = new DoubleDouble(), xy = new DoubleDouble(), yy = new DoubleDouble();
+        for (int i = 0; i < xData.length; i++)
+        {
+            double dx = xData[i] - xMean;
+            double dy = yData[i] - yMean;
+            dxSum.addProduct(weights[i], dx);
+            dySum.addProduct(weights[i], dy);
+            xx.addProduct(weights[i], dx, dx);
+            xy.addProduct(weights[i], dx, dy);
+            yy.addProduct(weights[i], dy, dy);
+        }
+
+        // the sums of the deviations would be zero if the means were exact so use them to correct for the means'
+        // rounding error
+        double dx = dxSum.doubleValue();
+        double dy = dySum.doubleValue();
+        xx.add(-dx * dx / w);
+        xy.add(-dx * dy / w);
+        yy.add(-dy * dy / w);
+
+        return new FitMoments(xData.length, w, xMean + dx / w, yMean + dy / w, xx.doubleValue(), xy.doubleValue(),
+                yy.doubleValue());
+    }
+
+    /** Returns a copy of these moments as if every weight had been multiplied by the passed factor
+     * 
+     * @param factor The factor to multiply the weights by
+     * @return The scaled moments */
+    FitMoments scaled(double factor)
+    {
+        return new FitMoments(numberOfPoints, sumW * factor, meanX, meanY, centeredXX * factor, centeredXY * factor,
+                centeredYY * factor);
+    }
+
+    /** Gets the weighted sum of the x values
+     * 
+     * @return The weighted sum of x */
+    double getSumX()
+    {
+        return sumW * meanX;
+    }
+
+    /** Gets the weighted sum of the y values
+     * 
+     * @return The weighted sum of y */
+    double getSumY()
+    {
+        return sumW * meanY;
+    }
+
+    /** Gets the weighted sum of the x values squared
+     * 
+     * @return The weighted sum of x^2 */
+    double getSumXX()
+    {
+        return centeredXX + sumW * meanX * meanX;
+    }
+
+    /** Gets the weighted sum of the x values times the y values
+     * 
+     * @return The weighted sum of x * y */
+    double getSumXY()
+    {
+        return centeredXY + sumW * meanX * meanY;
+    }
+
+    /** Calculates the weighted Chi Squared value of the points for the passed line directly from the moments
+     * 
+     * @param inSlope The slope of the line
+     * @param inIntercept The intercept of the line
+     * @return The weighted sum of the squared residuals of the points from the line */
+    double chiSquared(double inSlope, double inIntercept)
+    {
+        double meanResidual = meanY - inSlope * meanX - inIntercept;
+        double chiSquared = centeredYY - 2.0 * inSlope * centeredXY + inSlope * inSlope * centeredXX + sumW *
+                meanResidual * meanResidual;
+
+        // rounding can make a perfect fit very slightly negative
+        return Math.max(chiSquared, 0.0);
+    }
+}
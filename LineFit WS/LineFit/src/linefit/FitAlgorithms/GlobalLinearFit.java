@@ -0,0 +1,456 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit.FitAlgorithms;
+
+
+import java.util.List;
+
+import linefit.DataDimension;
+import linefit.DataSet;
+
+
+/** A simultaneous linear fit of multiple DataSets where either the slope or the intercept is shared by all of the
+ * DataSets and the other variable is fit separately for each DataSet. Each DataSet is weighted using its own FitType.
+ * 
+ * The normal equations for this fit only couple the shared variable to each of the DataSets' own variables so they are
+ * solved directly from each DataSet's cached FitMoments. This makes the fit take time proportional to the number of
+ * points to get the moments (which is only done when the data changes) plus the square of the number of DataSets to
+ * fill in the covariance matrix.
+ * 
+ * DataSets that fit using x errors are weighted by their effective variance (the x errors projected through the slope)
+ * which depends on the slope so these are iteratively reweighted until the slopes settle. Any fixed values set on the
+ * individual DataSets are ignored by the global fit.
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public class GlobalLinearFit
+{
+    /** The maximum number of times to reweight DataSets with x errors before giving up on the slopes settling */
+    private final static int MAX_REWEIGHT_ITERATIONS = 50;
+    /** The relative change in the slopes between reweightings at which they are considered to have settled */
+    private final static double REWEIGHT_TOLERANCE = 1e-12;
+
+    /** The DataSets that were fit together */
+    private final DataSet[] dataSets;
+    /** The variable that is shared between all the DataSets */
+    private final SharedFitParameter sharedParameter;
+
+    /** The value of the shared variable */
+    private double sharedValue;
+    /** The value of each DataSet's own variable in the same order as the DataSets */
+    private double[] dataSetValues;
+    /** The covariance matrix of the fit. Index 0 is the shared variable and index i + 1 is the variable of the DataSet
+     * at index i */
+    private double[][] covariance;
+    /** The total Chi Squared value of all the DataSets for the fit */
+    private double chiSquared;
+    /** The total number of points used in the fit */
+    private int numberOfPoints;
+    /** Whether or not the covariance was scaled by the reduced Chi Squared because none of the DataSets had errors */
+    private boolean covarianceScaledByChiSquared = false;
+
+    /** Creates an empty GlobalLinearFit for the passed DataSets. The fit itself is done by fit()
+     * 
+     * @param dataSetsToFit The DataSets to fit together
+     * @param shared The variable that is shared between all of the DataSets */
+    private GlobalLinearFit(DataSet[] dataSetsToFit, SharedFitParameter shared)
+    {
+        dataSets = dataSetsToFit;
+        sharedParameter = shared;
+    }
+
+    /** Fits the passed DataSets together using each DataSet's current FitType and sharing the passed variable between
+     * them
+     * 
+     * @param dataSetsToFit The DataSets to fit together. None of them can have a FitType of NONE
+     * @param shared The variable that is shared between all of the DataSets
+     * @return The results of the global fit or null if the DataSets could not be fit together */
+    public static GlobalLinearFit calculate(List<DataSet> dataSetsToFit, SharedFitParameter shared)
+    {
+        if (dataSetsToFit.isEmpty())
+        {
+            System.err.println("Global Fit: no DataSets were passed to fit");
+            return null;
+        }
+
+        for (DataSet set : dataSetsToFit)
+        {
+            if (set.getFitType() == FitType.NONE)
+            {
+                System.err.println("Global Fit: DataSet " + set.getName() + " does not have a FitType set");
+                return null;
+            }
+        }
+
+        GlobalLinearFit globalFit = new GlobalLinearFit(dataSetsToFit.toArray(new DataSet[dataSetsToFit.size()]),
+                shared);
+        if (globalFit.fit())
+        {
+            return globalFit;
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+    /** Does the global fit, reweighting any DataSets that have x errors until the slopes settle
+     * 
+     * @return True if the fit was successful or false if the DataSets did not have the spread of data needed to fit
+     *         them */
+    private boolean fit()
+    {
+        int numSets = dataSets.length;
+        FitMoments[] baseMoments = new FitMoments[numSets];
+        Double[][][] bothErrorsData = new Double[numSets][][];
+        double[] slopesForWeights = new double[numSets];
+        boolean needsReweighting = false;
+        boolean allRegular = true;
+
+        numberOfPoints = 0;
+        for (int i = 0; i < numSets; i++)
+        {
+            FitType fitType = dataSets[i].getFitType();
+            if (fitType == FitType.BOTH_ERRORS)
+            {
+                // start with the y errors only and add the x errors in once we have a slope
+                baseMoments[i] = dataSets[i].linearFitStrategy.getFitMoments(FitType.Y_ERROR);
+                bothErrorsData[i] = dataSets[i].getAllValidPointsData(true);
+            }
+            else
+            {
+                baseMoments[i] = dataSets[i].linearFitStrategy.getFitMoments(fitType);
+            }
+
+            needsReweighting |= fitType == FitType.X_ERROR || fitType == FitType.BOTH_ERRORS;
+            allRegular &= fitType == FitType.REGULAR;
+            slopesForWeights[i] = baseMoments[i].centeredXY / baseMoments[i].centeredXX;
+            numberOfPoints += baseMoments[i].numberOfPoints;
+        }
+
+        FitMoments[] moments = baseMoments.clone();
+        for (int iteration = 0; iteration <= MAX_REWEIGHT_ITERATIONS; iteration++)
+        {
+            if (needsReweighting)
+            {
+                for (int i = 0; i < numSets; i++)
+                {
+                    moments[i] = getMomentsForSlope(i, baseMoments[i], bothErrorsData[i], slopesForWeights[i]);
+                }
+            }
+
+            if (!solve(moments))
+            {
+                return false;
+            }
+
+            if (!needsReweighting)
+            {
+                break;
+            }
+
+            // see if the slopes have settled and if not use the new ones for the weights
+            boolean settled = true;
+            for (int i = 0; i < numSets; i++)
+            {
+                double newSlope = getSlope(i);
+                if (Math.abs(newSlope - slopesForWeights[i]) > REWEIGHT_TOLERANCE * Math.abs(newSlope))
+                {
+                    settled = false;
+                }
+                slopesForWeights[i] = newSlope;
+            }
+
+            if (settled)
+            {
+                break;
+            }
+            else if (iteration == MAX_REWEIGHT_ITERATIONS)
+            {
+                System.err.println("Global Fit: slopes did not settle after " + MAX_REWEIGHT_ITERATIONS +
+                        " reweightings. Using the last values");
+            }
+        }
+
+        // without errors the only estimate of the uncertainty in the points is how far they are from the fit
+        int degreesOfFreedom = getDegreesOfFreedom();
+        if (allRegular && degreesOfFreedom > 0)
+        {
+            double reducedChiSquared = chiSquared / degreesOfFreedom;
+            for (int row = 0; row < covariance.length; row++)
+            {
+                for (int column = 0; column < covariance.length; column++)
+                {
+                    covariance[row][column] *= reducedChiSquared;
+                }
+            }
+            covarianceScaledByChiSquared = true;
+        }
+
+        return true;
+    }
+
+    /** Gets the moments for the DataSet at the passed index weighted using the passed slope for any x errors
+     * 
+     * @param index The index of the DataSet to get the moments of
+     * @param base The moments of the DataSet using its fit type's default weights
+     * @param bothErrorsData The valid points data of the DataSet if it is fit with both errors or null otherwise
+     * @param slopeForWeights The slope to use to convert the x errors to effective y errors
+     * @return The moments of the DataSet weighted by the effective variance at the passed slope */
+    private FitMoments getMomentsForSlope(int index, FitMoments base, Double[][] bothErrorsData,
+            double slopeForWeights)
+    {
+        // DataSets with no spread in x have no slope of their own so fall back to ignoring the x errors' scaling
+        if (!Double.isFinite(slopeForWeights))
+        {
+            slopeForWeights = 0.0;
+        }
+
+        switch (dataSets[index].getFitType())
+        {
+            case X_ERROR:
+                // the x error weights are all scaled by the same amount so we can just scale the cached moments
+                if (slopeForWeights != 0.0)
+                {
+                    return base.scaled(1.0 / (slopeForWeights * slopeForWeights));
+                }
+                return base;
+            case BOTH_ERRORS:
+                Double[] xErrorData = bothErrorsData[DataDimension.X.getErrorColumnIndex()];
+                Double[] yErrorData = bothErrorsData[DataDimension.Y.getErrorColumnIndex()];
+                double[] weights = new double[xErrorData.length];
+                for (int i = 0; i < weights.length; i++)
+                {
+                    weights[i] = 1.0 / (yErrorData[i] * yErrorData[i] + slopeForWeights * slopeForWeights *
+                            xErrorData[i] * xErrorData[i]);
+                }
+                return FitMoments.calculate(bothErrorsData, weights);
+            default:
+                return base;
+        }
+    }
+
+    /** Solves the normal equations of the global fit with the passed moments and fills in the values, covariance and
+     * Chi Squared of the fit
+     * 
+     * @param moments The moments of each of the DataSets
+     * @return True if the fit was solved or false if the DataSets did not have the spread of data needed to fit them */
+    private boolean solve(FitMoments[] moments)
+    {
+        int numSets = moments.length;
+        dataSetValues = new double[numSets];
+        covariance = new double[numSets + 1][numSets + 1];
+
+        // Eliminating each DataSet's own variable leaves a single equation for the shared variable. The DataSets'
+        // variables and the covariance (the inverse of the normal matrix) then follow directly from it. The ratios are
+        // how much each DataSet's variable moves with the shared one
+        double[] ratios = new double[numSets];
+        double[] ownVariance = new double[numSets];
+        double reduced = 0.0;
+        double reducedRightSide = 0.0;
+        for (int i = 0; i < numSets; i++)
+        {
+            FitMoments set = moments[i];
+            if (sharedParameter == SharedFitParameter.SLOPE)
+            {
+                reduced += set.centeredXX;
+                reducedRightSide += set.centeredXY;
+                ratios[i] = set.meanX;
+                ownVariance[i] = 1.0 / set.sumW;
+            }
+            else
+            {
+                double sumXX = set.getSumXX();
+                if (!(sumXX > 0.0))
+                {
+                    System.err.println("Global Fit: DataSet " + dataSets[i].getName() +
+                            " has no spread in x to fit a slope to");
+                    return false;
+                }
+                reduced += set.sumW * set.centeredXX / sumXX;
+                reducedRightSide += set.sumW * (set.meanY * set.centeredXX - set.meanX * set.centeredXY) / sumXX;
+                ratios[i] = set.getSumX() / sumXX;
+                ownVariance[i] = 1.0 / sumXX;
+            }
+        }
+
+        if (!(reduced > 0.0))
+        {
+            System.err.println("Global Fit: the DataSets do not have enough spread in x to fit the shared " +
+                    sharedParameter.getDisplayString().toLowerCase());
+            return false;
+        }
+
+        sharedValue = reducedRightSide / reduced;
+        covariance[0][0] = 1.0 / reduced;
+
+        chiSquared = 0.0;
+        for (int i = 0; i < numSets; i++)
+        {
+            FitMoments set = moments[i];
+            if (sharedParameter == SharedFitParameter.SLOPE)
+            {
+                dataSetValues[i] = set.meanY - sharedValue * set.meanX;
+            }
+            else
+            {
+                dataSetValues[i] = (set.getSumXY() - sharedValue * set.getSumX()) / set.getSumXX();
+            }
+            chiSquared += set.chiSquared(getSlope(i), getIntercept(i));
+
+            covariance[0][i + 1] = -ratios[i] / reduced;
+            covariance[i + 1][0] = covariance[0][i + 1];
+            for (int j = 0; j <= i; j++)
+            {
+                covariance[i + 1][j + 1] = ratios[i] * ratios[j] / reduced;
+                covariance[j + 1][i + 1] = covariance[i + 1][j + 1];
+            }
+            covariance[i + 1][i + 1] += ownVariance[i];
+        }
+
+        return true;
+    }
+
+    // Getters
+    /** Gets the DataSets that were fit together
+     * 
+     * @return The DataSets in this fit in the order of their indexes */
+    public DataSet[] getDataSets()
+    {
+        return dataSets.clone();
+    }
+
+    /** Gets the number of DataSets that were fit together
+     * 
+     * @return The number of DataSets in this fit */
+    public int getNumberOfDataSets()
+    {
+        return dataSets.length;
+    }
+
+    /** Gets which variable was shared between the DataSets
+     * 
+     * @return The variable that was shared between the DataSets */
+    public SharedFitParameter getSharedParameter()
+    {
+        return sharedParameter;
+    }
+
+    /** Gets the value of the shared variable
+     * 
+     * @return The fit value of the shared slope or intercept */
+    public double getSharedValue()
+    {
+        return sharedValue;
+    }
+
+    /** Gets the error/uncertainty of the shared variable
+     * 
+     * @return The error of the shared slope or intercept */
+    public double getSharedError()
+    {
+        return Math.sqrt(covariance[0][0]);
+    }
+
+    /** Gets the slope of the DataSet at the passed index
+     * 
+     * @param dataSetIndex The index of the DataSet to get the slope of
+     * @return The slope of the fit for the DataSet */
+    public double getSlope(int dataSetIndex)
+    {
+        if (sharedParameter == SharedFitParameter.SLOPE)
+        {
+            return sharedValue;
+        }
+        return dataSetValues[dataSetIndex];
+    }
+
+    /** Gets the intercept of the DataSet at the passed index
+     * 
+     * @param dataSetIndex The index of the DataSet to get the intercept of
+     * @return The intercept of the fit for the DataSet */
+    public double getIntercept(int dataSetIndex)
+    {
+        if (sharedParameter == SharedFitParameter.INTERCEPT)
+        {
+            return sharedValue;
+        }
+        return dataSetValues[dataSetIndex];
+    }
+
+    /** Gets the value of the variable that was fit separately for the DataSet at the passed index
+     * 
+     * @param dataSetIndex The index of the DataSet to get the value of
+     * @return The intercept of the DataSet if the slope was shared or the slope if the intercept was shared */
+    public double getDataSetValue(int dataSetIndex)
+    {
+        return dataSetValues[dataSetIndex];
+    }
+
+    /** Gets the error/uncertainty of the variable that was fit separately for the DataSet at the passed index
+     * 
+     * @param dataSetIndex The index of the DataSet to get the error of
+     * @return The error of the intercept of the DataSet if the slope was shared or of the slope if the intercept was
+     *         shared */
+    public double getDataSetError(int dataSetIndex)
+    {
+        return Math.sqrt(covariance[dataSetIndex + 1][dataSetIndex + 1]);
+    }
+
+    /** Gets the covariance between two variables of the fit. Index 0 is the shared variable and index i + 1 is the
+     * variable of the DataSet at index i
+     * 
+     * @param row The index of the first variable
+     * @param column The index of the second variable
+     * @return The covariance between the two variables */
+    public double getCovariance(int row, int column)
+    {
+        return covariance[row][column];
+    }
+
+    /** Gets the correlation coefficient between two variables of the fit. Index 0 is the shared variable and index
+     * i + 1 is the variable of the DataSet at index i
+     * 
+     * @param row The index of the first variable
+     * @param column The index of the second variable
+     * @return The correlation between the two variables from -1 to 1 */
+    public double getCorrelation(int row, int column)
+    {
+        return covariance[row][column] / Math.sqrt(covariance[row][row] * covariance[column][column]);
+    }
+
+    /** Gets the total Chi Squared value of all the DataSets for the fit
+     * 
+     * @return The Chi Squared value of the global fit */
+    public double getChiSquared()
+    {
+        return chiSquared;
+    }
+
+    /** Gets the number of degrees of freedom of the fit, which is the number of points less the number of variables
+     * 
+     * @return The degrees of freedom of the global fit */
+    public int getDegreesOfFreedom()
+    {
+        return numberOfPoints - (dataSets.length + 1);
+    }
+
+    /** Gets whether the covariance was scaled by the reduced Chi Squared because none of the DataSets had errors
+     * 
+     * @return True if the errors were estimated from the scatter of the points about the fit */
+    public boolean isCovarianceScaledByChiSquared()
+    {
+        return covarianceScaledByChiSquared;
+    }
+}
@@ -13,6 +13,8 @@
 package linefit.FitAlgorithms;
 
 
+import java.util.EnumMap;
+
 import linefit.DataDimension;
 import linefit.DataSet;
 import linefit.ScientificNotation;
@@ -34,6 +36,9 @@ public abstract class LinearFitStrategy
     double slopeError = 0;
     /** The error value for the intercept */
     double interceptError = 0;
+    /** The covariance between the slope and the intercept on the same scale as the errors. Together with the errors
+     * this gives the uncertainty of the fitted line at any x value */
+    double slopeInterceptCovariance = 0;
 
     /** Whether or not this algorithm supports fixing the slope of the fit. Set to false by default */
     protected boolean canFixSlope = false;
@@ -49,6 +54,14 @@ public abstract class LinearFitStrategy
      * makes it "safer" */
     protected DataSet dataForFit;
 
+    /** The cached weighted moments of the data for each fit type they have been asked for so they are only
+     * recalculated when the data changes */
+    private EnumMap<FitType, FitMoments> cachedMoments = new EnumMap<FitType, FitMoments>(FitType.class);
+    /** The version of the DataSet's data the cached moments were calculated from */
+    private long cachedMomentsDataVersion = -1;
+    /** Whether or not the cached moments were summed in double-double precision */
+    private boolean cachedMomentsHighPrecision = false;
+
     /** Recalculates the Fit for the given DataSet - updates the fit for the given values */
     public void refreshFitData()
     {
@@ -99,6 +112,21 @@ public abstract class LinearFitStrategy
             Double[] xErrorData = data[DataDimension.X.getErrorColumnIndex()];
             Double[] yErrorData = data[DataDimension.Y.getErrorColumnIndex()];
 
+            if (dataForFit.isHighPrecisionFit())
+            {
+                // sum the weighted y - mx directly so the large x and y sums never have to be subtracted
+                DoubleDouble weightSum = new DoubleDouble(), residualSum = new DoubleDouble();
+                for (int i = 0; i < xData.length; i++)
+                {
+                    double weight = 1.0 / (xErrorData[i] * xErrorData[i] * inSlope * inSlope + yErrorData[i] *
+                            yErrorData[i]);
+                    weightSum.add(weight);
+                    residualSum.addProduct(yData[i], weight);
+                    residualSum.addProduct(-inSlope, xData[i], weight);
+                }
+                return residualSum.doubleValue() / weightSum.doubleValue();
+            }
+
             // calculates the intercept with the current slope
             for (int i = 0; i < xData.length; i++)
             {
@@ -209,6 +237,18 @@ public abstract class LinearFitStrategy
             double eX = 0.0, eY = 0.0;
             double sigmaSquared = 0.0, chiSquaredSum = 0.0;
 
+            if (dataForFit.isHighPrecisionFit())
+            {
+                DoubleDouble highPrecisionSum = new DoubleDouble();
+                for (int i = 0; i < xData.length; i++)
+                {
+                    double residual = calculateHighPrecisionResidual(xData[i], yData[i], inSlope, inIntercept);
+                    sigmaSquared = yErrorData[i] * yErrorData[i] + inSlope * inSlope * xErrorData[i] * xErrorData[i];
+                    highPrecisionSum.addProduct(residual, residual / sigmaSquared);
+                }
+                return highPrecisionSum.doubleValue();
+            }
+
             // now finds the chi squared sum using this slope and intercept
             for (int i = 0; i < xData.length; i++)
             {
@@ -226,6 +266,18 @@ public abstract class LinearFitStrategy
             return chiSquaredSum;
         }
         // if we have either one or none we have to calculate it with weights like this
+        else if (dataForFit.isHighPrecisionFit())
+        {
+            // sum the residuals directly instead of expanding the square into sums that cancel each other out
+            DoubleDouble highPrecisionSum = new DoubleDouble();
+            for (int i = 0; i < xData.length; i++)
+            {
+                double residual = calculateHighPrecisionResidual(xData[i], yData[i], inSlope, inIntercept);
+                double weight = getChiSquaredWeight(dataForFit.getFitType(), xErrorData[i], yErrorData[i]);
+                highPrecisionSum.addProduct(residual, residual, weight);
+            }
+            return highPrecisionSum.doubleValue();
+        }
         else
         {
             double weight = 0.0, sumW = 0.0, sumX = 0.0, sumY = 0.0, sumXX = 0.0, sumXY = 0.0, sumYY = 0.0;
@@ -244,11 +296,28 @@ public abstract class LinearFitStrategy
                 sumW += weight;
             }
 
-            return sumYY - (2.0 * slope * sumXY) - (2.0 * intercept * sumY) + (Math.pow(slope, 2) * sumXX) + (2.0 *
-                    slope * intercept * sumX) + (Math.pow(intercept, 2) * sumW);
+            return sumYY - (2.0 * inSlope * sumXY) - (2.0 * inIntercept * sumY) + (Math.pow(inSlope, 2) * sumXX) +
+                    (2.0 * inSlope * inIntercept * sumX) + (Math.pow(inIntercept, 2) * sumW);
         }
     }
 
+    /** Calculates the distance in y of the passed point from the passed line, keeping the product of the slope and x
+     * exact so that the large terms cancel without losing the digits of the residual
+     * 
+     * @param x The x value of the point
+     * @param y The y value of the point
+     * @param inSlope The slope of the line
+     * @param inIntercept The intercept of the line
+     * @return The value of y - (inSlope * x + inIntercept) */
+    private static double calculateHighPrecisionResidual(double x, double y, double inSlope, double inIntercept)
+    {
+        DoubleDouble residual = new DoubleDouble();
+        residual.add(y);
+        residual.addProduct(-inSlope, x);
+        residual.add(-inIntercept);
+        return residual.doubleValue();
+    }
+
     /** Gets the x value of a point that goes with the specified y value using our current fit's slope and intercept
      * 
      * @param yPoint the y value to find the x value at on this fit
@@ -269,80 +338,69 @@ public abstract class LinearFitStrategy
         return getSlope() * xPoint + intercept;
     }
 
-    /** calculates the linear fit for only one set of errors by minimizing the Chi Squared value
+    /** Gets the weighted moments of the DataSet's valid points using the weights for the passed fit type. These are
+     * cached for each fit type and only recalculated when the DataSet's data or its precision setting changes
      * 
-     * @param fitTypeToUse The fit type to fit the DataSet with */
-    void defaultChiSquareFitForSingleOrNoErrors(FitType fitTypeToUse)
+     * @param fitTypeToUse The fit type to get the weights of the points for
+     * @return The weighted moments of the DataSet's valid points */
+    FitMoments getFitMoments(FitType fitTypeToUse)
     {
-        double x = 0, y = 0;
-        double sumX = 0.0, sumY = 0.0, sumXX = 0.0, sumXY = 0.0, sumW = 0.0, weight = 0.0;
-
-        Double[][] data = dataForFit.getAllValidPointsData(true);
-        Double[] xData = data[DataDimension.X.getColumnIndex()];
-        Double[] yData = data[DataDimension.Y.getColumnIndex()];
-        Double[] xErrorData = data[DataDimension.X.getErrorColumnIndex()];
-        Double[] yErrorData = data[DataDimension.Y.getErrorColumnIndex()];
+        long dataVersion = dataForFit.getDataVersion();
+        boolean highPrecision = dataForFit.isHighPrecisionFit();
+        if (cachedMomentsDataVersion != dataVersion || cachedMomentsHighPrecision != highPrecision)
+        {
+            cachedMoments.clear();
+            cachedMomentsDataVersion = dataVersion;
+            cachedMomentsHighPrecision = highPrecision;
+        }
 
-        for (int i = 0; i < xData.length; i++)
+        FitMoments moments = cachedMoments.get(fitTypeToUse);
+        if (moments == null)
         {
-            // read the x and y data
-            x = xData[i];
-            y = yData[i];
+            Double[][] data = dataForFit.getAllValidPointsData(true);
+            Double[] xErrorData = data[DataDimension.X.getErrorColumnIndex()];
+            Double[] yErrorData = data[DataDimension.Y.getErrorColumnIndex()];
 
-            // get the weight
-            weight = getChiSquaredWeight(fitTypeToUse, xErrorData[i], yErrorData[i]);
+            double[] weights = new double[xErrorData.length];
+            for (int i = 0; i < weights.length; i++)
+            {
+                weights[i] = getChiSquaredWeight(fitTypeToUse, xErrorData[i], yErrorData[i]);
+            }
 
-            // sum the values we need later
-            sumX += x * weight;
-            sumY += y * weight;
-            sumXX += x * x * weight;
-            sumXY += x * y * weight;
-            sumW += weight;
+            moments = FitMoments.calculate(data, weights, highPrecision);
+            cachedMoments.put(fitTypeToUse, moments);
         }
+        return moments;
+    }
 
-        double delta = 0;
+    /** calculates the linear fit for only one set of errors by minimizing the Chi Squared value
+     * 
+     * @param fitTypeToUse The fit type to fit the DataSet with */
+    void defaultChiSquareFitForSingleOrNoErrors(FitType fitTypeToUse)
+    {
+        FitMoments moments = getFitMoments(fitTypeToUse);
+        double sumW = moments.sumW;
+        double sumX = moments.getSumX();
+        double sumY = moments.getSumY();
+        double sumXX = moments.getSumXX();
+        double sumXY = moments.getSumXY();
+
+        // equivalent to sumW * sumXX - sumX * sumX but without the loss of precision from subtracting them
+        double delta = sumW * moments.centeredXX;
         if (canFixSlope && whatIsFixed == FixedVariable.SLOPE) // check if we have the easy case of a fixed slope
         {
             slope = fixedValue;
             intercept = (sumY - slope * sumX) / sumW;
-            delta = sumW * sumXX - sumX * sumX; // we can do it this way because the loss of accuracy wont matter once
-                                                // we square root it for finding the errors
         }
         else if (canFixIntercept && whatIsFixed == FixedVariable.INTERCEPT) // or the easy case of a fixed intercept
         {
             intercept = fixedValue;
             slope = (sumXY - (intercept * sumX)) / (sumXX);
-            delta = sumW * sumXX - sumX * sumX; // we can do it this way because the loss of accuracy wont matter once
-                                                // we square root it for finding the errors
         }
         else if (whatIsFixed == FixedVariable.NONE)
         {
-            double xi = 0.0, xj = 0.0, yi = 0.0, yj = 0.0, wi = 0.0, wj = 0.0;
-            double slopeSum = 0, interceptSum = 0;
-
-            for (int i = 0; i < xData.length; i++)
-            {
-                xi = xData[i];
-                yi = yData[i];
-                wi = getChiSquaredWeight(fitTypeToUse, xErrorData[i], yErrorData[i]);
-
-                double sumj = 0, sumjIntercept = 0;
-                for (int j = 0; j < xData.length; j++)
-                {
-                    xj = xData[j];
-                    yj = yData[j];
-                    wj = getChiSquaredWeight(fitTypeToUse, xErrorData[j], yErrorData[j]);
-
-                    sumj += (xi - xj) * wj;
-                    sumjIntercept += (xi - xj) * wj * yj;
-                }
-                delta += sumj * xi * wi;
-                slopeSum += sumj * yi * wi;
-                interceptSum += sumjIntercept * xi * wi;
-            }
-            slope = slopeSum / delta;
-            intercept = interceptSum / delta;
-
+            slope = moments.centeredXY / moments.centeredXX;
+            intercept = moments.meanY - slope * moments.meanX;
         }
         else
         {
@@ -351,20 +409,102 @@ public abstract class LinearFitStrategy
 
         slopeError = Math.sqrt(sumW / delta);
         interceptError = Math.sqrt(sumXX / delta);
+        slopeInterceptCovariance = -sumX / delta;
         if (fitTypeToUse == FitType.X_ERROR)
         {
             slopeError = slope * slopeError;
             interceptError = slope * interceptError;
+            slopeInterceptCovariance = slope * slope * slopeInterceptCovariance;
         }
 
         if (whatIsFixed == FixedVariable.SLOPE && canFixSlope)
         {
             slopeError = 0;
+            slopeInterceptCovariance = 0;
         }
         if (whatIsFixed == FixedVariable.INTERCEPT && canFixIntercept)
         {
             interceptError = 0;
+            slopeInterceptCovariance = 0;
+        }
+    }
+
+    /** Gets the variance of the fitted line's y value at the passed x value that comes from the uncertainty in the fit's
+     * slope and intercept. This is what the confidence band around the line is drawn from
+     * 
+     * @param xPoint The x value to find the variance of the fitted line at
+     * @return The variance of the fitted line at the passed x value */
+    public double getConfidenceBandVarianceAt(double xPoint)
+    {
+        double variance = interceptError * interceptError + xPoint * xPoint * slopeError * slopeError + 2.0 * xPoint *
+                slopeInterceptCovariance;
+        if (dataForFit.getFitType() == FitType.REGULAR)
+        {
+            variance *= getResidualVariance();
+        }
+        return Math.max(variance, 0.0);
+    }
+
+    /** Gets the variance of a new point at the passed x value about the fitted line. This is the variance of the fitted
+     * line plus the typical variance of a single point and is what the prediction band around the line is drawn from
+     * 
+     * @param xPoint The x value to find the variance of a new point at
+     * @return The variance of a new point about the fitted line at the passed x value */
+    public double getPredictionBandVarianceAt(double xPoint)
+    {
+        return getConfidenceBandVarianceAt(xPoint) + getPointVariance();
+    }
+
+    /** Gets the typical variance in y of a single point for the current fit type. For fits without errors this is the
+     * scatter of the points about the line and otherwise it comes from the points' errors, with x errors carried into y
+     * by the slope
+     * 
+     * @return The typical variance in y of a single point */
+    double getPointVariance()
+    {
+        FitType fitType = dataForFit.getFitType();
+        double variance = 0;
+        if (fitType == FitType.REGULAR)
+        {
+            variance = getResidualVariance();
+        }
+        if (fitType == FitType.Y_ERROR || fitType == FitType.BOTH_ERRORS)
+        {
+            variance += getMeanVarianceFromWeights(getFitMoments(FitType.Y_ERROR));
+        }
+        if (fitType == FitType.X_ERROR || fitType == FitType.BOTH_ERRORS)
+        {
+            variance += slope * slope * getMeanVarianceFromWeights(getFitMoments(FitType.X_ERROR));
+        }
+        return variance;
+    }
+
+    /** Gets the variance of the points about the current line estimated from their scatter, which is what a fit without
+     * any errors uses in place of the errors
+     * 
+     * @return The variance of the points about the fitted line or 0 if there are not enough points to estimate it */
+    private double getResidualVariance()
+    {
+        FitMoments moments = getFitMoments(FitType.REGULAR);
+        if (moments.numberOfPoints > 2)
+        {
+            return moments.chiSquared(slope, intercept) / (moments.numberOfPoints - 2);
+        }
+        return 0;
+    }
+
+    /** Gets the average variance of the points from the sum of their inverse variance weights (the harmonic mean of the
+     * variances) so that a single very precise point does not dominate it
+     * 
+     * @param moments The moments whose weights are one over the variances of the points
+     * @return The average variance of the points or 0 if there are none */
+    private static double getMeanVarianceFromWeights(FitMoments moments)
+    {
+        if (moments.sumW > 0)
+        {
+            return moments.numberOfPoints / moments.sumW;
         }
+        return 0;
     }
 
     // setters
@@ -167,7 +167,11 @@ class PartialDerivativeMinimizationFactory extends LinearFitFactory
             }
 
             double sigmaSquared = 0.0, xs = 0.0, ys = 0.0, ws = 0.0;
-            if (whatIsFixed != FixedVariable.INTERCEPT)
+            if (whatIsFixed != FixedVariable.INTERCEPT && dataForFit.isHighPrecisionFit())
+            {
+                intercept = calculateIntercept(slope, data);
+            }
+            else if (whatIsFixed != FixedVariable.INTERCEPT)
             {
                 // now calculate the final intercept with our minimized error slope
                 for (int j = 0; j < xData.length; j++)
@@ -202,6 +206,23 @@ class PartialDerivativeMinimizationFactory extends LinearFitFactory
             }
 
             delta = sumW * sumXX - sumX * sumX;
+            if (dataForFit.isHighPrecisionFit())
+            {
+                // redo the sums in double-double precision since delta is the small difference of two large products
+                DoubleDouble highSumX = new DoubleDouble(), highSumXX = new DoubleDouble();
+                DoubleDouble highSumW = new DoubleDouble();
+                for (int i = 0; i < xData.length; i++)
+                {
+                    weight = 1.0 / (yErrorData[i] * yErrorData[i] + slope * slope * xErrorData[i] * xErrorData[i]);
+                    highSumX.addProduct(xData[i], weight);
+                    highSumXX.addProduct(xData[i], xData[i], weight);
+                    highSumW.add(weight);
+                }
+                sumX = highSumX.doubleValue();
+                sumXX = highSumXX.doubleValue();
+                sumW = highSumW.doubleValue();
+                delta = DoubleDouble.differenceOfProducts(highSumW, highSumXX, highSumX, highSumX);
+            }
 
             if (whatIsFixed != FixedVariable.SLOPE)
             {
@@ -212,6 +233,11 @@ class PartialDerivativeMinimizationFactory extends LinearFitFactory
             {
                 interceptError = Math.sqrt(sumXX / delta);
             }
+
+            if (whatIsFixed == FixedVariable.NONE)
+            {
+                slopeInterceptCovariance = -sumX / delta;
+            }
         }
     }
 }
\ No newline at end of file
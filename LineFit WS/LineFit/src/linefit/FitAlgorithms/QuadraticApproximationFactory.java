@@ -199,9 +199,11 @@ class QuadraticApproximationFactory extends LinearFitFactory
                 this.intercept = b0;
             }
 
-            // calculate the errors
-            this.slopeError = alpha * oneOverABMinusGSquared;
-            this.interceptError = beta * oneOverABMinusGSquared;
+            // the inverse of the quadratic's curvature gives the variances and the covariance of the slope and intercept
+            // so the errors are the square roots of the variances to match the other algorithms
+            this.slopeError = Math.sqrt(alpha * oneOverABMinusGSquared);
+            this.interceptError = Math.sqrt(beta * oneOverABMinusGSquared);
+            this.slopeInterceptCovariance = -gamma * oneOverABMinusGSquared;
 
             System.out.println(chiSquared1);
             System.out.println(chiSquared0);
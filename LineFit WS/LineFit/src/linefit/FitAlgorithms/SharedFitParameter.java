@@ -0,0 +1,55 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit.FitAlgorithms;
+
+
+/** This enumeration is used to keep track of which variable is shared between all the DataSets in a GlobalLinearFit
+ * 
+ * <ul>
+ * <li>0 - The slope is shared. Each DataSet gets its own intercept
+ * <li>1 - The intercept is shared. Each DataSet gets its own slope
+ * </ul>
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public enum SharedFitParameter
+{
+    SLOPE("Slope"), INTERCEPT("Intercept");
+
+    /** The String that is displayed when the toString is called on the enumeration so it is displayed this way */
+    private final String display;
+
+    /** The constructor of this enum that is used to initialize its members and assign their values
+     * 
+     * @param displayString The name of the SharedFitParameter that will be displayed */
+    SharedFitParameter(String displayString)
+    {
+        this.display = displayString;
+    }
+
+    /** Gets the display string of this SharedFitParameter for display in the GUI
+     * 
+     * @return Returns a String that contains this SharedFitParameter's display name */
+    public String getDisplayString()
+    {
+        return display;
+    }
+
+    /** This overrides the to String method so that it will show the display string instead of the Enum name */
+    @Override
+    public String toString()
+    {
+        return getDisplayString();
+    }
+}
@@ -0,0 +1,191 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+import linefit.FitAlgorithms.FitType;
+import linefit.FitAlgorithms.LinearFitStrategy;
+
+
+/** Holds the shaded confidence and prediction bands around a DataSet's fit line as ready to draw shapes. The bands are
+ * calculated from the fit's covariance so they only need to be rebuilt when the fit or the area of the graph they are
+ * drawn in changes and not every time the graph is repainted
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class FitBandCache
+{
+    /** The number of pixels between each of the points the edges of the bands are calculated at */
+    private final static int PIXELS_PER_SAMPLE = 4;
+
+    /** The band around the fit line showing the uncertainty of the line itself */
+    private Path2D.Double confidenceBand;
+    /** The band around the fit line that new points are expected to fall in or null if it was not asked for */
+    private Path2D.Double predictionBand;
+
+    // the values the bands were last built with. If any of these change the bands need to be rebuilt
+    /** The fit strategy the bands were built from */
+    private LinearFitStrategy builtStrategy;
+    /** The version of the DataSet's data the bands were built from */
+    private long builtDataVersion = -1;
+    /** The fit type the bands were built for */
+    private FitType builtFitType;
+    /** The slope of the fit the bands were built for */
+    private double builtSlope;
+    /** The intercept of the fit the bands were built for */
+    private double builtIntercept;
+    /** The number of standard deviations wide the bands were built */
+    private int builtSigmas;
+    /** Whether or not the prediction band was built */
+    private boolean builtWithPrediction;
+    /** The axes values and the pixel area the bands were built for in the order xMin, xMax, yMin, yMax, left, top,
+     * width, height */
+    private double[] builtArea = new double[8];
+
+    /** Makes sure the bands match the passed DataSet's current fit and the passed area of the graph, rebuilding them if
+     * anything they depend on has changed since they were last built
+     * 
+     * @param dataSet The DataSet whose fit the bands are for
+     * @param sigmas The number of standard deviations the bands extend on either side of the line
+     * @param withPrediction Whether or not to build the prediction band as well as the confidence band
+     * @param xMin The value of x at the left edge of the graph area
+     * @param xMax The value of x at the right edge of the graph area
+     * @param yMin The value of y at the bottom edge of the graph area
+     * @param yMax The value of y at the top edge of the graph area
+     * @param left The pixel position of the left edge of the graph area
+     * @param top The pixel position of the top edge of the graph area
+     * @param width The width in pixels of the graph area
+     * @param height The height in pixels of the graph area */
+    void update(DataSet dataSet, int sigmas, boolean withPrediction, double xMin, double xMax, double yMin,
+            double yMax, int left, int top, int width, int height)
+    {
+        LinearFitStrategy strategy = dataSet.linearFitStrategy;
+        double[] area = new double[] { xMin, xMax, yMin, yMax, left, top, width, height };
+
+        // the errors only change when the data, fit type or line do so they do not need to be checked separately
+        if (confidenceBand != null && strategy == builtStrategy && dataSet.getDataVersion() == builtDataVersion &&
+                dataSet.getFitType() == builtFitType && strategy.getSlope() == builtSlope && strategy
+                        .getIntercept() == builtIntercept && sigmas == builtSigmas &&
+                withPrediction == builtWithPrediction && Arrays.equals(area, builtArea))
+        {
+            return;
+        }
+
+        double pixelsPerX = width / (xMax - xMin);
+        double pixelsPerY = height / (yMax - yMin);
+        int samples = Math.max(2, width / PIXELS_PER_SAMPLE + 1);
+
+        confidenceBand = createBand(strategy, false, sigmas, samples, xMin, yMax, left, top, width, height, pixelsPerX,
+                pixelsPerY);
+        predictionBand = null;
+        if (withPrediction)
+        {
+            predictionBand = createBand(strategy, true, sigmas, samples, xMin, yMax, left, top, width, height,
+                    pixelsPerX, pixelsPerY);
+        }
+
+        builtStrategy = strategy;
+        builtDataVersion = dataSet.getDataVersion();
+        builtFitType = dataSet.getFitType();
+        builtSlope = strategy.getSlope();
+        builtIntercept = strategy.getIntercept();
+        builtSigmas = sigmas;
+        builtWithPrediction = withPrediction;
+        builtArea = area;
+    }
+
+    /** Creates the closed shape of a band around the fit line by going along the top edge from left to right and then
+     * back along the bottom edge
+     * 
+     * @param strategy The fit to create the band around
+     * @param prediction True to create the prediction band or false to create the confidence band
+     * @param sigmas The number of standard deviations the band extends on either side of the line
+     * @param samples The number of points along each edge of the band
+     * @param xMin The value of x at the left edge of the graph area
+     * @param yMax The value of y at the top edge of the graph area
+     * @param left The pixel position of the left edge of the graph area
+     * @param top The pixel position of the top edge of the graph area
+     * @param width The width in pixels of the graph area
+     * @param height The height in pixels of the graph area
+     * @param pixelsPerX The number of pixels per unit of x
+     * @param pixelsPerY The number of pixels per unit of y
+     * @return The band as a closed path in pixel coordinates */
+    private static Path2D.Double createBand(LinearFitStrategy strategy, boolean prediction, int sigmas, int samples,
+            double xMin, double yMax, int left, int top, int width, int height, double pixelsPerX, double pixelsPerY)
+    {
+        double[] pixelX = new double[samples];
+        double[] upperPixelY = new double[samples];
+        double[] lowerPixelY = new double[samples];
+        for (int i = 0; i < samples; i++)
+        {
+            pixelX[i] = left + (double) width * i / (samples - 1);
+            double x = xMin + (pixelX[i] - left) / pixelsPerX;
+            double y = strategy.getYOfXPoint(x);
+            double variance = prediction ? strategy.getPredictionBandVarianceAt(x) : strategy
+                    .getConfidenceBandVarianceAt(x);
+            double halfWidth = sigmas * Math.sqrt(variance);
+
+            upperPixelY[i] = clampToNearArea(top + (yMax - (y + halfWidth)) * pixelsPerY, top, height);
+            lowerPixelY[i] = clampToNearArea(top + (yMax - (y - halfWidth)) * pixelsPerY, top, height);
+        }
+
+        Path2D.Double band = new Path2D.Double(Path2D.WIND_NON_ZERO, 2 * samples);
+        band.moveTo(pixelX[0], upperPixelY[0]);
+        for (int i = 1; i < samples; i++)
+        {
+            band.lineTo(pixelX[i], upperPixelY[i]);
+        }
+        for (int i = samples - 1; i >= 0; i--)
+        {
+            band.lineTo(pixelX[i], lowerPixelY[i]);
+        }
+        band.closePath();
+        return band;
+    }
+
+    /** Keeps a pixel position within a graph height of the graph area so that very wide bands do not create shapes so
+     * large that they are slow to fill. The part outside of the graph area is covered up by the margins anyways
+     * 
+     * @param pixelY The pixel position to clamp
+     * @param top The pixel position of the top edge of the graph area
+     * @param height The height in pixels of the graph area
+     * @return The clamped pixel position */
+    private static double clampToNearArea(double pixelY, int top, int height)
+    {
+        if (Double.isNaN(pixelY))
+        {
+            return top + height / 2.0;
+        }
+        return Math.max(top - height, Math.min(top + 2.0 * height, pixelY));
+    }
+
+    /** Gets the band showing the uncertainty of the fit line itself
+     * 
+     * @return The confidence band in pixel coordinates */
+    Path2D.Double getConfidenceBand()
+    {
+        return confidenceBand;
+    }
+
+    /** Gets the band that new points are expected to fall in
+     * 
+     * @return The prediction band in pixel coordinates or null if it was not built */
+    Path2D.Double getPredictionBand()
+    {
+        return predictionBand;
+    }
+}
@@ -0,0 +1,313 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableModel;
+
+import linefit.FitAlgorithms.FitAlgorithmComparison;
+import linefit.FitAlgorithms.FitType;
+import linefit.FitAlgorithms.FixedVariable;
+import linefit.IO.GeneralIO;
+
+
+/** A frame that fits a DataSet with every fit algorithm at the same time and shows their results side by side so the
+ * user can see if and where they disagree
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class FitComparisonFrame extends JFrame
+{
+    /** The Serial Version UID so that we know what version it is when we are using it. See
+     * http://docs.oracle.com/javase/7/docs/api/java/io/Serializable.html for full discussion on its uses and purpose */
+    private final static long serialVersionUID = 42L;
+    /** The headers of the columns in the results table */
+    private final static String[] RESULTS_COLUMN_NAMES = new String[] { "Algorithm", "Slope", "Slope Error",
+            "Intercept", "Intercept Error", "\u03c7\u00B2", "Runtime (ms)", "Disagrees On" };
+
+    /** The GraphArea whose DataSets can be compared */
+    private GraphArea graphingArea;
+    /** The drop down box that allows the user to select which DataSet to compare the algorithms on */
+    private JComboBox<DataSet> dataSetSelector;
+    /** The TextField for the relative tolerance the algorithms must agree within */
+    private JTextField toleranceField;
+    /** The table model containing the results of each algorithm */
+    private ResultsTableModel resultsModel;
+    /** The label that summarizes whether or not the algorithms agree */
+    private JLabel summaryLabel;
+    /** The button that starts comparing the algorithms, which is disabled while a comparison is running */
+    private JButton compareButton;
+
+    /** Creates the comparison frame for the DataSets in the passed GraphArea and compares the algorithms on the first
+     * DataSet with a fit
+     * 
+     * @param graphAreaToCompare The GraphArea whose DataSets can be compared
+     * @param ioHandler The GeneralIO object used for handling IO related functionality */
+    FitComparisonFrame(GraphArea graphAreaToCompare, GeneralIO ioHandler)
+    {
+        super("Compare Fit Algorithms");
+        graphingArea = graphAreaToCompare;
+        this.setIconImage(ioHandler.getLineFitIcon());
+        setSize(760, 260);
+        setLayout(new BorderLayout());
+
+        JPanel optionsRow = new JPanel();
+        optionsRow.add(new JLabel("DataSet:"));
+        dataSetSelector = new JComboBox<DataSet>();
+        for (int i = 0; i < graphingArea.dataSetRegistry.getNumberOfDataSets(); i++)
+        {
+            DataSet current = graphingArea.dataSetRegistry.getDataSet(i);
+            if (current.getFitType() != FitType.NONE)
+            {
+                dataSetSelector.addItem(current);
+            }
+        }
+        optionsRow.add(dataSetSelector);
+        optionsRow.add(new JLabel("Relative Tolerance:"));
+        toleranceField = new JTextField("0.001", 8);
+        optionsRow.add(toleranceField);
+        compareButton = new JButton("Compare");
+        compareButton.addActionListener(new CompareButtonListener());
+        optionsRow.add(compareButton);
+        add(optionsRow, BorderLayout.NORTH);
+
+        resultsModel = new ResultsTableModel();
+        add(new JScrollPane(new JTable(resultsModel)), BorderLayout.CENTER);
+
+        JPanel bottomRow = new JPanel(new BorderLayout());
+        summaryLabel = new JLabel(" ");
+        bottomRow.add(summaryLabel, BorderLayout.CENTER);
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(new CloseButtonListener());
+        bottomRow.add(closeButton, BorderLayout.EAST);
+        add(bottomRow, BorderLayout.SOUTH);
+
+        setVisible(true);
+        compareAlgorithms();
+    }
+
+    /** Starts fitting a snapshot of the selected DataSet with all the algorithms at once in the background. Their
+     * results are put in the table once they have all finished */
+    private void compareAlgorithms()
+    {
+        DataSet selected = (DataSet) dataSetSelector.getSelectedItem();
+        if (selected == null)
+        {
+            JOptionPane.showMessageDialog(this, "None of the DataSets have a fit selected to compare the algorithms on",
+                    "Compare Fit Algorithms", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        double tolerance;
+        try
+        {
+            tolerance = Math.abs(Double.parseDouble(toleranceField.getText()));
+        }
+        catch (NumberFormatException nfe)
+        {
+            JOptionPane.showMessageDialog(this, "The tolerance must be a number", "Compare Fit Algorithms",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        // use the fixed value of the DataSet's current fit for the algorithms that support it
+        FixedVariable whatIsFixed = selected.linearFitStrategy.getWhatIsFixed();
+        double fixedValue = 0;
+        if (whatIsFixed != FixedVariable.NONE)
+        {
+            fixedValue = selected.linearFitStrategy.getFixedValue();
+        }
+
+        compareButton.setEnabled(false);
+        summaryLabel.setText("Comparing the algorithms...");
+        new ComparisonWorker(selected.createSnapshot(), whatIsFixed, fixedValue, tolerance).execute();
+    }
+
+    /** Puts the results of a finished comparison in the table and summarizes whether or not the algorithms agree
+     * 
+     * @param comparison The results of all the algorithms */
+    private void showComparison(FitAlgorithmComparison comparison)
+    {
+        resultsModel.setRowCount(0);
+        for (int i = 0; i < comparison.getNumberOfAlgorithms(); i++)
+        {
+            String runtime = String.format("%.3f", comparison.getRuntimeNanoseconds(i) / 1e6);
+            resultsModel.addRow(new Object[] { comparison.getAlgorithm(i).toString(), formatResult(comparison
+                    .getSlope(i)), formatResult(comparison.getSlopeError(i)), formatResult(comparison.getIntercept(i)),
+                    formatResult(comparison.getInterceptError(i)), formatResult(comparison.getChiSquared(i)), runtime,
+                    comparison.getDisagreements(i) });
+        }
+
+        if (comparison.hasDisagreements())
+        {
+            summaryLabel.setText("The algorithms disagree with " + comparison.getAlgorithm(0) + " by more than the " +
+                    "tolerance");
+        }
+        else
+        {
+            summaryLabel.setText("All the algorithms agree within the tolerance");
+        }
+    }
+
+    /** Formats a result for the table using the number of decimal places the user selected for the results
+     * 
+     * @param result The value to format
+     * @return The formatted value */
+    private String formatResult(double result)
+    {
+        if (Double.isNaN(result))
+        {
+            return "failed";
+        }
+        return ScientificNotation.withNoError(result, 0, graphingArea.resultsDecimalPlaces);
+    }
+
+    // private classes
+    /** The table model for the results table that does not allow the results to be edited
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class ResultsTableModel extends DefaultTableModel
+    {
+        /** The Serial Version UID so that we know what version it is when we are using it. See
+         * http://docs.oracle.com/javase/7/docs/api/java/io/Serializable.html for full discussion on its uses and
+         * purpose */
+        private final static long serialVersionUID = 42L;
+
+        /** Creates the empty results table model with the results columns */
+        private ResultsTableModel()
+        {
+            super(RESULTS_COLUMN_NAMES, 0);
+        }
+
+        /** The results are only for viewing so none of the cells can be edited */
+        @Override
+        public boolean isCellEditable(int row, int column)
+        {
+            return false;
+        }
+    }
+
+    /** A worker that compares the algorithms on a snapshot off of the event thread and then shows the results
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class ComparisonWorker extends SwingWorker<FitAlgorithmComparison, Void>
+    {
+        /** The snapshot of the DataSet to compare the algorithms on */
+        private DataSet snapshot;
+        /** The variable to fix for the algorithms that support fixing it */
+        private FixedVariable whatIsFixed;
+        /** The value of the fixed variable */
+        private double fixedValue;
+        /** The relative tolerance the algorithms must agree within */
+        private double tolerance;
+
+        /** Creates the worker for the passed snapshot and options
+         * 
+         * @param snapshotToCompare The snapshot of the DataSet to compare the algorithms on
+         * @param whatToFix The variable to fix for the algorithms that support fixing it
+         * @param valueOfFixed The value of the fixed variable
+         * @param relativeTolerance The relative tolerance the algorithms must agree within */
+        private ComparisonWorker(DataSet snapshotToCompare, FixedVariable whatToFix, double valueOfFixed,
+                double relativeTolerance)
+        {
+            snapshot = snapshotToCompare;
+            whatIsFixed = whatToFix;
+            fixedValue = valueOfFixed;
+            tolerance = relativeTolerance;
+        }
+
+        /** Fits the snapshot with all the algorithms and then releases it */
+        @Override
+        protected FitAlgorithmComparison doInBackground()
+        {
+            try
+            {
+                return FitAlgorithmComparison.compare(snapshot, whatIsFixed, fixedValue, tolerance);
+            }
+            finally
+            {
+                snapshot.releaseSnapshot();
+            }
+        }
+
+        /** Shows the results of the comparison on the event thread */
+        @Override
+        protected void done()
+        {
+            compareButton.setEnabled(true);
+            try
+            {
+                showComparison(get());
+            }
+            catch (InterruptedException ie)
+            {
+                System.err.println("Interrupted while comparing the fit algorithms");
+                Thread.currentThread().interrupt();
+                summaryLabel.setText(" ");
+            }
+            catch (ExecutionException ee)
+            {
+                System.err.println("Failed to compare the fit algorithms: " + ee.getCause());
+                summaryLabel.setText("The comparison failed");
+            }
+        }
+    }
+
+    /** A Listener class that reruns the comparison when the compare button is pressed
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class CompareButtonListener implements ActionListener
+    {
+        /** Compares the algorithms on the currently selected DataSet */
+        public void actionPerformed(ActionEvent e)
+        {
+            compareAlgorithms();
+        }
+    }
+
+    /** A Listener class that closes the comparison frame when the close button is pressed
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class CloseButtonListener implements ActionListener
+    {
+        /** Closes the comparison frame */
+        public void actionPerformed(ActionEvent e)
+        {
+            dispose();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+package linefit;
+
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+
+/** ColumnStorage that rounds the values to floats, which uses half the memory of doubles but only keeps about 7
+ * significant digits. Values that cannot be stored as a float without becoming zero or infinite are kept exactly as
+ * doubles on the side so that the rounding never produces a value that would not be allowed in a DataColumn. Like
+ * HeapColumnStorage the values are kept in chunks that are shared with copies until one of them writes to the chunk.
+ * NaN is used to mark rows without a value
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class FloatColumnStorage implements ColumnStorage
+{
+    /** The chunks of values rounded to floats in order. A null chunk has not had any values written to it */
+    private float[][] chunks;
+    /** Whether or not this storage is the only one using the array of chunks and so can change it directly */
+    private boolean ownsChunkArray;
+    /** The indexes of the chunks that this storage is the only one using and so can write to directly */
+    private BitSet ownedChunks;
+    /** The values that could not be rounded to floats keyed by the index of their row */
+    private HashMap<Integer, Double> unroundableValues;
+    /** Whether or not this storage is the only one using the unroundable values and so can change them directly */
+    private boolean ownsUnroundableValues;
+    /** The number of rows in the storage including any rows without a value */
+    private int size = 0;
+
+    /** Creates an empty float storage */
+    FloatColumnStorage()
+    {
+        release();
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public Double get(int rowIndex)
+    {
+        if (rowIndex < 0 || rowIndex >= size)
+        {
+            return null;
+        }
+
+        float[] chunk = chunks[rowIndex / BLOCK_SIZE];
+        if (chunk == null || Float.isNaN(chunk[rowIndex % BLOCK_SIZE]))
+        {
+            return null;
+        }
+        if (Float.isInfinite(chunk[rowIndex % BLOCK_SIZE]))
+        {
+            return unroundableValues.get(rowIndex);
+        }
+        return (double) chunk[rowIndex % BLOCK_SIZE];
+    }
+
+    public void set(int rowIndex, Double value)
+    {
+        if (rowIndex < 0)
+        {
+            return;
+        }
+
+        int chunkIndex = rowIndex / BLOCK_SIZE;
+        if (chunkIndex >= chunks.length)
+        {
+            chunks = Arrays.copyOf(chunks, Math.max(chunkIndex + 1, chunks.length * 2));
+            ownsChunkArray = true;
+        }
+        else if (!ownsChunkArray)
+        {
+            chunks = chunks.clone();
+            ownsChunkArray = true;
+        }
+
+        float[] chunk = chunks[chunkIndex];
+        if (chunk == null)
+        {
+            chunk = new float[BLOCK_SIZE];
+            Arrays.fill(chunk, Float.NaN);
+            chunks[chunkIndex] = chunk;
+            ownedChunks.set(chunkIndex);
+        }
+        else if (!ownedChunks.get(chunkIndex))
+        {
+            // another storage is still using this chunk so make our own copy of it before writing
+            chunk = chunk.clone();
+            chunks[chunkIndex] = chunk;
+            ownedChunks.set(chunkIndex);
+        }
+        size = Math.max(size, rowIndex + 1);
+
+        if (Float.isInfinite(chunk[rowIndex % BLOCK_SIZE]))
+        {
+            getOwnedUnroundableValues().remove(rowIndex);
+        }
+        if (value == null)
+        {
+            chunk[rowIndex % BLOCK_SIZE] = Float.NaN;
+            return;
+        }
+
+        float rounded = value.floatValue();
+        if (Float.isInfinite(rounded) || (rounded == 0 && value != 0))
+        {
+            // mark it with infinity since that is never a valid value and keep the exact value instead
+            chunk[rowIndex % BLOCK_SIZE] = Float.POSITIVE_INFINITY;
+            getOwnedUnroundableValues().put(rowIndex, value);
+        }
+        else
+        {
+            chunk[rowIndex % BLOCK_SIZE] = rounded;
+        }
+    }
+
+    public int readBlock(int startRow, double[] buffer)
+    {
+        int count = Math.max(0, Math.min(buffer.length, size - startRow));
+        for (int i = 0; i < count; i++)
+        {
+            float[] chunk = chunks[(startRow + i) / BLOCK_SIZE];
+            if (chunk == null)
+            {
+                buffer[i] = Double.NaN;
+            }
+            else if (Float.isInfinite(chunk[(startRow + i) % BLOCK_SIZE]))
+            {
+                buffer[i] = unroundableValues.get(startRow + i);
+            }
+            else
+            {
+                buffer[i] = chunk[(startRow + i) % BLOCK_SIZE];
+            }
+        }
+        Arrays.fill(buffer, count, buffer.length, Double.NaN);
+        return count;
+    }
+
+    public ColumnStorage copy()
+    {
+        // share everything and have whichever writes first make its own copies
+        FloatColumnStorage copy = new FloatColumnStorage();
+        copy.chunks = chunks;
+        copy.ownsChunkArray = false;
+        copy.unroundableValues = unroundableValues;
+        copy.ownsUnroundableValues = false;
+        copy.size = size;
+        ownsChunkArray = false;
+        ownedChunks = new BitSet();
+        ownsUnroundableValues = false;
+        return copy;
+    }
+
+    public void release()
+    {
+        chunks = new float[0][];
+        ownsChunkArray = true;
+        ownedChunks = new BitSet();
+        unroundableValues = new HashMap<Integer, Double>();
+        ownsUnroundableValues = true;
+        size = 0;
+    }
+
+    /** Gets the unroundable values to change, first making a copy of them if they are shared with another storage
+     * 
+     * @return The unroundable values that this storage can change */
+    private HashMap<Integer, Double> getOwnedUnroundableValues()
+    {
+        if (!ownsUnroundableValues)
+        {
+            unroundableValues = new HashMap<Integer, Double>(unroundableValues);
+            ownsUnroundableValues = true;
+        }
+        return unroundableValues;
+    }
+}
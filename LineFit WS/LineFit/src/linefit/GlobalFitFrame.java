@@ -0,0 +1,202 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+
+import linefit.FitAlgorithms.FitType;
+import linefit.FitAlgorithms.GlobalLinearFit;
+import linefit.FitAlgorithms.SharedFitParameter;
+import linefit.IO.GeneralIO;
+
+
+/** A frame that fits all of the DataSets that have a fit selected at once with either their slope or their intercept
+ * shared and displays the results of the fit
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class GlobalFitFrame extends JFrame
+{
+    /** The Serial Version UID so that we know what version it is when we are using it. See
+     * http://docs.oracle.com/javase/7/docs/api/java/io/Serializable.html for full discussion on its uses and purpose */
+    private final static long serialVersionUID = 42L;
+
+    /** The GraphArea whose DataSets are fit together */
+    private GraphArea graphingArea;
+    /** The drop down box that allows the user to select which variable is shared between the DataSets */
+    private JComboBox<SharedFitParameter> sharedParameterSelector;
+    /** The JTextArea in which the global fit's results are displayed. This is a TextArea so that the user can copy the
+     * results */
+    private JTextArea resultsArea;
+
+    /** Creates the global fit frame for the DataSets in the passed GraphArea and fits them using a shared slope
+     * 
+     * @param graphAreaToFit The GraphArea whose DataSets will be fit together
+     * @param ioHandler The GeneralIO object used for handling IO related functionality */
+    GlobalFitFrame(GraphArea graphAreaToFit, GeneralIO ioHandler)
+    {
+        super("Global Fit");
+        graphingArea = graphAreaToFit;
+        this.setIconImage(ioHandler.getLineFitIcon());
+        setSize(560, 420);
+        setLayout(new BorderLayout());
+
+        JPanel optionsRow = new JPanel();
+        optionsRow.add(new JLabel("Shared Variable:"));
+        sharedParameterSelector = new JComboBox<SharedFitParameter>(SharedFitParameter.values());
+        optionsRow.add(sharedParameterSelector);
+        JButton fitButton = new JButton("Fit");
+        fitButton.addActionListener(new FitButtonListener());
+        optionsRow.add(fitButton);
+        add(optionsRow, BorderLayout.NORTH);
+
+        resultsArea = new JTextArea();
+        resultsArea.setEditable(false);
+        resultsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        add(new JScrollPane(resultsArea), BorderLayout.CENTER);
+
+        JPanel buttonRow = new JPanel();
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(new CloseButtonListener());
+        buttonRow.add(closeButton);
+        add(buttonRow, BorderLayout.SOUTH);
+
+        setVisible(true);
+        fitDataSets();
+    }
+
+    /** Fits all of the DataSets that have a fit selected together and displays the results */
+    private void fitDataSets()
+    {
+        ArrayList<DataSet> toFit = new ArrayList<DataSet>();
+        for (int i = 0; i < graphingArea.dataSetRegistry.getNumberOfDataSets(); i++)
+        {
+            DataSet current = graphingArea.dataSetRegistry.getDataSet(i);
+            if (current.getFitType() != FitType.NONE)
+            {
+                toFit.add(current);
+            }
+        }
+
+        if (toFit.isEmpty())
+        {
+            resultsArea.setText("");
+            JOptionPane.showMessageDialog(this, "None of the DataSets have a fit selected to fit globally",
+                    "Global Fit", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        SharedFitParameter shared = (SharedFitParameter) sharedParameterSelector.getSelectedItem();
+        GlobalLinearFit globalFit = GlobalLinearFit.calculate(toFit, shared);
+        if (globalFit == null)
+        {
+            resultsArea.setText("");
+            JOptionPane.showMessageDialog(this, "The DataSets do not have enough spread in their x values to fit a " +
+                    "shared " + shared.getDisplayString().toLowerCase(), "Global Fit", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        resultsArea.setText(getResultsString(globalFit));
+        resultsArea.setCaretPosition(0);
+    }
+
+    /** Creates the text describing the results of the passed global fit to display to the user
+     * 
+     * @param globalFit The global fit to describe
+     * @return The String of the results of the global fit */
+    private String getResultsString(GlobalLinearFit globalFit)
+    {
+        int decimalPlaces = graphingArea.resultsDecimalPlaces;
+        SharedFitParameter shared = globalFit.getSharedParameter();
+        String ownVariable = shared == SharedFitParameter.SLOPE ? "Intercept" : "Slope";
+        DataSet[] dataSets = globalFit.getDataSets();
+
+        StringBuilder results = new StringBuilder();
+        results.append("Shared " + shared.getDisplayString() + ": " + ScientificNotation.withError(globalFit
+                .getSharedValue(), globalFit.getSharedError(), decimalPlaces) + "\n\n");
+
+        for (int i = 0; i < dataSets.length; i++)
+        {
+            results.append(dataSets[i].getName() + " (" + dataSets[i].getFitType().getDisplayString() + ") " +
+                    ownVariable + ": " + ScientificNotation.withError(globalFit.getDataSetValue(i), globalFit
+                            .getDataSetError(i), decimalPlaces) + "\n");
+        }
+
+        int degreesOfFreedom = globalFit.getDegreesOfFreedom();
+        results.append("\nChi Squared: " + ScientificNotation.withNoError(globalFit.getChiSquared(), 0,
+                decimalPlaces) + " with " + degreesOfFreedom + " degrees of freedom\n");
+        if (globalFit.isCovarianceScaledByChiSquared())
+        {
+            results.append("No DataSet has errors so the errors are estimated from the scatter about the fit\n");
+        }
+
+        // the correlations along with the errors above give the full covariance but are much easier to read
+        results.append("\nCorrelation Matrix (0 is the shared " + shared.getDisplayString().toLowerCase() +
+                ", the rest are the DataSets in order)\n");
+        for (int row = 0; row <= dataSets.length; row++)
+        {
+            results.append(String.format("%3d", row));
+            for (int column = 0; column <= dataSets.length; column++)
+            {
+                results.append(String.format(" %7.4f", globalFit.getCorrelation(row, column)));
+            }
+            results.append("\n");
+        }
+
+        return results.toString();
+    }
+
+    // private classes
+    /** A Listener class that refits the DataSets when the fit button is pressed
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class FitButtonListener implements ActionListener
+    {
+        /** Refits the DataSets with the currently selected shared variable */
+        public void actionPerformed(ActionEvent e)
+        {
+            fitDataSets();
+        }
+    }
+
+    /** A Listener class that closes the global fit frame when the close button is pressed
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class CloseButtonListener implements ActionListener
+    {
+        /** Closes the global fit frame */
+        public void actionPerformed(ActionEvent e)
+        {
+            dispose();
+        }
+    }
+}
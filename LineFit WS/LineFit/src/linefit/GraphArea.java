@@ -13,27 +13,43 @@
 package linefit;
 
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Polygon;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
-import java.awt.Shape;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionListener;
-import java.awt.geom.Ellipse2D;
+import java.awt.event.MouseWheelEvent;
 import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.ToolTipManager;
 
 import linefit.FitAlgorithms.FitType;
 import linefit.FitAlgorithms.LinearFitFactory;
@@ -55,6 +71,11 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
     // spacing variables
     /** The width of the points we are using to draw the shapes on the graph */
     final static int GRAPH_DATAPOINT_WIDTH = 6;
+    /** The fewest decimated points a DataSet needs before its points are drawn in tiles by several threads at once.
+     * Fewer points than this draw faster than the threads can be started */
+    private final static int MINIMUM_POINTS_TO_DRAW_IN_TILES = 20000;
+    /** The number of tiles the points are split into for each thread drawing them */
+    private final static int TILES_PER_THREAD = 2;
     /** The pixels height the top bar which shows the cursor position is */
     final static int GRAPH_AREA_TOP_BAR_HEIGHT = 25;
     /** The pixels width the top bar that will be redrawn when the cursor position updates */
@@ -195,9 +216,9 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
     boolean resultsUseScientificNotation = true;
 
     // Graph Data variables
-    /** The drop down selector box that allows us to add new datasets and that selects the current dataset to display
-     * the data of in the columns */
-    public JComboBox<DataSet> dataSetSelector;
+    /** The registry of all the DataSets to draw on the graph which also keeps track of the DataSet that is selected to
+     * display the data of in the columns */
+    public DataSetRegistry dataSetRegistry;
     /** The linear fit's results as a string */
     private String fitResultsString;
     /** The JTextArea in which the linear fit's results are displayed to the user. This is a TextArea instead of a Label
@@ -208,6 +229,77 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
      * DataSet. True means to use x errors/uncertainties and false means to use y errors/uncertainties. */
     boolean xErrorsOnly = false;
 
+    /** The number of standard deviations the shaded bands around the fit lines extend on either side of the lines or 0
+     * if the bands are not drawn */
+    int fitBandSigmas = 0;
+    /** Whether or not the prediction bands showing where new points are expected to fall are drawn along with the
+     * confidence bands around the fit lines */
+    boolean fitBandsShowPrediction = false;
+    /** The number of points above which DataSets that choose how to draw their points automatically are drawn as
+     * density maps instead of as markers */
+    int densityPointThreshold = 50000;
+    /** The alpha value used when filling the confidence bands in the DataSets' colors */
+    private final static int CONFIDENCE_BAND_ALPHA = 60;
+    /** The alpha value used when filling the prediction bands in the DataSets' colors */
+    private final static int PREDICTION_BAND_ALPHA = 30;
+    /** The cached shapes of the bands around each DataSet's fit line so they are only recalculated when the fit or the
+     * axes change. Weak so that the bands of removed DataSets do not stay around */
+    private WeakHashMap<DataSet, FitBandCache> fitBandCaches = new WeakHashMap<DataSet, FitBandCache>();
+
+    /** The cached layer of the points of each DataSet. Weak so that the layers of removed DataSets do not stay
+     * around */
+    private WeakHashMap<DataSet, GraphLayer> dataSetLayers = new WeakHashMap<DataSet, GraphLayer>();
+    /** The cached pixel positions of the rows of each DataSet so they are only converted again when the data, axes or
+     * size of the graph change. Weak so that the geometry of removed DataSets does not stay around */
+    private WeakHashMap<DataSet, PixelGeometry> pixelGeometries = new WeakHashMap<DataSet, PixelGeometry>();
+    /** The cached decimated points of each DataSet so they are only decimated again when its pixel geometry changes.
+     * Weak so that the points of removed DataSets do not stay around */
+    private WeakHashMap<DataSet, DecimatedPoints> decimatedPoints = new WeakHashMap<DataSet, DecimatedPoints>();
+    /** The rows of each DataSet sorted by x so that only the rows inside of the axes are converted while the graph is
+     * zoomed in. They are only made for DataSets that are drawn zoomed in. Weak so that the indexes of removed
+     * DataSets do not stay around */
+    private WeakHashMap<DataSet, SortedXIndex> sortedXIndexes = new WeakHashMap<DataSet, SortedXIndex>();
+    /** The cached layer of the fit lines and results of all the DataSets */
+    private GraphLayer fitLayer = new GraphLayer();
+    /** The cached layer of the margins, axes and labels around the graph */
+    private GraphLayer axesLayer = new GraphLayer();
+
+    /** The number of milliseconds the graph has to go without being resized before it is fully drawn again */
+    private final static int PREVIEW_REFINE_DELAY = 200;
+    /** Whether the cached layers of the points and fits are stretched to fit the graph instead of being redrawn
+     * because the graph is being resized */
+    private boolean drawingPreview = false;
+    /** The number of previews that have been started. Passes refining an earlier preview use this to tell that they
+     * are out of date and stop */
+    private volatile long previewNumber = 0;
+    /** Starts refining the preview once the graph has not been resized for a while */
+    private Timer refineTimer;
+    /** The thread that converts the DataSets to pixels for the new size of the graph while the preview is shown */
+    private ExecutorService refineExecutor = Executors.newSingleThreadExecutor(new DaemonThreadFactory(
+            "LineFit preview refinement"));
+    /** The axes the cached layers of the points and fits were last drawn for in the order x minimum, x maximum, y
+     * minimum, y maximum so that the preview can place them where they belong on the current axes */
+    private double[] layerAxes;
+
+    /** The amount the range of the axes is multiplied by for each notch the mouse wheel is turned to zoom in */
+    private final static double ZOOM_FACTOR_PER_NOTCH = 0.8;
+    /** The number of rows that need converting to pixels at which the graph is previewed while zooming and panning
+     * instead of being fully drawn again for each step */
+    private final static int MINIMUM_ROWS_TO_PREVIEW_NAVIGATION = 100000;
+    /** Whether the graph has been zoomed or panned with the mouse since the axes were last set, in which case the axes
+     * are not calculated from the data */
+    private boolean zoomed = false;
+    /** The axes from before the graph was zoomed in the order x minimum, x maximum, y minimum, y maximum */
+    private double[] axesBeforeZoom;
+
+    /** The farthest in pixels the cursor can be from a point for its values to be shown in the tooltip */
+    private final static int HOVER_DISTANCE = GRAPH_DATAPOINT_WIDTH + 2;
+    /** The spatial index of the points of each DataSet used to find the points near the cursor or inside of the
+     * selection rectangle. Weak so that the grids of removed DataSets do not stay around */
+    private WeakHashMap<DataSet, PointGrid> pointGrids = new WeakHashMap<DataSet, PointGrid>();
+    /** The rectangle being dragged out to select the points inside of it or null if none is being dragged */
+    private Rectangle selectionRectangle;
+
     /** The array of the DataDimensions to use when the x error/uncertainty should be displayed first */
     private static final DataDimension[] xDimensionFirst = new DataDimension[] { DataDimension.X, DataDimension.Y };
     /** The array of the DataDimensions to use when the y error/uncertainty should be displayed first */
@@ -221,42 +313,74 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
      * @param defaultXAxisMaximum The starting maximum value on the x-axis
      * @param defaultYAxisMinimum The starting minimum value on the y-axis
      * @param defaultYAxisMaximum The starting maximum value on the y-axis
-     * @param dataSetSelectorToUse The data set selector that contains all the data sets to draw on the graph
+     * @param dataSetRegistryToUse The registry that contains all the data sets to draw on the graph
+     * @param changeBus The bus that changes to the DataSets and options are published to
      * @param resultsPanelToUse The Results Panel to display the currently selected DataSet's results data as a String
      *        in */
     GraphArea(double defaultXAxisMinimum, double defaultXAxisMaximum, double defaultYAxisMinimum,
-            double defaultYAxisMaximum, JComboBox<DataSet> dataSetSelectorToUse, JTextArea resultsPanelToUse)
+            double defaultYAxisMaximum, DataSetRegistry dataSetRegistryToUse, ChangeBus changeBus,
+            JTextArea resultsPanelToUse)
     {
         xAxisMinimumValue = defaultXAxisMinimum;
         xAxisMaximumValue = defaultXAxisMaximum;
         yAxisMinimumValue = defaultYAxisMinimum;
         yAxisMaximumValue = defaultYAxisMaximum;
 
-        dataSetSelector = dataSetSelectorToUse;
+        dataSetRegistry = dataSetRegistryToUse;
         fitResultsArea = resultsPanelToUse;
 
         graphAreaDimensions = getSize();
 
         addMouseMotionListener(new GraphAreaMouseListener());
+        GraphAreaNavigationListener navigationListener = new GraphAreaNavigationListener();
+        addMouseListener(navigationListener);
+        addMouseMotionListener(navigationListener);
+        addMouseWheelListener(navigationListener);
+        ToolTipManager.sharedInstance().registerComponent(this);
+        addComponentListener(new GraphAreaResizeListener());
+        refineTimer = new Timer(PREVIEW_REFINE_DELAY, new RefineTimerListener());
+        refineTimer.setRepeats(false);
+
+        // refit, recalculate the axes, redraw and update the results only once for all the changes made at a time
+        changeBus.subscribe(ChangeStage.FIT, new FitUpdater(), ChangeType.DATA, ChangeType.FIT);
+        changeBus.subscribe(ChangeStage.LAYOUT, new AxesUpdater(), ChangeType.DATA, ChangeType.APPEARANCE,
+                ChangeType.GRAPH_OPTIONS);
+        changeBus.subscribe(ChangeStage.RENDER, new GraphRepainter(), ChangeType.DATA, ChangeType.FIT,
+                ChangeType.APPEARANCE, ChangeType.GRAPH_OPTIONS);
+        changeBus.subscribe(ChangeStage.RESULTS, new FitResultsUpdater(), ChangeType.DATA, ChangeType.FIT,
+                ChangeType.SELECTION, ChangeType.GRAPH_OPTIONS);
     }
 
-    /** Registers the given data set to this graph area by placing it in the DataSet selector box at the end but before
-     * the New Data Set option
+    /** Registers the given data set to this graph area by adding it to the DataSet registry, which places it in the
+     * DataSet selector box at the end but before the New Data Set option and selects it
      * 
-     * @param toRegister The DataSet to add to the DataSet selector box */
+     * @param toRegister The DataSet to register */
     void registerDataSet(DataSet toRegister)
     {
-        // We have to subtract one for the "new dataset" placeholder
-        DataSet newDataSet = dataSetSelector.getItemAt(dataSetSelector.getItemCount() - 1);
-        dataSetSelector.removeItem(newDataSet);
-        dataSetSelector.addItem(toRegister);
-        dataSetSelector.setSelectedItem(toRegister);
-
         // Ensure the error data is in the correct order
         updateDataSetErrorOrder(toRegister);
 
-        // Add the new dataset placeholder back in
-        dataSetSelector.addItem(newDataSet);
+        dataSetRegistry.register(toRegister);
+    }
+
+    /** Updates the text of the fit results to the results of the fit of the selected DataSet or clears it if the
+     * selected DataSet does not have a fit */
+    void updateFitResultsText()
+    {
+        DataSet selected = dataSetRegistry.getSelectedDataSet();
+        if (selected == null || selected.isPlaceholder() || selected.getFitType() == FitType.NONE)
+        {
+            fitResultsArea.setText("");
+            return;
+        }
+
+        String slopeDisplay = selected.linearFitStrategy.getSlopeAsString(resultsDecimalPlaces,
+                resultsUseScientificNotation, false);
+        String interceptDisplay = selected.linearFitStrategy.getInterceptAsString(resultsDecimalPlaces, yAxisPower,
+                resultsUseScientificNotation, false);
+        fitResultsString = "y = mx + b\nm = " + slopeDisplay + "\nb = " + interceptDisplay + "\n\u03c7\u00B2 = " +
+                selected.getChiSquared();
+        fitResultsArea.setText(fitResultsString);
     }
 
     /** This method determines the spacing in the x direction for the given tick mark that is being drawn on the x-axis
@@ -308,7 +432,14 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
                 size.height != GRAPH_AREA_TOP_BAR_HEIGHT)
         {
             graphAreaDimensions = getSize();
-            makeGraph(graphAreaGraphics2D, graphAreaDimensions, true, null);
+            drawGraphLayers(graphAreaGraphics2D, graphAreaDimensions);
+            if (selectionRectangle != null)
+            {
+                graphAreaGraphics2D.setColor(new Color(0, 0, 255, 40));
+                graphAreaGraphics2D.fill(selectionRectangle);
+                graphAreaGraphics2D.setColor(Color.blue);
+                graphAreaGraphics2D.draw(selectionRectangle);
+            }
         }
 
         // now we need to update the cursor location bar. We draw this separately after the rest
@@ -356,15 +487,14 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
         graphGraphics.drawString(cursorPosition, 5, 15);
     }
 
-    /** Calculates the lengths of the axes based on the data points, unless the user has overridden this functionality,
-     * so that they are all on screen */
+    /** Calculates the lengths of the axes based on the data points, unless the user has overridden this functionality
+     * or zoomed in on the graph, so that they are all on screen */
     void calculateAxesMinimumAndMaximumValues()
     {
         // if (xData != null && yData != null) {
-        if (!userDefinedAxes)
+        if (!userDefinedAxes && !zoomed)
         {
-            // We have to subtract one for the "new dataset" placeholder
-            int numberOfDataSets = dataSetSelector.getItemCount() - 1;
+            int numberOfDataSets = dataSetRegistry.getNumberOfDataSets();
 
             double xDataMax = Double.NEGATIVE_INFINITY;
             double xDataMin = Double.POSITIVE_INFINITY;
@@ -374,7 +504,7 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
             // look for our largest and smallest values with errors across the datasets
             for (int c = 0; c < numberOfDataSets; c++)
             {
-                DataSet current = (DataSet) dataSetSelector.getItemAt(c);
+                DataSet current = dataSetRegistry.getDataSet(c);
                 if (current.visibleGraph)
                 {
                     double[] xMinMax = current.getMinMax(DataDimension.X, true);
@@ -544,7 +674,8 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
     }
 
     /** The main workhorse function. It is here that the data all gets plotted and the graph gets drawn on the screen
-     * and to a file
+     * and to a file. This draws everything directly so it is used for exports, while the graph on the screen is drawn
+     * with cached layers by drawGraphLayers
      * 
      * @param graphGraphics The graphics we are using to draw the graph with
      * @param graphMaximumDimensions The dimensions of the Graph area to which we are drawing
@@ -553,6 +684,534 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
      * @param fontToUse The font to use for drawing the graph */
     public void makeGraph(Graphics2D graphGraphics, Dimension graphMaximumDimensions,
             boolean leaveSpaceForCursorLocation, Font fontToUse)
+    {
+        layoutGraph(graphGraphics, graphMaximumDimensions, leaveSpaceForCursorLocation, fontToUse);
+
+        graphGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // Build the background rectangle
+        Rectangle2D.Double background = new Rectangle2D.Double(0, 0, graphMaximumDimensions.width,
+                graphMaximumDimensions.height);
+        graphGraphics.setColor(Color.white);
+        graphGraphics.fill(background);
+
+        int numberOfDataSets = dataSetRegistry.getNumberOfDataSets();
+        int longestResultsLength = resultsAreDisplayedOnGraph ? getLongestResultsLength() : 0;
+        for (int c = 0; c < numberOfDataSets; c++)
+        {
+            DataSet current = dataSetRegistry.getDataSet(c);
+            if (current.visibleGraph)
+            {
+                DecimatedPoints points = null;
+                if (!usesDensityMap(current))
+                {
+                    points = decimateDataSetPoints(current, new PixelGeometry(), new DecimatedPoints());
+                }
+                drawDataSetPoints(graphGraphics, current, points, null);
+                drawDataSetFit(graphGraphics, current, c, numberOfDataSets, longestResultsLength,
+                        graphMaximumDimensions);
+            }
+        }
+
+        drawMarginsAndAxes(graphGraphics, graphMaximumDimensions);
+    }
+
+    /** Draws the graph on the screen from cached layers: the points of each DataSet, the fit lines and results and the
+     * margins and axes. Each layer is only drawn again when the values it was drawn with change so that, for example,
+     * changing the color of one DataSet only redraws its points and the fit lines and moving the results only redraws
+     * the fit lines before they are all copied onto the graph
+     * 
+     * @param graphGraphics The graphics of the GraphArea to draw the graph with
+     * @param graphMaximumDimensions The dimensions of the GraphArea */
+    private void drawGraphLayers(Graphics2D graphGraphics, Dimension graphMaximumDimensions)
+    {
+        layoutGraph(graphGraphics, graphMaximumDimensions, true, null);
+
+        graphGraphics.setColor(Color.white);
+        graphGraphics.fillRect(0, 0, graphMaximumDimensions.width, graphMaximumDimensions.height);
+
+        // the points and fit lines are only visible inside of the axes so their layers only need to cover that area.
+        // While the graph is being resized the layers from before are stretched to fit instead of being redrawn
+        if (drawingPreview && graphWidthAfterPadding > 0 && graphHeightAfterPadding > 0)
+        {
+            drawLayerPreviews(graphGraphics);
+        }
+        else if (graphWidthAfterPadding > 0 && graphHeightAfterPadding > 0)
+        {
+            List<Object> plotAreaKey = Arrays.<Object> asList(graphWidthAfterPadding, graphHeightAfterPadding,
+                    xAxisMinimumValue, xAxisMaximumValue, yAxisMinimumValue, yAxisMaximumValue);
+
+            int numberOfDataSets = dataSetRegistry.getNumberOfDataSets();
+            List<Object> fitLayerKey = new ArrayList<Object>(plotAreaKey);
+            fitLayerKey.addAll(Arrays.<Object> asList(graphMaximumDimensions.width, graphMaximumDimensions.height,
+                    graphAreaRightSpacing, graphAreaBottomSpacing, graphGraphics.getFont(), resultsAreDisplayedOnGraph,
+                    resultsPositionX, resultsPositionY, resultsDecimalPlaces, resultsUseScientificNotation, yAxisPower,
+                    numberOfDataSets));
+            for (int c = 0; c < numberOfDataSets; c++)
+            {
+                DataSet current = dataSetRegistry.getDataSet(c);
+                if (current.visibleGraph)
+                {
+                    GraphLayer pointsLayer = dataSetLayers.get(current);
+                    if (pointsLayer == null)
+                    {
+                        pointsLayer = new GraphLayer();
+                        dataSetLayers.put(current, pointsLayer);
+                    }
+
+                    // DataSets drawn as density maps have no markers to hover over or select so their geometry is
+                    // dropped so it is not used for them
+                    boolean densityMap = usesDensityMap(current);
+                    if (densityMap)
+                    {
+                        pixelGeometries.remove(current);
+                        decimatedPoints.remove(current);
+                    }
+
+                    // the key is kept in two parts so that a layer that only needs the points of appended rows drawn
+                    // on top of it can be told apart from one that needs to be drawn again
+                    List<Object> pointsStyleKey = new ArrayList<Object>(plotAreaKey);
+                    pointsStyleKey.addAll(Arrays.<Object> asList(current.getColor(), current.getShape().getClass(),
+                            densityMap));
+                    if (current.getFitType() != FitType.NONE && fitBandSigmas > 0)
+                    {
+                        pointsStyleKey.addAll(Arrays.<Object> asList(current.linearFitStrategy, current.getFitType(),
+                                current.linearFitStrategy.getSlope(), current.linearFitStrategy.getIntercept(),
+                                fitBandSigmas, fitBandsShowPrediction));
+                    }
+                    List<Object> pointsLayerKey = new ArrayList<Object>(pointsStyleKey);
+                    pointsLayerKey.add(current.getDataVersion());
+
+                    Graphics2D layerGraphics = null;
+                    if (densityMap || !appendDataSetPoints(graphGraphics, current, pointsLayer, pointsStyleKey,
+                            pointsLayerKey))
+                    {
+                        layerGraphics = beginLayerUpdate(pointsLayer, pointsLayerKey, graphGraphics, true);
+                    }
+                    if (layerGraphics != null && densityMap)
+                    {
+                        drawDataSetPoints(layerGraphics, current, null, pointsLayer.getImage());
+                        layerGraphics.dispose();
+                    }
+                    else if (layerGraphics != null)
+                    {
+                        PixelGeometry geometry = pixelGeometries.get(current);
+                        DecimatedPoints points = decimatedPoints.get(current);
+                        if (geometry == null || points == null)
+                        {
+                            geometry = new PixelGeometry();
+                            pixelGeometries.put(current, geometry);
+                            points = new DecimatedPoints();
+                            decimatedPoints.put(current, points);
+                        }
+                        drawDataSetPoints(layerGraphics, current, decimateDataSetPoints(current, geometry, points),
+                                pointsLayer.getImage());
+                        layerGraphics.dispose();
+                    }
+                    graphGraphics.drawImage(pointsLayer.getImage(), graphAreaLeftSpacing, graphAreaTopSpacing, null);
+
+                    // the fits and results of all the DataSets are drawn together so they need to be redrawn if any
+                    // of them change
+                    fitLayerKey.addAll(Arrays.<Object> asList(c, current.getColor(), current.getFitType(),
+                            current.hasData(), current.linearFitStrategy.getSlope(), current.linearFitStrategy
+                                    .getIntercept()));
+                }
+            }
+
+            Graphics2D layerGraphics = beginLayerUpdate(fitLayer, fitLayerKey, graphGraphics, true);
+            if (layerGraphics != null)
+            {
+                int longestResultsLength = resultsAreDisplayedOnGraph ? getLongestResultsLength() : 0;
+                for (int c = 0; c < numberOfDataSets; c++)
+                {
+                    DataSet current = dataSetRegistry.getDataSet(c);
+                    if (current.visibleGraph)
+                    {
+                        drawDataSetFit(layerGraphics, current, c, numberOfDataSets, longestResultsLength,
+                                graphMaximumDimensions);
+                    }
+                }
+                layerGraphics.dispose();
+            }
+            graphGraphics.drawImage(fitLayer.getImage(), graphAreaLeftSpacing, graphAreaTopSpacing, null);
+            layerAxes = new double[] { xAxisMinimumValue, xAxisMaximumValue, yAxisMinimumValue, yAxisMaximumValue };
+        }
+
+        // the margins and axes cover the whole graph area
+        List<Object> axesLayerKey = Arrays.<Object> asList(graphMaximumDimensions.width, graphMaximumDimensions.height,
+                graphGraphics.getFont(), graphAreaLeftSpacing, graphAreaRightSpacing, graphAreaTopSpacing,
+                graphAreaBottomSpacing, graphAreaNameSpacing, xAxisNameLabelSpacing, yAxisNameLabelSpacing,
+                xAxisPowerSpacing, yAxisPowerSpacing, xAxisTickLabelSpacing, yAxisTickLabelSpacing,
+                xAxisTickLabelCentering, yAxisTickLabelCentering, graphName, xAxisDescription, yAxisDescription,
+                xAxisMinimumValue, xAxisMaximumValue, yAxisMinimumValue, yAxisMaximumValue, xAxisNumberOfTickMarks,
+                yAxisNumberOfTickMarks, xAxisHasTickMarks, xAxisHasTickMarkLabels, yAxisHasTickMarks,
+                yAxisHasTickMarkLabels, xAxisPower, yAxisPower, xAxisDecimalPlaces, yAxisDecimalPlaces);
+        Graphics2D layerGraphics = beginLayerUpdate(axesLayer, axesLayerKey, graphGraphics, false);
+        if (layerGraphics != null)
+        {
+            drawMarginsAndAxes(layerGraphics, graphMaximumDimensions);
+            layerGraphics.dispose();
+        }
+        graphGraphics.drawImage(axesLayer.getImage(), 0, 0, null);
+    }
+
+    /** Draws the cached layers of the points and fits stretched to where the axes they were drawn for are on the
+     * current axes and size of the area inside of the axes. This is much faster than drawing them again but is blurry
+     * so it is only used while the graph is being resized, zoomed or panned
+     * 
+     * @param graphGraphics The graphics of the GraphArea to draw the layers with */
+    private void drawLayerPreviews(Graphics2D graphGraphics)
+    {
+        int left = graphAreaLeftSpacing + (int) Math.round((layerAxes[0] - xAxisMinimumValue) * tickMarkRelativeValueX);
+        int right = graphAreaLeftSpacing + (int) Math.round((layerAxes[1] - xAxisMinimumValue) *
+                tickMarkRelativeValueX);
+        int top = graphAreaTopSpacing + (int) Math.round((yAxisMaximumValue - layerAxes[3]) * tickMarkRelativeValueY);
+        int bottom = graphAreaTopSpacing + (int) Math.round((yAxisMaximumValue - layerAxes[2]) *
+                tickMarkRelativeValueY);
+
+        // the layers may reach outside of the axes once the graph has been zoomed or panned
+        Graphics2D previewGraphics = (Graphics2D) graphGraphics.create();
+        previewGraphics.clipRect(graphAreaLeftSpacing, graphAreaTopSpacing, graphWidthAfterPadding,
+                graphHeightAfterPadding);
+        for (int c = 0; c < dataSetRegistry.getNumberOfDataSets(); c++)
+        {
+            DataSet current = dataSetRegistry.getDataSet(c);
+            GraphLayer pointsLayer = dataSetLayers.get(current);
+            if (current.visibleGraph && pointsLayer != null && pointsLayer.getImage() != null)
+            {
+                previewGraphics.drawImage(pointsLayer.getImage(), left, top, right - left, bottom - top, null);
+            }
+        }
+        previewGraphics.drawImage(fitLayer.getImage(), left, top, right - left, bottom - top, null);
+        previewGraphics.dispose();
+    }
+
+    /** Starts or continues showing a preview of the graph while it is being resized, zoomed or panned. The cached
+     * layers are stretched to fit until the graph has not been changed for a while, at which point the DataSets are
+     * converted to pixels for the new axes and size in the background and the graph is fully drawn again. Any
+     * refinement still running for earlier axes or an earlier size is abandoned */
+    private void startPreview()
+    {
+        // there is nothing to stretch until the graph has been drawn once
+        if (fitLayer.getImage() == null || layerAxes == null)
+        {
+            return;
+        }
+
+        drawingPreview = true;
+        previewNumber++;
+        refineTimer.restart();
+    }
+
+    /** Converts the visible DataSets to pixels for the current size of the graph in the background so that the preview
+     * can be replaced with the fully drawn graph without the conversion holding up the event thread. The DataSets are
+     * converted from snapshots so they can still be edited while this is happening */
+    private void refinePreview()
+    {
+        // the graph is too small to have anything inside of the axes so there is nothing to convert
+        if (graphWidthAfterPadding <= 0 || graphHeightAfterPadding <= 0)
+        {
+            drawingPreview = false;
+            repaint();
+            return;
+        }
+
+        ArrayList<DataSet> toRefine = new ArrayList<DataSet>();
+        for (int c = 0; c < dataSetRegistry.getNumberOfDataSets(); c++)
+        {
+            DataSet current = dataSetRegistry.getDataSet(c);
+            // density maps are binned straight from the data when they are drawn so they have nothing to convert
+            if (current.visibleGraph && !usesDensityMap(current))
+            {
+                toRefine.add(current);
+            }
+        }
+        refineExecutor.execute(new PreviewRefinementPass(previewNumber, toRefine));
+    }
+
+    /** Gets the tooltip for the passed position of the cursor, which shows the values of the point closest to it if
+     * there is one close enough
+     * 
+     * @param passedMouseEvent The mouse event passed by the system for where the cursor is
+     * @return The name of the DataSet, the row and the values of the closest point or null if there are none near the
+     *         cursor */
+    @Override
+    public String getToolTipText(MouseEvent passedMouseEvent)
+    {
+        // the points are not where the geometry has them while the graph is being previewed
+        if (drawingPreview)
+        {
+            return null;
+        }
+
+        int cursorX = passedMouseEvent.getX() - graphAreaLeftSpacing;
+        int cursorY = passedMouseEvent.getY() - graphAreaTopSpacing;
+        DataSet closestDataSet = null;
+        int closestRow = -1;
+        long closestDistanceSquared = Long.MAX_VALUE;
+        for (int c = 0; c < dataSetRegistry.getNumberOfDataSets(); c++)
+        {
+            DataSet current = dataSetRegistry.getDataSet(c);
+            PixelGeometry geometry = pixelGeometries.get(current);
+            if (!current.visibleGraph || geometry == null)
+            {
+                continue;
+            }
+
+            // DataSets drawn later are on top so they are used for points that are the same distance away
+            int point = getPointGrid(current, geometry).findNearest(cursorX, cursorY, HOVER_DISTANCE);
+            if (point >= 0)
+            {
+                long distanceX = geometry.getPixelX(point) - cursorX;
+                long distanceY = geometry.getPixelY(point) - cursorY;
+                if (distanceX * distanceX + distanceY * distanceY <= closestDistanceSquared)
+                {
+                    closestDataSet = current;
+                    closestRow = geometry.getRow(point);
+                    closestDistanceSquared = distanceX * distanceX + distanceY * distanceY;
+                }
+            }
+        }
+
+        if (closestDataSet == null)
+        {
+            return null;
+        }
+        return closestDataSet.getName() + " row " + (closestRow + 1) + ": (" + formatPointValue(closestDataSet,
+                DataDimension.X, closestRow, xAxisPower, xAxisDecimalPlaces) + ", " + formatPointValue(closestDataSet,
+                        DataDimension.Y, closestRow, yAxisPower, yAxisDecimalPlaces) + ")";
+    }
+
+    /** Formats the value of the passed row and dimension of a DataSet along with its error/uncertainty if it has one
+     * 
+     * @param dataSet The DataSet the row is in
+     * @param dim The dimension of the value to format
+     * @param row The index of the row of the value
+     * @param power The power to use for the value
+     * @param decimalPlaces The number of decimal places to round the value to
+     * @return The value in scientific notation */
+    private String formatPointValue(DataSet dataSet, DataDimension dim, int row, int power, int decimalPlaces)
+    {
+        double error = dataSet.readErrorValue(dim, row);
+        return ScientificNotation.withError(dataSet.readValue(dim, row), Double.isNaN(error) ? 0 : error, power,
+                decimalPlaces);
+    }
+
+    /** Selects the rows of the points of the visible DataSets that are inside of the passed rectangle in the tables of
+     * the DataSets. DataSets whose tables have never been displayed are skipped so that selecting does not create them
+     * 
+     * @param rectangle The rectangle in the GraphArea to select the points inside of */
+    private void selectPointsInRectangle(Rectangle rectangle)
+    {
+        // the points are not where the geometry has them while the graph is being previewed
+        if (drawingPreview)
+        {
+            return;
+        }
+
+        int left = rectangle.x - graphAreaLeftSpacing;
+        int top = rectangle.y - graphAreaTopSpacing;
+        for (int c = 0; c < dataSetRegistry.getNumberOfDataSets(); c++)
+        {
+            DataSet current = dataSetRegistry.getDataSet(c);
+            PixelGeometry geometry = pixelGeometries.get(current);
+            if (current.visibleGraph && geometry != null && current.hasView())
+            {
+                int[] points = getPointGrid(current, geometry).findInRectangle(left, top, left + rectangle.width, top +
+                        rectangle.height);
+                int[] rows = new int[points.length];
+                for (int i = 0; i < points.length; i++)
+                {
+                    rows[i] = geometry.getRow(points[i]);
+                }
+                current.getView().selectRows(rows);
+            }
+        }
+    }
+
+    /** Gets the spatial index of the points of the passed DataSet, bucketing them again if its geometry has changed
+     * 
+     * @param current The DataSet to get the index of
+     * @param geometry The current pixel geometry of the DataSet
+     * @return The PointGrid of the DataSet's points */
+    private PointGrid getPointGrid(DataSet current, PixelGeometry geometry)
+    {
+        PointGrid grid = pointGrids.get(current);
+        if (grid == null)
+        {
+            grid = new PointGrid();
+            pointGrids.put(current, grid);
+        }
+        grid.update(geometry);
+        return grid;
+    }
+
+    /** Zooms the axes in or out around the passed pixel so that the value under it stays in the same place
+     * 
+     * @param pixelX The x pixel in the GraphArea to zoom around
+     * @param pixelY The y pixel in the GraphArea to zoom around
+     * @param factor The amount to multiply the range of the axes by. Less than one zooms in */
+    private void zoomAround(int pixelX, int pixelY, double factor)
+    {
+        // the graph has to have been laid out to know the values the pixels are at
+        if (graphWidthAfterPadding <= 0 || graphHeightAfterPadding <= 0)
+        {
+            return;
+        }
+
+        beginZoom();
+        double centerX = xAxisMinimumValue + (pixelX - graphAreaLeftSpacing) / tickMarkRelativeValueX;
+        double centerY = yAxisMaximumValue - (pixelY - graphAreaTopSpacing) / tickMarkRelativeValueY;
+        xAxisMinimumValue = centerX - (centerX - xAxisMinimumValue) * factor;
+        xAxisMaximumValue = centerX + (xAxisMaximumValue - centerX) * factor;
+        yAxisMinimumValue = centerY - (centerY - yAxisMinimumValue) * factor;
+        yAxisMaximumValue = centerY + (yAxisMaximumValue - centerY) * factor;
+        redrawAfterNavigating();
+    }
+
+    /** Moves the axes so that the graph follows the mouse as it is dragged by the passed number of pixels
+     * 
+     * @param pixelsX The number of pixels the mouse moved to the right
+     * @param pixelsY The number of pixels the mouse moved down */
+    private void pan(int pixelsX, int pixelsY)
+    {
+        // the graph has to have been laid out to know the values the pixels are at
+        if (graphWidthAfterPadding <= 0 || graphHeightAfterPadding <= 0)
+        {
+            return;
+        }
+
+        beginZoom();
+        double shiftX = pixelsX / tickMarkRelativeValueX;
+        double shiftY = pixelsY / tickMarkRelativeValueY;
+        xAxisMinimumValue -= shiftX;
+        xAxisMaximumValue -= shiftX;
+        yAxisMinimumValue += shiftY;
+        yAxisMaximumValue += shiftY;
+        redrawAfterNavigating();
+    }
+
+    /** Saves the axes from before the graph is zoomed or panned if it has not been already so that they can be put
+     * back when the zoom is reset */
+    private void beginZoom()
+    {
+        if (!zoomed)
+        {
+            axesBeforeZoom = new double[] { xAxisMinimumValue, xAxisMaximumValue, yAxisMinimumValue,
+                    yAxisMaximumValue };
+            zoomed = true;
+        }
+    }
+
+    /** Puts the axes back to how they were before the graph was zoomed and panned */
+    private void resetZoom()
+    {
+        if (zoomed)
+        {
+            xAxisMinimumValue = axesBeforeZoom[0];
+            xAxisMaximumValue = axesBeforeZoom[1];
+            yAxisMinimumValue = axesBeforeZoom[2];
+            yAxisMaximumValue = axesBeforeZoom[3];
+            clearZoom();
+            redrawAfterNavigating();
+        }
+    }
+
+    /** Stops keeping the zoomed in axes so that the axes are calculated from the data again unless they are user
+     * defined. Used when the axes are set in another way so that they replace the zoomed in axes */
+    void clearZoom()
+    {
+        zoomed = false;
+    }
+
+    /** Draws the graph again after it has been zoomed or panned. If many rows need converting to pixels for the new
+     * axes then a preview is shown instead so that moving around stays smooth. The rows of a DataSet that has been
+     * sorted by x only need converting if they are inside of the axes, so once the graph is zoomed in far enough it is
+     * fully drawn for each step */
+    private void redrawAfterNavigating()
+    {
+        int rowsToConvert = 0;
+        for (int c = 0; c < dataSetRegistry.getNumberOfDataSets(); c++)
+        {
+            DataSet current = dataSetRegistry.getDataSet(c);
+            if (current.visibleGraph)
+            {
+                SortedXIndex xIndex = sortedXIndexes.get(current);
+                if (zoomed && xIndex != null && xIndex.getDataVersion() == current.getDataVersion())
+                {
+                    rowsToConvert += xIndex.findEnd(xAxisMaximumValue) - xIndex.findFirst(xAxisMinimumValue);
+                }
+                else
+                {
+                    rowsToConvert += current.getNumberOfRows();
+                }
+            }
+        }
+
+        if (drawingPreview || rowsToConvert >= MINIMUM_ROWS_TO_PREVIEW_NAVIGATION)
+        {
+            startPreview();
+        }
+        repaint();
+    }
+
+    /** Starts drawing the passed layer again if the values it was drawn with have changed. The returned graphics draw
+     * the same things at the same places as the passed graphics of the GraphArea would, except that layers of only
+     * the area inside of the axes are moved so that its top left corner is at the top left of the layer
+     * 
+     * @param layer The layer to draw
+     * @param key The values the layer will be drawn with
+     * @param graphGraphics The graphics of the GraphArea to match the font and rendering settings of
+     * @param insideAxesOnly True if the layer only covers the area inside of the axes and false if it covers the whole
+     *        GraphArea
+     * @return The graphics to draw the layer with or null if it is already up to date */
+    private Graphics2D beginLayerUpdate(GraphLayer layer, List<Object> key, Graphics2D graphGraphics,
+            boolean insideAxesOnly)
+    {
+        int width = graphAreaDimensions.width;
+        int height = graphAreaDimensions.height;
+        if (insideAxesOnly)
+        {
+            width = graphWidthAfterPadding;
+            height = graphHeightAfterPadding;
+        }
+
+        Graphics2D layerGraphics = layer.beginUpdate(key, width, height, getGraphicsConfiguration());
+        if (layerGraphics != null)
+        {
+            setUpLayerGraphics(layerGraphics, graphGraphics, insideAxesOnly);
+        }
+        return layerGraphics;
+    }
+
+    /** Gives the passed graphics of a layer the same settings as the graphics of the graph so that drawing with them
+     * looks the same as drawing straight onto the graph
+     * 
+     * @param layerGraphics The graphics of the layer to set up
+     * @param graphGraphics The graphics of the GraphArea the layer is drawn onto
+     * @param insideAxesOnly True if the layer only covers the area inside of the axes so that the graphics are moved
+     *            to draw in the same place as the graph's graphics */
+    private void setUpLayerGraphics(Graphics2D layerGraphics, Graphics2D graphGraphics, boolean insideAxesOnly)
+    {
+        layerGraphics.setRenderingHints(graphGraphics.getRenderingHints());
+        layerGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        layerGraphics.setFont(graphGraphics.getFont());
+        if (insideAxesOnly)
+        {
+            layerGraphics.translate(-graphAreaLeftSpacing, -graphAreaTopSpacing);
+        }
+    }
+
+    /** Calculates the axes, the spacing around the graph and the scale of the graph for drawing it with the passed
+     * graphics and dimensions
+     * 
+     * @param graphGraphics The graphics we are using to draw the graph with
+     * @param graphMaximumDimensions The dimensions of the Graph area to which we are drawing
+     * @param leaveSpaceForCursorLocation true if space should be left to draw the cursor position (i.e. if it is not
+     *        being drawn for an export)
+     * @param fontToUse The font to use for drawing the graph or null to use the font of the graphics */
+    private void layoutGraph(Graphics2D graphGraphics, Dimension graphMaximumDimensions,
+            boolean leaveSpaceForCursorLocation, Font fontToUse)
     {
         refreshAxesPower();
         calculateAxesMinimumAndMaximumValues();
@@ -575,11 +1234,6 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
         graphWidthAfterPadding = graphMaximumDimensions.width - (graphAreaLeftSpacing + graphAreaRightSpacing);
         graphHeightAfterPadding = graphMaximumDimensions.height - (graphAreaBottomSpacing + graphAreaTopSpacing);
 
-        // allows it to scale the position of the results so they stay in relatively the same position when were
-        // exporting the graph
-        int xResultOnGraphThisPass = resultsPositionX;
-        int yResultOnGraphThisPass = resultsPositionY;
-
         // Determine the translation factors according to the boundaries
         tickMarkRelativeValueX = (graphWidthAfterPadding / gWidth);
         tickMarkRelativeValueY = (graphHeightAfterPadding / gHeight);
@@ -587,175 +1241,291 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
         // Find where zero is
         positionOfOriginX = convertXCoordinateToPixel(0);
         positionOfOriginY = convertYCoordinateToPixel(0);
+    }
 
-        graphGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    /** Draws the points and error bars of the passed DataSet along with the bands around its fit line if they are
+     * displayed
+     * 
+     * @param graphGraphics The graphics to draw the points with
+     * @param current The DataSet to draw the points of
+     * @param points The decimated points of the DataSet for the current axes and size of the graph or null to draw the
+     *            points as a density map instead of as markers
+     * @param layerImage The image of the layer the graphics draw into, which lets the markers be copied from pre-drawn
+     *            images and be drawn in several tiles at once, or null if the points are drawn straight onto the
+     *            graphics so that the markers stay shapes when exported */
+    private void drawDataSetPoints(Graphics2D graphGraphics, DataSet current, DecimatedPoints points,
+            BufferedImage layerImage)
+    {
+        // draw the bands around the line first so they are underneath the points. The fit itself is kept up to
+        // date as changes are published so it does not need to be recalculated here
+        if (current.getFitType() != FitType.NONE && fitBandSigmas > 0)
+        {
+            drawFitBands(graphGraphics, current);
+        }
 
-        // Build the background rectangle
-        Rectangle2D.Double background = new Rectangle2D.Double(0, 0, graphMaximumDimensions.width,
-                graphMaximumDimensions.height);
-        graphGraphics.setColor(Color.white);
-        graphGraphics.fill(background);
+        if (points == null)
+        {
+            DensityMap densityMap = new DensityMap(current, xAxisMinimumValue, yAxisMaximumValue,
+                    tickMarkRelativeValueX, tickMarkRelativeValueY, graphWidthAfterPadding, graphHeightAfterPadding);
+            graphGraphics.drawImage(densityMap.createImage(current.getColor()), graphAreaLeftSpacing,
+                    graphAreaTopSpacing, null);
+            return;
+        }
 
-        // We have to subtract one for the "new dataset" placeholder
-        for (int c = 0; c < dataSetSelector.getItemCount() - 1; c++)
+        int numberOfThreads = SharedThreadPool.getNumberOfThreads();
+        if (layerImage != null && numberOfThreads > 1 && points.getNumberOfPoints() >= MINIMUM_POINTS_TO_DRAW_IN_TILES)
+        {
+            drawDataSetMarkersInTiles(graphGraphics, layerImage, current, points, numberOfThreads);
+        }
+        else
         {
-            DataSet current = (DataSet) dataSetSelector.getItemAt(c);
-            // if its not our new set option we draw it
-            if (!current.getName().equals("New DataSet"))
+            drawDataSetMarkers(graphGraphics, current, points, 0, layerImage != null, 0, graphHeightAfterPadding);
+        }
+    }
+
+    /** Draws the markers and error bars of the passed DataSet's points that reach into the passed rows of the graph
+     * area
+     * 
+     * @param graphGraphics The graphics to draw the markers with
+     * @param current The DataSet to draw the markers of
+     * @param points The decimated points of the DataSet for the current axes and size of the graph
+     * @param firstPoint The index of the first of the decimated points to draw
+     * @param useSprites True to copy pre-drawn images of the markers onto the graph, which is much faster, or false to
+     *            fill the marker shapes so that they stay shapes when exported
+     * @param top The first row of the graph area to draw the points of, relative to the top of the graph area
+     * @param bottom The last row of the graph area to draw the points of, relative to the top of the graph area */
+    private void drawDataSetMarkers(Graphics2D graphGraphics, DataSet current, DecimatedPoints points, int firstPoint,
+            boolean useSprites, int top, int bottom)
+    {
+        // set the color
+        Color currentColor = current.getColor();
+        graphGraphics.setColor(currentColor);
+
+        // the marker is made once for the DataSet and reused for every point
+        PointMarker marker = new PointMarker(current.getShape(), GRAPH_DATAPOINT_WIDTH, currentColor, useSprites);
+
+        // Plot the points. Only the ones in the window area are kept when they are decimated
+        for (int i = firstPoint; i < points.getNumberOfPoints(); i++)
+        {
+            // skip the points whose marker and error bars do not reach the rows being drawn. The extra pixel is for
+            // the anti-aliased edges
+            int reach = Math.max(GRAPH_DATAPOINT_WIDTH / 2 + 1, points.getErrorBarY(i)) + 1;
+            if (points.getPixelY(i) + reach < top || points.getPixelY(i) - reach > bottom)
             {
-                if (current.visibleGraph)
-                {
-                    // Get the column associations
-                    Double[][] data = current.getAllData(true);
-                    Double[] dataX = data[DataDimension.X.getColumnIndex()];
-                    Double[] dataY = data[DataDimension.Y.getColumnIndex()];
-                    Double[] dataXError = data[DataDimension.X.getErrorColumnIndex()];
-                    Double[] dataYError = data[DataDimension.Y.getErrorColumnIndex()];
-                    Color currentColor = current.getColor();
-                    Shape currentShape = current.getShape();
-                    FitType dataFitType = current.getFitType();
-
-                    // set the color
-                    graphGraphics.setColor(currentColor);
-
-                    // Plot the points (all data have the same length)
-                    for (int i = 0; i < dataX.length; i++)
-                    {
-                        if (dataX[i] != null && dataY[i] != null)
-                        {
-                            // Get the graph points
-                            double gpX = dataX[i];
-                            double gpY = dataY[i];
-
-                            // Calculate the coordinate points
-                            int cpX = convertXCoordinateToPixel(gpX);
-                            int cpY = convertYCoordinateToPixel(gpY);
-
-                            // Draw the points that are in the window area
-                            if (cpX >= graphAreaLeftSpacing && cpX <= graphMaximumDimensions.width -
-                                    graphAreaRightSpacing && cpY >= graphAreaTopSpacing &&
-                                    cpY <= graphMaximumDimensions.height - graphAreaBottomSpacing)
-                            {
-                                // If both X and Y values exist, graph, otherwise,
-                                // don't.
-                                Ellipse2D.Double ellipse = new Ellipse2D.Double();
-                                Rectangle2D.Double rectangle = new Rectangle2D.Double();
-                                Polygon triangle = new Polygon();
-                                if (currentShape.getClass() == ellipse.getClass())
-                                {
-                                    ellipse.setFrame(cpX - (GRAPH_DATAPOINT_WIDTH / 2), cpY - (GRAPH_DATAPOINT_WIDTH /
-                                            2), GRAPH_DATAPOINT_WIDTH, GRAPH_DATAPOINT_WIDTH);
-                                    currentShape = (Shape) ellipse;
-                                }
-                                else if (currentShape.getClass() == triangle.getClass())
-                                {
-                                    triangle.addPoint(cpX, cpY - GRAPH_DATAPOINT_WIDTH / 2);
-                                    triangle.addPoint(cpX - GRAPH_DATAPOINT_WIDTH / 2, cpY + GRAPH_DATAPOINT_WIDTH / 2);
-                                    triangle.addPoint(cpX + GRAPH_DATAPOINT_WIDTH / 2, cpY + GRAPH_DATAPOINT_WIDTH / 2);
-                                    currentShape = (Shape) triangle;
-                                }
-                                else
-                                {
-                                    rectangle.setFrame(cpX - (GRAPH_DATAPOINT_WIDTH / 2), cpY - (GRAPH_DATAPOINT_WIDTH /
-                                            2), GRAPH_DATAPOINT_WIDTH, GRAPH_DATAPOINT_WIDTH);
-                                    currentShape = (Shape) rectangle;
-                                }
-                                graphGraphics.fill(currentShape);
-
-                                // Draw the X Error Bars
-                                if (dataXError[i] != null)
-                                {
-                                    double heB = dataXError[i];
-                                    int heBa = (int) ((heB) * tickMarkRelativeValueX * -1);
-                                    Line2D.Double hErrorBar = new Line2D.Double(cpX + heBa, cpY, cpX - heBa, cpY);
-                                    graphGraphics.draw(hErrorBar);
-                                }
-
-                                // Draw the Y Error Bars
-                                if (dataYError[i] != null)
-                                {
-                                    double veB = dataYError[i];
-                                    int veBa = (int) ((veB) * tickMarkRelativeValueY);
-                                    Line2D.Double vErrorBar = new Line2D.Double(cpX, cpY + veBa, cpX, cpY - veBa);
-                                    graphGraphics.draw(vErrorBar);
-                                }
-                            }
-                        }
-                    }
+                continue;
+            }
 
-                    // fitError = false;
+            int cpX = graphAreaLeftSpacing + points.getPixelX(i);
+            int cpY = graphAreaTopSpacing + points.getPixelY(i);
+            marker.draw(graphGraphics, cpX, cpY);
 
-                    current.refreshFitData();
+            // Draw the X Error Bars. The ends are whole pixels so they can be drawn without making a line
+            int heBa = points.getErrorBarX(i);
+            if (heBa != PixelGeometry.NO_ERROR_BAR)
+            {
+                graphGraphics.drawLine(cpX - heBa, cpY, cpX + heBa, cpY);
+            }
 
-                    // draw the line for the dataset
-                    if (dataFitType != FitType.NONE)
-                    {
-                        Line2D.Double fitLine = new Line2D.Double(graphAreaLeftSpacing, convertYCoordinateToPixel(
-                                xAxisMinimumValue * current.linearFitStrategy.getSlope() + current.linearFitStrategy
-                                        .getIntercept()), graphMaximumDimensions.width - graphAreaRightSpacing,
-                                convertYCoordinateToPixel(xAxisMaximumValue * current.linearFitStrategy.getSlope() +
-                                        current.linearFitStrategy.getIntercept()));
-                        graphGraphics.draw(fitLine);
-
-                        // extracted this functionality out of this class and into the fitData class
-                        String slopeDisplay = current.linearFitStrategy.getSlopeAsString(resultsDecimalPlaces,
-                                resultsUseScientificNotation, false);
-                        String interceptDisplay = "";
-                        interceptDisplay = current.linearFitStrategy.getInterceptAsString(resultsDecimalPlaces,
-                                yAxisPower, resultsUseScientificNotation, false);
-
-                        // Reintroduced slope on the graph but along with options for a
-                        // custom location as well as not displaying it at all
-                        if (resultsAreDisplayedOnGraph)
-                        {
-                            String cStr = "";
-
-                            // 2 because we have the new set option in the set selector
-                            if (dataSetSelector.getItemCount() > 2)
-                            {
-                                cStr = convertToSubScript(c + 1);
-                            }
-                            int lineHeight = (int) graphGraphics.getFont().getSize() + resultsInbetweenSpacing;
-                            int relPosX = xResultOnGraphThisPass + getLongestResultsLength();
-
-                            // We have to subtract one for the "new dataset" placeholder
-                            int relPosY = yResultOnGraphThisPass + 3 * lineHeight * (dataSetSelector.getItemCount() -
-                                    1);
-
-                            graphGraphics.drawString("y" + cStr + " = m" + cStr + "x + b" + cStr,
-                                    graphMaximumDimensions.width - relPosX - graphAreaRightSpacing,
-                                    graphMaximumDimensions.height - (relPosY - (c * 3 * lineHeight)) -
-                                            graphAreaBottomSpacing + lineHeight);
-                            graphGraphics.drawString("m" + cStr + " = " + slopeDisplay /* + slopeErrorDisplay */,
-                                    graphMaximumDimensions.width - relPosX - graphAreaRightSpacing,
-                                    graphMaximumDimensions.height - (relPosY - (c * 3 * lineHeight)) -
-                                            graphAreaBottomSpacing + 2 * lineHeight);
-                            graphGraphics.drawString("b" + cStr + " = " + interceptDisplay /* + intErrorDisplay */,
-                                    graphMaximumDimensions.width - relPosX - graphAreaRightSpacing,
-                                    graphMaximumDimensions.height - (relPosY - (c * 3 * lineHeight)) -
-                                            graphAreaBottomSpacing + 3 * lineHeight);
-                        }
+            // Draw the Y Error Bars
+            int veBa = points.getErrorBarY(i);
+            if (veBa != PixelGeometry.NO_ERROR_BAR)
+            {
+                graphGraphics.drawLine(cpX, cpY + veBa, cpX, cpY - veBa);
+            }
+        }
+    }
 
-                        // New approach where data goes on sideBar
-                        if (c == dataSetSelector.getSelectedIndex())
-                        {
-                            fitResultsString = "y = mx + b\nm = " + slopeDisplay + /* slopeErrorDisplay + */ "\nb = " +
-                                    interceptDisplay + "\n\u03c7\u00B2 = " + current.getChiSquared();
+    /** Draws the markers and error bars of the passed DataSet's points into a layer by splitting the layer into
+     * horizontal tiles that are each drawn into their own image by a separate thread. Each tile starts as a copy of
+     * its part of the layer and is drawn with the same settings as the layer so that once the tiles are copied back
+     * the layer is exactly the same as if the markers were drawn into it directly
+     * 
+     * @param layerGraphics The graphics of the layer whose settings to draw the tiles with
+     * @param layerImage The image of the layer to draw the markers into
+     * @param current The DataSet to draw the markers of
+     * @param points The decimated points of the DataSet for the current axes and size of the graph
+     * @param numberOfThreads The number of threads in the shared pool to draw the tiles with */
+    private void drawDataSetMarkersInTiles(Graphics2D layerGraphics, BufferedImage layerImage, DataSet current,
+            DecimatedPoints points, int numberOfThreads)
+    {
+        // use more tiles than threads so that threads with sparse tiles can pick up the rest of the work
+        int numberOfTiles = numberOfThreads * TILES_PER_THREAD;
+        int tileHeight = (layerImage.getHeight() + numberOfTiles - 1) / numberOfTiles;
 
-                            fitResultsArea.setText(fitResultsString);
-                        }
-                    }
-                    else
-                    {
-                        if (c == dataSetSelector.getSelectedIndex())
-                        {
-                            fitResultsArea.setText("");
-                        }
-                    }
+        ArrayList<MarkersTileTask> tasks = new ArrayList<MarkersTileTask>();
+        for (int top = 0; top < layerImage.getHeight(); top += tileHeight)
+        {
+            tasks.add(new MarkersTileTask(layerGraphics.getRenderingHints(), layerImage, current, points, top, Math
+                    .min(tileHeight, layerImage.getHeight() - top)));
+        }
+
+        try
+        {
+            for (Future<Void> result : SharedThreadPool.getExecutor().invokeAll(tasks))
+            {
+                result.get();
+            }
+
+            // copy the tiles exactly as they are into the layer
+            Graphics2D copyGraphics = layerImage.createGraphics();
+            copyGraphics.setComposite(AlphaComposite.Src);
+            for (MarkersTileTask task : tasks)
+            {
+                copyGraphics.drawImage(task.tile, 0, task.top, null);
+            }
+            copyGraphics.dispose();
+            return;
+        }
+        catch (InterruptedException ie)
+        {
+            System.err.println("Interrupted while drawing the points of the graph");
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException ee)
+        {
+            System.err.println("Failed to draw the points of the graph in tiles: " + ee.getCause());
+        }
+
+        // the tiles did not all finish so draw the markers the slow way instead
+        drawDataSetMarkers(layerGraphics, current, points, 0, true, 0, graphHeightAfterPadding);
+    }
+
+    /** Brings the points layer of the passed DataSet up to date by drawing only the points of the rows that were
+     * appended to it since the layer was drawn on top of what is already there. This can only be done if nothing else
+     * the layer was drawn with has changed, including the axes, and none of the rows that were drawn have changed
+     * 
+     * @param graphGraphics The graphics of the GraphArea the layer is drawn onto
+     * @param current The DataSet whose points to draw
+     * @param pointsLayer The layer the DataSet's points are drawn on
+     * @param pointsStyleKey The values the layer is drawn with other than the version of the DataSet's data
+     * @param pointsLayerKey The values the layer is drawn with including the current version of the DataSet's data
+     * @return True if the layer was brought up to date or false if it needs to be drawn again */
+    private boolean appendDataSetPoints(Graphics2D graphGraphics, DataSet current, GraphLayer pointsLayer,
+            List<Object> pointsStyleKey, List<Object> pointsLayerKey)
+    {
+        PixelGeometry geometry = pixelGeometries.get(current);
+        DecimatedPoints points = decimatedPoints.get(current);
+        if (geometry == null || points == null || pointsLayer.isBuiltWith(pointsLayerKey))
+        {
+            return false;
+        }
+
+        // the layer has to have been drawn from the geometry as it is with only the data being different
+        List<Object> previousKey = new ArrayList<Object>(pointsStyleKey);
+        previousKey.add(geometry.getBuiltDataVersion());
+        if (!pointsLayer.isBuiltWith(previousKey) || !geometry.append(current, current.getDataVersion(),
+                xAxisMinimumValue, yAxisMaximumValue, tickMarkRelativeValueX, tickMarkRelativeValueY,
+                graphWidthAfterPadding, graphHeightAfterPadding))
+        {
+            return false;
+        }
+
+        // if points that were already drawn changed then they all need to be drawn again
+        points.update(geometry);
+        if (points.getFirstChangedPoint() == 0)
+        {
+            return false;
+        }
+
+        Graphics2D layerGraphics = pointsLayer.beginAppend(pointsLayerKey);
+        setUpLayerGraphics(layerGraphics, graphGraphics, true);
+        drawDataSetMarkers(layerGraphics, current, points, points.getFirstChangedPoint(), true, 0,
+                graphHeightAfterPadding);
+        layerGraphics.dispose();
+        return true;
+    }
+
+    /** Gets whether the points of the passed DataSet are drawn as a density map instead of as markers
+     * 
+     * @param current The DataSet to check
+     * @return True if the DataSet's points are drawn as a density map */
+    private boolean usesDensityMap(DataSet current)
+    {
+        return current.getPointsDisplay().usesDensityMap(current.getNumberOfValidPoints(), densityPointThreshold);
+    }
+
+    /** Converts the rows of the passed DataSet to pixels for the current axes and size of the graph and then decimates
+     * them so that no more than one point is drawn in each pixel
+     * 
+     * @param current The DataSet to decimate the points of
+     * @param geometry The pixel geometry of the DataSet to update. This is only converted again if it is out of date
+     * @param points The decimated points to update. These are only decimated again if the geometry changed
+     * @return The passed points once they are up to date */
+    private DecimatedPoints decimateDataSetPoints(DataSet current, PixelGeometry geometry, DecimatedPoints points)
+    {
+        geometry.update(current, current.getDataVersion(), sortedXIndexes.get(current), xAxisMinimumValue,
+                yAxisMaximumValue, tickMarkRelativeValueX, tickMarkRelativeValueY, graphWidthAfterPadding,
+                graphHeightAfterPadding);
+        points.update(geometry);
+        return points;
+    }
+
+    /** Draws the fit line of the passed DataSet and, if they are displayed on the graph, its results
+     * 
+     * @param graphGraphics The graphics to draw the fit with
+     * @param current The DataSet to draw the fit of
+     * @param c The index of the DataSet in the registry
+     * @param numberOfDataSets The number of DataSets in the registry
+     * @param longestResultsLength The pixel length of the longest line of the results of all the DataSets
+     * @param graphMaximumDimensions The dimensions of the Graph area to which we are drawing */
+    private void drawDataSetFit(Graphics2D graphGraphics, DataSet current, int c, int numberOfDataSets,
+            int longestResultsLength, Dimension graphMaximumDimensions)
+    {
+        // draw the line for the dataset
+        if (current.getFitType() != FitType.NONE)
+        {
+            graphGraphics.setColor(current.getColor());
+            Line2D.Double fitLine = new Line2D.Double(graphAreaLeftSpacing, convertYCoordinateToPixel(
+                    xAxisMinimumValue * current.linearFitStrategy.getSlope() + current.linearFitStrategy
+                            .getIntercept()), graphMaximumDimensions.width - graphAreaRightSpacing,
+                    convertYCoordinateToPixel(xAxisMaximumValue * current.linearFitStrategy.getSlope() +
+                            current.linearFitStrategy.getIntercept()));
+            graphGraphics.draw(fitLine);
+
+            // extracted this functionality out of this class and into the fitData class
+            String slopeDisplay = current.linearFitStrategy.getSlopeAsString(resultsDecimalPlaces,
+                    resultsUseScientificNotation, false);
+            String interceptDisplay = "";
+            interceptDisplay = current.linearFitStrategy.getInterceptAsString(resultsDecimalPlaces,
+                    yAxisPower, resultsUseScientificNotation, false);
+
+            // Reintroduced slope on the graph but along with options for a
+            // custom location as well as not displaying it at all
+            if (resultsAreDisplayedOnGraph)
+            {
+                String cStr = "";
+
+                if (numberOfDataSets > 1)
+                {
+                    cStr = convertToSubScript(c + 1);
                 }
+                int lineHeight = (int) graphGraphics.getFont().getSize() + resultsInbetweenSpacing;
+                int relPosX = resultsPositionX + longestResultsLength;
+
+                int relPosY = resultsPositionY + 3 * lineHeight * numberOfDataSets;
+
+                graphGraphics.drawString("y" + cStr + " = m" + cStr + "x + b" + cStr,
+                        graphMaximumDimensions.width - relPosX - graphAreaRightSpacing,
+                        graphMaximumDimensions.height - (relPosY - (c * 3 * lineHeight)) -
+                                graphAreaBottomSpacing + lineHeight);
+                graphGraphics.drawString("m" + cStr + " = " + slopeDisplay /* + slopeErrorDisplay */,
+                        graphMaximumDimensions.width - relPosX - graphAreaRightSpacing,
+                        graphMaximumDimensions.height - (relPosY - (c * 3 * lineHeight)) -
+                                graphAreaBottomSpacing + 2 * lineHeight);
+                graphGraphics.drawString("b" + cStr + " = " + interceptDisplay /* + intErrorDisplay */,
+                        graphMaximumDimensions.width - relPosX - graphAreaRightSpacing,
+                        graphMaximumDimensions.height - (relPosY - (c * 3 * lineHeight)) -
+                                graphAreaBottomSpacing + 3 * lineHeight);
             }
         }
+    }
 
+    /** Covers up the area outside of the axes and draws the axes, tick marks and the labels of the graph
+     * 
+     * @param graphGraphics The graphics to draw the axes with
+     * @param graphMaximumDimensions The dimensions of the Graph area to which we are drawing */
+    private void drawMarginsAndAxes(Graphics2D graphGraphics, Dimension graphMaximumDimensions)
+    {
         // Cover up margins to hide lines and points
         Rectangle2D.Double topMargin = new Rectangle2D.Double(0, 0, graphMaximumDimensions.width, graphAreaTopSpacing);
         Rectangle2D.Double botMargin = new Rectangle2D.Double(0, graphMaximumDimensions.height - graphAreaBottomSpacing,
@@ -846,6 +1616,36 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
         }
     }
 
+    /** Draws the shaded confidence band and, if the user wants them, the prediction band around the passed DataSet's fit
+     * line in the DataSet's color. The bands are cached for each DataSet and only rebuilt when its fit or the axes have
+     * changed
+     * 
+     * @param graphGraphics The Graphics2D object to draw the bands on
+     * @param dataSet The DataSet whose fit line to draw the bands around */
+    private void drawFitBands(Graphics2D graphGraphics, DataSet dataSet)
+    {
+        FitBandCache bands = fitBandCaches.get(dataSet);
+        if (bands == null)
+        {
+            bands = new FitBandCache();
+            fitBandCaches.put(dataSet, bands);
+        }
+        bands.update(dataSet, fitBandSigmas, fitBandsShowPrediction, xAxisMinimumValue, xAxisMaximumValue,
+                yAxisMinimumValue, yAxisMaximumValue, graphAreaLeftSpacing, graphAreaTopSpacing,
+                graphWidthAfterPadding, graphHeightAfterPadding);
+
+        Color dataSetColor = dataSet.getColor();
+        if (bands.getPredictionBand() != null)
+        {
+            graphGraphics.setColor(new Color(dataSetColor.getRed(), dataSetColor.getGreen(), dataSetColor.getBlue(),
+                    PREDICTION_BAND_ALPHA));
+            graphGraphics.fill(bands.getPredictionBand());
+        }
+        graphGraphics.setColor(new Color(dataSetColor.getRed(), dataSetColor.getGreen(), dataSetColor.getBlue(),
+                CONFIDENCE_BAND_ALPHA));
+        graphGraphics.fill(bands.getConfidenceBand());
+    }
+
     /** Converts an integer into a string containing subscript numbers
      * 
      * @param integerToConvert The integer to convert into a subScript
@@ -900,8 +1700,7 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
     public int getLongestResultsLength()
     {
         String longString = "";
-        // We have to subtract one for the "new dataset" placeholder
-        int numDataSets = dataSetSelector.getItemCount() - 1;
+        int numDataSets = dataSetRegistry.getNumberOfDataSets();
         String numStr = "";
 
         for (int i = 0; i < numDataSets; i++)
@@ -910,7 +1709,7 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
             {
                 numStr = convertToSubScript(i + 1);
             }
-            DataSet current = (DataSet) dataSetSelector.getItemAt(i);
+            DataSet current = dataSetRegistry.getDataSet(i);
             if (current.visibleGraph && current.hasData())
             {
                 // current.refreshFitData();
@@ -967,10 +1766,9 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
         {
             xErrorsOnly = xErrors;
 
-            for (int i = 0; i < dataSetSelector.getItemCount() - 1; i++)
+            for (int i = 0; i < dataSetRegistry.getNumberOfDataSets(); i++)
             {
-                DataSet current = (DataSet) dataSetSelector.getItemAt(i);
-                updateDataSetErrorOrder(current);
+                updateDataSetErrorOrder(dataSetRegistry.getDataSet(i));
             }
 
             calculateAxesMinimumAndMaximumValues();
@@ -982,7 +1780,7 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
      * @return True if the GraphArea has some data. False otherwise */
     public boolean hasData()
     {
-        return dataSetSelector.getItemCount() != 2 || dataSetSelector.getItemAt(0).hasData();
+        return dataSetRegistry.getNumberOfDataSets() != 1 || dataSetRegistry.getDataSet(0).hasData();
     }
 
     /** Reads in data or an option related to the data from the passed in line
@@ -992,8 +1790,7 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
      * @return Returns true if the data or option for the data was read in from the line */
     public boolean readInDataAndDataOptions(String line, boolean newDataSet)
     {
-        // We have to subtract one for the "new dataset" placeholder too
-        return ((DataSet) dataSetSelector.getSelectedItem()).readInDataAndDataOptions(line, newDataSet);
+        return dataSetRegistry.getSelectedDataSet().readInDataAndDataOptions(line, newDataSet);
     }
 
     /** Reads in the options associated with exporting in from the LineFit data file
@@ -1028,6 +1825,7 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
                 case "customaxes":
                 case "usecustomaxes":
                     userDefinedAxes = Boolean.parseBoolean(valueForField);
+                    clearZoom();
                     break;
                 case "xmin":
                 case "xaxismin":
@@ -1121,6 +1919,15 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
                     xErrorsOnly = Boolean.parseBoolean(valueForField);
                     setThirdColumn(xErrorsOnly);
                     break;
+                case "fitbandsigmas":
+                    fitBandSigmas = Integer.parseInt(valueForField);
+                    break;
+                case "fitbandsshowprediction":
+                    fitBandsShowPrediction = Boolean.parseBoolean(valueForField);
+                    break;
+                case "densitypointthreshold":
+                    densityPointThreshold = Integer.parseInt(valueForField);
+                    break;
                 case "fitalgorithm":
                     LineFit.currentFitAlgorithmFactory = LinearFitFactory.getAlgorithmWithName(valueForField);
                     break;
@@ -1140,12 +1947,10 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
     /** Performs any processing needed after all the data has been read in */
     public void finishedReadingInData()
     {
-        // -1 for the create new dataset placeholder
-        // TODO encapsulate this
         DataSet currSet;
-        for (int i = 0; i < dataSetSelector.getItemCount() - 1; i++)
+        for (int i = 0; i < dataSetRegistry.getNumberOfDataSets(); i++)
         {
-            currSet = dataSetSelector.getItemAt(i);
+            currSet = dataSetRegistry.getDataSet(i);
             currSet.finishedReadingInData();
             updateDataSetErrorOrder(currSet); // This ensures the data is displayed in the correct column
         }
@@ -1165,16 +1970,19 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
         variableNames.add("YaxisDescription");
         variableValues.add(getYAxisDescription());
 
+        // zooming in on the graph only changes what is shown so the axes from before it are saved
+        double[] axesToSave = zoomed ? axesBeforeZoom : new double[] { xAxisMinimumValue, xAxisMaximumValue,
+                yAxisMinimumValue, yAxisMaximumValue };
         variableNames.add("UseCustomAxes");
         variableValues.add(Boolean.toString(userDefinedAxes));
         variableNames.add("XAxisMin");
-        variableValues.add(Double.toString(xAxisMinimumValue));
+        variableValues.add(Double.toString(axesToSave[0]));
         variableNames.add("XAxisMax");
-        variableValues.add(Double.toString(xAxisMaximumValue));
+        variableValues.add(Double.toString(axesToSave[1]));
         variableNames.add("YAxisMin");
-        variableValues.add(Double.toString(yAxisMinimumValue));
+        variableValues.add(Double.toString(axesToSave[2]));
         variableNames.add("YAxisMax");
-        variableValues.add(Double.toString(yAxisMaximumValue));
+        variableValues.add(Double.toString(axesToSave[3]));
 
         variableNames.add("UsePowersOnAxes");
         variableValues.add(Boolean.toString(useAxesPowers));
@@ -1218,6 +2026,13 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
         variableNames.add("XErrorsBeforeYErrors");
         variableValues.add(Boolean.toString(xErrorsOnly));
 
+        variableNames.add("FitBandSigmas");
+        variableValues.add(Integer.toString(fitBandSigmas));
+        variableNames.add("FitBandsShowPrediction");
+        variableValues.add(Boolean.toString(fitBandsShowPrediction));
+        variableNames.add("DensityPointThreshold");
+        variableValues.add(Integer.toString(densityPointThreshold));
+
         variableNames.add("FitAlgorithm");
         variableValues.add(LineFit.currentFitAlgorithmFactory.toString());
     }
@@ -1229,15 +2044,14 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
     public void retrieveAllDataAndDataOptions(ArrayList<String> variableNames, ArrayList<String> variableValues)
     {
         // pass it on to our datasets
-        // We have to subtract one for the "new dataset" placeholder
-        for (int i = 0; i < dataSetSelector.getItemCount() - 1; i++)
+        for (int i = 0; i < dataSetRegistry.getNumberOfDataSets(); i++)
         {
             // add the dataset line so we know to trigger a new set
             variableNames.add("DataSet");
             variableValues.add(Integer.toString(i + 1));
 
             // now add the dataset's data
-            dataSetSelector.getItemAt(i).retrieveAllDataAndDataOptions(variableNames, variableValues);
+            dataSetRegistry.getDataSet(i).retrieveAllDataAndDataOptions(variableNames, variableValues);
         }
     }
 
@@ -1449,4 +2263,409 @@ public class GraphArea extends JPanel implements HasOptionsToSave, HasDataToSave
         }
     }
 
+    /** Lets the user zoom in and out of the graph with the mouse wheel, pan it by dragging it with the mouse, select
+     * the points in a rectangle by dragging it out while holding shift and put the axes back by double clicking it
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class GraphAreaNavigationListener extends MouseAdapter
+    {
+        /** The x pixel the mouse was at when it was last dragged to */
+        private int lastDragX;
+        /** The y pixel the mouse was at when it was last dragged to */
+        private int lastDragY;
+        /** The x pixel of the corner the selection rectangle is being dragged out from */
+        private int selectionStartX;
+        /** The y pixel of the corner the selection rectangle is being dragged out from */
+        private int selectionStartY;
+
+        /** Zooms the graph around the cursor, in when the wheel is turned up and out when it is turned down
+         * 
+         * @param wheelEvent The mouse wheel event passed by the system when this listener is called */
+        public void mouseWheelMoved(MouseWheelEvent wheelEvent)
+        {
+            zoomAround(wheelEvent.getX(), wheelEvent.getY(), Math.pow(ZOOM_FACTOR_PER_NOTCH, -wheelEvent
+                    .getWheelRotation()));
+        }
+
+        /** Remembers where a drag starts from so that the graph can be panned by how far the mouse moves or, if shift
+         * is held, starts dragging out a selection rectangle
+         * 
+         * @param passedMouseEvent The mouse event passed by the system when this listener is called */
+        public void mousePressed(MouseEvent passedMouseEvent)
+        {
+            lastDragX = passedMouseEvent.getX();
+            lastDragY = passedMouseEvent.getY();
+            if (SwingUtilities.isLeftMouseButton(passedMouseEvent) && passedMouseEvent.isShiftDown())
+            {
+                selectionStartX = passedMouseEvent.getX();
+                selectionStartY = passedMouseEvent.getY();
+                selectionRectangle = new Rectangle(selectionStartX, selectionStartY, 0, 0);
+            }
+        }
+
+        /** Stretches the selection rectangle to the mouse if one is being dragged out and otherwise pans the graph by
+         * how far the mouse has moved since it was last dragged
+         * 
+         * @param passedMouseEvent The mouse event passed by the system when this listener is called */
+        public void mouseDragged(MouseEvent passedMouseEvent)
+        {
+            if (selectionRectangle != null)
+            {
+                selectionRectangle.setFrameFromDiagonal(selectionStartX, selectionStartY, passedMouseEvent.getX(),
+                        passedMouseEvent.getY());
+                repaint();
+            }
+            else if (SwingUtilities.isLeftMouseButton(passedMouseEvent))
+            {
+                pan(passedMouseEvent.getX() - lastDragX, passedMouseEvent.getY() - lastDragY);
+                lastDragX = passedMouseEvent.getX();
+                lastDragY = passedMouseEvent.getY();
+            }
+        }
+
+        /** Selects the points inside of the selection rectangle when it has been dragged out
+         * 
+         * @param passedMouseEvent The mouse event passed by the system when this listener is called */
+        public void mouseReleased(MouseEvent passedMouseEvent)
+        {
+            if (selectionRectangle != null)
+            {
+                selectPointsInRectangle(selectionRectangle);
+                selectionRectangle = null;
+                repaint();
+            }
+        }
+
+        /** Puts the axes back to how they were before the graph was zoomed and panned when it is double clicked
+         * 
+         * @param passedMouseEvent The mouse event passed by the system when this listener is called */
+        public void mouseClicked(MouseEvent passedMouseEvent)
+        {
+            if (SwingUtilities.isLeftMouseButton(passedMouseEvent) && passedMouseEvent.getClickCount() == 2)
+            {
+                resetZoom();
+            }
+        }
+    }
+
+    /** A ChangeSubscriber that recalculates the fits of the DataSets whose data or fit settings changed
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class FitUpdater implements ChangeSubscriber
+    {
+        /** Refits each DataSet that changed once no matter how many changes were made to it */
+        @Override
+        public void changesPublished(ChangeSet changes)
+        {
+            for (int i = 0; i < dataSetRegistry.getNumberOfDataSets(); i++)
+            {
+                DataSet current = dataSetRegistry.getDataSet(i);
+                if (changes.contains(ChangeType.DATA, current) || changes.contains(ChangeType.FIT, current))
+                {
+                    current.refreshFitData();
+                }
+            }
+        }
+    }
+
+    /** A ChangeSubscriber that recalculates the axes when the data or the options they are based on change so that they
+     * are up to date before the results are updated
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class AxesUpdater implements ChangeSubscriber
+    {
+        /** Recalculates the range and the powers of the axes */
+        @Override
+        public void changesPublished(ChangeSet changes)
+        {
+            refreshAxesPower();
+            calculateAxesMinimumAndMaximumValues();
+        }
+    }
+
+    /** A ChangeSubscriber that redraws the graph when anything drawn on it changes
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class GraphRepainter implements ChangeSubscriber
+    {
+        /** Redraws the graph */
+        @Override
+        public void changesPublished(ChangeSet changes)
+        {
+            repaint();
+        }
+    }
+
+    /** A ChangeSubscriber that updates the text of the fit results when the fit or the selected DataSet changes
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class FitResultsUpdater implements ChangeSubscriber
+    {
+        /** Updates the text of the fit results */
+        @Override
+        public void changesPublished(ChangeSet changes)
+        {
+            updateFitResultsText();
+        }
+    }
+
+    /** Starts a preview of the graph whenever it is resized so that it is not fully drawn again for every size it goes
+     * through
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class GraphAreaResizeListener extends ComponentAdapter
+    {
+        /** Starts or continues the preview of the graph
+         * 
+         * @param resizeEvent The event passed by the system when the GraphArea is resized */
+        public void componentResized(ComponentEvent resizeEvent)
+        {
+            startPreview();
+        }
+    }
+
+    /** Starts refining the preview once the graph has stopped being resized
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class RefineTimerListener implements ActionListener
+    {
+        /** Starts converting the DataSets to pixels for the new size of the graph
+         * 
+         * @param timerEvent The event passed by the timer once the delay has passed */
+        public void actionPerformed(ActionEvent timerEvent)
+        {
+            refinePreview();
+        }
+    }
+
+    /** A pass that converts snapshots of DataSets to pixels and decimates them for the size of the graph when it was
+     * started, stopping early if another preview is started before it finishes
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class PreviewRefinementPass implements Runnable
+    {
+        /** The number of the preview this pass refines */
+        private long refinesPreview;
+        /** The DataSets to convert */
+        private ArrayList<DataSet> dataSets;
+        /** A read only snapshot of each of the DataSets to convert */
+        private ArrayList<DataSet> snapshots = new ArrayList<DataSet>();
+        /** The version of the data of each of the DataSets when its snapshot was taken */
+        private long[] dataVersions;
+        /** The pixel geometry made for each of the DataSets */
+        private ArrayList<PixelGeometry> geometries = new ArrayList<PixelGeometry>();
+        /** The decimated points made for each of the DataSets */
+        private ArrayList<DecimatedPoints> pointsOfDataSets = new ArrayList<DecimatedPoints>();
+        /** The index of the rows sorted by x of each of the DataSets or null for each of them if the graph is not
+         * zoomed in */
+        private ArrayList<SortedXIndex> xIndexes = new ArrayList<SortedXIndex>();
+        // the axes and size of the area inside of the axes to convert the DataSets for
+        /** The value of x at the left edge of the graph area */
+        private double xMin = xAxisMinimumValue;
+        /** The value of y at the top edge of the graph area */
+        private double yMax = yAxisMaximumValue;
+        /** The number of pixels per unit of x */
+        private double pixelsPerX = tickMarkRelativeValueX;
+        /** The number of pixels per unit of y */
+        private double pixelsPerY = tickMarkRelativeValueY;
+        /** The width in pixels of the graph area */
+        private int width = graphWidthAfterPadding;
+        /** The height in pixels of the graph area */
+        private int height = graphHeightAfterPadding;
+
+        /** Creates the pass for the passed DataSets, taking snapshots of them and the current axes and size of the
+         * graph. Must be created on the event thread
+         * 
+         * @param previewToRefine The number of the preview the pass refines
+         * @param toConvert The DataSets to convert */
+        private PreviewRefinementPass(long previewToRefine, ArrayList<DataSet> toConvert)
+        {
+            refinesPreview = previewToRefine;
+            dataSets = toConvert;
+            dataVersions = new long[toConvert.size()];
+            for (int i = 0; i < toConvert.size(); i++)
+            {
+                DataSet current = toConvert.get(i);
+                dataVersions[i] = current.getDataVersion();
+                snapshots.add(current.createSnapshot());
+
+                // only the rows inside of the axes need to be converted when zoomed in so the rows are sorted by x
+                // unless they already have been for the current data
+                SortedXIndex xIndex = null;
+                if (zoomed)
+                {
+                    xIndex = sortedXIndexes.get(current);
+                    if (xIndex == null || xIndex.getDataVersion() != dataVersions[i])
+                    {
+                        xIndex = new SortedXIndex();
+                    }
+                }
+                xIndexes.add(xIndex);
+            }
+        }
+
+        /** Converts and decimates each of the snapshots in the background and then hands them to the event thread to
+         * be drawn, unless another preview has been started in the meantime. The snapshots are released when the pass
+         * ends either way */
+        public void run()
+        {
+            try
+            {
+                for (int i = 0; i < snapshots.size(); i++)
+                {
+                    if (refinesPreview != previewNumber)
+                    {
+                        return;
+                    }
+
+                    SortedXIndex xIndex = xIndexes.get(i);
+                    if (xIndex != null)
+                    {
+                        xIndex.update(snapshots.get(i), dataVersions[i]);
+                    }
+                    PixelGeometry geometry = new PixelGeometry();
+                    geometry.update(snapshots.get(i), dataVersions[i], xIndex, xMin, yMax, pixelsPerX, pixelsPerY,
+                            width, height);
+                    DecimatedPoints points = new DecimatedPoints();
+                    points.update(geometry);
+                    geometries.add(geometry);
+                    pointsOfDataSets.add(points);
+                }
+            }
+            catch (RuntimeException re)
+            {
+                // the rest of the DataSets will be converted when the graph is drawn instead
+                System.err.println("Failed to convert the DataSets for the new size of the graph: " + re);
+            }
+            finally
+            {
+                // the finished geometry does not use the snapshots so they can be released before it is drawn
+                for (DataSet snapshot : snapshots)
+                {
+                    snapshot.releaseSnapshot();
+                }
+                snapshots.clear();
+            }
+            SwingUtilities.invokeLater(new FinishPreviewRefinement(this));
+        }
+    }
+
+    /** Stores the pixel geometry made by a refinement pass and fully draws the graph again if the pass is still for
+     * the latest preview
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class FinishPreviewRefinement implements Runnable
+    {
+        /** The finished pass */
+        private PreviewRefinementPass pass;
+
+        /** Creates the finisher for the passed pass
+         * 
+         * @param finishedPass The pass that finished converting the DataSets */
+        private FinishPreviewRefinement(PreviewRefinementPass finishedPass)
+        {
+            pass = finishedPass;
+        }
+
+        /** Stores the geometry of the DataSets that were not edited during the pass and ends the preview */
+        public void run()
+        {
+            if (pass.refinesPreview != previewNumber)
+            {
+                return;
+            }
+
+            for (int i = 0; i < pass.geometries.size(); i++)
+            {
+                DataSet current = pass.dataSets.get(i);
+                if (current.getDataVersion() == pass.dataVersions[i])
+                {
+                    pixelGeometries.put(current, pass.geometries.get(i));
+                    decimatedPoints.put(current, pass.pointsOfDataSets.get(i));
+                    if (pass.xIndexes.get(i) != null)
+                    {
+                        sortedXIndexes.put(current, pass.xIndexes.get(i));
+                    }
+                }
+            }
+            drawingPreview = false;
+            repaint();
+        }
+    }
+
+    /** A task that draws the markers of the points of a DataSet that reach into one horizontal tile of its layer
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class MarkersTileTask implements Callable<Void>
+    {
+        /** The rendering settings of the layer to draw the tile with */
+        private RenderingHints hints;
+        /** The image of the layer the tile is part of. This is only read */
+        private BufferedImage layerImage;
+        /** The DataSet to draw the markers of */
+        private DataSet dataSet;
+        /** The decimated points of the DataSet. These are only read */
+        private DecimatedPoints points;
+        /** The row of the layer the top of the tile is at */
+        private int top;
+        /** The image the tile is drawn into */
+        private BufferedImage tile;
+
+        /** Creates the task for the tile of the passed layer with the passed top and height
+         * 
+         * @param layerHints The rendering settings of the layer
+         * @param layer The image of the layer the tile is part of
+         * @param current The DataSet to draw the markers of
+         * @param dataSetPoints The decimated points of the DataSet
+         * @param tileTop The row of the layer the top of the tile is at
+         * @param tileHeight The height of the tile in pixels */
+        private MarkersTileTask(RenderingHints layerHints, BufferedImage layer, DataSet current,
+                DecimatedPoints dataSetPoints, int tileTop, int tileHeight)
+        {
+            hints = layerHints;
+            layerImage = layer;
+            dataSet = current;
+            points = dataSetPoints;
+            top = tileTop;
+            ColorModel colorModel = layerImage.getColorModel();
+            tile = new BufferedImage(colorModel, colorModel.createCompatibleWritableRaster(layerImage.getWidth(),
+                    tileHeight), colorModel.isAlphaPremultiplied(), null);
+        }
+
+        /** Copies the tile's part of the layer into the tile and then draws the markers that reach into it */
+        public Void call()
+        {
+            Graphics2D tileGraphics = tile.createGraphics();
+            tileGraphics.setComposite(AlphaComposite.Src);
+            tileGraphics.drawImage(layerImage, 0, -top, null);
+            tileGraphics.setComposite(AlphaComposite.SrcOver);
+
+            tileGraphics.setRenderingHints(hints);
+            tileGraphics.translate(-graphAreaLeftSpacing, -graphAreaTopSpacing - top);
+            drawDataSetMarkers(tileGraphics, dataSet, points, 0, true, top, top + tile.getHeight() - 1);
+            tileGraphics.dispose();
+            return null;
+        }
+    }
+
 }
\ No newline at end of file
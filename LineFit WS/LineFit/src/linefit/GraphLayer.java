@@ -0,0 +1,116 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+
+/** One layer of the GraphArea (such as the axes or the points of a DataSet) drawn to an offscreen image so that it can
+ * be copied onto the graph instead of being drawn again each time the graph is repainted. Each layer keeps the values
+ * it was drawn with and is only drawn again when they change, so a change to one DataSet only redraws the layers that
+ * depend on it. Layers whose drawing can be brought up to date by drawing more on top of it, such as when points are
+ * appended to a DataSet, can also be continued without being cleared
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class GraphLayer
+{
+    /** The image the layer is drawn to */
+    private BufferedImage image;
+    /** The values the layer was last drawn with. If any of these change the layer needs to be drawn again */
+    private List<Object> builtKey;
+
+    /** Starts drawing the layer again if the passed values are different than the ones it was last drawn with or the
+     * size of the layer changed. The returned Graphics2D draws onto a cleared image and must be disposed of by the
+     * caller
+     * 
+     * @param key The values the layer will be drawn with, compared with equals
+     * @param width The width in pixels of the layer
+     * @param height The height in pixels of the layer
+     * @param config The configuration of the screen the layer is drawn on to create a compatible image for or null to
+     *        use a default image
+     * @return The graphics to draw the layer with or null if the layer is already up to date */
+    Graphics2D beginUpdate(List<Object> key, int width, int height, GraphicsConfiguration config)
+    {
+        if (image != null && image.getWidth() == width && image.getHeight() == height && key.equals(builtKey))
+        {
+            return null;
+        }
+
+        Graphics2D layerGraphics;
+        if (image == null || image.getWidth() != width || image.getHeight() != height)
+        {
+            if (config != null)
+            {
+                image = config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+            }
+            else
+            {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            }
+            layerGraphics = image.createGraphics();
+        }
+        else
+        {
+            // clear what was drawn before
+            layerGraphics = image.createGraphics();
+            layerGraphics.setComposite(AlphaComposite.Clear);
+            layerGraphics.fillRect(0, 0, width, height);
+            layerGraphics.setComposite(AlphaComposite.SrcOver);
+        }
+
+        builtKey = key;
+        return layerGraphics;
+    }
+
+    /** Continues drawing the layer on top of what was already drawn instead of clearing it. The layer is then
+     * considered to be drawn with the passed values. The returned Graphics2D must be disposed of by the caller
+     * 
+     * @param key The values the layer will be up to date with once the drawing is done, compared with equals
+     * @return The graphics to draw onto the layer with or null if the layer has not been drawn yet */
+    Graphics2D beginAppend(List<Object> key)
+    {
+        if (image == null)
+        {
+            return null;
+        }
+
+        builtKey = key;
+        return image.createGraphics();
+    }
+
+    /** Checks if the layer was last drawn with the passed values
+     * 
+     * @param key The values to compare with the ones the layer was drawn with using equals
+     * @return True if the layer has been drawn and was drawn with the passed values */
+    boolean isBuiltWith(List<Object> key)
+    {
+        return image != null && key.equals(builtKey);
+    }
+
+    // Getters
+    /** Gets the image the layer was drawn to
+     * 
+     * @return The image of the layer or null if it has not been drawn yet */
+    BufferedImage getImage()
+    {
+        return image;
+    }
+}
@@ -170,6 +170,21 @@ public class GraphOptionsMenu extends JFrame
      * x or y error/uncertainty (checked is x, unchecked is y) */
     private JCheckBox xErrorsOnlyCheckBox;
 
+    // Fit band setting variables
+    /** The label for the selector of how wide the shaded bands around the fit lines are */
+    private JLabel fitBandsLabel;
+    /** The drop down that allows the user to select how many standard deviations wide the bands around the fit lines
+     * are or to not show them. The index of the selection is the number of standard deviations */
+    private JComboBox<String> fitBandsComboBox;
+    /** The checkbox that determines whether or not the prediction bands are shown along with the confidence bands */
+    private JCheckBox fitBandsShowPredictionCheckBox;
+
+    // Density map setting variables
+    /** The label for the number of points above which DataSets are automatically drawn as density maps */
+    private JLabel densityPointThresholdLabel;
+    /** The TextField for the number of points above which DataSets are automatically drawn as density maps */
+    private JTextField densityPointThresholdField;
+
     // for choosing the fit type
     /** the label for selecting which Fit Algorithm to use */
     private JLabel fitAlgorithmLabel;
@@ -204,6 +219,31 @@ public class GraphOptionsMenu extends JFrame
     private JLabel fixedValueLabel;
     /** The textField for the value of the fixed variable for the current GraphDataSet */
     private JTextField fixedValueField;
+    /** An array of whether or not each of the GraphDataSets uses high precision fit sums so the user does not have to
+     * apply changes before modifying another GraphDataSet */
+    private boolean[] graphSetsTempHighPrecision;
+    /** The checkbox that determines whether or not the current GraphDataSet's fit sums are kept in high precision */
+    private JCheckBox highPrecisionFitCheckBox;
+    /** An array of whether or not each of the GraphDataSets stores its data off of the heap so the user does not have to
+     * apply changes before modifying another GraphDataSet */
+    private boolean[] graphSetsTempMappedStorage;
+    /** The checkbox that determines whether or not the current GraphDataSet's data is stored off of the heap */
+    private JCheckBox mappedStorageCheckBox;
+    /** An array of how each of the GraphDataSets compresses its data so the user does not have to apply changes before
+     * modifying another GraphDataSet */
+    private DataCompression[] graphSetsTempCompression;
+    /** The label for the compression of the current GraphDataSet's data */
+    private JLabel compressionLabel;
+    /** The drop down box that determines how the current GraphDataSet's data is compressed */
+    private JComboBox<DataCompression> compressionComboBox;
+    /** An array of how each of the GraphDataSets draws its points so the user does not have to apply changes before
+     * modifying another GraphDataSet */
+    private PointsDisplay[] graphSetsTempPointsDisplay;
+    /** The label for how the current GraphDataSet's points are drawn */
+    private JLabel pointsDisplayLabel;
+    /** The drop down box that determines whether the current GraphDataSet's points are drawn as markers or as a
+     * density map */
+    private JComboBox<PointsDisplay> pointsDisplayComboBox;
 
     /** This function when called restores the default start up option for the graph options */
     private void resetToDefaults()
@@ -242,13 +282,26 @@ public class GraphOptionsMenu extends JFrame
 
         xErrorsOnlyCheckBox.setSelected(false);
 
+        fitBandsComboBox.setSelectedIndex(0);
+        fitBandsShowPredictionCheckBox.setSelected(false);
+
+        densityPointThresholdField.setText("50000");
+
         for (int i = 0; i < graphSetsTempWhatFixed.length; i++)
         {
             graphSetsTempWhatFixed[i] = FixedVariable.NONE;
             graphSetsTempFixedValues[i] = 0.0;
+            graphSetsTempHighPrecision[i] = false;
+            graphSetsTempMappedStorage[i] = false;
+            graphSetsTempCompression[i] = DataCompression.NONE;
+            graphSetsTempPointsDisplay[i] = PointsDisplay.AUTOMATIC;
         }
         noneFixedRadio.setSelected(true);
         fixedValueField.setText("0.0");
+        highPrecisionFitCheckBox.setSelected(false);
+        mappedStorageCheckBox.setSelected(false);
+        compressionComboBox.setSelectedItem(DataCompression.NONE);
+        pointsDisplayComboBox.setSelectedItem(PointsDisplay.AUTOMATIC);
 
         updateGraphOptionsEnabledStatuses();
     }
@@ -404,6 +457,29 @@ public class GraphOptionsMenu extends JFrame
         xErrorsOnlyCheckBox.setSelected(graphingArea.xErrorsOnly);
         contentPane.add(xErrorsOnlyCheckBox);
 
+        fitBandsLabel = new JLabel("Fit Bands:");
+        contentPane.add(fitBandsLabel);
+        fitBandsComboBox = new JComboBox<String>(new String[] { "None", "1\u03c3", "2\u03c3" });
+        fitBandsComboBox.setToolTipText(
+                "Shades the confidence band this many standard deviations on either side of each fit line");
+        fitBandsComboBox.setSelectedIndex(Math.max(0, Math.min(2, graphingArea.fitBandSigmas)));
+        contentPane.add(fitBandsComboBox);
+
+        fitBandsShowPredictionCheckBox = new JCheckBox("Show Prediction Bands");
+        fitBandsShowPredictionCheckBox.setToolTipText(
+                "When checked, also shades the wider band that new data points are expected to fall within");
+        fitBandsShowPredictionCheckBox.setSelected(graphingArea.fitBandsShowPrediction);
+        contentPane.add(fitBandsShowPredictionCheckBox);
+
+        densityPointThresholdLabel = new JLabel("Density Map Above");
+        contentPane.add(densityPointThresholdLabel);
+        densityPointThresholdField = new JTextField();
+        densityPointThresholdField.setToolTipText(
+                "DataSets with more points than this are drawn as a density map instead of as markers unless they are set otherwise");
+        densityPointThresholdField.setText("" + graphingArea.densityPointThreshold);
+        contentPane.add(densityPointThresholdField);
+        densityPointThresholdField.addFocusListener(onlyNumbers);
+
         usePowersCheckBox = new JCheckBox("Use Powers On Axes");
         usePowersCheckBox.setToolTipText(
                 "When checked, powers of ten are taken out from the axes and placed on the end of the axes");
@@ -492,24 +568,34 @@ public class GraphOptionsMenu extends JFrame
         whichGraphSetLabel = new JLabel("For");
         contentPane.add(whichGraphSetLabel);
         whichGraphSetComboBox = new JComboBox<DataSet>();
-        currentGraphSetIndex = graphingArea.dataSetSelector.getSelectedIndex();
-        graphSetsTempWhatFixed = new FixedVariable[graphingArea.dataSetSelector.getItemCount()];
-        graphSetsTempFixedValues = new double[graphingArea.dataSetSelector.getItemCount()];
-
-        for (int i = 0; i < graphingArea.dataSetSelector.getItemCount() - 1; i++) // -1 so we do not include the new
-                                                                                  // dataset option
+        currentGraphSetIndex = graphingArea.dataSetRegistry.getSelectedIndex();
+        graphSetsTempWhatFixed = new FixedVariable[graphingArea.dataSetRegistry.getSize()];
+        graphSetsTempFixedValues = new double[graphingArea.dataSetRegistry.getSize()];
+        graphSetsTempHighPrecision = new boolean[graphingArea.dataSetRegistry.getSize()];
+        graphSetsTempMappedStorage = new boolean[graphingArea.dataSetRegistry.getSize()];
+        graphSetsTempCompression = new DataCompression[graphingArea.dataSetRegistry.getSize()];
+        graphSetsTempPointsDisplay = new PointsDisplay[graphingArea.dataSetRegistry.getSize()];
+
+        for (int i = 0; i < graphingArea.dataSetRegistry.getNumberOfDataSets(); i++)
         {
-            whichGraphSetComboBox.addItem(graphingArea.dataSetSelector.getItemAt(i));
-            graphSetsTempWhatFixed[i] = ((DataSet) graphingArea.dataSetSelector.getItemAt(i)).linearFitStrategy
+            whichGraphSetComboBox.addItem(graphingArea.dataSetRegistry.getDataSet(i));
+            graphSetsTempWhatFixed[i] = graphingArea.dataSetRegistry.getDataSet(i).linearFitStrategy
                     .getWhatIsFixed();
-            graphSetsTempFixedValues[i] = ((DataSet) graphingArea.dataSetSelector.getItemAt(i)).linearFitStrategy
+            graphSetsTempFixedValues[i] = graphingArea.dataSetRegistry.getDataSet(i).linearFitStrategy
                     .getFixedValue();
+            graphSetsTempHighPrecision[i] = graphingArea.dataSetRegistry.getDataSet(i)
+                    .isHighPrecisionFit();
+            graphSetsTempMappedStorage[i] = graphingArea.dataSetRegistry.getDataSet(i)
+                    .isUsingMappedStorage();
+            graphSetsTempCompression[i] = graphingArea.dataSetRegistry.getDataSet(i)
+                    .getDataCompression();
+            graphSetsTempPointsDisplay[i] = graphingArea.dataSetRegistry.getDataSet(i).getPointsDisplay();
         }
         whichGraphSetComboBox.setSelectedIndex(currentGraphSetIndex);
         contentPane.add(whichGraphSetComboBox);
 
         whatIsFixedButtonGroup = new ButtonGroup();
-        DataSet fitData = ((DataSet) graphingArea.dataSetSelector.getItemAt(currentGraphSetIndex));
+        DataSet fitData = graphingArea.dataSetRegistry.getElementAt(currentGraphSetIndex);
         noneFixedRadio = new JRadioButton("None", fitData.linearFitStrategy.getWhatIsFixed() == FixedVariable.NONE);
         whatIsFixedButtonGroup.add(noneFixedRadio);
         contentPane.add(noneFixedRadio);
@@ -527,6 +613,34 @@ public class GraphOptionsMenu extends JFrame
         contentPane.add(fixedValueField);
         fixedValueField.addFocusListener(onlyNumbers);
 
+        highPrecisionFitCheckBox = new JCheckBox("High Precision Sums");
+        highPrecisionFitCheckBox.setToolTipText(
+                "When checked, the fit sums for this DataSet keep about twice the digits. Use for data far from zero compared to its spread, such as time stamps. Fitting is several times slower");
+        highPrecisionFitCheckBox.setSelected(fitData.isHighPrecisionFit());
+        contentPane.add(highPrecisionFitCheckBox);
+
+        mappedStorageCheckBox = new JCheckBox("Store Data Off Heap");
+        mappedStorageCheckBox.setToolTipText(
+                "When checked, the data for this DataSet is kept in a temporary file instead of in memory so that DataSets too large for memory can be used. Reading the data is slower");
+        mappedStorageCheckBox.setSelected(fitData.isUsingMappedStorage());
+        contentPane.add(mappedStorageCheckBox);
+
+        compressionLabel = new JLabel("Compression");
+        contentPane.add(compressionLabel);
+        compressionComboBox = new JComboBox<DataCompression>(DataCompression.values());
+        compressionComboBox.setToolTipText(
+                "How the data for this DataSet is compressed in memory. Lossless holds several times more data when it is evenly spaced or slowly varying. Single Precision halves the memory used but only keeps about 7 digits of each value");
+        compressionComboBox.setSelectedItem(fitData.getDataCompression());
+        contentPane.add(compressionComboBox);
+
+        pointsDisplayLabel = new JLabel("Draw Points");
+        contentPane.add(pointsDisplayLabel);
+        pointsDisplayComboBox = new JComboBox<PointsDisplay>(PointsDisplay.values());
+        pointsDisplayComboBox.setToolTipText(
+                "How the points of this DataSet are drawn. Density shades each pixel by how many points are in it, which is faster and clearer for very large DataSets. Automatic uses a density map above the number of points set for the graph");
+        pointsDisplayComboBox.setSelectedItem(fitData.getPointsDisplay());
+        contentPane.add(pointsDisplayComboBox);
+
         updateFixValueForCurrDataSet();
         setTickLabelEnabledStatus();
         setPowersEnabledStatus();
@@ -597,6 +711,7 @@ public class GraphOptionsMenu extends JFrame
         policy.addComponentToTabsList(yResultsLocationField);
         policy.addComponentToTabsList(decimalsInResultsField);
         policy.addComponentToTabsList(useScientificNotationInResultsCheckBox);
+        policy.addComponentToTabsList(densityPointThresholdField);
 
         // add the export items to the tab order
         ioHandler.exportIO.addOptionsGuiElementsToTabs(policy);
@@ -607,7 +722,13 @@ public class GraphOptionsMenu extends JFrame
         policy.addComponentToTabsList(slopeFixedRadio);
         policy.addComponentToTabsList(interceptFixedRadio);
         policy.addComponentToTabsList(fixedValueField);
+        policy.addComponentToTabsList(highPrecisionFitCheckBox);
+        policy.addComponentToTabsList(mappedStorageCheckBox);
+        policy.addComponentToTabsList(compressionComboBox);
+        policy.addComponentToTabsList(pointsDisplayComboBox);
         policy.addComponentToTabsList(xErrorsOnlyCheckBox);
+        policy.addComponentToTabsList(fitBandsComboBox);
+        policy.addComponentToTabsList(fitBandsShowPredictionCheckBox);
         policy.addComponentToTabsList(applyCloseButton);
         policy.addComponentToTabsList(applyButton);
         policy.addComponentToTabsList(defaultsButton);
@@ -769,7 +890,7 @@ public class GraphOptionsMenu extends JFrame
      * fitted to it */
     void setDataSetCanFixValueEnabledStatus()
     {
-        if (((DataSet) graphingArea.dataSetSelector.getItemAt(whichGraphSetComboBox.getSelectedIndex()))
+        if (graphingArea.dataSetRegistry.getElementAt(whichGraphSetComboBox.getSelectedIndex())
                 .getFitType() != FitType.NONE)
         {
             noneFixedRadio.setEnabled(true);
@@ -814,6 +935,10 @@ public class GraphOptionsMenu extends JFrame
                 graphSetsTempWhatFixed[currentGraphSetIndex] = FixedVariable.INTERCEPT;
             }
             graphSetsTempFixedValues[currentGraphSetIndex] = Double.parseDouble(fixedValueField.getText());
+            graphSetsTempHighPrecision[currentGraphSetIndex] = highPrecisionFitCheckBox.isSelected();
+            graphSetsTempMappedStorage[currentGraphSetIndex] = mappedStorageCheckBox.isSelected();
+            graphSetsTempCompression[currentGraphSetIndex] = (DataCompression) compressionComboBox.getSelectedItem();
+            graphSetsTempPointsDisplay[currentGraphSetIndex] = (PointsDisplay) pointsDisplayComboBox.getSelectedItem();
 
             // switch to our ne one
             currentGraphSetIndex = whichGraphSetComboBox.getSelectedIndex();
@@ -835,6 +960,10 @@ public class GraphOptionsMenu extends JFrame
                 noneFixedRadio.setSelected(true);
             }
             fixedValueField.setText("" + graphSetsTempFixedValues[currentGraphSetIndex]);
+            highPrecisionFitCheckBox.setSelected(graphSetsTempHighPrecision[currentGraphSetIndex]);
+            mappedStorageCheckBox.setSelected(graphSetsTempMappedStorage[currentGraphSetIndex]);
+            compressionComboBox.setSelectedItem(graphSetsTempCompression[currentGraphSetIndex]);
+            pointsDisplayComboBox.setSelectedItem(graphSetsTempPointsDisplay[currentGraphSetIndex]);
         }
     }
 
@@ -842,8 +971,7 @@ public class GraphOptionsMenu extends JFrame
      * graph */
     void applyChanges()
     {
-        ioHandler.changeTracker.setFileModified(); // so we know we have unsaved changes
-
+        graphingArea.clearZoom();
         graphingArea.userDefinedAxes = customAxesCheckBox.isSelected();
         if (graphingArea.userDefinedAxes)
         {
@@ -910,6 +1038,11 @@ public class GraphOptionsMenu extends JFrame
         graphingArea.yAxisDecimalPlaces = Integer.parseInt(yAxisDecimalPlacesField.getText());
         graphingArea.resultsUseScientificNotation = useScientificNotationInResultsCheckBox.isSelected();
 
+        graphingArea.fitBandSigmas = fitBandsComboBox.getSelectedIndex();
+        graphingArea.fitBandsShowPrediction = fitBandsShowPredictionCheckBox.isSelected();
+
+        graphingArea.densityPointThreshold = Integer.parseInt(densityPointThresholdField.getText());
+
         // check if we need to create new fit strategies
         LinearFitFactory selectedFactory = (LinearFitFactory) this.fitAlgorithmFactoryComboBox.getSelectedItem();
         boolean createNewFitStrategy = false;
@@ -924,7 +1057,7 @@ public class GraphOptionsMenu extends JFrame
         for (int i = 0; i < whichGraphSetComboBox.getItemCount(); i++)
         {
             // get the DataSet to process, create new fit data and then store that fit data in the DataSet
-            DataSet currentlyProcessingDataSet = (DataSet) graphingArea.dataSetSelector.getItemAt(i);
+            DataSet currentlyProcessingDataSet = graphingArea.dataSetRegistry.getDataSet(i);
 
             // if we need to create new strategies for the sets
             if (createNewFitStrategy)
@@ -932,6 +1065,23 @@ public class GraphOptionsMenu extends JFrame
                 LineFit.currentFitAlgorithmFactory.createNewLinearFitStartegy(currentlyProcessingDataSet);
             }
 
+            // set the precision and storage before what is fixed since setting what is fixed refits the data
+            if (i != currentGraphSetIndex)
+            {
+                currentlyProcessingDataSet.setHighPrecisionFit(graphSetsTempHighPrecision[i]);
+                currentlyProcessingDataSet.setUseMappedStorage(graphSetsTempMappedStorage[i]);
+                currentlyProcessingDataSet.setDataCompression(graphSetsTempCompression[i]);
+                currentlyProcessingDataSet.setPointsDisplay(graphSetsTempPointsDisplay[i]);
+            }
+            else
+            {
+                currentlyProcessingDataSet.setHighPrecisionFit(highPrecisionFitCheckBox.isSelected());
+                currentlyProcessingDataSet.setUseMappedStorage(mappedStorageCheckBox.isSelected());
+                currentlyProcessingDataSet.setDataCompression((DataCompression) compressionComboBox
+                        .getSelectedItem());
+                currentlyProcessingDataSet.setPointsDisplay((PointsDisplay) pointsDisplayComboBox.getSelectedItem());
+            }
+
             // figure out what to set for the new FitData
             if (i != currentGraphSetIndex)
             {
@@ -961,7 +1111,8 @@ public class GraphOptionsMenu extends JFrame
         // apply the export options as well
         ioHandler.exportIO.applyValuesInOptionsGuiElements();
 
-        graphingArea.repaint();
+        // let everything know the options changed which also marks that we have unsaved changes
+        ioHandler.changeBus.publish(ChangeType.GRAPH_OPTIONS, graphingArea);
     }
 
     // check the fitalgorithm switching
@@ -1069,7 +1220,7 @@ public class GraphOptionsMenu extends JFrame
 
             Insets insets = parent.getInsets();
             graphOptionsDimensions.width = 720 + insets.left + insets.right;
-            graphOptionsDimensions.height = 530 + insets.top + insets.bottom;
+            graphOptionsDimensions.height = 590 + insets.top + insets.bottom;
 
             return graphOptionsDimensions;
         }
@@ -1211,6 +1362,14 @@ public class GraphOptionsMenu extends JFrame
             resultDecGroup.add(decimalsInResultsField);
             resultDecGroup.add(useScientificNotationInResultsCheckBox);
 
+            // when DataSets are drawn as density maps
+            setElementBoundsIfVisible(densityPointThresholdLabel, insets, 4, 0, 142);
+            setElementBoundsIfVisible(densityPointThresholdField, insets, 145, 0, 60);
+
+            ArrayList<Component> densityGroup = new ArrayList<Component>();
+            densityGroup.add(densityPointThresholdLabel);
+            densityGroup.add(densityPointThresholdField);
+
             // allows to select fitting algorithm
             setElementBoundsIfVisible(fitAlgorithmLabel, insets, 4, 0, 200);
             setElementBoundsIfVisible(fitAlgorithmFactoryComboBox, insets, 4, 32, 200);
@@ -1228,6 +1387,12 @@ public class GraphOptionsMenu extends JFrame
             setElementBoundsIfVisible(interceptFixedRadio, insets, 124, 64, 90);
             setElementBoundsIfVisible(fixedValueLabel, insets, 4, 92, 80);
             setElementBoundsIfVisible(fixedValueField, insets, 88, 92, 120);
+            setElementBoundsIfVisible(highPrecisionFitCheckBox, insets, 0, 122, 200);
+            setElementBoundsIfVisible(mappedStorageCheckBox, insets, 0, 144, 200);
+            setElementBoundsIfVisible(compressionLabel, insets, 4, 172, 80);
+            setElementBoundsIfVisible(compressionComboBox, insets, 88, 170, 120);
+            setElementBoundsIfVisible(pointsDisplayLabel, insets, 4, 200, 80);
+            setElementBoundsIfVisible(pointsDisplayComboBox, insets, 88, 198, 120);
 
             ArrayList<Component> fixedGroup = new ArrayList<Component>();
             fixedGroup.add(whatIsFixedGroupLabel);
@@ -1238,6 +1403,12 @@ public class GraphOptionsMenu extends JFrame
             fixedGroup.add(interceptFixedRadio);
             fixedGroup.add(fixedValueLabel);
             fixedGroup.add(fixedValueField);
+            fixedGroup.add(highPrecisionFitCheckBox);
+            fixedGroup.add(mappedStorageCheckBox);
+            fixedGroup.add(compressionLabel);
+            fixedGroup.add(compressionComboBox);
+            fixedGroup.add(pointsDisplayLabel);
+            fixedGroup.add(pointsDisplayComboBox);
 
             // X errors only and Y errors only
             setElementBoundsIfVisible(xErrorsOnlyCheckBox, insets, 0, 0, 150);
@@ -1245,6 +1416,16 @@ public class GraphOptionsMenu extends JFrame
             ArrayList<Component> errorsGroup = new ArrayList<Component>();
             errorsGroup.add(xErrorsOnlyCheckBox);
 
+            // the shaded bands around the fit lines
+            setElementBoundsIfVisible(fitBandsLabel, insets, 4, 0, 80);
+            setElementBoundsIfVisible(fitBandsComboBox, insets, 88, 0, 120);
+            setElementBoundsIfVisible(fitBandsShowPredictionCheckBox, insets, 0, 30, 200);
+
+            ArrayList<Component> fitBandsGroup = new ArrayList<Component>();
+            fitBandsGroup.add(fitBandsLabel);
+            fitBandsGroup.add(fitBandsComboBox);
+            fitBandsGroup.add(fitBandsShowPredictionCheckBox);
+
             // Positions each group on the frame
             shiftElementGroup(titleAxesGroup, 24, 5);
             shiftElementGroup(maxMinGroup, 24, 159);
@@ -1253,10 +1434,12 @@ public class GraphOptionsMenu extends JFrame
             shiftElementGroup(tickMarkAndLabelGroup, 260, 5);
             shiftElementGroup(resultOnGraphGroup, 260, 295);
             shiftElementGroup(resultDecGroup, 260, 395);
+            shiftElementGroup(densityGroup, 260, 460);
             ioHandler.exportIO.positionOptionsGuiElements(insets, 484, 5);
             shiftElementGroup(algorithmGroup, 480, 180);
             shiftElementGroup(fixedGroup, 480, 255);
-            shiftElementGroup(errorsGroup, 480, 420);
+            shiftElementGroup(errorsGroup, 480, 480);
+            shiftElementGroup(fitBandsGroup, 480, 508);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+package linefit;
+
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/** ColumnStorage that keeps the values on the Java heap in chunks of BLOCK_SIZE doubles. This is the default storage
+ * for DataColumns. Copies share the chunks with the storage they were copied from and a chunk is only copied when one
+ * of them writes to it, so copying the storage takes the same time no matter how many rows it has and an edit only
+ * copies the chunk it touches. NaN is used to mark rows without a value
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class HeapColumnStorage implements ColumnStorage
+{
+    /** The chunks of values in order. A null chunk has not had any values written to it */
+    private double[][] chunks;
+    /** Whether or not this storage is the only one using the array of chunks and so can change it directly */
+    private boolean ownsChunkArray;
+    /** The indexes of the chunks that this storage is the only one using and so can write to directly */
+    private BitSet ownedChunks;
+    /** The number of rows in the storage including any rows without a value */
+    private int size = 0;
+
+    /** Creates an empty heap storage */
+    HeapColumnStorage()
+    {
+        chunks = new double[0][];
+        ownsChunkArray = true;
+        ownedChunks = new BitSet();
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public Double get(int rowIndex)
+    {
+        if (rowIndex < 0 || rowIndex >= size)
+        {
+            return null;
+        }
+
+        double[] chunk = chunks[rowIndex / BLOCK_SIZE];
+        if (chunk == null || Double.isNaN(chunk[rowIndex % BLOCK_SIZE]))
+        {
+            return null;
+        }
+        return chunk[rowIndex % BLOCK_SIZE];
+    }
+
+    public void set(int rowIndex, Double value)
+    {
+        if (rowIndex < 0)
+        {
+            return;
+        }
+
+        int chunkIndex = rowIndex / BLOCK_SIZE;
+        if (chunkIndex >= chunks.length)
+        {
+            chunks = Arrays.copyOf(chunks, Math.max(chunkIndex + 1, chunks.length * 2));
+            ownsChunkArray = true;
+        }
+        else if (!ownsChunkArray)
+        {
+            chunks = chunks.clone();
+            ownsChunkArray = true;
+        }
+
+        double[] chunk = chunks[chunkIndex];
+        if (chunk == null)
+        {
+            chunk = new double[BLOCK_SIZE];
+            Arrays.fill(chunk, Double.NaN);
+            chunks[chunkIndex] = chunk;
+            ownedChunks.set(chunkIndex);
+        }
+        else if (!ownedChunks.get(chunkIndex))
+        {
+            // another storage is still using this chunk so make our own copy of it before writing
+            chunk = chunk.clone();
+            chunks[chunkIndex] = chunk;
+            ownedChunks.set(chunkIndex);
+        }
+
+        if (value == null)
+        {
+            chunk[rowIndex % BLOCK_SIZE] = Double.NaN;
+        }
+        else
+        {
+            chunk[rowIndex % BLOCK_SIZE] = value;
+        }
+        size = Math.max(size, rowIndex + 1);
+    }
+
+    public int readBlock(int startRow, double[] buffer)
+    {
+        int count = Math.max(0, Math.min(buffer.length, size - startRow));
+        int read = 0;
+        while (read < count)
+        {
+            int row = startRow + read;
+            double[] chunk = chunks[row / BLOCK_SIZE];
+            int toCopy = Math.min(count - read, BLOCK_SIZE - row % BLOCK_SIZE);
+            if (chunk == null)
+            {
+                Arrays.fill(buffer, read, read + toCopy, Double.NaN);
+            }
+            else
+            {
+                System.arraycopy(chunk, row % BLOCK_SIZE, buffer, read, toCopy);
+            }
+            read += toCopy;
+        }
+        Arrays.fill(buffer, count, buffer.length, Double.NaN);
+        return count;
+    }
+
+    public ColumnStorage copy()
+    {
+        // share everything and have whichever writes first make its own copies
+        HeapColumnStorage copy = new HeapColumnStorage();
+        copy.chunks = chunks;
+        copy.ownsChunkArray = false;
+        copy.size = size;
+        ownsChunkArray = false;
+        ownedChunks = new BitSet();
+        return copy;
+    }
+
+    public void release()
+    {
+        chunks = new double[0][];
+        ownsChunkArray = true;
+        ownedChunks = new BitSet();
+        size = 0;
+    }
+}
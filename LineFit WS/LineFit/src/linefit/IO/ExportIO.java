@@ -45,6 +45,7 @@ import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.pdf.PdfWriter;
 
+import linefit.ChangeType;
 import linefit.DataDimension;
 import linefit.DataSet;
 import linefit.GraphArea;
@@ -322,6 +323,8 @@ public class ExportIO implements HasOptionsToSave, HasOptionsToDisplay
         laTexGraphWidthInCm = Double.parseDouble(LaTexWidthField.getText());
         laTexGraphHeightInCm = Double.parseDouble(LaTexHeightField.getText());
         exportFontSize = ((Double) exportFontSizeSpinner.getValue()).floatValue();
+
+        generalIO.changeBus.publish(ChangeType.EXPORT_OPTIONS, this);
     }
 
     /** Creates the linefit.sty file for the user to use for LaTex exports
@@ -530,233 +533,229 @@ public class ExportIO implements HasOptionsToSave, HasOptionsToDisplay
         output.append("}\n");
 
         // export our datasets and fits
-        for (int dataSetIdx = 0; dataSetIdx < graphingArea.dataSetSelector.getItemCount(); dataSetIdx++)
+        for (int dataSetIdx = 0; dataSetIdx < graphingArea.dataSetRegistry.getNumberOfDataSets(); dataSetIdx++)
         {
-            DataSet current = graphingArea.dataSetSelector.getItemAt(dataSetIdx);
-            // if its not the empty set we save it
-            if (!current.getName().equals("New DataSet"))
+            DataSet current = graphingArea.dataSetRegistry.getDataSet(dataSetIdx);
+            if (current.visibleGraph && current.hasData())
             {
-                if (current.visibleGraph && current.hasData())
+                if (current.getColor() == Color.BLACK)
                 {
-                    if (current.getColor() == Color.BLACK)
-                    {
-                        output.append("\n\t\\color{black}\n");
-                    }
-                    else if (current.getColor() == Color.YELLOW)
-                    {
-                        output.append("\n\t\\color{yellow}\n");
-                    }
-                    else if (current.getColor() == Color.BLUE)
-                    {
-                        output.append("\n\t\\color{blue}\n");
-                    }
-                    else if (current.getColor() == Color.GREEN)
-                    {
-                        output.append("\n\t\\color{green}\n");
-                    }
-                    else if (current.getColor() == Color.ORANGE)
-                    {
-                        output.append("\n\t\\color{orange}\n");
-                    }
-                    else if (current.getColor() == Color.RED)
-                    {
-                        output.append("\n\t\\color{red}\n");
-                    }
-                    else
-                    {
-                        output.append("\n\t\\color[RGB]{" + current.getColor().getRed() + "," + current.getColor()
-                                .getGreen() + "," + current.getColor().getBlue() + "}\n");
-                    }
+                    output.append("\n\t\\color{black}\n");
+                }
+                else if (current.getColor() == Color.YELLOW)
+                {
+                    output.append("\n\t\\color{yellow}\n");
+                }
+                else if (current.getColor() == Color.BLUE)
+                {
+                    output.append("\n\t\\color{blue}\n");
+                }
+                else if (current.getColor() == Color.GREEN)
+                {
+                    output.append("\n\t\\color{green}\n");
+                }
+                else if (current.getColor() == Color.ORANGE)
+                {
+                    output.append("\n\t\\color{orange}\n");
+                }
+                else if (current.getColor() == Color.RED)
+                {
+                    output.append("\n\t\\color{red}\n");
+                }
+                else
+                {
+                    output.append("\n\t\\color[RGB]{" + current.getColor().getRed() + "," + current.getColor()
+                            .getGreen() + "," + current.getColor().getBlue() + "}\n");
+                }
 
-                    String symbol = "{\\symFilledSquare}";
-                    Ellipse2D.Double ellipse = new Ellipse2D.Double();
-                    Polygon triangle = new Polygon();
+                String symbol = "{\\symFilledSquare}";
+                Ellipse2D.Double ellipse = new Ellipse2D.Double();
+                Polygon triangle = new Polygon();
 
-                    if (current.getShape().getClass() == ellipse.getClass())
-                    {
-                        symbol = "{\\symFilledCircle}";
-                    }
-                    else if (current.getShape().getClass() == triangle.getClass())
-                    {
-                        symbol = "{\\symFilledTriangle}";
-                    }
+                if (current.getShape().getClass() == ellipse.getClass())
+                {
+                    symbol = "{\\symFilledCircle}";
+                }
+                else if (current.getShape().getClass() == triangle.getClass())
+                {
+                    symbol = "{\\symFilledTriangle}";
+                }
 
-                    // get the data with valid points (X and Y)
-                    Double[][] data = current.getAllValidPointsData(true);
-                    Double[] xData = data[DataDimension.X.getColumnIndex()];
-                    Double[] yData = data[DataDimension.Y.getColumnIndex()];
-                    Double[] xErrorData = data[DataDimension.X.getErrorColumnIndex()];
-                    Double[] yErrorData = data[DataDimension.Y.getErrorColumnIndex()];
+                // get the data with valid points (X and Y)
+                Double[][] data = current.getAllValidPointsData(true);
+                Double[] xData = data[DataDimension.X.getColumnIndex()];
+                Double[] yData = data[DataDimension.Y.getColumnIndex()];
+                Double[] xErrorData = data[DataDimension.X.getErrorColumnIndex()];
+                Double[] yErrorData = data[DataDimension.Y.getErrorColumnIndex()];
 
-                    for (int pointIdx = 0; pointIdx < xData.length; pointIdx++)
+                for (int pointIdx = 0; pointIdx < xData.length; pointIdx++)
+                {
+                    output.append("\t\\putpoint");
+                    if (xErrorData[pointIdx] != null)
                     {
-                        output.append("\t\\putpoint");
-                        if (xErrorData[pointIdx] != null)
+                        if (yErrorData[pointIdx] != null)
                         {
-                            if (yErrorData[pointIdx] != null)
-                            {
-                                output.append("xyerr");
-                            }
-                            else
-                            {
-                                output.append("xerr");
-                            }
+                            output.append("xyerr");
                         }
-                        else if (yErrorData[pointIdx] != null)
+                        else
                         {
-                            output.append("yerr");
+                            output.append("xerr");
                         }
+                    }
+                    else if (yErrorData[pointIdx] != null)
+                    {
+                        output.append("yerr");
+                    }
 
-                        output.append(symbol);
+                    output.append(symbol);
+                    output.append("{");
+                    output.append(ScientificNotation.WithNoErrorAndZeroPower((xData[pointIdx] - xAdjForSmall) / Math
+                            .pow(10, axesPowers.xAxisPower)));
+                    output.append("}{");
+                    output.append(ScientificNotation.WithNoErrorAndZeroPower((yData[pointIdx] - yAdjForSmall) / Math
+                            .pow(10, axesPowers.yAxisPower)));
+                    output.append("}");
+
+                    if (xErrorData[pointIdx] != null)
+                    {
                         output.append("{");
-                        output.append(ScientificNotation.WithNoErrorAndZeroPower((xData[pointIdx] - xAdjForSmall) / Math
-                                .pow(10, axesPowers.xAxisPower)));
-                        output.append("}{");
-                        output.append(ScientificNotation.WithNoErrorAndZeroPower((yData[pointIdx] - yAdjForSmall) / Math
-                                .pow(10, axesPowers.yAxisPower)));
+                        output.append(ScientificNotation.WithNoErrorAndZeroPower(xErrorData[pointIdx] / Math.pow(10,
+                                axesPowers.xAxisPower)));
                         output.append("}");
+                    }
 
-                        if (xErrorData[pointIdx] != null)
-                        {
-                            output.append("{");
-                            output.append(ScientificNotation.WithNoErrorAndZeroPower(xErrorData[pointIdx] / Math.pow(10,
-                                    axesPowers.xAxisPower)));
-                            output.append("}");
-                        }
+                    if (yErrorData[pointIdx] != null)
+                    {
+                        output.append("{");
+                        output.append(ScientificNotation.WithNoErrorAndZeroPower(yErrorData[pointIdx] / Math.pow(10,
+                                axesPowers.yAxisPower)));
+                        output.append("}");
+                    }
+                    output.append("\n");
+                }
 
-                        if (yErrorData[pointIdx] != null)
+                // put the line on the graph if we have a fit
+                if (current.getFitType() != FitType.NONE)
+                {
+                    // finds out which axis the line starts and ends on and draws it off of those
+                    // otherwise we would get lines that go outside the graph
+                    double xStart = (origAxesRanges.xAxisMinimumValue) / Math.pow(10, axesPowers.xAxisPower);
+                    double yStart = (current.linearFitStrategy.getYOfXPoint(origAxesRanges.xAxisMinimumValue)) /
+                            Math.pow(10, axesPowers.yAxisPower);
+
+                    if (yStart < origAxesRanges.yAxisMinimumValue / Math.pow(10, axesPowers.yAxisPower) ||
+                            yStart > origAxesRanges.yAxisMaximumValue / Math.pow(10, axesPowers.yAxisPower))
+                    { // if its not on the graph then the other must be
+                        yStart = origAxesRanges.yAxisMinimumValue / Math.pow(10, axesPowers.yAxisPower);
+                        xStart = current.linearFitStrategy.getXOfYPoint(origAxesRanges.yAxisMinimumValue) / Math
+                                .pow(10, axesPowers.xAxisPower);
+                    }
+
+                    double xEnd = (origAxesRanges.xAxisMaximumValue) / Math.pow(10, axesPowers.xAxisPower);
+                    double yEnd = (current.linearFitStrategy.getYOfXPoint(origAxesRanges.xAxisMaximumValue)) / Math
+                            .pow(10, axesPowers.yAxisPower);
+                    if (yEnd > origAxesRanges.yAxisMaximumValue / Math.pow(10, axesPowers.yAxisPower) ||
+                            yEnd < origAxesRanges.yAxisMinimumValue / Math.pow(10, axesPowers.yAxisPower))
+                    { // if its not on the graph then the other must be
+                        yEnd = origAxesRanges.yAxisMaximumValue / Math.pow(10, axesPowers.yAxisPower);
+                        xEnd = current.linearFitStrategy.getXOfYPoint(origAxesRanges.yAxisMaximumValue) / Math.pow(
+                                10, axesPowers.xAxisPower);
+                        if (xEnd > (origAxesRanges.xAxisMaximumValue) / Math.pow(10, axesPowers.xAxisPower) ||
+                                xEnd < (origAxesRanges.xAxisMinimumValue) / Math.pow(10, axesPowers.xAxisPower))
                         {
-                            output.append("{");
-                            output.append(ScientificNotation.WithNoErrorAndZeroPower(yErrorData[pointIdx] / Math.pow(10,
-                                    axesPowers.yAxisPower)));
-                            output.append("}");
+                            yEnd = origAxesRanges.yAxisMinimumValue / Math.pow(10, axesPowers.yAxisPower);
+                            xEnd = current.linearFitStrategy.getXOfYPoint(origAxesRanges.yAxisMinimumValue) / Math
+                                    .pow(10, axesPowers.xAxisPower);
                         }
-                        output.append("\n");
                     }
 
-                    // put the line on the graph if we have a fit
-                    if (current.getFitType() != FitType.NONE)
+                    if (Double.isNaN(xStart) || Double.isNaN(xEnd))
                     {
-                        // finds out which axis the line starts and ends on and draws it off of those
-                        // otherwise we would get lines that go outside the graph
-                        double xStart = (origAxesRanges.xAxisMinimumValue) / Math.pow(10, axesPowers.xAxisPower);
-                        double yStart = (current.linearFitStrategy.getYOfXPoint(origAxesRanges.xAxisMinimumValue)) /
-                                Math.pow(10, axesPowers.yAxisPower);
-
-                        if (yStart < origAxesRanges.yAxisMinimumValue / Math.pow(10, axesPowers.yAxisPower) ||
-                                yStart > origAxesRanges.yAxisMaximumValue / Math.pow(10, axesPowers.yAxisPower))
-                        { // if its not on the graph then the other must be
-                            yStart = origAxesRanges.yAxisMinimumValue / Math.pow(10, axesPowers.yAxisPower);
-                            xStart = current.linearFitStrategy.getXOfYPoint(origAxesRanges.yAxisMinimumValue) / Math
-                                    .pow(10, axesPowers.xAxisPower);
-                        }
+                        xStart = origAxesRanges.xAxisMaximumValue;
+                        xEnd = origAxesRanges.xAxisMaximumValue;
+                    }
 
-                        double xEnd = (origAxesRanges.xAxisMaximumValue) / Math.pow(10, axesPowers.xAxisPower);
-                        double yEnd = (current.linearFitStrategy.getYOfXPoint(origAxesRanges.xAxisMaximumValue)) / Math
-                                .pow(10, axesPowers.yAxisPower);
-                        if (yEnd > origAxesRanges.yAxisMaximumValue / Math.pow(10, axesPowers.yAxisPower) ||
-                                yEnd < origAxesRanges.yAxisMinimumValue / Math.pow(10, axesPowers.yAxisPower))
-                        { // if its not on the graph then the other must be
-                            yEnd = origAxesRanges.yAxisMaximumValue / Math.pow(10, axesPowers.yAxisPower);
-                            xEnd = current.linearFitStrategy.getXOfYPoint(origAxesRanges.yAxisMaximumValue) / Math.pow(
-                                    10, axesPowers.xAxisPower);
-                            if (xEnd > (origAxesRanges.xAxisMaximumValue) / Math.pow(10, axesPowers.xAxisPower) ||
-                                    xEnd < (origAxesRanges.xAxisMinimumValue) / Math.pow(10, axesPowers.xAxisPower))
-                            {
-                                yEnd = origAxesRanges.yAxisMinimumValue / Math.pow(10, axesPowers.yAxisPower);
-                                xEnd = current.linearFitStrategy.getXOfYPoint(origAxesRanges.yAxisMinimumValue) / Math
-                                        .pow(10, axesPowers.xAxisPower);
-                            }
-                        }
+                    if (Double.isNaN(yStart) || Double.isNaN(yEnd))
+                    {
+                        yStart = origAxesRanges.yAxisMaximumValue;
+                        yEnd = origAxesRanges.yAxisMaximumValue;
+                    }
 
-                        if (Double.isNaN(xStart) || Double.isNaN(xEnd))
-                        {
-                            xStart = origAxesRanges.xAxisMaximumValue;
-                            xEnd = origAxesRanges.xAxisMaximumValue;
-                        }
+                    output.append("\t\\putline{");
+                    output.append(ScientificNotation.WithNoErrorAndZeroPower(xStart - xAdjForSmall /
+                            yAxisPowerMultiplier));
+                    output.append("}{");
+                    output.append(ScientificNotation.WithNoErrorAndZeroPower(yStart - yAdjForSmall /
+                            yAxisPowerMultiplier));
+                    output.append("}{");
+                    output.append(ScientificNotation.WithNoErrorAndZeroPower(xEnd - xAdjForSmall /
+                            xAxisPowerMultiplier));
+                    output.append("}{");
+                    output.append(ScientificNotation.WithNoErrorAndZeroPower(yEnd - yAdjForSmall /
+                            xAxisPowerMultiplier));
+                    output.append("}\n");
+
+                    // do the result on graphs part if they are selected to be displayed
+                    if (graphingArea.resultsAreDisplayedOnGraph)
+                    {
+                        ResultsDisplayData resultsDisplay = graphingArea.GetResultsDisplayData();
 
-                        if (Double.isNaN(yStart) || Double.isNaN(yEnd))
+                        String kStr = "";
+                        if (graphingArea.dataSetRegistry.getNumberOfDataSets() > 1)
                         {
-                            yStart = origAxesRanges.yAxisMaximumValue;
-                            yEnd = origAxesRanges.yAxisMaximumValue;
+                            kStr = "$_{" + (dataSetIdx + 1) + "}$";
                         }
 
-                        output.append("\t\\putline{");
-                        output.append(ScientificNotation.WithNoErrorAndZeroPower(xStart - xAdjForSmall /
-                                yAxisPowerMultiplier));
+                        double defaultResultsLength = currentFontMeasurements.stringWidth("m = 0.0000");
+                        double currentResultsLength = graphingArea.getLongestResultsLength();
+                        // this is y = mx + b from plotting desired spacing at 3 different font sizes and then
+                        // fitting a line to it
+                        String xPosStr = "" + (laTexGraphWidthInCm - (1 + exportFontSize * 0.1) *
+                                (currentResultsLength / defaultResultsLength) -
+                                (double) resultsDisplay.resultsPositionX / resultsDisplay.graphWidthAfterPadding *
+                                        laTexGraphWidthInCm);
+
+                        double yFontSizeInGraphUnits = 0.35 * (exportFontSize / 12.0);
+                        double yResPos = -yFontSizeInGraphUnits / 2 + (double) resultsDisplay.resultsPositionY /
+                                resultsDisplay.graphHeightAfterPadding * laTexGraphHeightInCm;
+
+                        String resultsSuffixString = "}{" + axesRanges.xAxisMinimumValue / xAxisPowerMultiplier +
+                                "}{" + axesRanges.yAxisMinimumValue / yAxisPowerMultiplier + "}\n";
+                        output.append("\t\\putresults{y");
+                        output.append(kStr);
+                        output.append(" = m");
+                        output.append(kStr);
+                        output.append("x + b");
+                        output.append(kStr);
                         output.append("}{");
-                        output.append(ScientificNotation.WithNoErrorAndZeroPower(yStart - yAdjForSmall /
-                                yAxisPowerMultiplier));
+                        output.append(xPosStr);
                         output.append("}{");
-                        output.append(ScientificNotation.WithNoErrorAndZeroPower(xEnd - xAdjForSmall /
-                                xAxisPowerMultiplier));
+                        output.append(ScientificNotation.WithNoErrorAndZeroPower(yResPos + yFontSizeInGraphUnits *
+                                3));
+                        output.append(resultsSuffixString);
+                        output.append("\t\\putresults{m");
+                        output.append(kStr);
+                        output.append(" = ");
+                        output.append(current.linearFitStrategy.getSlopeAsString(
+                                resultsDisplay.resultsDecimalPlaces, resultsDisplay.resultsUseScientificNotation,
+                                true));
                         output.append("}{");
-                        output.append(ScientificNotation.WithNoErrorAndZeroPower(yEnd - yAdjForSmall /
-                                xAxisPowerMultiplier));
-                        output.append("}\n");
-
-                        // do the result on graphs part if they are selected to be displayed
-                        if (graphingArea.resultsAreDisplayedOnGraph)
-                        {
-                            ResultsDisplayData resultsDisplay = graphingArea.GetResultsDisplayData();
-
-                            String kStr = "";
-                            if (graphingArea.dataSetSelector.getItemCount() > 1)
-                            {
-                                kStr = "$_{" + (dataSetIdx + 1) + "}$";
-                            }
-
-                            double defaultResultsLength = currentFontMeasurements.stringWidth("m = 0.0000");
-                            double currentResultsLength = graphingArea.getLongestResultsLength();
-                            // this is y = mx + b from plotting desired spacing at 3 different font sizes and then
-                            // fitting a line to it
-                            String xPosStr = "" + (laTexGraphWidthInCm - (1 + exportFontSize * 0.1) *
-                                    (currentResultsLength / defaultResultsLength) -
-                                    (double) resultsDisplay.resultsPositionX / resultsDisplay.graphWidthAfterPadding *
-                                            laTexGraphWidthInCm);
-
-                            double yFontSizeInGraphUnits = 0.35 * (exportFontSize / 12.0);
-                            double yResPos = -yFontSizeInGraphUnits / 2 + (double) resultsDisplay.resultsPositionY /
-                                    resultsDisplay.graphHeightAfterPadding * laTexGraphHeightInCm;
-
-                            String resultsSuffixString = "}{" + axesRanges.xAxisMinimumValue / xAxisPowerMultiplier +
-                                    "}{" + axesRanges.yAxisMinimumValue / yAxisPowerMultiplier + "}\n";
-                            output.append("\t\\putresults{y");
-                            output.append(kStr);
-                            output.append(" = m");
-                            output.append(kStr);
-                            output.append("x + b");
-                            output.append(kStr);
-                            output.append("}{");
-                            output.append(xPosStr);
-                            output.append("}{");
-                            output.append(ScientificNotation.WithNoErrorAndZeroPower(yResPos + yFontSizeInGraphUnits *
-                                    3));
-                            output.append(resultsSuffixString);
-                            output.append("\t\\putresults{m");
-                            output.append(kStr);
-                            output.append(" = ");
-                            output.append(current.linearFitStrategy.getSlopeAsString(
-                                    resultsDisplay.resultsDecimalPlaces, resultsDisplay.resultsUseScientificNotation,
-                                    true));
-                            output.append("}{");
-                            output.append(xPosStr);
-                            output.append("}{");
-                            output.append(ScientificNotation.WithNoErrorAndZeroPower(yResPos + yFontSizeInGraphUnits *
-                                    2));
-                            output.append(resultsSuffixString);
-                            output.append("\t\\putresults{b");
-                            output.append(kStr);
-                            output.append(" = ");
-                            output.append(current.linearFitStrategy.getInterceptAsString(
-                                    resultsDisplay.resultsDecimalPlaces, axesPowers.yAxisPower,
-                                    resultsDisplay.resultsUseScientificNotation, true));
-                            output.append("}{");
-                            output.append(xPosStr);
-                            output.append("}{");
-                            output.append(ScientificNotation.WithNoErrorAndZeroPower(yResPos + yFontSizeInGraphUnits));
-                            output.append(resultsSuffixString);
-                        }
+                        output.append(xPosStr);
+                        output.append("}{");
+                        output.append(ScientificNotation.WithNoErrorAndZeroPower(yResPos + yFontSizeInGraphUnits *
+                                2));
+                        output.append(resultsSuffixString);
+                        output.append("\t\\putresults{b");
+                        output.append(kStr);
+                        output.append(" = ");
+                        output.append(current.linearFitStrategy.getInterceptAsString(
+                                resultsDisplay.resultsDecimalPlaces, axesPowers.yAxisPower,
+                                resultsDisplay.resultsUseScientificNotation, true));
+                        output.append("}{");
+                        output.append(xPosStr);
+                        output.append("}{");
+                        output.append(ScientificNotation.WithNoErrorAndZeroPower(yResPos + yFontSizeInGraphUnits));
+                        output.append(resultsSuffixString);
                     }
                 }
             }
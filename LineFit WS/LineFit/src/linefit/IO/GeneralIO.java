@@ -31,6 +31,7 @@ import javax.imageio.ImageIO;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 
+import linefit.ChangeBus;
 import linefit.GraphArea;
 import linefit.LineFit;
 import linefit.Version;
@@ -51,8 +52,8 @@ public class GeneralIO
     public ExportIO exportIO;
     /** The object that handles the file IO functionality of LineFit */
     public LineFitFileIO fileIO;
-    /** The object that keeps track of if any changes have been made */
-    public ChangeTracker changeTracker;
+    /** The bus that changes are published to which also keeps track of if any changes have been made */
+    public ChangeBus changeBus;
 
     /** The Icon as a BufferedImage that is used for any JFrames created in the lineFit program */
     private static BufferedImage lineFitIcon;
@@ -76,13 +77,13 @@ public class GeneralIO
     /** The JFileChooser that allows the user to select files to open or import with a GUI */
     private JFileChooser fileChooser;
 
-    /** The constructor for LineFitFileIO that creates a new instance of ChangeTracker to track if the data has changed
-     * and that uses the passed LineFIT instance and Graph
+    /** The constructor for LineFitFileIO that creates a new instance of ChangeBus to track if the data has changed and
+     * that uses the passed LineFIT instance and Graph
      * 
      * @param lineFitToAssociateWith The LineFit object this General IO helper is associated with/is to help */
     public GeneralIO(LineFit lineFitToAssociateWith)
     {
-        changeTracker = new ChangeTracker();
+        changeBus = new ChangeBus();
         lineFit = lineFitToAssociateWith;
         fileIO = new LineFitFileIO(this, lineFit);
     }
@@ -376,7 +377,7 @@ public class GeneralIO
             }
             case JOptionPane.NO_OPTION:
             {
-                changeTracker.clearFileModified();
+                changeBus.clearFileModified();
                 closeApplication();
                 System.out.println("Quitting without saving!");
                 break;
@@ -401,7 +402,7 @@ public class GeneralIO
     /** Closes ourself in a safe way that asks the user if they want to save if there are unsaved changes */
     public void closeApplication()
     {
-        if (changeTracker.unsavedModifications())
+        if (changeBus.unsavedModifications())
         {
             // Ask user if data should be saved
             confirmQuitWithoutSave();
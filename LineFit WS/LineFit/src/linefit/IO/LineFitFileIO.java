@@ -369,7 +369,7 @@ public class LineFitFileIO
 
                     // we have now saved our file! The DirtyBit should be clean!
                     // only set this if we detected the file was saved successfully
-                    generalIO.changeTracker.clearFileModified();
+                    generalIO.changeBus.clearFileModified();
                 }
                 else
                 {
@@ -116,8 +116,10 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
     private int dataSetTableWidth = 0;
 
     // Variables for the drop downs and options on the quick bar
+    /** The registry of all the DataSets that is also the model of the DataSet drop down menu */
+    private DataSetRegistry dataSetRegistry;
     /** The drop down menu that contains the DataSets as well as the currently selected DataSet */
-    private JComboBox<DataSet> dataSetSelector = new JComboBox<DataSet>();
+    private JComboBox<DataSet> dataSetSelector;
     /** The drop down box that allows the user to select the FitType of the current DataSet */
     private JComboBox<FitType> fitSelector = new JComboBox<FitType>();
     /** The drop down box that allows the user to select the Color of the current DataSet */
@@ -189,6 +191,19 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
     /** The keyboard shortcut for the exit LineFit option in the menu bar drop down */
     private static final String menuTitles_Exit_Shortcut = "ctrl E";
 
+    /** The String to be displayed for the global fit option in the menu bar drop down */
+    private static final String menuTitles_GlobalFit = "Global Fit...";
+    /** The keyboard shortcut for the global fit option in the menu bar drop down */
+    private static final String menuTitles_GlobalFit_Shortcut = "control shift F";
+    /** The String to be displayed for the compare fit algorithms option in the menu bar drop down */
+    private static final String menuTitles_CompareFitAlgorithms = "Compare Fit Algorithms...";
+    /** The keyboard shortcut for the compare fit algorithms option in the menu bar drop down */
+    private static final String menuTitles_CompareFitAlgorithms_Shortcut = "control shift C";
+    /** The String to be displayed for the chi squared profile option in the menu bar drop down */
+    private static final String menuTitles_ChiSquaredProfile = "Chi Squared Profile...";
+    /** The keyboard shortcut for the chi squared profile option in the menu bar drop down */
+    private static final String menuTitles_ChiSquaredProfile_Shortcut = "control shift X";
+
     /** The String to be displayed for the LineFit help option in the menu bar drop down */
     private static final String menuTitles_LineFitHelp = "LineFit Help";
     /** The keyboard shortcut for the LineFit help option in the menu bar drop down */
@@ -213,10 +228,6 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
     // Classes that should be set once upon initialization
     /** The object that handles the IO for LineFit */
     private final GeneralIO ioHandler;
-    /** The action to perform when the allowable fit types for the displayed DataSet are updated */
-    private final Runnable onUpdateFitTypesAction;
-    /** The action to perform when the color of the selected DataSet is updated */
-    private final Runnable onUpdateColorAction;
     /** The custom color menu object to allow users to custom choose colors for the DataSets */
     private CustomColorMenu customColorMenu;
 
@@ -230,9 +241,7 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
         super("LineFit");
         setSize(1000, 750);
 
-        // Set up some of the update actions and the IO
-        onUpdateFitTypesAction = new updateDataSetAction();
-        onUpdateColorAction = new updateDataSetColorAction();
+        // Set up the IO
         ioHandler = new GeneralIO(this);
         this.setIconImage(ioHandler.getLineFitIcon());
 
@@ -241,9 +250,18 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
         fitResultsArea.setEditable(false);
         fitResultsArea.setBackground(null);
 
+        // create the registry of the DataSets with the new DataSet option at the end of the dataSet selector combo box
+        dataSetRegistry = new DataSetRegistry(DataSet.createDropDownPlaceHolder("New DataSet"));
+        dataSetSelector = new JComboBox<DataSet>(dataSetRegistry);
+
         // make our graph area
         graphingArea = new GraphArea(DEFAULT_X_AXIS_MINIMUM_VALUE, DEFAULT_X_AXIS_MAXIMUM_VALUE,
-                DEFAULT_Y_AXIS_MINIMUM_VALUE, DEFAULT_Y_AXIS_MAXIMUM_VALUE, dataSetSelector, fitResultsArea);
+                DEFAULT_Y_AXIS_MINIMUM_VALUE, DEFAULT_Y_AXIS_MAXIMUM_VALUE, dataSetRegistry, ioHandler.changeBus,
+                fitResultsArea);
+
+        // keep the quick bar and the DataSet table up to date with changes made to the selected DataSet
+        ioHandler.changeBus.subscribe(ChangeStage.LAYOUT, new updateDataSetSubscriber(), ChangeType.DATA);
+        ioHandler.changeBus.subscribe(ChangeStage.LAYOUT, new updateDataSetColorSubscriber(), ChangeType.APPEARANCE);
 
         ioHandler.InitializeExportIO(graphingArea);
 
@@ -311,10 +329,6 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
         columnSelector = new JSpinner(columnSelectorModel);
         columnSelector.setToolTipText("Add or Subtract a Column");
 
-        // create the new DataSet option in the dataSet selector combo box
-        DataSet newDataSet = DataSet.createDropDownPlaceHolder("New DataSet");
-        dataSetSelector.addItem(newDataSet);
-
         // Set up line color selection ComboBox
         colorSelector.setRenderer(colorSelectorRenderer);
 
@@ -354,10 +368,12 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
 
         // Create Main Menus
         JMenu fileMenu = new JMenu("File");
+        JMenu fitMenu = new JMenu("Fit");
         JMenu helpMenu = new JMenu("Help");
 
         // Add Main Menus to main Menu bar
         menuBar.add(fileMenu);
+        menuBar.add(fitMenu);
         menuBar.add(helpMenu);
 
         // Create items to be placed in "File" menu and add their shortcuts
@@ -384,6 +400,15 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
         // Install the menu bar in the frame
         setJMenuBar(menuBar);
 
+        // Create items to be placed in "Fit" menu and add their shortcuts
+        ActionListener fitMenuListener = new FitMenuBarDropDownButtonsListener();
+
+        Utils.createAndAddMenuItem(fitMenu, menuTitles_GlobalFit, fitMenuListener, menuTitles_GlobalFit_Shortcut);
+        Utils.createAndAddMenuItem(fitMenu, menuTitles_CompareFitAlgorithms, fitMenuListener,
+                menuTitles_CompareFitAlgorithms_Shortcut);
+        Utils.createAndAddMenuItem(fitMenu, menuTitles_ChiSquaredProfile, fitMenuListener,
+                menuTitles_ChiSquaredProfile_Shortcut);
+
         // Create items to be placed in "Help" menu and add their shortcuts
         ActionListener helpMenuListener = new HelpMenuBarDropDownButtonsListener();
 
@@ -467,7 +492,7 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
     private DataSet createNewDataSet()
     {
         // create a new dataset
-        DataSet current = new DataSet(ioHandler.changeTracker, onUpdateFitTypesAction);
+        DataSet current = new DataSet(ioHandler.changeBus);
 
         // Register it with the graphing area which will keep the new DataSet option at the end of the list and select
         // it which will then trigger the listener to update the GUI with the new dataset
@@ -482,11 +507,11 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
         temporarilyDisableQuickMenuListener++;
 
         // get the currently selected dataset
-        DataSet current = (DataSet) dataSetSelector.getSelectedItem();
+        DataSet current = dataSetRegistry.getSelectedDataSet();
 
         // remove all and then add the dataset we are displaying the table for and the fit data panel
         rightSideBar.removeAll();
-        rightSideBar.add(current);
+        rightSideBar.add(current.getView());
         rightSideBar.add(fitDataPanel);
 
         // Update the fit types that are available
@@ -525,6 +550,9 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
         updateLayout();
 
         temporarilyDisableQuickMenuListener--;
+
+        // let the graph know so it displays the results of the newly selected DataSet
+        ioHandler.changeBus.publish(ChangeType.SELECTION, current);
     }
 
     /** Makes it so that the number of columns in the current DataSet is equal to the given number
@@ -533,8 +561,8 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
     private void setNumberOfVisibleColumns(int desiredColumns)
     {
         rightSideBar.removeAll();
-        DataSet current = (DataSet) dataSetSelector.getSelectedItem();
-        rightSideBar.add(current);
+        DataSet current = dataSetRegistry.getSelectedDataSet();
+        rightSideBar.add(current.getView());
         rightSideBar.add(fitDataPanel);
 
         current.setNumberOfDisplayedColumns(desiredColumns);
@@ -544,8 +572,7 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
 
     private void updateDataSetTableWidth()
     {
-        dataSetTableWidth = ((DataSet) dataSetSelector.getSelectedItem()).getNumberOfDisplayedColumns() *
-                DATA_COLUMN_WIDTH;
+        dataSetTableWidth = dataSetRegistry.getSelectedDataSet().getNumberOfDisplayedColumns() * DATA_COLUMN_WIDTH;
         updateLayout();
     }
 
@@ -553,7 +580,7 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
     public void updateFitTypes()
     {
         // get the currently selected dataset
-        DataSet current = (DataSet) dataSetSelector.getSelectedItem();
+        DataSet current = dataSetRegistry.getSelectedDataSet();
 
         FitType currentFit = current.getFitType();
         boolean changedFitType = fitSelector.getSelectedItem() == currentFit;
@@ -708,7 +735,7 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
                     createNewDataSet();
                     break;
                 case menuTitles_GraphOptions:
-                    DataSet current = (DataSet) dataSetSelector.getSelectedItem();
+                    DataSet current = dataSetRegistry.getSelectedDataSet();
                     new GraphOptionsMenu(graphingArea, current, ioHandler);
                     break;
                 case menuTitles_ExportJPG:
@@ -727,6 +754,33 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
         }
     }
 
+    /** A Listener class that is used for the buttons in the "Fit" drop down menu from the menu bar at the top of the
+     * LineFit window
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private class FitMenuBarDropDownButtonsListener implements ActionListener
+    {
+        /** Handles the action and determines which of the menu buttons was clicked and then acts accordingly */
+        @Override
+        public void actionPerformed(ActionEvent e)
+        {
+            switch (e.getActionCommand())
+            {
+                case menuTitles_GlobalFit:
+                    centerOnThis(new GlobalFitFrame(graphingArea, ioHandler));
+                    break;
+                case menuTitles_CompareFitAlgorithms:
+                    centerOnThis(new FitComparisonFrame(graphingArea, ioHandler));
+                    break;
+                case menuTitles_ChiSquaredProfile:
+                    centerOnThis(new ChiSquaredProfileFrame(graphingArea, ioHandler));
+                    break;
+            }
+        }
+    }
+
     /** A Listener class that is used for the buttons in the "Help" drop down menu from the menu bar at the top of the
      * LineFit window
      * 
@@ -770,19 +824,18 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
             {
                 if (e.getActionCommand().equals("Visible"))
                 {
-                    DataSet current = (DataSet) dataSetSelector.getSelectedItem();
-                    ioHandler.changeTracker.setFileModified();
+                    DataSet current = dataSetRegistry.getSelectedDataSet();
                     current.visibleGraph = !current.visibleGraph;
-                    graphingArea.repaint();
+                    ioHandler.changeBus.publish(ChangeType.APPEARANCE, current);
                 }
                 else if (e.getSource() == dataSetSelector)
                 {
-                    DataSet current = (DataSet) dataSetSelector.getSelectedItem();
+                    DataSet current = dataSetRegistry.getSelectedDataSet();
                     if (current == null)
                     {
                         return;
                     }
-                    if (current.getName().equals("New DataSet"))
+                    if (current.isPlaceholder())
                     {
                         // create the new dataset which will also select it. We still need to refresh the GUI here
                         // though because the listener is disabled while it is being executed to help avoid endless
@@ -796,7 +849,7 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
                 else if (e.getSource() == colorSelector)
                 {
                     // Event handler for colorSelector
-                    DataSet current = (DataSet) dataSetSelector.getSelectedItem();
+                    DataSet current = dataSetRegistry.getSelectedDataSet();
                     Color color = (Color) colorSelector.getSelectedItem();
 
                     // if its the reserved color then do some special things
@@ -804,48 +857,41 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
                     {
                         if (customColorMenu == null)
                         {
-                            customColorMenu = new CustomColorMenu(onUpdateColorAction);
+                            customColorMenu = new CustomColorMenu();
                         }
 
                         customColorMenu.setDataSetAndFocus(current);
 
                         // we repaint when we close the custom color window and not now
                     }
-                    // only set the color if we are not using the reserved color value
+                    // only set the color if we are not using the reserved color value. The graph is redrawn once the
+                    // change is delivered
                     else
                     {
                         current.setColor(color);
-                        colorSelectorRenderer.setCustomColor(current.getLastCustomColor());
-
-                        // repaint the graph area
-                        graphingArea.repaint();
                     }
                 }
                 else if (e.getSource() == shapeSelector)
                 {
-                    DataSet current = (DataSet) dataSetSelector.getSelectedItem();
+                    DataSet current = dataSetRegistry.getSelectedDataSet();
                     Shape shape = (Shape) shapeSelector.getSelectedItem();
                     current.setShape(shape);
-
-                    graphingArea.repaint();
-
                 }
                 else if (e.getSource() == fitSelector)
                 {
                     // Event handler for fitSelector
-                    DataSet current = (DataSet) dataSetSelector.getSelectedItem();
+                    DataSet current = dataSetRegistry.getSelectedDataSet();
                     FitType fit = (FitType) fitSelector.getSelectedItem();
 
                     if (fit != null)
                     {
-                        // Set the fit type and repaint the graph
+                        // Set the fit type which will refit and redraw the graph once the change is delivered
                         current.setFitType(fit);
-                        graphingArea.repaint();
                     }
                 }
                 else if (e.getSource() == graphOptionsButton)
                 {
-                    DataSet current = (DataSet) dataSetSelector.getSelectedItem();
+                    DataSet current = dataSetRegistry.getSelectedDataSet();
                     centerOnThis(new GraphOptionsMenu(graphingArea, current, ioHandler));
                 }
             }
@@ -869,19 +915,24 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
         }
     }
 
-    /** A Runnable class that handles the actions that should be performed when the color for the displayed DataSet is
-     * updated
+    /** A ChangeSubscriber class that handles the actions that should be performed when the color for the displayed
+     * DataSet is updated
      * 
      * @author Keith Rice
      * @version 1.0
      * @since 0.99.0 */
-    private class updateDataSetColorAction implements Runnable
+    private class updateDataSetColorSubscriber implements ChangeSubscriber
     {
-        /** The action that is performed when the color is updated for the displayed DataSet */
+        /** The action that is performed when the appearance of a DataSet is updated which updates the color selector if
+         * it was the displayed DataSet */
         @Override
-        public void run()
+        public void changesPublished(ChangeSet changes)
         {
-            DataSet selected = (DataSet) dataSetSelector.getSelectedItem();
+            DataSet selected = dataSetRegistry.getSelectedDataSet();
+            if (!changes.contains(ChangeType.APPEARANCE, selected))
+            {
+                return;
+            }
             Color currentColor = selected.getColor();
 
             colorSelectorRenderer.setCustomColor(selected.getLastCustomColor());
@@ -899,24 +950,27 @@ public class LineFit extends JFrame implements HasOptionsToSave, HasDataToSave
             temporarilyDisableQuickMenuListener--;
 
             colorSelector.repaint();
-            graphingArea.repaint();
         }
     }
 
-    /** A Runnable class that handles the actions that should be performed when the allowable fit types for the
-     * displayed DataSet are updated
+    /** A ChangeSubscriber class that handles the actions that should be performed when the data and therefore the
+     * allowable fit types for the displayed DataSet are updated
      * 
      * @author Keith Rice
      * @version 1.0
      * @since 0.99.0 */
-    private class updateDataSetAction implements Runnable
+    private class updateDataSetSubscriber implements ChangeSubscriber
     {
-        /** The action that is performed when the fit types are updated for the displayed DataSet */
+        /** The action that is performed when the data is updated for any of the DataSets which updates the fit types
+         * and table if it was the displayed DataSet */
         @Override
-        public void run()
+        public void changesPublished(ChangeSet changes)
         {
-            updateFitTypes();
-            updateDataSetTableWidth(); // Causes a repaint
+            if (changes.contains(ChangeType.DATA, dataSetRegistry.getSelectedDataSet()))
+            {
+                updateFitTypes();
+                updateDataSetTableWidth();
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,330 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+package linefit;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+/** ColumnStorage that keeps the values in a memory mapped temporary file instead of on the Java heap so that DataSets
+ * larger than the heap can still be fit and graphed. The file is mapped in fixed size segments that are added as the
+ * column grows and the operating system pages them in and out of memory as they are used. Like HeapColumnStorage,
+ * copies share the segments and the file with the storage they were copied from and a segment is only copied to a new
+ * part of the file when one of them writes to it, so copying the storage does not copy the file. The file is deleted
+ * once it has been released by all of the storages using it. Since values entered by the user can never be NaN, NaN is
+ * used to mark rows without a value
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class MappedColumnStorage implements ColumnStorage
+{
+    /** The number of doubles in each mapped segment of the file */
+    private final static int VALUES_PER_SEGMENT = 1 << 20;
+    /** The number of bytes in each double in the file */
+    private final static int BYTES_PER_VALUE = 8;
+
+    /** The temporary file new segments are mapped from, which is shared with any copies of this storage */
+    private MappedFile file;
+    /** The mapped segments of the values in order */
+    private ArrayList<Segment> segments;
+    /** The number of rows in the storage including any rows without a value */
+    private int size = 0;
+
+    /** Creates an empty storage backed by a new temporary file
+     * 
+     * @throws IOException Throws an IOException if the temporary file could not be created */
+    MappedColumnStorage() throws IOException
+    {
+        this(new MappedFile());
+    }
+
+    /** Creates an empty storage that maps its segments from the passed file
+     * 
+     * @param fileToMap The file to map the segments from. The storage takes over one of its references */
+    private MappedColumnStorage(MappedFile fileToMap)
+    {
+        file = fileToMap;
+        segments = new ArrayList<Segment>();
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public Double get(int rowIndex)
+    {
+        if (rowIndex < 0 || rowIndex >= size)
+        {
+            return null;
+        }
+
+        double value = segments.get(rowIndex / VALUES_PER_SEGMENT).values.get(rowIndex % VALUES_PER_SEGMENT);
+        if (Double.isNaN(value))
+        {
+            return null;
+        }
+        return value;
+    }
+
+    public void set(int rowIndex, Double value)
+    {
+        if (rowIndex < 0)
+        {
+            return;
+        }
+
+        // mark any rows being added before the one being set as empty
+        while (size <= rowIndex)
+        {
+            if (size % VALUES_PER_SEGMENT == 0 && size / VALUES_PER_SEGMENT == segments.size())
+            {
+                segments.add(file.mapSegment());
+            }
+            getWritableSegment(size / VALUES_PER_SEGMENT).put(size % VALUES_PER_SEGMENT, Double.NaN);
+            size++;
+        }
+
+        double toStore = Double.NaN;
+        if (value != null)
+        {
+            toStore = value;
+        }
+        getWritableSegment(rowIndex / VALUES_PER_SEGMENT).put(rowIndex % VALUES_PER_SEGMENT, toStore);
+    }
+
+    /** Gets the values of the segment with the passed index to write to, first copying them to a new segment if the
+     * segment is shared with another storage
+     * 
+     * @param segmentIndex The index of the segment to write to
+     * @return The values of the segment that this storage can write to */
+    private DoubleBuffer getWritableSegment(int segmentIndex)
+    {
+        Segment segment = segments.get(segmentIndex);
+        if (!segment.isOnlyUser())
+        {
+            // another storage is still using this segment so make our own copy of it before writing
+            Segment copy = file.mapSegment();
+            DoubleBuffer source = segment.values.duplicate();
+            source.clear();
+            copy.values.duplicate().put(source);
+            segments.set(segmentIndex, copy);
+            segment.removeUser();
+            segment = copy;
+        }
+        return segment.values;
+    }
+
+    public int readBlock(int startRow, double[] buffer)
+    {
+        int count = Math.max(0, Math.min(buffer.length, size - startRow));
+        int read = 0;
+        while (read < count)
+        {
+            // read as much as possible from each segment at once
+            int row = startRow + read;
+            DoubleBuffer segment = segments.get(row / VALUES_PER_SEGMENT).values.duplicate();
+            segment.position(row % VALUES_PER_SEGMENT);
+            int toRead = Math.min(count - read, segment.remaining());
+            segment.get(buffer, read, toRead);
+            read += toRead;
+        }
+        Arrays.fill(buffer, count, buffer.length, Double.NaN);
+        return count;
+    }
+
+    public ColumnStorage copy()
+    {
+        // share everything and have whichever writes first make its own copies
+        file.addReference();
+        MappedColumnStorage copy = new MappedColumnStorage(file);
+        for (Segment segment : segments)
+        {
+            segment.addUser();
+            copy.segments.add(segment);
+        }
+        copy.size = size;
+        return copy;
+    }
+
+    public void release()
+    {
+        // the mapped segments are unmapped when they are garbage collected so just stop using them and the file
+        for (Segment segment : segments)
+        {
+            segment.removeUser();
+        }
+        segments.clear();
+        size = 0;
+        file.removeReference();
+    }
+
+    // private classes
+    /** A temporary file that segments are mapped from. The file is shared by a storage and its copies and is closed and
+     * deleted once none of them are using it or any of its segments. The parts of the file of segments that are no
+     * longer used are reused for new segments so that copying segments when they are written to does not keep growing
+     * the file
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private static class MappedFile
+    {
+        /** The temporary file the values are stored in */
+        private File storageFile;
+        /** The open file the segments are mapped from */
+        private RandomAccessFile openFile;
+        /** The number of bytes of the file that have been mapped */
+        private long mappedLength = 0;
+        /** The offsets of the parts of the file whose segments are no longer used */
+        private ArrayList<Long> freeOffsets = new ArrayList<Long>();
+        /** The number of storages and segments using the file */
+        private int references = 1;
+
+        /** Creates a new temporary file to map segments from
+         * 
+         * @throws IOException Throws an IOException if the temporary file could not be created */
+        private MappedFile() throws IOException
+        {
+            storageFile = File.createTempFile("LineFitColumn", ".dat");
+            storageFile.deleteOnExit();
+            openFile = new RandomAccessFile(storageFile, "rw");
+        }
+
+        /** Maps a new segment from an unused part of the file, growing the file if there is none
+         * 
+         * @return The new segment, which has no other users and whose values are not set
+         * @throws IllegalStateException Throws an IllegalStateException if the segment could not be mapped */
+        private synchronized Segment mapSegment()
+        {
+            long segmentBytes = (long) VALUES_PER_SEGMENT * BYTES_PER_VALUE;
+            long offset = mappedLength;
+            if (!freeOffsets.isEmpty())
+            {
+                offset = freeOffsets.remove(freeOffsets.size() - 1);
+            }
+
+            try
+            {
+                ByteBuffer mapped = openFile.getChannel().map(FileChannel.MapMode.READ_WRITE, offset, segmentBytes);
+                mappedLength = Math.max(mappedLength, offset + segmentBytes);
+                references++;
+                return new Segment(mapped.asDoubleBuffer(), this, offset);
+            }
+            catch (IOException ioe)
+            {
+                throw new IllegalStateException("Could not map the column storage file: " + ioe.getMessage(), ioe);
+            }
+        }
+
+        /** Marks the part of the file at the passed offset as unused once its segment is no longer used
+         * 
+         * @param offset The offset in bytes of the segment in the file */
+        private synchronized void freeSegment(long offset)
+        {
+            freeOffsets.add(offset);
+            removeReference();
+        }
+
+        /** Adds a storage or segment that uses the file */
+        private synchronized void addReference()
+        {
+            references++;
+        }
+
+        /** Removes a storage or segment that used the file, closing and deleting the file if it was the last one */
+        private synchronized void removeReference()
+        {
+            references--;
+            if (references > 0)
+            {
+                return;
+            }
+
+            try
+            {
+                openFile.close();
+            }
+            catch (IOException ioe)
+            {
+                System.err.println("Error closing the column storage file: " + ioe.getMessage());
+            }
+            if (!storageFile.delete())
+            {
+                System.err.println("Could not delete the column storage file now. It will be deleted on exit");
+            }
+        }
+    }
+
+    /** One mapped segment of a file that may be shared by several storages. It can only be written to while only one
+     * storage is using it
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private static class Segment
+    {
+        /** The mapped values of the segment */
+        private final DoubleBuffer values;
+        /** The file the segment is mapped from */
+        private final MappedFile file;
+        /** The offset in bytes of the segment in the file */
+        private final long offset;
+        /** The number of storages using the segment */
+        private int users = 1;
+
+        /** Creates a segment used by one storage
+         * 
+         * @param mappedValues The mapped values of the segment
+         * @param mappedFrom The file the segment is mapped from
+         * @param offsetInFile The offset in bytes of the segment in the file */
+        private Segment(DoubleBuffer mappedValues, MappedFile mappedFrom, long offsetInFile)
+        {
+            values = mappedValues;
+            file = mappedFrom;
+            offset = offsetInFile;
+        }
+
+        /** Checks if only one storage is using the segment so that it can write to it directly
+         * 
+         * @return True if there is only one user of the segment */
+        private synchronized boolean isOnlyUser()
+        {
+            return users == 1;
+        }
+
+        /** Adds a storage that uses the segment */
+        private synchronized void addUser()
+        {
+            users++;
+        }
+
+        /** Removes a storage that used the segment, giving its part of the file back to be reused if it was the last
+         * one */
+        private synchronized void removeUser()
+        {
+            users--;
+            if (users == 0)
+            {
+                file.freeSegment(offset);
+            }
+        }
+    }
+}
@@ -0,0 +1,408 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.util.Arrays;
+
+
+/** Holds the pixel positions of the points of a DataSet that are inside of the graph area so that the points do not
+ * need to be converted from graph values to pixels every time they are used. The rows are converted a block at a time
+ * straight from the DataColumns and are only converted again when the data, the axes or the size of the graph area
+ * change. When the graph is zoomed in on part of the DataSet a SortedXIndex can be used so that only the rows with x
+ * values inside of the axes are converted and when rows are only appended to the DataSet just the new rows are
+ * converted and added to the end of the points. The x and y pixels of each point are packed into a single int to keep
+ * the geometry of large DataSets small
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class PixelGeometry
+{
+    /** The length used for an error bar that is not displayed so that any displayed error bar is longer than it */
+    final static int NO_ERROR_BAR = -1;
+    /** The number of bits the y pixel is shifted by when packed with the x pixel */
+    private final static int PIXEL_Y_SHIFT = 16;
+    /** The mask of the bits of a packed pixel that hold the x pixel */
+    private final static int PIXEL_X_MASK = 0xFFFF;
+
+    /** The number of points inside of the graph area */
+    private int numberOfPoints = 0;
+    /** The index in the DataSet of the row of each point */
+    private int[] rows = new int[0];
+    /** The packed x and y pixels of each point relative to the top left of the graph area */
+    private int[] pixels = new int[0];
+    /** The half length in pixels of the x error bar of each point or null if the x errors are not displayed */
+    private int[] errorBarsX;
+    /** The half length in pixels of the y error bar of each point or null if the y errors are not displayed */
+    private int[] errorBarsY;
+    /** The number of times the geometry has been built. Used by anything calculated from the geometry to tell if it is
+     * out of date */
+    private long version = 0;
+    /** The version of the geometry when all of its points were last converted. Points are only added to the end of
+     * the geometry after this version so anything made from the points of a version since then is still correct for
+     * those points */
+    private long lastRebuildVersion = 0;
+
+    /** The version of the DataSet's data the geometry was last built from */
+    private long builtDataVersion = -1;
+    /** The number of rows the DataSet had when the geometry was last built or added to */
+    private int builtNumberOfRows = 0;
+    /** The value of x at the left edge of the graph area the geometry was built for */
+    private double builtXMin = Double.NaN;
+    /** The value of y at the top edge of the graph area the geometry was built for */
+    private double builtYMax = Double.NaN;
+    /** The number of pixels per unit of x the geometry was built for */
+    private double builtPixelsPerX = Double.NaN;
+    /** The number of pixels per unit of y the geometry was built for */
+    private double builtPixelsPerY = Double.NaN;
+    /** The width in pixels of the graph area the geometry was built for */
+    private int width = 0;
+    /** The height in pixels of the graph area the geometry was built for */
+    private int height = 0;
+
+    /** Makes sure the geometry matches the passed DataSet's current data and the passed area of the graph, converting
+     * the rows to pixels again if anything it depends on has changed since it was last built
+     * 
+     * @param dataSet The DataSet whose rows to convert to pixels. This can be a snapshot of the DataSet so that the
+     *            geometry can be built while the DataSet is being drawn or edited
+     * @param dataVersion The version of the data of the DataSet the rows are from
+     * @param xIndex The index of the DataSet's rows sorted by x or null if there is none. It is only used if it was
+     *            built from the same version of the data and most of the rows are outside of the axes
+     * @param xMin The value of x at the left edge of the graph area
+     * @param yMax The value of y at the top edge of the graph area
+     * @param pixelsPerX The number of pixels per unit of x
+     * @param pixelsPerY The number of pixels per unit of y
+     * @param areaWidth The width in pixels of the graph area
+     * @param areaHeight The height in pixels of the graph area */
+    void update(DataSet dataSet, long dataVersion, SortedXIndex xIndex, double xMin, double yMax, double pixelsPerX,
+            double pixelsPerY, int areaWidth, int areaHeight)
+    {
+        if (dataVersion == builtDataVersion && xMin == builtXMin && yMax == builtYMax &&
+                pixelsPerX == builtPixelsPerX && pixelsPerY == builtPixelsPerY && areaWidth == width &&
+                areaHeight == height)
+        {
+            return;
+        }
+        builtXMin = xMin;
+        builtYMax = yMax;
+        builtPixelsPerX = pixelsPerX;
+        builtPixelsPerY = pixelsPerY;
+        width = areaWidth;
+        height = areaHeight;
+        numberOfPoints = 0;
+
+        // find the rows whose x values can be inside of the axes. The range is a couple of pixels wider than the axes
+        // so that rounding cannot leave out a point at the edge, which are still checked when they are converted
+        int numberOfRows = dataSet.getNumberOfRows();
+        int firstPosition = 0;
+        int endPosition = numberOfRows;
+        boolean useIndex = xIndex != null && xIndex.getDataVersion() == dataVersion && pixelsPerX > 0 &&
+                !Double.isInfinite(pixelsPerX);
+        if (useIndex)
+        {
+            firstPosition = xIndex.findFirst(xMin - 2 / pixelsPerX);
+            endPosition = xIndex.findEnd(xMin + (areaWidth + 2) / pixelsPerX);
+            // reading the rows one at a time is slower than reading them in blocks so it is only worth it if most of
+            // the rows are skipped
+            useIndex = (endPosition - firstPosition) * 2 < numberOfRows;
+        }
+
+        // reuse the arrays if they are already big enough
+        int mostPoints = useIndex ? endPosition - firstPosition : numberOfRows;
+        rows = ensureLength(rows, mostPoints);
+        pixels = ensureLength(pixels, mostPoints);
+        errorBarsX = dataSet.isErrorDataVisible(DataDimension.X) ? ensureLength(errorBarsX, mostPoints) : null;
+        errorBarsY = dataSet.isErrorDataVisible(DataDimension.Y) ? ensureLength(errorBarsY, mostPoints) : null;
+
+        if (!useIndex)
+        {
+            convertRows(dataSet, 0, numberOfRows);
+        }
+        else if (xIndex.isInRowOrder())
+        {
+            // the rows in the range are next to each other so they can still be read in blocks
+            if (firstPosition < endPosition)
+            {
+                convertRows(dataSet, xIndex.getRow(firstPosition), xIndex.getRow(endPosition - 1) + 1);
+            }
+        }
+        else
+        {
+            for (int position = firstPosition; position < endPosition; position++)
+            {
+                int row = xIndex.getRow(position);
+                convertPoint(row, dataSet.readValue(DataDimension.X, row), dataSet.readValue(DataDimension.Y, row),
+                        dataSet.readErrorValue(DataDimension.X, row), dataSet.readErrorValue(DataDimension.Y, row));
+            }
+        }
+
+        builtDataVersion = dataVersion;
+        builtNumberOfRows = numberOfRows;
+        version++;
+        lastRebuildVersion = version;
+        dataSet.markDataVersion();
+    }
+
+    /** Adds the points of the rows appended to the passed DataSet since the geometry was last built without converting
+     * the rows it was already built from again. This can only be done if none of those rows have changed and the axes
+     * and size of the graph area are the same as when the geometry was built
+     * 
+     * @param dataSet The DataSet whose appended rows to convert to pixels
+     * @param dataVersion The current version of the data of the DataSet
+     * @param xMin The value of x at the left edge of the graph area
+     * @param yMax The value of y at the top edge of the graph area
+     * @param pixelsPerX The number of pixels per unit of x
+     * @param pixelsPerY The number of pixels per unit of y
+     * @param areaWidth The width in pixels of the graph area
+     * @param areaHeight The height in pixels of the graph area
+     * @return True if the geometry is up to date with the DataSet or false if it was left as it was because it needs
+     *         to be built again with update */
+    boolean append(DataSet dataSet, long dataVersion, double xMin, double yMax, double pixelsPerX, double pixelsPerY,
+            int areaWidth, int areaHeight)
+    {
+        if (xMin != builtXMin || yMax != builtYMax || pixelsPerX != builtPixelsPerX || pixelsPerY != builtPixelsPerY ||
+                areaWidth != width || areaHeight != height || dataSet.getFirstRowChangedSince(
+                        builtDataVersion) < builtNumberOfRows)
+        {
+            return false;
+        }
+        if (dataVersion == builtDataVersion)
+        {
+            return true;
+        }
+
+        int numberOfRows = dataSet.getNumberOfRows();
+        int mostPoints = numberOfPoints + Math.max(0, numberOfRows - builtNumberOfRows);
+        rows = growToFit(rows, mostPoints);
+        pixels = growToFit(pixels, mostPoints);
+        if (errorBarsX != null)
+        {
+            errorBarsX = growToFit(errorBarsX, mostPoints);
+        }
+        if (errorBarsY != null)
+        {
+            errorBarsY = growToFit(errorBarsY, mostPoints);
+        }
+
+        convertRows(dataSet, builtNumberOfRows, numberOfRows);
+
+        builtDataVersion = dataVersion;
+        builtNumberOfRows = Math.max(builtNumberOfRows, numberOfRows);
+        version++;
+        dataSet.markDataVersion();
+        return true;
+    }
+
+    /** Converts the consecutive rows of the passed DataSet in the passed range to pixels
+     * 
+     * @param dataSet The DataSet whose rows to convert
+     * @param firstRow The index of the first row to convert
+     * @param endRow The index just past the last row to convert */
+    private void convertRows(DataSet dataSet, int firstRow, int endRow)
+    {
+        // convert the data a block at a time so it does not have to be copied into arrays of Doubles
+        double[] dataX = new double[ColumnStorage.BLOCK_SIZE];
+        double[] dataY = new double[ColumnStorage.BLOCK_SIZE];
+        double[] dataXError = new double[ColumnStorage.BLOCK_SIZE];
+        double[] dataYError = new double[ColumnStorage.BLOCK_SIZE];
+        for (int start = firstRow; start < endRow; start += ColumnStorage.BLOCK_SIZE)
+        {
+            dataSet.readData(DataDimension.X, start, dataX);
+            dataSet.readData(DataDimension.Y, start, dataY);
+            dataSet.readErrorData(DataDimension.X, start, dataXError);
+            dataSet.readErrorData(DataDimension.Y, start, dataYError);
+
+            int blockLength = Math.min(ColumnStorage.BLOCK_SIZE, endRow - start);
+            for (int i = 0; i < blockLength; i++)
+            {
+                convertPoint(start + i, dataX[i], dataY[i], dataXError[i], dataYError[i]);
+            }
+        }
+    }
+
+    /** Converts the passed point to pixels and adds it to the geometry if it is inside of the graph area the geometry
+     * is being built for
+     * 
+     * @param row The index of the row of the point in the DataSet
+     * @param dataX The x value of the point or NaN if it does not have one
+     * @param dataY The y value of the point or NaN if it does not have one
+     * @param dataXError The x error/uncertainty of the point or NaN if it does not have one
+     * @param dataYError The y error/uncertainty of the point or NaN if it does not have one */
+    private void convertPoint(int row, double dataX, double dataY, double dataXError, double dataYError)
+    {
+        if (Double.isNaN(dataX) || Double.isNaN(dataY))
+        {
+            return;
+        }
+
+        // only the points that are in the graph area are drawn
+        int x = (int) ((dataX - builtXMin) * builtPixelsPerX);
+        int y = (int) ((builtYMax - dataY) * builtPixelsPerY);
+        if (x < 0 || x > width || y < 0 || y > height)
+        {
+            return;
+        }
+
+        rows[numberOfPoints] = row;
+        pixels[numberOfPoints] = (y << PIXEL_Y_SHIFT) | x;
+        if (errorBarsX != null)
+        {
+            errorBarsX[numberOfPoints] = convertErrorToPixels(dataXError, builtPixelsPerX);
+        }
+        if (errorBarsY != null)
+        {
+            errorBarsY[numberOfPoints] = convertErrorToPixels(dataYError, builtPixelsPerY);
+        }
+        numberOfPoints++;
+    }
+
+    /** Converts an error/uncertainty value to the half length in pixels of its error bar
+     * 
+     * @param error The error/uncertainty value or NaN if there is none
+     * @param pixelsPerUnit The number of pixels per unit of the error's dimension
+     * @return The half length of the error bar in pixels or NO_ERROR_BAR if there is no error */
+    private static int convertErrorToPixels(double error, double pixelsPerUnit)
+    {
+        if (Double.isNaN(error))
+        {
+            return NO_ERROR_BAR;
+        }
+        return Math.abs((int) (error * pixelsPerUnit));
+    }
+
+    /** Returns the passed array if it is at least the passed length or a new array of that length if it is not
+     * 
+     * @param array The array to reuse if it is long enough. This can be null
+     * @param length The length the array needs to be
+     * @return An array that is at least the passed length */
+    private static int[] ensureLength(int[] array, int length)
+    {
+        if (array == null || array.length < length)
+        {
+            return new int[length];
+        }
+        return array;
+    }
+
+    /** Returns the passed array if it is at least the passed length or a copy of it that is long enough, doubling its
+     * length so that adding a few points at a time does not copy the points each time
+     * 
+     * @param array The array to grow if it is too short
+     * @param length The length the array needs to be
+     * @return An array with the values of the passed array that is at least the passed length */
+    private static int[] growToFit(int[] array, int length)
+    {
+        if (array.length < length)
+        {
+            return Arrays.copyOf(array, Math.max(length, array.length * 2));
+        }
+        return array;
+    }
+
+    // Getters
+    /** Gets the number of points inside of the graph area
+     * 
+     * @return The number of points in the geometry */
+    int getNumberOfPoints()
+    {
+        return numberOfPoints;
+    }
+
+    /** Gets the index in the DataSet of the row of the point at the passed index
+     * 
+     * @param index The index of the point to get the row of
+     * @return The index of the row the point is from */
+    int getRow(int index)
+    {
+        return rows[index];
+    }
+
+    /** Gets the x pixel of the point at the passed index
+     * 
+     * @param index The index of the point to get the pixel of
+     * @return The x pixel of the point relative to the left edge of the graph area */
+    int getPixelX(int index)
+    {
+        return pixels[index] & PIXEL_X_MASK;
+    }
+
+    /** Gets the y pixel of the point at the passed index
+     * 
+     * @param index The index of the point to get the pixel of
+     * @return The y pixel of the point relative to the top edge of the graph area */
+    int getPixelY(int index)
+    {
+        return pixels[index] >>> PIXEL_Y_SHIFT;
+    }
+
+    /** Gets the half length of the x error bar of the point at the passed index
+     * 
+     * @param index The index of the point to get the error bar of
+     * @return The half length of the error bar in pixels or NO_ERROR_BAR if the point does not have one */
+    int getErrorBarX(int index)
+    {
+        return errorBarsX == null ? NO_ERROR_BAR : errorBarsX[index];
+    }
+
+    /** Gets the half length of the y error bar of the point at the passed index
+     * 
+     * @param index The index of the point to get the error bar of
+     * @return The half length of the error bar in pixels or NO_ERROR_BAR if the point does not have one */
+    int getErrorBarY(int index)
+    {
+        return errorBarsY == null ? NO_ERROR_BAR : errorBarsY[index];
+    }
+
+    /** Gets the width in pixels of the graph area the geometry was built for
+     * 
+     * @return The width of the graph area in pixels */
+    int getWidth()
+    {
+        return width;
+    }
+
+    /** Gets the height in pixels of the graph area the geometry was built for
+     * 
+     * @return The height of the graph area in pixels */
+    int getHeight()
+    {
+        return height;
+    }
+
+    /** Gets the number of times the geometry has been built. This only ever increases so a changed version means the
+     * pixels have changed since they were last checked
+     * 
+     * @return The version of the geometry */
+    long getVersion()
+    {
+        return version;
+    }
+
+    /** Gets the version of the geometry when all of its points were last converted. The points of any version since
+     * then are still the first points of the geometry
+     * 
+     * @return The version of the geometry when it was last built */
+    long getLastRebuildVersion()
+    {
+        return lastRebuildVersion;
+    }
+
+    /** Gets the version of the DataSet's data the geometry was last built from or added to
+     * 
+     * @return The version of the data the geometry is up to date with */
+    long getBuiltDataVersion()
+    {
+        return builtDataVersion;
+    }
+}
@@ -0,0 +1,175 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.util.Arrays;
+
+
+/** A spatial index of the points of a DataSet's PixelGeometry that buckets them into square cells of the graph area so
+ * that the points near the cursor or inside of a rectangle can be found by only looking at the points in the cells
+ * that overlap it instead of going through every point. The points are bucketed again only when the geometry is
+ * rebuilt
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class PointGrid
+{
+    /** The width and height of each cell in pixels */
+    private final static int CELL_SIZE = 16;
+
+    /** The geometry the points were bucketed from */
+    private PixelGeometry geometry;
+    /** The version of the geometry the points were bucketed from */
+    private long builtGeometryVersion = -1;
+    /** The number of columns of cells across the graph area */
+    private int cellColumns = 0;
+    /** The number of rows of cells down the graph area */
+    private int cellRows = 0;
+    /** The position in pointsByCell of the first point of each cell, with an extra entry at the end for the position
+     * just past the last point */
+    private int[] cellStarts = new int[1];
+    /** The indexes in the geometry of the points ordered by the cell they are in */
+    private int[] pointsByCell = new int[0];
+
+    /** Makes sure the grid matches the passed geometry, bucketing its points again if it is a different geometry or
+     * has been rebuilt since they were last bucketed
+     * 
+     * @param pixelGeometry The geometry of the DataSet whose points to bucket */
+    void update(PixelGeometry pixelGeometry)
+    {
+        if (pixelGeometry == geometry && pixelGeometry.getVersion() == builtGeometryVersion)
+        {
+            return;
+        }
+
+        cellColumns = pixelGeometry.getWidth() / CELL_SIZE + 1;
+        cellRows = pixelGeometry.getHeight() / CELL_SIZE + 1;
+        int numberOfPoints = pixelGeometry.getNumberOfPoints();
+
+        // count the points in each cell and then place each point after the points of the cells before its cell
+        cellStarts = new int[cellColumns * cellRows + 1];
+        for (int point = 0; point < numberOfPoints; point++)
+        {
+            cellStarts[getCell(pixelGeometry.getPixelX(point), pixelGeometry.getPixelY(point)) + 1]++;
+        }
+        for (int cell = 0; cell < cellColumns * cellRows; cell++)
+        {
+            cellStarts[cell + 1] += cellStarts[cell];
+        }
+
+        int[] nextInCell = Arrays.copyOf(cellStarts, cellStarts.length - 1);
+        pointsByCell = new int[numberOfPoints];
+        for (int point = 0; point < numberOfPoints; point++)
+        {
+            pointsByCell[nextInCell[getCell(pixelGeometry.getPixelX(point), pixelGeometry.getPixelY(point))]++] =
+                    point;
+        }
+
+        geometry = pixelGeometry;
+        builtGeometryVersion = pixelGeometry.getVersion();
+    }
+
+    /** Finds the point closest to the passed pixel that is no farther from it than the passed distance. When points
+     * are the same distance away the one that was added to the geometry last is found since it is drawn on top
+     * 
+     * @param x The x pixel relative to the left edge of the graph area to find the closest point to
+     * @param y The y pixel relative to the top edge of the graph area to find the closest point to
+     * @param maximumDistance The farthest in pixels the point can be from the passed pixel
+     * @return The index in the geometry of the closest point or -1 if there are none close enough */
+    int findNearest(int x, int y, int maximumDistance)
+    {
+        int closest = -1;
+        long closestDistanceSquared = (long) maximumDistance * maximumDistance;
+        int firstColumn = Math.max(0, (x - maximumDistance) / CELL_SIZE);
+        int lastColumn = Math.min(cellColumns - 1, (x + maximumDistance) / CELL_SIZE);
+        int firstRow = Math.max(0, (y - maximumDistance) / CELL_SIZE);
+        int lastRow = Math.min(cellRows - 1, (y + maximumDistance) / CELL_SIZE);
+        for (int row = firstRow; row <= lastRow; row++)
+        {
+            for (int column = firstColumn; column <= lastColumn; column++)
+            {
+                int cell = row * cellColumns + column;
+                for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++)
+                {
+                    int point = pointsByCell[i];
+                    long distanceX = geometry.getPixelX(point) - x;
+                    long distanceY = geometry.getPixelY(point) - y;
+                    long distanceSquared = distanceX * distanceX + distanceY * distanceY;
+                    if (distanceSquared < closestDistanceSquared || (distanceSquared == closestDistanceSquared &&
+                            point > closest))
+                    {
+                        closest = point;
+                        closestDistanceSquared = distanceSquared;
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    /** Finds all the points inside of the passed rectangle, including any on its edges
+     * 
+     * @param left The x pixel of the left edge of the rectangle relative to the left edge of the graph area
+     * @param top The y pixel of the top edge of the rectangle relative to the top edge of the graph area
+     * @param right The x pixel of the right edge of the rectangle relative to the left edge of the graph area
+     * @param bottom The y pixel of the bottom edge of the rectangle relative to the top edge of the graph area
+     * @return The indexes in the geometry of the points inside of the rectangle */
+    int[] findInRectangle(int left, int top, int right, int bottom)
+    {
+        int[] found = new int[0];
+        int numberFound = 0;
+        if (geometry == null || right < 0 || bottom < 0)
+        {
+            return found;
+        }
+
+        int firstColumn = Math.max(0, left / CELL_SIZE);
+        int lastColumn = Math.min(cellColumns - 1, right / CELL_SIZE);
+        int firstRow = Math.max(0, top / CELL_SIZE);
+        int lastRow = Math.min(cellRows - 1, bottom / CELL_SIZE);
+        for (int row = firstRow; row <= lastRow; row++)
+        {
+            for (int column = firstColumn; column <= lastColumn; column++)
+            {
+                int cell = row * cellColumns + column;
+                for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++)
+                {
+                    int point = pointsByCell[i];
+                    int x = geometry.getPixelX(point);
+                    int y = geometry.getPixelY(point);
+                    if (x >= left && x <= right && y >= top && y <= bottom)
+                    {
+                        if (numberFound == found.length)
+                        {
+                            found = Arrays.copyOf(found, Math.max(ColumnStorage.BLOCK_SIZE, found.length * 2));
+                        }
+                        found[numberFound++] = point;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(found, numberFound);
+    }
+
+    /** Gets the cell that the passed pixel is in
+     * 
+     * @param x The x pixel relative to the left edge of the graph area
+     * @param y The y pixel relative to the top edge of the graph area
+     * @return The index of the cell containing the pixel */
+    private int getCell(int x, int y)
+    {
+        return (y / CELL_SIZE) * cellColumns + x / CELL_SIZE;
+    }
+}
@@ -0,0 +1,198 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+package linefit;
+
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RectangularShape;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/** The marker drawn for each of the points of a DataSet on the graph. A single shape is reused and moved to each point
+ * instead of a new one being created for every point, and the marker can also be drawn by copying a small image of it
+ * that has already been drawn (a sprite). Sprites are kept for each combination of shape, color and size that is used
+ * so drawing a point does not need to fill an anti-aliased shape at all. Squares are always filled as plain rectangles
+ * since they line up with the pixels and fill faster than a sprite can be copied
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class PointMarker
+{
+    /** The most sprites to keep at once. Each is only a few pixels but picking custom colors can create many of them */
+    private final static int MAXIMUM_CACHED_SPRITES = 64;
+    /** The sprites that have been drawn so far keyed by the shape class, color and width they were drawn with */
+    private final static SpriteCache sprites = new SpriteCache();
+
+    /** The shape that is moved to each point that the marker is drawn at */
+    private final Shape marker;
+    /** The width and height of the marker in pixels */
+    private final int width;
+    /** The sprite to draw the marker with or null if the marker shape is filled at each point instead */
+    private BufferedImage sprite = null;
+
+    /** Creates a marker that draws the same kind of shape as the passed DataSet shape
+     * 
+     * @param dataSetShape The shape of the DataSet. Only its class is used to determine the kind of marker to draw
+     * @param markerWidth The width and height of the marker in pixels
+     * @param color The color to draw the marker in
+     * @param useSprite True to draw the marker by copying a sprite of it, which is much faster, or false to fill the
+     *            marker shape at each point so it stays a shape when exported */
+    PointMarker(Shape dataSetShape, int markerWidth, Color color, boolean useSprite)
+    {
+        width = markerWidth;
+        if (dataSetShape instanceof Ellipse2D)
+        {
+            marker = new Ellipse2D.Double();
+        }
+        else if (dataSetShape instanceof Polygon)
+        {
+            marker = new Polygon();
+        }
+        else
+        {
+            marker = new Rectangle2D.Double();
+        }
+
+        if (useSprite && !(marker instanceof Rectangle2D))
+        {
+            sprite = getSprite(color);
+        }
+    }
+
+    /** Draws the marker centered on the passed pixel. The color of the passed graphics must already be set to the
+     * marker's color unless it is drawn from a sprite
+     * 
+     * @param graphics The graphics to draw the marker with
+     * @param x The x pixel to center the marker on
+     * @param y The y pixel to center the marker on */
+    void draw(Graphics2D graphics, int x, int y)
+    {
+        if (sprite != null)
+        {
+            int center = getSpriteCenter();
+            graphics.drawImage(sprite, x - center, y - center, null);
+        }
+        else if (marker instanceof Rectangle2D)
+        {
+            graphics.fillRect(x - (width / 2), y - (width / 2), width, width);
+        }
+        else
+        {
+            graphics.fill(moveTo(x, y));
+        }
+    }
+
+    /** Moves the marker so that it is centered on the passed pixel and returns it so it can be filled. The returned
+     * shape is reused for each point so it is only valid until this is called again
+     * 
+     * @param x The x pixel to center the marker on
+     * @param y The y pixel to center the marker on
+     * @return The marker shape moved to the passed pixel */
+    private Shape moveTo(int x, int y)
+    {
+        if (marker instanceof Polygon)
+        {
+            // a triangle pointing up
+            Polygon triangle = (Polygon) marker;
+            triangle.reset();
+            triangle.addPoint(x, y - width / 2);
+            triangle.addPoint(x - width / 2, y + width / 2);
+            triangle.addPoint(x + width / 2, y + width / 2);
+        }
+        else
+        {
+            ((RectangularShape) marker).setFrame(x - (width / 2), y - (width / 2), width, width);
+        }
+        return marker;
+    }
+
+    /** Gets the sprite of this marker in the passed color, drawing it if it has not been used before
+     * 
+     * @param color The color to get the sprite in
+     * @return An image with the marker drawn in the passed color centered at getSpriteCenter() */
+    private BufferedImage getSprite(Color color)
+    {
+        List<Object> key = Arrays.<Object>asList(marker.getClass(), color, width);
+        synchronized (sprites)
+        {
+            BufferedImage sprite = sprites.get(key);
+            if (sprite == null)
+            {
+                sprite = drawSprite(color);
+                sprites.put(key, sprite);
+            }
+            return sprite;
+        }
+    }
+
+    /** Gets the pixel in the sprites of this marker that the marker is centered on. A sprite drawn at the pixel of a
+     * point minus this value lines up with the marker filled at that point
+     * 
+     * @return The x and y pixel of the center of the sprites */
+    private int getSpriteCenter()
+    {
+        // leave a pixel around the marker for the anti-aliased edges
+        return width / 2 + 1;
+    }
+
+    /** Draws the marker in the passed color into a new sprite the same way it is filled onto the graph
+     * 
+     * @param color The color to draw the marker in
+     * @return The newly drawn sprite */
+    private BufferedImage drawSprite(Color color)
+    {
+        int center = getSpriteCenter();
+        BufferedImage sprite = new BufferedImage(center * 2 + 1, center * 2 + 1, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D spriteGraphics = sprite.createGraphics();
+        spriteGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        spriteGraphics.setColor(color);
+        spriteGraphics.fill(moveTo(center, center));
+        spriteGraphics.dispose();
+        return sprite;
+    }
+
+    // private classes
+    /** A map of the sprites that removes the least recently used sprite once it has more than the maximum number of
+     * sprites in it
+     * 
+     * @author Keith Rice
+     * @version 1.0
+     * @since 0.99.0 */
+    private static class SpriteCache extends LinkedHashMap<List<Object>, BufferedImage>
+    {
+        /** The current serial version UID that changes when the interface of the class is changed */
+        private final static long serialVersionUID = 42;
+
+        /** Creates an empty cache that orders the sprites by when they were last used */
+        SpriteCache()
+        {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, BufferedImage> eldest)
+        {
+            return size() > MAXIMUM_CACHED_SPRITES;
+        }
+    }
+}
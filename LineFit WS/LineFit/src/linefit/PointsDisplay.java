@@ -0,0 +1,81 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+/** The ways the points of a DataSet can be drawn on the graph. The points can be drawn as markers, as a density map
+ * showing how many points are in each pixel or automatically switch to a density map once there are so many points
+ * that the markers would overlap into a blob
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public enum PointsDisplay
+{
+    AUTOMATIC("Automatic"), MARKERS("Markers"), DENSITY("Density");
+
+    /** The String that will be displayed for this PointsDisplay in the GUI */
+    private final String display;
+
+    /** The constructor of this enum that is used to initialize its members and assign their values
+     * 
+     * @param displayString The name of the PointsDisplay that will be displayed in the GUI */
+    PointsDisplay(String displayString)
+    {
+        display = displayString;
+    }
+
+    /** Retrieves the PointsDisplay from its passed string representation as returned by toString()
+     * 
+     * @param displayString The string representation of the PointsDisplay
+     * @return The PointsDisplay that the string represents or AUTOMATIC if the passed string was not a valid string
+     *         representation of a PointsDisplay */
+    public static PointsDisplay parseDisplay(String displayString)
+    {
+        for (PointsDisplay pointsDisplay : PointsDisplay.values())
+        {
+            if (displayString.equalsIgnoreCase(pointsDisplay.toString()))
+            {
+                return pointsDisplay;
+            }
+        }
+        return AUTOMATIC;
+    }
+
+    /** Gets whether the points of a DataSet with the passed number of points are drawn as a density map
+     * 
+     * @param numberOfPoints The number of points of the DataSet
+     * @param densityThreshold The number of points above which the points are automatically drawn as a density map
+     * @return True if the points are drawn as a density map and false if they are drawn as markers */
+    boolean usesDensityMap(int numberOfPoints, int densityThreshold)
+    {
+        switch (this)
+        {
+            case DENSITY:
+                return true;
+            case MARKERS:
+                return false;
+            default:
+                return numberOfPoints > densityThreshold;
+        }
+    }
+
+    /** Gets the String that is displayed in the GUI for this PointsDisplay
+     * 
+     * @return The display String of this PointsDisplay */
+    @Override
+    public String toString()
+    {
+        return display;
+    }
+}
@@ -0,0 +1,117 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+/** Keeps track of the lowest row of a DataSet written to since each of a few marked versions of its data so that
+ * anything drawn or calculated from one of those versions can tell if rows were only added at the end since then. In
+ * that case only the new rows need to be used instead of going through all of the data again. Only the most recently
+ * marked versions are kept so the log does not grow no matter how many rows are written
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class RowChangeLog
+{
+    /** The most versions that are kept track of at once */
+    private final static int MAXIMUM_MARKS = 4;
+
+    /** The marked versions of the data or -1 for marks that are not used */
+    private long[] markedVersions = { -1, -1, -1, -1 };
+    /** The lowest row written to since each of the marked versions */
+    private int[] lowestRowsWritten = new int[MAXIMUM_MARKS];
+    /** The index of the mark to replace next */
+    private int nextMark = 0;
+    /** The version of the data after the last logged write or mark */
+    private long loggedVersion = 0;
+
+    /** Starts keeping track of the rows written to from the passed version of the data on, replacing the oldest mark if
+     * there are already too many
+     * 
+     * @param version The current version of the data */
+    void mark(long version)
+    {
+        catchUp(version);
+        for (long markedVersion : markedVersions)
+        {
+            if (markedVersion == version)
+            {
+                return;
+            }
+        }
+
+        markedVersions[nextMark] = version;
+        lowestRowsWritten[nextMark] = Integer.MAX_VALUE;
+        nextMark = (nextMark + 1) % MAXIMUM_MARKS;
+    }
+
+    /** Logs a write to the passed row
+     * 
+     * @param versionBefore The version of the data just before the row was written
+     * @param versionAfter The version of the data just after the row was written
+     * @param row The index of the row that was written to */
+    void rowWritten(long versionBefore, long versionAfter, int row)
+    {
+        catchUp(versionBefore);
+        for (int i = 0; i < MAXIMUM_MARKS; i++)
+        {
+            lowestRowsWritten[i] = Math.min(lowestRowsWritten[i], row);
+        }
+        loggedVersion = versionAfter;
+    }
+
+    /** Checks if the data changed in some other way than writing to a row since the last logged write or mark, such as
+     * the error columns being shown or the data being compressed, and logs all of the rows as changed if it did
+     * 
+     * @param version The current version of the data */
+    private void catchUp(long version)
+    {
+        if (version != loggedVersion)
+        {
+            for (int i = 0; i < MAXIMUM_MARKS; i++)
+            {
+                lowestRowsWritten[i] = 0;
+            }
+            loggedVersion = version;
+        }
+    }
+
+    /** Gets the lowest row that was written to after the passed version of the data
+     * 
+     * @param version The version of the data to find the changes since
+     * @param currentVersion The current version of the data
+     * @return The index of the lowest row that has changed since the passed version, 0 if the version was not marked
+     *         or Integer.MAX_VALUE if the data has not changed */
+    int getFirstRowChangedSince(long version, long currentVersion)
+    {
+        if (version == currentVersion)
+        {
+            return Integer.MAX_VALUE;
+        }
+
+        // the data was changed without writing to a row after the last logged write
+        if (currentVersion != loggedVersion)
+        {
+            return 0;
+        }
+
+        for (int i = 0; i < MAXIMUM_MARKS; i++)
+        {
+            if (markedVersions[i] == version)
+            {
+                return lowestRowsWritten[i];
+            }
+        }
+        return 0;
+    }
+}
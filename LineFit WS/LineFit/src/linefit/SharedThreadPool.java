@@ -0,0 +1,77 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/** The pools of threads shared by everything in LineFit that splits its work across the processors. The main pool is
+ * only for short jobs that the event thread waits on, such as drawing the markers in tiles and binning density maps, so
+ * that a repaint never has to wait behind other work. Long running work that the event thread does not wait on, such
+ * as comparing the fit algorithms, goes on the separate background pool instead. The pools are only created the first
+ * time they are needed and are then kept for the rest of the run instead of creating and shutting down a new pool
+ * every time. Their threads are daemon threads so that they do not keep LineFit running once it is closed. Work should
+ * not be submitted to a pool from one of its own threads since it could end up waiting on itself
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+public class SharedThreadPool
+{
+    /** The shared pool for short jobs or null if it has not been needed yet */
+    private static ExecutorService executor = null;
+    /** The shared pool for long running background work or null if it has not been needed yet */
+    private static ExecutorService backgroundExecutor = null;
+
+    /** The pool only has static methods so no instances are made of it */
+    private SharedThreadPool()
+    {
+    }
+
+    /** Gets the shared pool for short jobs that the event thread waits on, creating it with one thread per processor
+     * the first time it is needed
+     * 
+     * @return The pool of threads to run the work on. It must not be shut down */
+    public static synchronized ExecutorService getExecutor()
+    {
+        if (executor == null)
+        {
+            executor = Executors.newFixedThreadPool(getNumberOfThreads(), new DaemonThreadFactory("LineFit worker"));
+        }
+        return executor;
+    }
+
+    /** Gets the shared pool for long running work that the event thread does not wait on, creating it with one thread
+     * per processor the first time it is needed
+     * 
+     * @return The pool of threads to run the background work on. It must not be shut down */
+    public static synchronized ExecutorService getBackgroundExecutor()
+    {
+        if (backgroundExecutor == null)
+        {
+            backgroundExecutor = Executors.newFixedThreadPool(getNumberOfThreads(), new DaemonThreadFactory(
+                    "LineFit background worker"));
+        }
+        return backgroundExecutor;
+    }
+
+    /** Gets the number of threads in each of the shared pools
+     * 
+     * @return The number of threads work can be split across */
+    public static int getNumberOfThreads()
+    {
+        return Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,228 @@
+/* Copyright (C) 2013 Covenant College Physics Department
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU Affero General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General License along with this program. If not, see
+ * http://www.gnu.org/licenses/. */
+
+package linefit;
+
+
+/** An index of the rows of a DataSet sorted by their x values so that the rows with x values in a range can be found
+ * with a binary search instead of going through every row. This lets a graph that is zoomed in on part of a large
+ * DataSet convert only the rows that can be inside of the axes. Only rows that have both an x and a y value are in
+ * the index. The index is only sorted again when the data of the DataSet changes
+ * 
+ * @author Keith Rice
+ * @version 1.0
+ * @since 0.99.0 */
+class SortedXIndex
+{
+    /** The number of rows in the index */
+    private int numberOfRows = 0;
+    /** The index of each row in the DataSet in order of increasing x */
+    private int[] rowsByX = new int[0];
+    /** The x value of each row in the same order as rowsByX */
+    private double[] sortedX = new double[0];
+    /** Whether or not the rows were already in order of increasing x in the DataSet */
+    private boolean inRowOrder = true;
+
+    /** The version of the DataSet's data the index was last built from */
+    private long builtDataVersion = -1;
+
+    /** Makes sure the index matches the passed DataSet's current data, sorting the rows again if the data has changed
+     * since it was last built
+     * 
+     * @param dataSet The DataSet whose rows to index. This can be a snapshot of the DataSet so that the index can be
+     *            built while the DataSet is being drawn or edited
+     * @param dataVersion The version of the data of the DataSet the rows are from */
+    void update(DataSet dataSet, long dataVersion)
+    {
+        if (dataVersion == builtDataVersion)
+        {
+            return;
+        }
+
+        int dataSetRows = dataSet.getNumberOfRows();
+        int[] rows = new int[dataSetRows];
+        double[] xValues = new double[dataSetRows];
+        numberOfRows = 0;
+        inRowOrder = true;
+
+        // read the data a block at a time so it does not have to be copied into arrays of Doubles
+        double[] dataX = new double[ColumnStorage.BLOCK_SIZE];
+        double[] dataY = new double[ColumnStorage.BLOCK_SIZE];
+        for (int start = 0; start < dataSetRows; start += ColumnStorage.BLOCK_SIZE)
+        {
+            dataSet.readData(DataDimension.X, start, dataX);
+            dataSet.readData(DataDimension.Y, start, dataY);
+
+            int blockLength = Math.min(ColumnStorage.BLOCK_SIZE, dataSetRows - start);
+            for (int i = 0; i < blockLength; i++)
+            {
+                if (!Double.isNaN(dataX[i]) && !Double.isNaN(dataY[i]))
+                {
+                    if (numberOfRows > 0 && dataX[i] < xValues[numberOfRows - 1])
+                    {
+                        inRowOrder = false;
+                    }
+                    rows[numberOfRows] = start + i;
+                    xValues[numberOfRows] = dataX[i];
+                    numberOfRows++;
+                }
+            }
+        }
+
+        // data that was taken in order of x, such as over time, is already sorted
+        if (!inRowOrder)
+        {
+            sortByX(rows, xValues, numberOfRows);
+        }
+        rowsByX = rows;
+        sortedX = xValues;
+        builtDataVersion = dataVersion;
+    }
+
+    /** Sorts the passed rows by their x values with a merge sort. The sort is stable so rows with the same x value
+     * stay in the order they are in the DataSet
+     * 
+     * @param rows The indexes of the rows to sort
+     * @param xValues The x value of each of the rows, which is sorted along with them
+     * @param length The number of rows to sort */
+    private static void sortByX(int[] rows, double[] xValues, int length)
+    {
+        int[] rowsBuffer = new int[length];
+        double[] xBuffer = new double[length];
+        int[] fromRows = rows;
+        double[] fromX = xValues;
+        int[] toRows = rowsBuffer;
+        double[] toX = xBuffer;
+
+        // merge runs of doubling length back and forth between the arrays and the buffers
+        for (int runLength = 1; runLength < length; runLength *= 2)
+        {
+            for (int start = 0; start < length; start += 2 * runLength)
+            {
+                int middle = Math.min(start + runLength, length);
+                int end = Math.min(start + 2 * runLength, length);
+                int left = start;
+                int right = middle;
+                for (int to = start; to < end; to++)
+                {
+                    if (right >= end || (left < middle && fromX[left] <= fromX[right]))
+                    {
+                        toRows[to] = fromRows[left];
+                        toX[to] = fromX[left++];
+                    }
+                    else
+                    {
+                        toRows[to] = fromRows[right];
+                        toX[to] = fromX[right++];
+                    }
+                }
+            }
+
+            int[] swapRows = fromRows;
+            fromRows = toRows;
+            toRows = swapRows;
+            double[] swapX = fromX;
+            fromX = toX;
+            toX = swapX;
+        }
+
+        // make sure the sorted rows end up in the passed arrays
+        if (fromRows != rows)
+        {
+            System.arraycopy(fromRows, 0, rows, 0, length);
+            System.arraycopy(fromX, 0, xValues, 0, length);
+        }
+    }
+
+    /** Finds the position in the index of the first row with an x value that is at least the passed value
+     * 
+     * @param x The smallest x value to find
+     * @return The position of the first row with an x value that is greater than or equal to the passed value or the
+     *         number of rows in the index if there are none */
+    int findFirst(double x)
+    {
+        int low = 0;
+        int high = numberOfRows;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (sortedX[middle] < x)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /** Finds the position in the index just past the last row with an x value that is at most the passed value
+     * 
+     * @param x The largest x value to find
+     * @return The position of the first row with an x value that is greater than the passed value or the number of
+     *         rows in the index if there are none */
+    int findEnd(double x)
+    {
+        int low = 0;
+        int high = numberOfRows;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (sortedX[middle] <= x)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Getters
+    /** Gets the number of rows in the index, which are the rows of the DataSet that have both an x and a y value
+     * 
+     * @return The number of rows in the index */
+    int getNumberOfRows()
+    {
+        return numberOfRows;
+    }
+
+    /** Gets the index in the DataSet of the row at the passed position in the index
+     * 
+     * @param position The position in the index of the row
+     * @return The index of the row in the DataSet */
+    int getRow(int position)
+    {
+        return rowsByX[position];
+    }
+
+    /** Gets whether or not the rows were already in order of increasing x in the DataSet, in which case the rows
+     * between any two positions in the index are also next to each other in the DataSet
+     * 
+     * @return True if the rows of the DataSet are in order of increasing x */
+    boolean isInRowOrder()
+    {
+        return inRowOrder;
+    }
+
+    /** Gets the version of the DataSet's data the index was last built from
+     * 
+     * @return The data version the index was built from */
+    long getDataVersion()
+    {
+        return builtDataVersion;
+    }
+}
@@ -54,13 +54,17 @@ public class SpreadSheetAdapter implements ActionListener
 {
     private Clipboard clipboard;
     private JTable tableActedOn;
+    /** The DataSet whose data is in the table so that pastes and deletes can be done as a single batch of edits */
+    private DataSet dataSetActedOn;
 
     /** Creates the Adapter based on the JTable that it listens to in order to add copy, paste, etc. functionalities too
      * 
-     * @param tableToListenOn The table that this will listen to */
-    public SpreadSheetAdapter(JTable tableToListenOn)
+     * @param tableToListenOn The table that this will listen to
+     * @param dataSetOfTable The DataSet whose data is displayed in the table */
+    public SpreadSheetAdapter(JTable tableToListenOn, DataSet dataSetOfTable)
     {
         tableActedOn = tableToListenOn;
+        dataSetActedOn = dataSetOfTable;
 
         // Set up the keystrokes to use for the commands so it activates the listener
         KeyStroke copy = KeyStroke.getKeyStroke(KeyEvent.VK_C, Toolkit.getDefaultToolkit().getMenuShortcutKeyMask(),
@@ -126,10 +130,11 @@ public class SpreadSheetAdapter implements ActionListener
         int startRow = (tableActedOn.getSelectedRows())[0];
         int startCol = (tableActedOn.getSelectedColumns())[0];
 
+        // paste all the values as one edit so the DataSet only updates once
+        dataSetActedOn.beginBatchEdit();
         try
         {
             String trstring = (String) (clipboard.getContents(this).getTransferData(DataFlavor.stringFlavor));
-            System.out.println("String is:\n" + trstring);
 
             String newLine;
             if (CheckOS.isMacOSX())
@@ -145,13 +150,10 @@ public class SpreadSheetAdapter implements ActionListener
             for (int i = 0; st1.hasMoreTokens(); i++)
             {
                 String rowstring = st1.nextToken();
-                System.out.println("String at row " + i + " is " + rowstring);
                 StringTokenizer st2 = new StringTokenizer(rowstring, "\t");
                 for (int j = 0; st2.hasMoreTokens(); j++)
                 {
                     String value = (String) st2.nextToken();
-                    int sRi = startRow + i, sCj = startCol + j; // debugging
-                    System.out.println("String at row " + sRi + " and column " + sCj + " is " + value);
                     // we keep track of the first value because it does wonky things on macs and wont take it
                     if (firstTime)
                     {
@@ -180,6 +182,10 @@ public class SpreadSheetAdapter implements ActionListener
         {
             e.printStackTrace();
         }
+        finally
+        {
+            dataSetActedOn.commitBatchEdit();
+        }
     }
 
     /** Deletes all the selected data and sets it to null so we don't read it as data */
@@ -187,13 +193,23 @@ public class SpreadSheetAdapter implements ActionListener
     {
         int rows[] = tableActedOn.getSelectedRows();
         int columns[] = tableActedOn.getSelectedColumns();
-        for (int i = 0; i < rows.length; i++)
+
+        // delete all the values as one edit so the DataSet only updates once
+        dataSetActedOn.beginBatchEdit();
+        try
         {
-            for (int j = 0; j < columns.length; j++)
+            for (int i = 0; i < rows.length; i++)
             {
-                tableActedOn.setValueAt(null, rows[i], columns[j]);
+                for (int j = 0; j < columns.length; j++)
+                {
+                    tableActedOn.setValueAt(null, rows[i], columns[j]);
+                }
             }
         }
+        finally
+        {
+            dataSetActedOn.commitBatchEdit();
+        }
     }
 
     /** The action listener that is triggered when one of our defined keystrokes are pressed which then calls an